@@ -32,6 +32,9 @@ public abstract class AbstractValue<T> implements Value<T> {
 	/** The name of the attribute this is the value for. */
 	protected final String attribute;
 
+	/** The last parsed value, if the configuration caches values. */
+	private volatile ParsedValue<T> parsedValue;
+
 	/**
 	 * Creates a new value that reads its values from the given configuration
 	 * backend.
@@ -46,4 +49,93 @@ public abstract class AbstractValue<T> implements Value<T> {
 		this.attribute = attribute;
 	}
 
+	//
+	// PROTECTED METHODS
+	//
+
+	/**
+	 * Parses the given string representation of this value.
+	 *
+	 * @param value
+	 *            The string representation of the value, as returned by the
+	 *            backend
+	 * @return The parsed value
+	 * @throws NumberFormatException
+	 *             if the value can not be parsed
+	 */
+	protected abstract T parseValue(String value) throws NumberFormatException;
+
+	/**
+	 * Returns the parsed value of this value’s attribute. If the configuration
+	 * caches parsed values, the backend is only asked for the value again
+	 * after it reported a change.
+	 *
+	 * @return The parsed value
+	 * @throws ConfigurationException
+	 *             if the value can not be retrieved or parsed
+	 */
+	protected T getParsedValue() throws ConfigurationException {
+		long generation = configuration.getGeneration();
+		ParsedValue<T> parsedValue = this.parsedValue;
+		if ((parsedValue != null) && (parsedValue.generation == generation)) {
+			return parsedValue.value;
+		}
+		String value = configuration.configurationBackend.getValue(attribute);
+		T result;
+		try {
+			result = parseValue(value);
+		} catch (NumberFormatException nfe1) {
+			throw new ValueFormatException("could not parse attribute \"" + value + "\".", nfe1);
+		}
+		if (generation != Configuration.NOT_CACHING) {
+			this.parsedValue = new ParsedValue<T>(generation, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the given value in the backend and discards the cached parsed
+	 * value.
+	 *
+	 * @param value
+	 *            The string representation of the value
+	 * @throws ConfigurationException
+	 *             if the value can not be stored
+	 */
+	protected void putValue(String value) throws ConfigurationException {
+		parsedValue = null;
+		configuration.configurationBackend.putValue(attribute, value);
+	}
+
+	/**
+	 * A parsed value and the generation of the configuration it was parsed
+	 * in.
+	 *
+	 * @param <T>
+	 *            The type of the value
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class ParsedValue<T> {
+
+		/** The generation of the configuration. */
+		final long generation;
+
+		/** The parsed value. */
+		final T value;
+
+		/**
+		 * Creates a new parsed value.
+		 *
+		 * @param generation
+		 *            The generation of the configuration
+		 * @param value
+		 *            The parsed value
+		 */
+		ParsedValue(long generation, T value) {
+			this.generation = generation;
+			this.value = value;
+		}
+
+	}
+
 }
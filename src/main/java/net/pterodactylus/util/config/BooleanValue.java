@@ -47,11 +47,7 @@ public class BooleanValue extends AbstractValue<Boolean> {
 		if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 			return ((ExtendedConfigurationBackend) configuration.configurationBackend).getBooleanValue(attribute);
 		}
-		String value = configuration.configurationBackend.getValue(attribute);
-		if (value == null) {
-			return null;
-		}
-		return ("true".equalsIgnoreCase(value)) || ("yes".equalsIgnoreCase(value)) || ("1".equalsIgnoreCase(value)) || ("on".equalsIgnoreCase(value));
+		return getParsedValue();
 	}
 
 	/**
@@ -65,11 +61,8 @@ public class BooleanValue extends AbstractValue<Boolean> {
 			if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 				return ((ExtendedConfigurationBackend) configuration.configurationBackend).getBooleanValue(attribute);
 			}
-			String value = configuration.configurationBackend.getValue(attribute);
-			if (value == null) {
-				return defaultValue;
-			}
-			return ("true".equalsIgnoreCase(value)) || ("yes".equalsIgnoreCase(value)) || ("1".equalsIgnoreCase(value)) || ("on".equalsIgnoreCase(value));
+			Boolean value = getParsedValue();
+			return (value == null) ? defaultValue : value;
 		} catch (ConfigurationException ce1) {
 			return defaultValue;
 		}
@@ -85,7 +78,22 @@ public class BooleanValue extends AbstractValue<Boolean> {
 		if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 			((ExtendedConfigurationBackend) configuration.configurationBackend).setBooleanValue(attribute, newValue);
 		}
-		configuration.configurationBackend.putValue(attribute, (newValue != null) ? String.valueOf(newValue) : null);
+		putValue((newValue != null) ? String.valueOf(newValue) : null);
+	}
+
+	//
+	// ABSTRACTVALUE METHODS
+	//
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Boolean parseValue(String value) {
+		if (value == null) {
+			return null;
+		}
+		return ("true".equalsIgnoreCase(value)) || ("yes".equalsIgnoreCase(value)) || ("1".equalsIgnoreCase(value)) || ("on".equalsIgnoreCase(value));
 	}
 
 }
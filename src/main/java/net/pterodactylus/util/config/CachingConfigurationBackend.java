@@ -17,21 +17,46 @@
 
 package net.pterodactylus.util.config;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Configuration backend proxy that caches the attribute values it retrieves.
+ * <p>
+ * If the real configuration backend is an
+ * {@link ObservableConfigurationBackend}, changed attributes are removed from
+ * the cache when the real backend reports a change, so that changes that were
+ * not made through this backend are picked up as well. In that case
+ * {@link #close()} should be called when this backend is no longer used.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
 public class CachingConfigurationBackend implements ConfigurationBackend {
 
+	/** The value stored in the cache for {@code null} values. */
+	private static final Object NULL_VALUE = new Object();
+
 	/** The real configuration backend. */
 	private final ConfigurationBackend realConfigurationBackend;
 
 	/** The cache for the attribute values. */
-	private final Map<String, String> attributeCache = new HashMap<String, String>();
+	private final ConcurrentMap<String, Object> attributeCache = new ConcurrentHashMap<String, Object>();
+
+	/** The number of changes reported by the real backend. */
+	private final AtomicLong changes = new AtomicLong();
+
+	/** The listener for changes of the real backend. */
+	private final ConfigurationListener configurationListener = new ConfigurationListener() {
+
+		@Override
+		@SuppressWarnings("synthetic-access")
+		public void attributesChanged(ConfigurationBackend configurationBackend, Set<String> attributes) {
+			changes.incrementAndGet();
+			attributeCache.keySet().removeAll(attributes);
+		}
+	};
 
 	/**
 	 * Creates a new caching configuration backend that works as a proxy for the
@@ -42,6 +67,9 @@ public class CachingConfigurationBackend implements ConfigurationBackend {
 	 */
 	public CachingConfigurationBackend(ConfigurationBackend realConfigurationBackend) {
 		this.realConfigurationBackend = realConfigurationBackend;
+		if (realConfigurationBackend instanceof ObservableConfigurationBackend) {
+			((ObservableConfigurationBackend) realConfigurationBackend).addConfigurationListener(configurationListener);
+		}
 	}
 
 	/**
@@ -50,13 +78,20 @@ public class CachingConfigurationBackend implements ConfigurationBackend {
 	 * @see net.pterodactylus.util.config.ConfigurationBackend#getValue(java.lang.String)
 	 */
 	@Override
-	public synchronized String getValue(String attribute) throws ConfigurationException {
-		if (attributeCache.containsKey(attribute)) {
-			return attributeCache.get(attribute);
+	public String getValue(String attribute) throws ConfigurationException {
+		Object cachedValue = attributeCache.get(attribute);
+		if (cachedValue != null) {
+			return unmask(cachedValue);
 		}
+		long changesBeforeRead = changes.get();
 		String value = realConfigurationBackend.getValue(attribute);
-		attributeCache.put(attribute, value);
-		return value;
+		if (changes.get() != changesBeforeRead) {
+			/* the value might be outdated already, don’t cache it. */
+			cachedValue = attributeCache.get(attribute);
+			return (cachedValue != null) ? unmask(cachedValue) : value;
+		}
+		cachedValue = attributeCache.putIfAbsent(attribute, mask(value));
+		return (cachedValue != null) ? unmask(cachedValue) : value;
 	}
 
 	/**
@@ -66,9 +101,9 @@ public class CachingConfigurationBackend implements ConfigurationBackend {
 	 *      java.lang.String)
 	 */
 	@Override
-	public synchronized void putValue(String attribute, String value) throws ConfigurationException {
-		attributeCache.put(attribute, value);
+	public void putValue(String attribute, String value) throws ConfigurationException {
 		realConfigurationBackend.putValue(attribute, value);
+		attributeCache.put(attribute, mask(value));
 	}
 
 	/**
@@ -82,8 +117,45 @@ public class CachingConfigurationBackend implements ConfigurationBackend {
 	/**
 	 * Clears the current cache, causing the all further lookups to be repeated.
 	 */
-	public synchronized void clear() {
+	public void clear() {
 		attributeCache.clear();
 	}
 
+	/**
+	 * Stops listening for changes of the real backend. This backend should not
+	 * be used after it has been closed.
+	 */
+	public void close() {
+		if (realConfigurationBackend instanceof ObservableConfigurationBackend) {
+			((ObservableConfigurationBackend) realConfigurationBackend).removeConfigurationListener(configurationListener);
+		}
+		clear();
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Returns the object to store in the cache for the given value.
+	 *
+	 * @param value
+	 *            The value to store
+	 * @return The object to store in the cache
+	 */
+	private static Object mask(String value) {
+		return (value == null) ? NULL_VALUE : value;
+	}
+
+	/**
+	 * Returns the value for the given object stored in the cache.
+	 *
+	 * @param cachedValue
+	 *            The object stored in the cache
+	 * @return The value
+	 */
+	private static String unmask(Object cachedValue) {
+		return (cachedValue == NULL_VALUE) ? null : (String) cachedValue;
+	}
+
 }
@@ -17,34 +17,59 @@
 
 package net.pterodactylus.util.config;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A configuration contains all necessary methods to read integral data types
  * from a {@link ConfigurationBackend}.
+ * <p>
+ * If the backend is an {@link ObservableConfigurationBackend}, the
+ * {@link Value}s created by a configuration cache their parsed values until
+ * the backend reports a change; otherwise every read is forwarded to the
+ * backend. Such a configuration registers a listener with its backend, so
+ * {@link #close()} should be called when it is no longer used. A configuration
+ * can be used from multiple threads at the same time.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
 public class Configuration {
 
+	/** The generation of a configuration that does not cache values. */
+	static final long NOT_CACHING = -1;
+
 	/** The backend backing this configuration. */
 	final ConfigurationBackend configurationBackend;
 
+	/** The generation of the values, incremented on every change. */
+	private final AtomicLong generation = new AtomicLong();
+
+	/** The listener for changes of the backend. */
+	private final ConfigurationListener configurationListener = new ConfigurationListener() {
+
+		@Override
+		@SuppressWarnings("synthetic-access")
+		public void attributesChanged(ConfigurationBackend configurationBackend, Set<String> attributes) {
+			generation.incrementAndGet();
+		}
+	};
+
 	/** The cache for boolean values. */
-	private final Map<String, BooleanValue> booleanCache = new HashMap<String, BooleanValue>();
+	private final ConcurrentMap<String, BooleanValue> booleanCache = new ConcurrentHashMap<String, BooleanValue>();
 
 	/** The cache for double values. */
-	private final Map<String, DoubleValue> doubleCache = new HashMap<String, DoubleValue>();
+	private final ConcurrentMap<String, DoubleValue> doubleCache = new ConcurrentHashMap<String, DoubleValue>();
 
 	/** The cache for string values. */
-	private final Map<String, StringValue> stringCache = new HashMap<String, StringValue>();
+	private final ConcurrentMap<String, StringValue> stringCache = new ConcurrentHashMap<String, StringValue>();
 
 	/** The cache for integer values. */
-	private final Map<String, IntegerValue> integerCache = new HashMap<String, IntegerValue>();
+	private final ConcurrentMap<String, IntegerValue> integerCache = new ConcurrentHashMap<String, IntegerValue>();
 
 	/** The cache for long values. */
-	private final Map<String, LongValue> longCache = new HashMap<String, LongValue>();
+	private final ConcurrentMap<String, LongValue> longCache = new ConcurrentHashMap<String, LongValue>();
 
 	/**
 	 * Creates a new configuration that operates on the given backend.
@@ -54,6 +79,11 @@ public class Configuration {
 	 */
 	public Configuration(ConfigurationBackend configurationBackend) {
 		this.configurationBackend = configurationBackend;
+		if (!(configurationBackend instanceof ObservableConfigurationBackend)) {
+			generation.set(NOT_CACHING);
+			return;
+		}
+		((ObservableConfigurationBackend) configurationBackend).addConfigurationListener(configurationListener);
 	}
 
 	/**
@@ -66,8 +96,11 @@ public class Configuration {
 	public Value<Boolean> getBooleanValue(String attribute) {
 		BooleanValue booleanValue = booleanCache.get(attribute);
 		if (booleanValue == null) {
-			booleanValue = new BooleanValue(this, attribute);
-			booleanCache.put(attribute, booleanValue);
+			BooleanValue newValue = new BooleanValue(this, attribute);
+			booleanValue = booleanCache.putIfAbsent(attribute, newValue);
+			if (booleanValue == null) {
+				booleanValue = newValue;
+			}
 		}
 		return booleanValue;
 	}
@@ -82,8 +115,11 @@ public class Configuration {
 	public Value<Double> getDoubleValue(String attribute) {
 		DoubleValue doubleValue = doubleCache.get(attribute);
 		if (doubleValue == null) {
-			doubleValue = new DoubleValue(this, attribute);
-			doubleCache.put(attribute, doubleValue);
+			DoubleValue newValue = new DoubleValue(this, attribute);
+			doubleValue = doubleCache.putIfAbsent(attribute, newValue);
+			if (doubleValue == null) {
+				doubleValue = newValue;
+			}
 		}
 		return doubleValue;
 	}
@@ -98,8 +134,11 @@ public class Configuration {
 	public Value<Integer> getIntValue(String attribute) {
 		IntegerValue integerValue = integerCache.get(attribute);
 		if (integerValue == null) {
-			integerValue = new IntegerValue(this, attribute);
-			integerCache.put(attribute, integerValue);
+			IntegerValue newValue = new IntegerValue(this, attribute);
+			integerValue = integerCache.putIfAbsent(attribute, newValue);
+			if (integerValue == null) {
+				integerValue = newValue;
+			}
 		}
 		return integerValue;
 	}
@@ -114,8 +153,11 @@ public class Configuration {
 	public Value<Long> getLongValue(String attribute) {
 		LongValue longValue = longCache.get(attribute);
 		if (longValue == null) {
-			longValue = new LongValue(this, attribute);
-			longCache.put(attribute, longValue);
+			LongValue newValue = new LongValue(this, attribute);
+			longValue = longCache.putIfAbsent(attribute, newValue);
+			if (longValue == null) {
+				longValue = newValue;
+			}
 		}
 		return longValue;
 	}
@@ -130,12 +172,30 @@ public class Configuration {
 	public Value<String> getStringValue(String attribute) {
 		StringValue stringValue = stringCache.get(attribute);
 		if (stringValue == null) {
-			stringValue = new StringValue(this, attribute);
-			stringCache.put(attribute, stringValue);
+			StringValue newValue = new StringValue(this, attribute);
+			stringValue = stringCache.putIfAbsent(attribute, newValue);
+			if (stringValue == null) {
+				stringValue = newValue;
+			}
 		}
 		return stringValue;
 	}
 
+	//
+	// PACKAGE-PRIVATE METHODS
+	//
+
+	/**
+	 * Returns the generation of the values of this configuration. The
+	 * generation changes whenever the backend reports a change.
+	 *
+	 * @return The generation of the values, or {@link #NOT_CACHING} if the
+	 *         values of this configuration must not be cached
+	 */
+	long getGeneration() {
+		return generation.get();
+	}
+
 	/**
 	 * Saves the configuration. This request is usually forwarded to the
 	 * {@link ConfigurationBackend}.
@@ -148,4 +208,16 @@ public class Configuration {
 		configurationBackend.save();
 	}
 
+	/**
+	 * Removes the listener this configuration registered with its backend.
+	 * Values of a closed configuration can still be used but are not cached
+	 * anymore.
+	 */
+	public void close() {
+		if (configurationBackend instanceof ObservableConfigurationBackend) {
+			((ObservableConfigurationBackend) configurationBackend).removeConfigurationListener(configurationListener);
+			generation.set(NOT_CACHING);
+		}
+	}
+
 }
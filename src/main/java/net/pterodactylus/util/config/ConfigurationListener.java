@@ -0,0 +1,43 @@
+/*
+ * utils - ConfigurationListener.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.config;
+
+import java.util.EventListener;
+import java.util.Set;
+
+/**
+ * Listener for changes of the values stored in a {@link ConfigurationBackend}.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public interface ConfigurationListener extends EventListener {
+
+	/**
+	 * Notifies a listener that the values of the given attributes have
+	 * changed, either because they were set or because the backend reloaded
+	 * its configuration.
+	 *
+	 * @param configurationBackend
+	 *            The configuration backend whose values changed
+	 * @param attributes
+	 *            The names of the attributes that changed, including added and
+	 *            removed attributes
+	 */
+	public void attributesChanged(ConfigurationBackend configurationBackend, Set<String> attributes);
+
+}
@@ -0,0 +1,56 @@
+/*
+ * utils - ConfigurationListenerManager.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.config;
+
+import java.util.Set;
+
+import net.pterodactylus.util.event.AbstractListenerManager;
+
+/**
+ * Listener manager for {@link ConfigurationListener}s.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class ConfigurationListenerManager extends AbstractListenerManager<ConfigurationBackend, ConfigurationListener> {
+
+	/**
+	 * Creates a new listener manager for {@link ConfigurationListener}s.
+	 *
+	 * @param configurationBackend
+	 *            The source configuration backend
+	 */
+	public ConfigurationListenerManager(ConfigurationBackend configurationBackend) {
+		super(configurationBackend);
+	}
+
+	/**
+	 * Notifies listeners that the values of the given attributes have changed.
+	 *
+	 * @param attributes
+	 *            The names of the attributes that changed
+	 */
+	public void fireAttributesChanged(Set<String> attributes) {
+		if (attributes.isEmpty()) {
+			return;
+		}
+		for (ConfigurationListener configurationListener : getListeners()) {
+			configurationListener.attributesChanged(getSource(), attributes);
+		}
+	}
+
+}
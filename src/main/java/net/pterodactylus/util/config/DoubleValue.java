@@ -47,14 +47,7 @@ public class DoubleValue extends AbstractValue<Double> {
 		if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 			return ((ExtendedConfigurationBackend) configuration.configurationBackend).getDoubleValue(attribute);
 		}
-		String value = null;
-		try {
-			value = configuration.configurationBackend.getValue(attribute);
-			double doubleValue = Double.valueOf(value);
-			return doubleValue;
-		} catch (NumberFormatException nfe1) {
-			throw new ValueFormatException("could not parse attribute \"" + value + "\".", nfe1);
-		}
+		return getParsedValue();
 	}
 
 	/**
@@ -64,16 +57,11 @@ public class DoubleValue extends AbstractValue<Double> {
 	 */
 	@Override
 	public Double getValue(Double defaultValue) {
-		String value = null;
 		try {
 			if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 				return ((ExtendedConfigurationBackend) configuration.configurationBackend).getDoubleValue(attribute);
 			}
-			value = configuration.configurationBackend.getValue(attribute);
-			double doubleValue = Double.valueOf(value);
-			return doubleValue;
-		} catch (NumberFormatException nfe1) {
-			return defaultValue;
+			return getParsedValue();
 		} catch (ConfigurationException ce1) {
 			return defaultValue;
 		}
@@ -89,7 +77,22 @@ public class DoubleValue extends AbstractValue<Double> {
 		if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 			((ExtendedConfigurationBackend) configuration.configurationBackend).setDoubleValue(attribute, newValue);
 		}
-		configuration.configurationBackend.putValue(attribute, (newValue != null) ? String.valueOf(newValue) : null);
+		putValue((newValue != null) ? String.valueOf(newValue) : null);
+	}
+
+	//
+	// ABSTRACTVALUE METHODS
+	//
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Double parseValue(String value) throws NumberFormatException {
+		if (value == null) {
+			throw new NumberFormatException("null");
+		}
+		return Double.valueOf(value);
 	}
 
 }
@@ -47,14 +47,7 @@ public class IntegerValue extends AbstractValue<Integer> {
 		if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 			return ((ExtendedConfigurationBackend) configuration.configurationBackend).getIntegerValue(attribute);
 		}
-		String value = null;
-		try {
-			value = configuration.configurationBackend.getValue(attribute);
-			int integerValue = Integer.valueOf(value);
-			return integerValue;
-		} catch (NumberFormatException nfe1) {
-			throw new ValueFormatException("could not parse attribute \"" + value + "\".", nfe1);
-		}
+		return getParsedValue();
 	}
 
 	/**
@@ -64,16 +57,11 @@ public class IntegerValue extends AbstractValue<Integer> {
 	 */
 	@Override
 	public Integer getValue(Integer defaultValue) {
-		String value = null;
 		try {
 			if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 				return ((ExtendedConfigurationBackend) configuration.configurationBackend).getIntegerValue(attribute);
 			}
-			value = configuration.configurationBackend.getValue(attribute);
-			int integerValue = Integer.valueOf(value);
-			return integerValue;
-		} catch (NumberFormatException nfe1) {
-			return defaultValue;
+			return getParsedValue();
 		} catch (ConfigurationException ce1) {
 			return defaultValue;
 		}
@@ -89,7 +77,19 @@ public class IntegerValue extends AbstractValue<Integer> {
 		if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 			((ExtendedConfigurationBackend) configuration.configurationBackend).setIntegerValue(attribute, newValue);
 		}
-		configuration.configurationBackend.putValue(attribute, (newValue != null) ? String.valueOf(newValue) : null);
+		putValue((newValue != null) ? String.valueOf(newValue) : null);
+	}
+
+	//
+	// ABSTRACTVALUE METHODS
+	//
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Integer parseValue(String value) throws NumberFormatException {
+		return Integer.valueOf(value);
 	}
 
 }
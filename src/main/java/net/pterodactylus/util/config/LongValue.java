@@ -47,14 +47,7 @@ public class LongValue extends AbstractValue<Long> {
 		if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 			return ((ExtendedConfigurationBackend) configuration.configurationBackend).getLongValue(attribute);
 		}
-		String value = null;
-		try {
-			value = configuration.configurationBackend.getValue(attribute);
-			long longValue = Long.valueOf(value);
-			return longValue;
-		} catch (NumberFormatException nfe1) {
-			throw new ValueFormatException("could not parse attribute \"" + value + "\".", nfe1);
-		}
+		return getParsedValue();
 	}
 
 	/**
@@ -64,16 +57,11 @@ public class LongValue extends AbstractValue<Long> {
 	 */
 	@Override
 	public Long getValue(Long defaultValue) {
-		String value = null;
 		try {
 			if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 				return ((ExtendedConfigurationBackend) configuration.configurationBackend).getLongValue(attribute);
 			}
-			value = configuration.configurationBackend.getValue(attribute);
-			long longValue = Long.valueOf(value);
-			return longValue;
-		} catch (NumberFormatException nfe1) {
-			return defaultValue;
+			return getParsedValue();
 		} catch (ConfigurationException ce1) {
 			return defaultValue;
 		}
@@ -89,7 +77,19 @@ public class LongValue extends AbstractValue<Long> {
 		if (configuration.configurationBackend instanceof ExtendedConfigurationBackend) {
 			((ExtendedConfigurationBackend) configuration.configurationBackend).setLongValue(attribute, newValue);
 		}
-		configuration.configurationBackend.putValue(attribute, (newValue != null) ? String.valueOf(newValue) : null);
+		putValue((newValue != null) ? String.valueOf(newValue) : null);
+	}
+
+	//
+	// ABSTRACTVALUE METHODS
+	//
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Long parseValue(String value) throws NumberFormatException {
+		return Long.valueOf(value);
 	}
 
 }
@@ -19,10 +19,10 @@ package net.pterodactylus.util.config;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
@@ -47,14 +47,20 @@ import net.pterodactylus.util.text.TextException;
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
-public class MapConfigurationBackend implements ConfigurationBackend {
+public class MapConfigurationBackend implements ObservableConfigurationBackend {
 
 	/** The logger. */
 	private static final Logger logger = Logging.getLogger(MapConfigurationBackend.class);
 
+	/** The configuration listeners. */
+	private final ConfigurationListenerManager configurationListenerManager = new ConfigurationListenerManager(this);
+
 	/** The backing file, if any. */
 	private final File configurationFile;
 
+	/** Lock that serializes saving. */
+	private final Object saveLock = new Object();
+
 	/** The backing map. */
 	private final Map<String, String> values = new HashMap<String, String>();
 
@@ -144,6 +150,30 @@ public class MapConfigurationBackend implements ConfigurationBackend {
 		}
 	}
 
+	//
+	// LISTENER MANAGEMENT
+	//
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addConfigurationListener(ConfigurationListener configurationListener) {
+		configurationListenerManager.addListener(configurationListener);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeConfigurationListener(ConfigurationListener configurationListener) {
+		configurationListenerManager.removeListener(configurationListener);
+	}
+
+	//
+	// INTERFACE ConfigurationBackend
+	//
+
 	/**
 	 * {@inheritDoc}
 	 *
@@ -167,8 +197,14 @@ public class MapConfigurationBackend implements ConfigurationBackend {
 	 */
 	@Override
 	public void putValue(String attribute, String value) throws ConfigurationException {
+		boolean changed;
 		synchronized (values) {
-			values.put(attribute, value);
+			boolean existed = values.containsKey(attribute);
+			String oldValue = values.put(attribute, value);
+			changed = !existed || ((oldValue == null) ? (value != null) : !oldValue.equals(value));
+		}
+		if (changed) {
+			configurationListenerManager.fireAttributesChanged(Collections.singleton(attribute));
 		}
 	}
 
@@ -177,9 +213,7 @@ public class MapConfigurationBackend implements ConfigurationBackend {
 	 */
 	@Override
 	public void save() throws ConfigurationException {
-		synchronized (values) {
-			saveValues();
-		}
+		saveValues();
 	}
 
 	//
@@ -259,7 +293,9 @@ public class MapConfigurationBackend implements ConfigurationBackend {
 	/**
 	 * Saves the configuration to the configuration file, if it is not
 	 * {@code null}. If no configuration file has been set, this method simply
-	 * returns.
+	 * returns. The values are copied while holding the lock on the map, but
+	 * the file is written without holding it; the file is replaced
+	 * atomically, after the new content has been synced to disk.
 	 *
 	 * @throws ConfigurationException
 	 *             if there was an error when writing the configuration
@@ -268,39 +304,38 @@ public class MapConfigurationBackend implements ConfigurationBackend {
 		if (configurationFile == null) {
 			return;
 		}
-		FileOutputStream configurationOutputStream = null;
-		OutputStreamWriter outputStreamWriter = null;
-		BufferedWriter bufferedWriter = null;
-		File tempFile = new File(configurationFile.getPath() + ".tmp");
-		try {
-			configurationOutputStream = new FileOutputStream(tempFile);
-			outputStreamWriter = new OutputStreamWriter(configurationOutputStream, "UTF-8");
-			bufferedWriter = new BufferedWriter(outputStreamWriter);
-			bufferedWriter.write("# MapConfigurationBackend.Version=1");
-			bufferedWriter.newLine();
-			for (Entry<String, String> value : values.entrySet()) {
-				bufferedWriter.write(StringEscaper.escapeWord(value.getKey()));
-				bufferedWriter.write(":");
-				if (value.getValue() != null) {
-					bufferedWriter.write(' ');
-					bufferedWriter.write(SimpleStringEscaper.escapeString(value.getValue()));
-				}
+		synchronized (saveLock) {
+			ByteArrayOutputStream configurationOutputStream = new ByteArrayOutputStream();
+			OutputStreamWriter outputStreamWriter = null;
+			BufferedWriter bufferedWriter = null;
+			try {
+				outputStreamWriter = new OutputStreamWriter(configurationOutputStream, "UTF-8");
+				bufferedWriter = new BufferedWriter(outputStreamWriter);
+				bufferedWriter.write("# MapConfigurationBackend.Version=1");
 				bufferedWriter.newLine();
+				synchronized (values) {
+					for (Entry<String, String> value : values.entrySet()) {
+						bufferedWriter.write(StringEscaper.escapeWord(value.getKey()));
+						bufferedWriter.write(":");
+						if (value.getValue() != null) {
+							bufferedWriter.write(' ');
+							bufferedWriter.write(SimpleStringEscaper.escapeString(value.getValue()));
+						}
+						bufferedWriter.newLine();
+					}
+				}
+				bufferedWriter.flush();
+				WriteBehindSaver.replaceFile(configurationFile, configurationOutputStream.toByteArray());
+			} catch (UnsupportedEncodingException uee1) {
+				/* impossible, I’d say. */
+				logger.log(Level.SEVERE, "JVM does not support UTF-8!");
+			} catch (IOException ioe1) {
+				throw new ConfigurationException("Could not write to configuration file “" + configurationFile.getName() + "”!", ioe1);
+			} finally {
+				Closer.close(bufferedWriter);
+				Closer.close(outputStreamWriter);
 			}
-		} catch (FileNotFoundException fnfe1) {
-			throw new ConfigurationException("Could not create configuration file “" + configurationFile.getName() + "”!", fnfe1);
-		} catch (UnsupportedEncodingException uee1) {
-			/* impossible, I’d say. */
-			logger.log(Level.SEVERE, "JVM does not support UTF-8!");
-		} catch (IOException ioe1) {
-			throw new ConfigurationException("Could not write to configuration file!", ioe1);
-		} finally {
-			Closer.close(bufferedWriter);
-			Closer.close(outputStreamWriter);
-			Closer.close(configurationOutputStream);
 		}
-		configurationFile.delete();
-		tempFile.renameTo(configurationFile);
 	}
 
 	//
@@ -0,0 +1,46 @@
+/*
+ * utils - ObservableConfigurationBackend.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.config;
+
+/**
+ * A configuration backend that notifies {@link ConfigurationListener}s about
+ * all changes of its values, including changes that were not made using
+ * {@link #putValue(String, String)}. A {@link Configuration} only caches the
+ * parsed values of its {@link Value}s if its backend is observable.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public interface ObservableConfigurationBackend extends ConfigurationBackend {
+
+	/**
+	 * Adds the given listener to the list of registered listeners.
+	 *
+	 * @param configurationListener
+	 *            The listener to add
+	 */
+	public void addConfigurationListener(ConfigurationListener configurationListener);
+
+	/**
+	 * Removes the given listener from the list of registered listeners.
+	 *
+	 * @param configurationListener
+	 *            The listener to remove
+	 */
+	public void removeConfigurationListener(ConfigurationListener configurationListener);
+
+}
@@ -44,7 +44,7 @@ public class StringValue extends AbstractValue<String> {
 	 */
 	@Override
 	public String getValue() throws ConfigurationException {
-		return configuration.configurationBackend.getValue(attribute);
+		return getParsedValue();
 	}
 
 	/**
@@ -55,7 +55,7 @@ public class StringValue extends AbstractValue<String> {
 	@Override
 	public String getValue(String defaultValue) {
 		try {
-			return configuration.configurationBackend.getValue(attribute);
+			return getParsedValue();
 		} catch (ConfigurationException ce1) {
 			return defaultValue;
 		}
@@ -68,7 +68,19 @@ public class StringValue extends AbstractValue<String> {
 	 */
 	@Override
 	public void setValue(String newValue) throws ConfigurationException {
-		configuration.configurationBackend.putValue(attribute, newValue);
+		putValue(newValue);
+	}
+
+	//
+	// ABSTRACTVALUE METHODS
+	//
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected String parseValue(String value) {
+		return value;
 	}
 
 }
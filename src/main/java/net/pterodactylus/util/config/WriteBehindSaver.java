@@ -0,0 +1,282 @@
+/*
+ * utils - WriteBehindSaver.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.pterodactylus.util.io.Closer;
+import net.pterodactylus.util.logging.Logging;
+import net.pterodactylus.util.thread.DumpingThreadFactory;
+
+/**
+ * Coalesces changes of a configuration into a single delayed save. After the
+ * first change is reported using {@link #changed()}, the configuration is
+ * saved once the write delay has elapsed; all changes that are reported in
+ * the meantime are saved along with it. {@link #flush()} saves pending
+ * changes immediately and returns only after they have been written, so it
+ * can be used as a barrier by callers that need the configuration to be
+ * durable. Pending changes are also saved when the JVM shuts down.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+abstract class WriteBehindSaver {
+
+	/** The logger. */
+	private static final Logger logger = Logging.getLogger(WriteBehindSaver.class.getName());
+
+	/** The timer that executes the delayed saves. */
+	private static final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new DumpingThreadFactory("Configuration Saver ", true));
+
+	/** All savers with pending changes. */
+	private static final Set<WriteBehindSaver> pendingSavers = new LinkedHashSet<WriteBehindSaver>();
+
+	static {
+		timer.setRemoveOnCancelPolicy(true);
+		Runtime.getRuntime().addShutdownHook(new Thread("Configuration Saver Shutdown Hook") {
+
+			@Override
+			@SuppressWarnings("synthetic-access")
+			public void run() {
+				List<WriteBehindSaver> savers;
+				synchronized (pendingSavers) {
+					savers = new ArrayList<WriteBehindSaver>(pendingSavers);
+				}
+				for (WriteBehindSaver saver : savers) {
+					saver.flushAndLog();
+				}
+			}
+		});
+	}
+
+	/** The delay after the first change before saving (in milliseconds). */
+	private final long writeDelay;
+
+	/** Lock that serializes saving. */
+	private final Object saveLock = new Object();
+
+	/** Whether there are unsaved changes. */
+	private boolean dirty;
+
+	/** The pending delayed save. */
+	private ScheduledFuture<?> pendingSave;
+
+	/** The task that performs the delayed save. */
+	private final Runnable saveTask = new Runnable() {
+
+		@Override
+		@SuppressWarnings("synthetic-access")
+		public void run() {
+			flushAndLog();
+		}
+	};
+
+	/**
+	 * Creates a new saver.
+	 *
+	 * @param writeDelay
+	 *            The delay after the first change before saving (in
+	 *            milliseconds), or {@code 0} to only save on {@link #flush()}
+	 */
+	WriteBehindSaver(long writeDelay) {
+		this.writeDelay = writeDelay;
+	}
+
+	//
+	// ACCESSORS
+	//
+
+	/**
+	 * Returns whether there are changes that have not been saved yet.
+	 *
+	 * @return {@code true} if there are unsaved changes, {@code false}
+	 *         otherwise
+	 */
+	boolean isDirty() {
+		synchronized (this) {
+			return dirty;
+		}
+	}
+
+	//
+	// ACTIONS
+	//
+
+	/**
+	 * Reports a change of the configuration. If the write delay is {@code 0},
+	 * the change is only saved on the next {@link #flush()}; otherwise it is
+	 * saved once the write delay has elapsed. This method does not acquire any
+	 * other locks than its own, so it can be called while holding the lock
+	 * that protects the configuration.
+	 */
+	void changed() {
+		synchronized (this) {
+			dirty = true;
+			if ((writeDelay > 0) && (pendingSave == null)) {
+				pendingSave = timer.schedule(saveTask, writeDelay, TimeUnit.MILLISECONDS);
+			}
+			synchronized (pendingSavers) {
+				pendingSavers.add(this);
+			}
+		}
+	}
+
+	/**
+	 * Saves all pending changes immediately. If a save is currently running,
+	 * this method waits for it to finish first. The caller must not hold any
+	 * lock that {@link #save()} acquires.
+	 *
+	 * @throws ConfigurationException
+	 *             if the configuration can not be saved
+	 */
+	void flush() throws ConfigurationException {
+		synchronized (saveLock) {
+			synchronized (this) {
+				if (pendingSave != null) {
+					pendingSave.cancel(false);
+					pendingSave = null;
+				}
+				synchronized (pendingSavers) {
+					pendingSavers.remove(this);
+				}
+				if (!dirty) {
+					return;
+				}
+				dirty = false;
+			}
+			try {
+				save();
+			} catch (ConfigurationException ce1) {
+				synchronized (this) {
+					dirty = true;
+					synchronized (pendingSavers) {
+						pendingSavers.add(this);
+					}
+				}
+				throw ce1;
+			}
+		}
+	}
+
+	//
+	// ABSTRACT METHODS
+	//
+
+	/**
+	 * Saves the configuration. This method is never called concurrently.
+	 *
+	 * @throws ConfigurationException
+	 *             if the configuration can not be saved
+	 */
+	protected abstract void save() throws ConfigurationException;
+
+	//
+	// STATIC METHODS
+	//
+
+	/**
+	 * Replaces the given file with the given content. The content is written
+	 * to a new temporary file next to the given file and synced to disk before
+	 * it is renamed to the given file, so that the file always contains either
+	 * the old or the new content. The directory is synced after the rename so
+	 * that the rename itself is durable, too.
+	 *
+	 * @param file
+	 *            The file to replace
+	 * @param content
+	 *            The new content of the file
+	 * @throws IOException
+	 *             if the file can not be written
+	 */
+	static void replaceFile(File file, byte[] content) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		File tempFile = File.createTempFile("." + file.getName() + ".", ".tmp", directory);
+		boolean replaced = false;
+		try {
+			FileOutputStream tempFileOutputStream = new FileOutputStream(tempFile);
+			try {
+				tempFileOutputStream.write(content);
+				tempFileOutputStream.getFD().sync();
+			} finally {
+				Closer.close(tempFileOutputStream);
+			}
+			try {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException amnse1) {
+				Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			replaced = true;
+		} finally {
+			if (!replaced && !tempFile.delete()) {
+				logger.log(Level.WARNING, "Could not delete temporary file " + tempFile + ".");
+			}
+		}
+		syncDirectory(directory);
+	}
+
+	/**
+	 * Syncs the given directory to disk. Not all platforms allow opening a
+	 * directory (e.g. Windows does not), so errors are ignored.
+	 *
+	 * @param directory
+	 *            The directory to sync
+	 */
+	private static void syncDirectory(File directory) {
+		FileChannel directoryChannel = null;
+		try {
+			directoryChannel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+			directoryChannel.force(true);
+		} catch (IOException ioe1) {
+			/* directories can not be synced on this platform, ignore. */
+		} finally {
+			Closer.close(directoryChannel);
+		}
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Saves all pending changes, logging any error that occurs. If saving
+	 * fails, the changes are kept and saved with the next change or flush.
+	 */
+	private void flushAndLog() {
+		try {
+			flush();
+		} catch (ConfigurationException ce1) {
+			logger.log(Level.WARNING, "Could not save configuration!", ce1);
+		}
+	}
+
+}
@@ -17,38 +17,81 @@
 
 package net.pterodactylus.util.config;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.StringTokenizer;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.xml.stream.XMLStreamException;
+
 import net.pterodactylus.util.io.Closer;
 import net.pterodactylus.util.logging.Logging;
+import net.pterodactylus.util.thread.DumpingThreadFactory;
 import net.pterodactylus.util.xml.SimpleXML;
-import net.pterodactylus.util.xml.XML;
-
-import org.w3c.dom.Document;
+import net.pterodactylus.util.xml.SimpleXMLReader;
+import net.pterodactylus.util.xml.SimpleXMLWriter;
 
 /**
  * Configuration backend that reads and writes its configuration from/to an XML
  * file.
+ * <p>
+ * All values are kept in an immutable snapshot that is replaced atomically
+ * whenever a value is set or the configuration file is reloaded, so reading a
+ * value is a simple map lookup that never blocks and never touches the file
+ * system. Changes of the configuration file are detected by checking its
+ * modification time periodically in the background; the file is then parsed
+ * in the background, too, and {@link ConfigurationListener}s are notified
+ * about all attributes whose values changed.
+ * <p>
+ * Setting values does not write the configuration file immediately; all
+ * values that are set within the write delay are written together. The
+ * configuration file is replaced atomically, so it is never left
+ * half-written. {@link #save()} writes all pending changes immediately and
+ * only returns once they are on disk. While there are unsaved changes, the
+ * configuration file is not reloaded, so local changes take precedence over
+ * concurrent modifications of the file.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
-public class XMLConfigurationBackend implements ConfigurationBackend {
+public class XMLConfigurationBackend implements ObservableConfigurationBackend {
 
 	/** The logger. */
 	private static final Logger logger = Logging.getLogger(XMLConfigurationBackend.class.getName());
 
-	/** The node cache. */
-	private final Map<String, SimpleXML> nodeCache = new HashMap<String, SimpleXML>();
+	/** The default interval for checking the configuration file (in ms). */
+	public static final long DEFAULT_RELOAD_INTERVAL = 1000;
+
+	/** The default delay for writing changed values (in ms). */
+	public static final long DEFAULT_WRITE_DELAY = 1000;
+
+	/** The timer that checks the configuration files for changes. */
+	private static final ScheduledThreadPoolExecutor reloadTimer = new ScheduledThreadPoolExecutor(1, new DumpingThreadFactory("XMLConfigurationBackend Reloader ", true));
+
+	static {
+		reloadTimer.setRemoveOnCancelPolicy(true);
+	}
+
+	/** The configuration listeners. */
+	private final ConfigurationListenerManager configurationListenerManager = new ConfigurationListenerManager(this);
+
+	/** Cache for normalized attribute names. */
+	private final ConcurrentMap<String, String> attributeNames = new ConcurrentHashMap<String, String>();
 
 	/** The configuration file. */
 	private final File configurationFile;
@@ -57,7 +100,19 @@ public class XMLConfigurationBackend implements ConfigurationBackend {
 	private long lastModified;
 
 	/** The root node of the document. */
-	private final SimpleXML rootNode;
+	private SimpleXML rootNode;
+
+	/** The snapshot of all values, indexed by normalized attribute name. */
+	private volatile Map<String, String> snapshot;
+
+	/** The periodic check for changes of the configuration file. */
+	private final ScheduledFuture<?> reloadCheck;
+
+	/** The delay for writing changed values (in ms). */
+	private final long writeDelay;
+
+	/** The saver that writes the configuration file. */
+	private final WriteBehindSaver saver;
 
 	/**
 	 * Creates a new backend backed by the given file.
@@ -84,63 +139,135 @@ public class XMLConfigurationBackend implements ConfigurationBackend {
 	 *             if the XML can not be read or parsed
 	 */
 	public XMLConfigurationBackend(File configurationFile, boolean create) throws ConfigurationException {
-		this.configurationFile = configurationFile;
-		rootNode = readConfigurationFile(create);
+		this(configurationFile, create, DEFAULT_RELOAD_INTERVAL);
 	}
 
 	/**
-	 * Reads and parses the configuration file.
+	 * Creates a new backend backed by the given file.
 	 *
+	 * @param configurationFile
+	 *            The XML file to read the configuration from
 	 * @param create
-	 *            {@code true} to create a new configuration if loading the
-	 *            configuration file fails, {@code false} to throw a
-	 *            {@link ConfigurationException}
-	 * @return The created root node
+	 *            {@code true} to create a new configuration when loading the
+	 *            configuration from the given file fails, {@code false} to
+	 *            throw a {@link ConfigurationException}
+	 * @param reloadInterval
+	 *            The interval in which to check the configuration file for
+	 *            changes (in milliseconds), or {@code 0} to never reload the
+	 *            configuration file
 	 * @throws ConfigurationException
-	 *             if the file can not be read or parsed
+	 *             if the XML can not be read or parsed
 	 */
-	private synchronized SimpleXML readConfigurationFile(boolean create) throws ConfigurationException {
-		FileInputStream configFileInputStream = null;
-		try {
-			configFileInputStream = new FileInputStream(configurationFile);
-			Document configurationDocument = XML.transformToDocument(configFileInputStream);
-			if (configurationDocument == null) {
-				if (!create) {
-					throw new ConfigurationException("can not parse XML document");
-				}
-				configurationDocument = new SimpleXML("config").getDocument();
-			}
-			nodeCache.clear();
-			return SimpleXML.fromDocument(configurationDocument);
-		} catch (FileNotFoundException fnfe1) {
-			if (!create) {
-				throw new ConfigurationException(fnfe1);
+	public XMLConfigurationBackend(File configurationFile, boolean create, long reloadInterval) throws ConfigurationException {
+		this(configurationFile, create, reloadInterval, DEFAULT_WRITE_DELAY);
+	}
+
+	/**
+	 * Creates a new backend backed by the given file.
+	 *
+	 * @param configurationFile
+	 *            The XML file to read the configuration from
+	 * @param create
+	 *            {@code true} to create a new configuration when loading the
+	 *            configuration from the given file fails, {@code false} to
+	 *            throw a {@link ConfigurationException}
+	 * @param reloadInterval
+	 *            The interval in which to check the configuration file for
+	 *            changes (in milliseconds), or {@code 0} to never reload the
+	 *            configuration file
+	 * @param writeDelay
+	 *            The delay after setting a value before the configuration
+	 *            file is written (in milliseconds), or {@code 0} to write the
+	 *            configuration file every time a value is set
+	 * @throws ConfigurationException
+	 *             if the XML can not be read or parsed
+	 */
+	public XMLConfigurationBackend(File configurationFile, boolean create, long reloadInterval, long writeDelay) throws ConfigurationException {
+		this.configurationFile = configurationFile;
+		this.writeDelay = writeDelay;
+		saver = new WriteBehindSaver(writeDelay) {
+
+			@Override
+			@SuppressWarnings("synthetic-access")
+			protected void save() throws ConfigurationException {
+				writeConfigurationFile();
 			}
-			return new SimpleXML("config");
-		} finally {
-			Closer.close(configFileInputStream);
+		};
+		lastModified = configurationFile.lastModified();
+		rootNode = readConfigurationFile(create);
+		snapshot = createSnapshot(rootNode);
+		if (reloadInterval > 0) {
+			reloadCheck = reloadTimer.scheduleWithFixedDelay(new ReloadCheck(this), reloadInterval, reloadInterval, TimeUnit.MILLISECONDS);
+		} else {
+			reloadCheck = null;
 		}
 	}
 
+	//
+	// LISTENER MANAGEMENT
+	//
+
 	/**
-	 * Writes the current document (including changes) back to the
-	 * {@link #configurationFile}.
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addConfigurationListener(ConfigurationListener configurationListener) {
+		configurationListenerManager.addListener(configurationListener);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeConfigurationListener(ConfigurationListener configurationListener) {
+		configurationListenerManager.removeListener(configurationListener);
+	}
+
+	//
+	// ACTIONS
+	//
+
+	/**
+	 * Reloads the configuration file if it has been modified since it was
+	 * last read or written. The configuration file is checked automatically
+	 * in the background, so this method only needs to be called to pick up
+	 * changes immediately. If the modified file can not be parsed, the
+	 * current configuration is kept, and the file is not read again until it
+	 * is modified again.
 	 *
 	 * @throws ConfigurationException
-	 *             if the document could not be written
+	 *             if the configuration file can not be read or parsed
 	 */
-	private synchronized void writeConfigurationFile() throws ConfigurationException {
-		FileOutputStream configurationFileOutputStream = null;
-		OutputStreamWriter configurationOutputStreamWriter = null;
-		try {
-			configurationFileOutputStream = new FileOutputStream(configurationFile);
-			configurationOutputStreamWriter = new OutputStreamWriter(configurationFileOutputStream, "UTF-8");
-			XML.writeToOutputStream(rootNode.getDocument(), configurationOutputStreamWriter);
-		} catch (IOException ioe1) {
-			throw new ConfigurationException(ioe1.getMessage(), ioe1);
-		} finally {
-			Closer.close(configurationOutputStreamWriter);
-			Closer.close(configurationFileOutputStream);
+	public void reload() throws ConfigurationException {
+		long fileModified = configurationFile.lastModified();
+		synchronized (this) {
+			if ((fileModified == lastModified) || saver.isDirty()) {
+				return;
+			}
+			lastModified = fileModified;
+		}
+		logger.info("reloading configuration file " + configurationFile.getAbsolutePath());
+		SimpleXML newRootNode = readConfigurationFile(false);
+		Map<String, String> newSnapshot = createSnapshot(newRootNode);
+		Set<String> changedAttributes;
+		synchronized (this) {
+			if ((lastModified != fileModified) || saver.isDirty()) {
+				/* the file was written or values were set while we were reading it. */
+				return;
+			}
+			rootNode = newRootNode;
+			changedAttributes = getChangedAttributes(snapshot, newSnapshot);
+			snapshot = newSnapshot;
+		}
+		configurationListenerManager.fireAttributesChanged(changedAttributes);
+	}
+
+	/**
+	 * Stops checking the configuration file for changes.
+	 */
+	public void stopReloading() {
+		if (reloadCheck != null) {
+			reloadCheck.cancel(false);
 		}
 	}
 
@@ -155,14 +282,15 @@ public class XMLConfigurationBackend implements ConfigurationBackend {
 	 */
 	@Override
 	public String getValue(String attribute) throws ConfigurationException {
-		if (configurationFile.lastModified() > lastModified) {
-			logger.info("reloading configuration file " + configurationFile.getAbsolutePath());
-			readConfigurationFile(false);
-			lastModified = configurationFile.lastModified();
-		}
-		SimpleXML node = getNode(attribute);
-		String value = node.getValue();
-		logger.log(Level.FINEST, "attribute: “%1$s”, value: “%2$s”", new Object[] { attribute, value });
+		Map<String, String> snapshot = this.snapshot;
+		String normalizedAttribute = normalize(attribute);
+		if (!snapshot.containsKey(normalizedAttribute)) {
+			throw new AttributeNotFoundException(attribute);
+		}
+		String value = snapshot.get(normalizedAttribute);
+		if (logger.isLoggable(Level.FINEST)) {
+			logger.log(Level.FINEST, "attribute: “%1$s”, value: “%2$s”", new Object[] { attribute, value });
+		}
 		return value;
 	}
 
@@ -174,17 +302,53 @@ public class XMLConfigurationBackend implements ConfigurationBackend {
 	 */
 	@Override
 	public void putValue(String attribute, String value) throws ConfigurationException {
-		SimpleXML node = getNode(attribute, true);
-		node.setValue(value);
-		writeConfigurationFile();
+		String normalizedAttribute = normalize(attribute);
+		Set<String> changedAttributes = new HashSet<String>();
+		synchronized (this) {
+			String[] nodeNames = SimpleXML.splitPath(normalizedAttribute);
+			Map<String, String> newSnapshot = new HashMap<String, String>(snapshot);
+			SimpleXML node = rootNode;
+			StringBuilder path = new StringBuilder();
+			for (String nodeName : nodeNames) {
+				if (path.length() > 0) {
+					path.append('/');
+				}
+				path.append(nodeName);
+				SimpleXML childNode = node.getNode(nodeName);
+				if (childNode == null) {
+					childNode = node.append(nodeName);
+					newSnapshot.put(path.toString(), null);
+					changedAttributes.add(path.toString());
+				}
+				node = childNode;
+			}
+			String oldValue = node.getValue();
+			node.setValue(value);
+			newSnapshot.put(normalizedAttribute, value);
+			if ((oldValue == null) ? (value != null) : !oldValue.equals(value)) {
+				changedAttributes.add(normalizedAttribute);
+			}
+			snapshot = Collections.unmodifiableMap(newSnapshot);
+			saver.changed();
+		}
+		if (writeDelay == 0) {
+			saver.flush();
+		}
+		configurationListenerManager.fireAttributesChanged(changedAttributes);
 	}
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * All pending changes are written immediately; this method only returns
+	 * after the configuration file has been written and synced to disk.
 	 */
 	@Override
 	public void save() throws ConfigurationException {
-		writeConfigurationFile();
+		synchronized (this) {
+			saver.changed();
+		}
+		saver.flush();
 	}
 
 	//
@@ -192,54 +356,197 @@ public class XMLConfigurationBackend implements ConfigurationBackend {
 	//
 
 	/**
-	 * Searches for the node with the given name and returns it. The given
-	 * attribute may contain several nodes, separated by a pipe character (“|”),
-	 * that describe where in the document hierarchy the node can be found.
+	 * Reads and parses the configuration file.
 	 *
-	 * @param attribute
-	 *            The complete name of the node
-	 * @return The node, if found
+	 * @param create
+	 *            {@code true} to create a new configuration if loading the
+	 *            configuration file fails, {@code false} to throw a
+	 *            {@link ConfigurationException}
+	 * @return The created root node
 	 * @throws ConfigurationException
-	 *             if the node could not be found
+	 *             if the file can not be read or parsed
 	 */
-	private SimpleXML getNode(String attribute) throws ConfigurationException {
-		return getNode(attribute, false);
+	private SimpleXML readConfigurationFile(boolean create) throws ConfigurationException {
+		FileInputStream configFileInputStream = null;
+		try {
+			configFileInputStream = new FileInputStream(configurationFile);
+			return SimpleXMLReader.read(configFileInputStream);
+		} catch (XMLStreamException xmlse1) {
+			if (!create) {
+				throw new ConfigurationException("can not parse XML document", xmlse1);
+			}
+			return new SimpleXML("config");
+		} catch (FileNotFoundException fnfe1) {
+			if (!create) {
+				throw new ConfigurationException(fnfe1);
+			}
+			return new SimpleXML("config");
+		} finally {
+			Closer.close(configFileInputStream);
+		}
 	}
 
 	/**
-	 * Searches for the node with the given name and returns it. The given
-	 * attribute may contain several nodes, separated by a pipe character (“|”),
-	 * that describe where in the document hierarchy the node can be found.
+	 * Writes the current document (including changes) back to the
+	 * {@link #configurationFile}. The document is serialized while holding
+	 * the lock on this backend, the file is written without holding it.
 	 *
-	 * @param attribute
-	 *            The complete name of the node
-	 * @param create
-	 *            {@code true} to create the node if it doesn’t exist,
-	 *            {@code false} to throw a {@link ConfigurationException} if it
-	 *            doesn’t exist
-	 * @return The node, if found
 	 * @throws ConfigurationException
-	 *             if the node could not be found
-	 */
-	private SimpleXML getNode(String attribute, boolean create) throws ConfigurationException {
-		if (nodeCache.containsKey(attribute)) {
-			return nodeCache.get(attribute);
-		}
-		StringTokenizer attributes = new StringTokenizer(attribute, "|/");
-		SimpleXML node = rootNode;
-		while (attributes.hasMoreTokens()) {
-			String nodeName = attributes.nextToken();
-			if (node.hasNode(nodeName)) {
-				node = node.getNode(nodeName);
-			} else {
-				if (!create) {
-					throw new AttributeNotFoundException(attribute);
+	 *             if the document could not be written
+	 */
+	private void writeConfigurationFile() throws ConfigurationException {
+		ByteArrayOutputStream configurationOutputStream = new ByteArrayOutputStream();
+		try {
+			synchronized (this) {
+				OutputStreamWriter configurationOutputStreamWriter = new OutputStreamWriter(configurationOutputStream, "UTF-8");
+				SimpleXMLWriter.write(rootNode, configurationOutputStreamWriter);
+				configurationOutputStreamWriter.flush();
+			}
+			WriteBehindSaver.replaceFile(configurationFile, configurationOutputStream.toByteArray());
+		} catch (IOException ioe1) {
+			throw new ConfigurationException(ioe1.getMessage(), ioe1);
+		} catch (XMLStreamException xmlse1) {
+			throw new ConfigurationException(xmlse1.getMessage(), xmlse1);
+		} finally {
+			synchronized (this) {
+				lastModified = configurationFile.lastModified();
+			}
+		}
+	}
+
+	/**
+	 * Returns the normalized name of the given attribute. In a normalized
+	 * name, the names of the nodes are separated by a single slash (“/”).
+	 *
+	 * @param attribute
+	 *            The name of the attribute
+	 * @return The normalized name of the attribute
+	 */
+	private String normalize(String attribute) {
+		String normalizedAttribute = attributeNames.get(attribute);
+		if (normalizedAttribute == null) {
+			StringBuilder path = new StringBuilder();
+			for (String nodeName : SimpleXML.splitPath(attribute)) {
+				if (path.length() > 0) {
+					path.append('/');
 				}
-				node = node.append(nodeName);
+				path.append(nodeName);
+			}
+			normalizedAttribute = path.toString();
+			attributeNames.putIfAbsent(attribute, normalizedAttribute);
+		}
+		return normalizedAttribute;
+	}
+
+	/**
+	 * Creates a snapshot of the values of the given node and all its child
+	 * nodes.
+	 *
+	 * @param rootNode
+	 *            The root node
+	 * @return The snapshot, indexed by normalized attribute name
+	 */
+	private static Map<String, String> createSnapshot(SimpleXML rootNode) {
+		Map<String, String> snapshot = new HashMap<String, String>();
+		snapshot.put("", rootNode.getValue());
+		addToSnapshot(snapshot, "", rootNode);
+		return Collections.unmodifiableMap(snapshot);
+	}
+
+	/**
+	 * Adds the values of the child nodes of the given node to the given
+	 * snapshot. If a node has several child nodes with the same name, only
+	 * the first child node is added, as only that node can be found by
+	 * {@link SimpleXML#getNode(String)}.
+	 *
+	 * @param snapshot
+	 *            The snapshot to add the values to
+	 * @param path
+	 *            The normalized name of the given node
+	 * @param node
+	 *            The node whose child nodes to add
+	 */
+	private static void addToSnapshot(Map<String, String> snapshot, String path, SimpleXML node) {
+		for (SimpleXML childNode : node.getNodes()) {
+			String childPath = (path.length() == 0) ? childNode.getName() : (path + "/" + childNode.getName());
+			if (snapshot.containsKey(childPath)) {
+				continue;
+			}
+			snapshot.put(childPath, childNode.getValue());
+			addToSnapshot(snapshot, childPath, childNode);
+		}
+	}
+
+	/**
+	 * Returns the names of all attributes whose values differ between the
+	 * two given snapshots.
+	 *
+	 * @param oldSnapshot
+	 *            The old snapshot
+	 * @param newSnapshot
+	 *            The new snapshot
+	 * @return The names of all changed attributes
+	 */
+	private static Set<String> getChangedAttributes(Map<String, String> oldSnapshot, Map<String, String> newSnapshot) {
+		Set<String> changedAttributes = new HashSet<String>();
+		for (Entry<String, String> newEntry : newSnapshot.entrySet()) {
+			if (!oldSnapshot.containsKey(newEntry.getKey())) {
+				changedAttributes.add(newEntry.getKey());
+				continue;
+			}
+			String oldValue = oldSnapshot.get(newEntry.getKey());
+			if ((oldValue == null) ? (newEntry.getValue() != null) : !oldValue.equals(newEntry.getValue())) {
+				changedAttributes.add(newEntry.getKey());
 			}
 		}
-		nodeCache.put(attribute, node);
-		return node;
+		for (String oldAttribute : oldSnapshot.keySet()) {
+			if (!newSnapshot.containsKey(oldAttribute)) {
+				changedAttributes.add(oldAttribute);
+			}
+		}
+		return changedAttributes;
+	}
+
+	/**
+	 * Periodic task that reloads the configuration file of a backend. The
+	 * backend is only weakly referenced so that backends that are not used
+	 * anymore can be garbage-collected; the task cancels itself once that has
+	 * happened.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class ReloadCheck implements Runnable {
+
+		/** The backend to reload. */
+		private final WeakReference<XMLConfigurationBackend> backend;
+
+		/**
+		 * Creates a new reload check.
+		 *
+		 * @param backend
+		 *            The backend to reload
+		 */
+		public ReloadCheck(XMLConfigurationBackend backend) {
+			this.backend = new WeakReference<XMLConfigurationBackend>(backend);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+			XMLConfigurationBackend backend = this.backend.get();
+			if (backend == null) {
+				/* throwing an exception suppresses all further executions. */
+				throw new IllegalStateException("backend has been garbage-collected");
+			}
+			try {
+				backend.reload();
+			} catch (ConfigurationException ce1) {
+				logger.log(Level.WARNING, "Could not reload " + backend.configurationFile + ", keeping current configuration.", ce1);
+			}
+		}
+
 	}
 
 }
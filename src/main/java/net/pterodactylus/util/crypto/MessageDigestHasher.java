@@ -19,20 +19,82 @@ package net.pterodactylus.util.crypto;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * {@link Hasher} implementation that uses a {@link MessageDigest} to create the
  * hash.
+ * <p>
+ * The given message digest is only used as a prototype: every thread hashes
+ * with its own copy of it, so a single hasher can be used by any number of
+ * threads in parallel. Copies are created by {@link MessageDigest#clone()
+ * cloning} the prototype, or by requesting a new message digest for the same
+ * algorithm from the same provider if the prototype can not be cloned.
+ * <p>
+ * Besides the methods of {@link Hasher}, a message digest hasher can hash
+ * {@link ByteBuffer}s and {@link FileChannel}s. File channels are read through
+ * a direct buffer that every thread allocates once and reuses. For very large
+ * files, {@link #hashTree(FileChannel, long)} hashes chunks of the file in
+ * parallel and combines the hashes of the chunks into a single hash.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
 public class MessageDigestHasher implements Hasher {
 
-	/** The message digest. */
+	/** The default chunk size for {@link #hashTree(FileChannel)}. */
+	public static final long DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+	/** The size of the buffers used for reading. */
+	private static final int BUFFER_SIZE = 65536;
+
+	/** The size of the direct buffers used for reading file channels. */
+	private static final int FILE_BUFFER_SIZE = 256 * 1024;
+
+	/** The prefix for the hashes of the chunks of a tree hash. */
+	private static final byte LEAF_PREFIX = 0;
+
+	/** The prefix for the root hash of a tree hash. */
+	private static final byte ROOT_PREFIX = 1;
+
+	/** The pool that hashes the chunks of tree hashes. */
+	private static final ForkJoinPool treeHashPool = new ForkJoinPool();
+
+	/** The read buffers, one per thread. */
+	private static final ThreadLocal<byte[]> buffers = new ThreadLocal<byte[]>() {
+
+		@Override
+		protected byte[] initialValue() {
+			return new byte[BUFFER_SIZE];
+		}
+	};
+
+	/** The direct buffers for reading file channels, one per thread. */
+	private static final ThreadLocal<ByteBuffer> fileBuffers = new ThreadLocal<ByteBuffer>() {
+
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocateDirect(FILE_BUFFER_SIZE);
+		}
+	};
+
+	/** The prototype of the message digests. */
 	private final MessageDigest messageDigest;
 
+	/** The message digests, one per thread. */
+	private final ThreadLocal<MessageDigest> messageDigests = new ThreadLocal<MessageDigest>() {
+
+		@Override
+		@SuppressWarnings("synthetic-access")
+		protected MessageDigest initialValue() {
+			return copyMessageDigest();
+		}
+	};
+
 	/**
 	 * Creates a new message digest hasher.
 	 *
@@ -52,10 +114,7 @@ public class MessageDigestHasher implements Hasher {
 	 */
 	@Override
 	public byte[] hash(byte[] data) {
-		synchronized (messageDigest) {
-			messageDigest.reset();
-			return messageDigest.digest(data);
-		}
+		return getMessageDigest().digest(data);
 	}
 
 	/**
@@ -63,17 +122,185 @@ public class MessageDigestHasher implements Hasher {
 	 */
 	@Override
 	public byte[] hash(InputStream inputStream) throws IOException {
+		MessageDigest messageDigest = getMessageDigest();
+		byte[] buffer = buffers.get();
+		while (true) {
+			int read = inputStream.read(buffer);
+			if (read == -1) {
+				break;
+			}
+			messageDigest.update(buffer, 0, read);
+		}
+		return messageDigest.digest();
+	}
+
+	//
+	// ACTIONS
+	//
+
+	/**
+	 * Hashes the remaining bytes of the given buffer. The position of the
+	 * buffer is not changed.
+	 *
+	 * @param buffer
+	 *            The buffer to hash
+	 * @return The hash of the data
+	 */
+	public byte[] hash(ByteBuffer buffer) {
+		MessageDigest messageDigest = getMessageDigest();
+		messageDigest.update(buffer.duplicate());
+		return messageDigest.digest();
+	}
+
+	/**
+	 * Hashes the complete content of the given file channel, regardless of
+	 * its current position. The position of the channel is not changed.
+	 *
+	 * @param fileChannel
+	 *            The file channel to hash
+	 * @return The hash of the data
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public byte[] hash(FileChannel fileChannel) throws IOException {
+		MessageDigest messageDigest = getMessageDigest();
+		update(messageDigest, fileChannel, 0, fileChannel.size());
+		return messageDigest.digest();
+	}
+
+	/**
+	 * Creates a tree hash of the given file channel, using chunks of
+	 * {@link #DEFAULT_CHUNK_SIZE}.
+	 *
+	 * @see #hashTree(FileChannel, long)
+	 * @param fileChannel
+	 *            The file channel to hash
+	 * @return The tree hash of the file channel
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public byte[] hashTree(FileChannel fileChannel) throws IOException {
+		return hashTree(fileChannel, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates a tree hash of the given file channel. The content of the file
+	 * channel is split into chunks of the given size (the last chunk may be
+	 * shorter), and the chunks are hashed in parallel. Each chunk is hashed
+	 * with a prefix byte of {@code 0}; the root hash is the hash of a prefix
+	 * byte of {@code 1} followed by the hashes of all chunks, in order. An
+	 * empty file channel consists of a single empty chunk.
+	 * <p>
+	 * A tree hash differs from the {@link #hash(FileChannel) plain hash} of
+	 * the same data, and tree hashes are only comparable if they were created
+	 * with the same algorithm and the same chunk size.
+	 *
+	 * @param fileChannel
+	 *            The file channel to hash
+	 * @param chunkSize
+	 *            The size of the chunks (in bytes)
+	 * @return The tree hash of the file channel
+	 * @throws IllegalArgumentException
+	 *             if {@code chunkSize} is not positive, or if it would split
+	 *             the file channel into more than {@link Integer#MAX_VALUE}
+	 *             chunks
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public byte[] hashTree(FileChannel fileChannel, long chunkSize) throws IOException {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		long size = fileChannel.size();
+		long chunkCount = (size == 0) ? 1 : (((size - 1) / chunkSize) + 1);
+		if (chunkCount > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("chunkSize " + chunkSize + " results in too many chunks for " + size + " bytes");
+		}
+		byte[][] chunkHashes = new byte[(int) chunkCount][];
+		try {
+			treeHashPool.invoke(new ChunkHashAction(fileChannel, size, chunkSize, chunkHashes, 0, chunkHashes.length));
+		} catch (RuntimeException re1) {
+			for (Throwable cause = re1; cause != null; cause = cause.getCause()) {
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				}
+			}
+			throw re1;
+		}
+		MessageDigest messageDigest = getMessageDigest();
+		messageDigest.update(ROOT_PREFIX);
+		for (byte[] chunkHash : chunkHashes) {
+			messageDigest.update(chunkHash);
+		}
+		return messageDigest.digest();
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Returns the reset message digest of the current thread.
+	 *
+	 * @return The message digest of the current thread
+	 */
+	private MessageDigest getMessageDigest() {
+		MessageDigest messageDigest = messageDigests.get();
+		messageDigest.reset();
+		return messageDigest;
+	}
+
+	/**
+	 * Creates a copy of the prototype message digest.
+	 *
+	 * @return A new message digest for the algorithm of the prototype
+	 */
+	private MessageDigest copyMessageDigest() {
 		synchronized (messageDigest) {
-			messageDigest.reset();
-			byte[] buffer = new byte[65536];
-			while (true) {
-				int read = inputStream.read(buffer);
-				if (read == -1) {
-					break;
+			try {
+				MessageDigest copiedMessageDigest = (MessageDigest) messageDigest.clone();
+				copiedMessageDigest.reset();
+				return copiedMessageDigest;
+			} catch (CloneNotSupportedException cnse1) {
+				try {
+					return MessageDigest.getInstance(messageDigest.getAlgorithm(), messageDigest.getProvider());
+				} catch (NoSuchAlgorithmException nsae1) {
+					throw new RuntimeException(nsae1);
 				}
-				messageDigest.update(buffer, 0, read);
 			}
-			return messageDigest.digest();
+		}
+	}
+
+	/**
+	 * Updates the given message digest with a region of the given file
+	 * channel. The region is read through the direct buffer of the current
+	 * thread.
+	 *
+	 * @param messageDigest
+	 *            The message digest to update
+	 * @param fileChannel
+	 *            The file channel to read
+	 * @param position
+	 *            The position of the region
+	 * @param length
+	 *            The length of the region
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	private static void update(MessageDigest messageDigest, FileChannel fileChannel, long position, long length) throws IOException {
+		long end = position + length;
+		ByteBuffer fileBuffer = fileBuffers.get();
+		long offset = position;
+		while (offset < end) {
+			fileBuffer.clear();
+			fileBuffer.limit((int) Math.min(fileBuffer.capacity(), end - offset));
+			int read = fileChannel.read(fileBuffer, offset);
+			if (read == -1) {
+				break;
+			}
+			fileBuffer.flip();
+			messageDigest.update(fileBuffer);
+			offset += read;
 		}
 	}
 
@@ -97,7 +324,7 @@ public class MessageDigestHasher implements Hasher {
 	/**
 	 * Returns a hasher using the SHA-256 algorithm.
 	 *
-	 * @return An SHA-1 hasher
+	 * @return An SHA-256 hasher
 	 */
 	public static Hasher getSHA256Hasher() {
 		try {
@@ -110,7 +337,7 @@ public class MessageDigestHasher implements Hasher {
 	/**
 	 * Returns a hasher using the SHA-512 algorithm.
 	 *
-	 * @return An SHA-1 hasher
+	 * @return An SHA-512 hasher
 	 */
 	public static Hasher getSHA512Hasher() {
 		try {
@@ -120,4 +347,82 @@ public class MessageDigestHasher implements Hasher {
 		}
 	}
 
+	/**
+	 * Hashes a range of chunks of a tree hash, splitting the range until it
+	 * contains a single chunk.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private class ChunkHashAction extends RecursiveAction {
+
+		/** The serial version UID. */
+		private static final long serialVersionUID = 1L;
+
+		/** The file channel to hash. */
+		private final FileChannel fileChannel;
+
+		/** The size of the file channel. */
+		private final long size;
+
+		/** The size of the chunks. */
+		private final long chunkSize;
+
+		/** The hashes of the chunks. */
+		private final byte[][] chunkHashes;
+
+		/** The index of the first chunk to hash. */
+		private final int firstChunk;
+
+		/** The index of the chunk after the last chunk to hash. */
+		private final int endChunk;
+
+		/**
+		 * Creates a new chunk hash action.
+		 *
+		 * @param fileChannel
+		 *            The file channel to hash
+		 * @param size
+		 *            The size of the file channel
+		 * @param chunkSize
+		 *            The size of the chunks
+		 * @param chunkHashes
+		 *            The hashes of the chunks
+		 * @param firstChunk
+		 *            The index of the first chunk to hash
+		 * @param endChunk
+		 *            The index of the chunk after the last chunk to hash
+		 */
+		ChunkHashAction(FileChannel fileChannel, long size, long chunkSize, byte[][] chunkHashes, int firstChunk, int endChunk) {
+			this.fileChannel = fileChannel;
+			this.size = size;
+			this.chunkSize = chunkSize;
+			this.chunkHashes = chunkHashes;
+			this.firstChunk = firstChunk;
+			this.endChunk = endChunk;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("synthetic-access")
+		protected void compute() {
+			if ((endChunk - firstChunk) > 1) {
+				int middleChunk = (firstChunk + endChunk) >>> 1;
+				invokeAll(new ChunkHashAction(fileChannel, size, chunkSize, chunkHashes, firstChunk, middleChunk), new ChunkHashAction(fileChannel, size, chunkSize, chunkHashes, middleChunk, endChunk));
+				return;
+			}
+			long position = firstChunk * chunkSize;
+			MessageDigest messageDigest = getMessageDigest();
+			messageDigest.update(LEAF_PREFIX);
+			try {
+				update(messageDigest, fileChannel, position, Math.min(chunkSize, size - position));
+			} catch (IOException ioe1) {
+				throw new RuntimeException(ioe1);
+			}
+			chunkHashes[firstChunk] = messageDigest.digest();
+		}
+
+	}
+
 }
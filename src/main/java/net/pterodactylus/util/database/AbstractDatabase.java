@@ -22,11 +22,17 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.sql.DataSource;
 
 import net.pterodactylus.util.io.Closer;
+import net.pterodactylus.util.logging.Logging;
 
 /**
  * Abstract implementation of a {@link Database}. This already contains all the
@@ -38,6 +44,29 @@ import net.pterodactylus.util.io.Closer;
  */
 public abstract class AbstractDatabase implements Database {
 
+	/** The logger. */
+	private static final Logger logger = Logging.getLogger(AbstractDatabase.class.getName());
+
+
+	/** The maximum number of queries per JDBC batch. */
+	private volatile int batchSize = 1000;
+
+	//
+	// ACCESSORS
+	//
+
+	/**
+	 * Sets the maximum number of queries that are sent to the database in a
+	 * single JDBC batch by {@link #insertBatch(List)} and
+	 * {@link #updateBatch(List)}.
+	 *
+	 * @param batchSize
+	 *            The maximum number of queries per batch
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
 	//
 	// ACTIONS
 	//
@@ -60,6 +89,44 @@ public abstract class AbstractDatabase implements Database {
 		return new MultipleDatabaseWorker<T>(query, objectCreator).work();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * If a fetch size is given and the connection is in auto-commit mode,
+	 * auto-commit is disabled for the duration of the iteration because some
+	 * drivers (e.g. PostgreSQL’s) ignore the fetch size otherwise; the
+	 * transaction is committed and auto-commit is enabled again when the
+	 * iterator is closed.
+	 */
+	@Override
+	public <T> ResultIterator<T> iterate(Query query, ObjectCreator<T> objectCreator, int fetchSize) throws DatabaseException {
+		Connection connection = null;
+		PreparedStatement preparedStatement = null;
+		ResultSet resultSet = null;
+		boolean autoCommitDisabled = false;
+		try {
+			connection = getConnection();
+			if ((fetchSize != 0) && connection.getAutoCommit()) {
+				connection.setAutoCommit(false);
+				autoCommitDisabled = true;
+			}
+			preparedStatement = query.createStatement(connection);
+			if (fetchSize != 0) {
+				preparedStatement.setFetchSize(fetchSize);
+			}
+			resultSet = preparedStatement.executeQuery();
+			return new StreamingResultIterator<T>(connection, autoCommitDisabled, preparedStatement, resultSet, objectCreator);
+		} catch (SQLException sqle1) {
+			Closer.close(resultSet);
+			Closer.close(preparedStatement);
+			if (autoCommitDisabled) {
+				restoreAutoCommit(connection);
+			}
+			returnConnection(connection);
+			throw new DatabaseException(sqle1);
+		}
+	}
+
 	/**
 	 * @see net.pterodactylus.util.database.Database#insert(net.pterodactylus.util.database.Query)
 	 */
@@ -76,6 +143,56 @@ public abstract class AbstractDatabase implements Database {
 		return new UpdateDatabaseWorker(query).work();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long[] insertBatch(List<Query> queries) throws DatabaseException {
+		final long[] generatedKeys = new long[queries.size()];
+		Arrays.fill(generatedKeys, -1);
+		if (queries.isEmpty()) {
+			return generatedKeys;
+		}
+		new BatchDatabaseWorker(queries) {
+
+			@Override
+			protected void processBatch(PreparedStatement preparedStatement, int firstIndex, int lastIndex) throws SQLException {
+				preparedStatement.executeBatch();
+				ResultSet generatedKeysResultSet = null;
+				try {
+					generatedKeysResultSet = preparedStatement.getGeneratedKeys();
+					int index = firstIndex;
+					while ((index < lastIndex) && (generatedKeysResultSet != null) && generatedKeysResultSet.next()) {
+						generatedKeys[index++] = generatedKeysResultSet.getLong(1);
+					}
+				} finally {
+					Closer.close(generatedKeysResultSet);
+				}
+			}
+		}.work();
+		return generatedKeys;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int[] updateBatch(List<Query> queries) throws DatabaseException {
+		final int[] updateCounts = new int[queries.size()];
+		if (queries.isEmpty()) {
+			return updateCounts;
+		}
+		new BatchDatabaseWorker(queries) {
+
+			@Override
+			protected void processBatch(PreparedStatement preparedStatement, int firstIndex, int lastIndex) throws SQLException {
+				int[] batchUpdateCounts = preparedStatement.executeBatch();
+				System.arraycopy(batchUpdateCounts, 0, updateCounts, firstIndex, Math.min(batchUpdateCounts.length, lastIndex - firstIndex));
+			}
+		}.work();
+		return updateCounts;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 *
@@ -112,6 +229,26 @@ public abstract class AbstractDatabase implements Database {
 		};
 	}
 
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Commits the current transaction of the given connection and enables
+	 * auto-commit again after it was disabled for an iteration.
+	 *
+	 * @param connection
+	 *            The connection to restore
+	 */
+	private static void restoreAutoCommit(Connection connection) {
+		try {
+			connection.commit();
+			connection.setAutoCommit(true);
+		} catch (SQLException sqle1) {
+			logger.log(Level.WARNING, "Could not restore auto-commit mode.", sqle1);
+		}
+	}
+
 	//
 	// ABSTRACT METHODS
 	//
@@ -255,6 +392,144 @@ public abstract class AbstractDatabase implements Database {
 
 	}
 
+	/**
+	 * Result iterator that creates objects from a result set while it is
+	 * being iterated. All resources are released once the result set is
+	 * exhausted, or when the iterator is closed.
+	 *
+	 * @param <T>
+	 *            The type of the created objects
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private class StreamingResultIterator<T> implements ResultIterator<T> {
+
+		/** The connection of the result set. */
+		private final Connection connection;
+
+		/** Whether auto-commit was disabled for this iterator. */
+		private final boolean autoCommitDisabled;
+
+		/** The statement of the result set. */
+		private final PreparedStatement preparedStatement;
+
+		/** The result set to iterate. */
+		private final ResultSet resultSet;
+
+		/** The object creator. */
+		private final ObjectCreator<T> objectCreator;
+
+		/** Whether the result set has been moved to the next row. */
+		private boolean advanced;
+
+		/** Whether the result set is positioned on a row. */
+		private boolean hasRow;
+
+		/** Whether this iterator has been closed. */
+		private boolean closed;
+
+		/**
+		 * Creates a new streaming result iterator.
+		 *
+		 * @param connection
+		 *            The connection of the result set
+		 * @param autoCommitDisabled
+		 *            {@code true} if auto-commit was disabled for this
+		 *            iterator and has to be enabled again when it is closed
+		 * @param preparedStatement
+		 *            The statement of the result set
+		 * @param resultSet
+		 *            The result set to iterate
+		 * @param objectCreator
+		 *            The object creator
+		 */
+		public StreamingResultIterator(Connection connection, boolean autoCommitDisabled, PreparedStatement preparedStatement, ResultSet resultSet, ObjectCreator<T> objectCreator) {
+			this.connection = connection;
+			this.autoCommitDisabled = autoCommitDisabled;
+			this.preparedStatement = preparedStatement;
+			this.resultSet = resultSet;
+			this.objectCreator = objectCreator;
+		}
+
+		//
+		// INTERFACE ResultIterator
+		//
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Iterator<T> iterator() {
+			return this;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext() {
+			if (closed) {
+				return false;
+			}
+			if (!advanced) {
+				try {
+					hasRow = resultSet.next();
+				} catch (SQLException sqle1) {
+					close();
+					throw new RuntimeException("Could not read next row.", sqle1);
+				}
+				advanced = true;
+				if (!hasRow) {
+					close();
+				}
+			}
+			return hasRow;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			advanced = false;
+			try {
+				return objectCreator.createObject(resultSet);
+			} catch (SQLException sqle1) {
+				close();
+				throw new RuntimeException("Could not create object.", sqle1);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("Results can not be removed.");
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("synthetic-access")
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			Closer.close(resultSet);
+			Closer.close(preparedStatement);
+			if (autoCommitDisabled) {
+				restoreAutoCommit(connection);
+			}
+			returnConnection(connection);
+		}
+
+	}
+
 	/**
 	 * A database worker that reads a single row from a result and creates an
 	 * object from it.
@@ -400,6 +675,77 @@ public abstract class AbstractDatabase implements Database {
 
 	}
 
+	/**
+	 * Database worker that executes a list of queries in JDBC batches on a
+	 * single connection. Consecutive queries with the same SQL are added to
+	 * the same prepared statement; a batch is executed whenever the SQL
+	 * changes or the {@link AbstractDatabase#batchSize batch size} is reached.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private abstract class BatchDatabaseWorker extends AbstractDatabaseWorker<Void> {
+
+		/** The queries to execute. */
+		private final List<Query> queries;
+
+		/**
+		 * Creates a new batch database worker.
+		 *
+		 * @param queries
+		 *            The queries to execute
+		 */
+		public BatchDatabaseWorker(List<Query> queries) {
+			super(null);
+			this.queries = queries;
+		}
+
+		/**
+		 * Executes the batch that has been added to the given prepared
+		 * statement.
+		 *
+		 * @param preparedStatement
+		 *            The prepared statement to execute
+		 * @param firstIndex
+		 *            The index of the first query of the batch
+		 * @param lastIndex
+		 *            The index after the last query of the batch
+		 * @throws SQLException
+		 *             if an SQL error occurs
+		 */
+		protected abstract void processBatch(PreparedStatement preparedStatement, int firstIndex, int lastIndex) throws SQLException;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("synthetic-access")
+		protected Void run(Connection connection) throws SQLException {
+			int index = 0;
+			while (index < queries.size()) {
+				Query firstQuery = queries.get(index);
+				PreparedStatement preparedStatement = null;
+				try {
+					preparedStatement = firstQuery.createStatement(connection);
+					preparedStatement.addBatch();
+					int firstIndex = index++;
+					while ((index < queries.size()) && queries.get(index).getSql().equals(firstQuery.getSql())) {
+						if ((index - firstIndex) >= batchSize) {
+							processBatch(preparedStatement, firstIndex, index);
+							firstIndex = index;
+						}
+						queries.get(index++).setParameters(preparedStatement);
+						preparedStatement.addBatch();
+					}
+					processBatch(preparedStatement, firstIndex, index);
+				} finally {
+					Closer.close(preparedStatement);
+				}
+			}
+			return null;
+		}
+
+	}
+
 	/**
 	 * A database worker that processes all result rows with an
 	 * {@link ObjectCreator} instance which does not need to return meaningful
@@ -0,0 +1,270 @@
+/*
+ * utils - AsyncDatabase.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.pterodactylus.util.thread.NamedThreadFactory;
+
+/**
+ * Wrapper around a {@link Database} that executes all database operations on
+ * a bounded pool of worker threads and returns {@link Future}s for their
+ * results. This allows a thread to start several independent queries and
+ * wait for all of them afterwards instead of executing them one after the
+ * other.
+ * <p>
+ * The number of operations that are queued or running at the same time is
+ * limited; if the limit is reached, the submitting thread blocks until an
+ * operation has finished. A {@link DatabaseException} thrown by an operation
+ * is reported as the cause of the {@link java.util.concurrent.ExecutionException}
+ * thrown by {@link Future#get()}.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class AsyncDatabase {
+
+	/** The database to execute the operations on. */
+	private final Database database;
+
+	/** The executor for the operations. */
+	private final ThreadPoolExecutor executorService;
+
+	/** The permits for queued and running operations. */
+	private final Semaphore permits;
+
+	/**
+	 * Creates a new asynchronous database that uses as many worker threads as
+	 * the given data source opens connections, and allows four times as many
+	 * operations to be queued.
+	 *
+	 * @param database
+	 *            The database to execute the operations on
+	 * @param pooledDataSource
+	 *            The data source used by the database
+	 */
+	public AsyncDatabase(Database database, PooledDataSource pooledDataSource) {
+		this(database, pooledDataSource.getMaximumSize(), pooledDataSource.getMaximumSize() * 4);
+	}
+
+	/**
+	 * Creates a new asynchronous database.
+	 *
+	 * @param database
+	 *            The database to execute the operations on
+	 * @param threadCount
+	 *            The number of worker threads
+	 * @param queueSize
+	 *            The maximum number of operations waiting for a worker thread
+	 */
+	public AsyncDatabase(Database database, int threadCount, int queueSize) {
+		this.database = database;
+		executorService = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("AsyncDatabase-%d-Worker-%d"));
+		executorService.allowCoreThreadTimeOut(true);
+		permits = new Semaphore(threadCount + queueSize);
+	}
+
+	//
+	// ACCESSORS
+	//
+
+	/**
+	 * Returns the wrapped database.
+	 *
+	 * @return The wrapped database
+	 */
+	public Database getDatabase() {
+		return database;
+	}
+
+	/**
+	 * Returns the number of operations that are currently queued or running.
+	 *
+	 * @return The number of pending operations
+	 */
+	public int getPendingOperations() {
+		return executorService.getQueue().size() + executorService.getActiveCount();
+	}
+
+	//
+	// ACTIONS
+	//
+
+	/**
+	 * Returns a single object from the database.
+	 *
+	 * @see Database#getSingle(Query, ObjectCreator)
+	 * @param <T>
+	 *            The type of the object
+	 * @param query
+	 *            The query to execute
+	 * @param objectCreator
+	 *            The object creator
+	 * @return The future result of the query
+	 */
+	public <T> Future<T> getSingle(final Query query, final ObjectCreator<T> objectCreator) {
+		return submit(new Callable<T>() {
+
+			@Override
+			public T call() throws DatabaseException {
+				return database.getSingle(query, objectCreator);
+			}
+		});
+	}
+
+	/**
+	 * Returns multiple query results.
+	 *
+	 * @see Database#getMultiple(Query, ObjectCreator)
+	 * @param <T>
+	 *            The type of the results
+	 * @param query
+	 *            The query to execute
+	 * @param objectCreator
+	 *            The object creator
+	 * @return The future results of the query
+	 */
+	public <T> Future<List<T>> getMultiple(final Query query, final ObjectCreator<T> objectCreator) {
+		return submit(new Callable<List<T>>() {
+
+			@Override
+			public List<T> call() throws DatabaseException {
+				return database.getMultiple(query, objectCreator);
+			}
+		});
+	}
+
+	/**
+	 * Inserts an object into the database.
+	 *
+	 * @see Database#insert(Query)
+	 * @param query
+	 *            The query to execute
+	 * @return The future generated ID
+	 */
+	public Future<Long> insert(final Query query) {
+		return submit(new Callable<Long>() {
+
+			@Override
+			public Long call() throws DatabaseException {
+				return database.insert(query);
+			}
+		});
+	}
+
+	/**
+	 * Updates objects in the database.
+	 *
+	 * @see Database#update(Query)
+	 * @param query
+	 *            The query to execute
+	 * @return The future number of changed objects
+	 */
+	public Future<Integer> update(final Query query) {
+		return submit(new Callable<Integer>() {
+
+			@Override
+			public Integer call() throws DatabaseException {
+				return database.update(query);
+			}
+		});
+	}
+
+	/**
+	 * Processes the results of the given query with the given result
+	 * processor.
+	 *
+	 * @see Database#process(Query, ResultProcessor)
+	 * @param query
+	 *            The query to execute
+	 * @param resultProcessor
+	 *            The result processor used to process the result set
+	 * @return A future that is done once the results have been processed
+	 */
+	public Future<Void> process(final Query query, final ResultProcessor resultProcessor) {
+		return submit(new Callable<Void>() {
+
+			@Override
+			public Void call() throws DatabaseException {
+				database.process(query, resultProcessor);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Shuts down the worker threads. Operations that have already been
+	 * submitted are still executed.
+	 */
+	public void shutdown() {
+		executorService.shutdown();
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Submits the given operation to the executor, blocking while the maximum
+	 * number of operations is pending. The slot of an operation is freed once
+	 * the operation is done, or once its future has been cancelled.
+	 *
+	 * @param <T>
+	 *            The type of the result
+	 * @param callable
+	 *            The operation to execute
+	 * @return The future result of the operation
+	 * @throws RejectedExecutionException
+	 *             if the current thread is interrupted while waiting, or if
+	 *             this database has been shut down
+	 */
+	private <T> Future<T> submit(final Callable<T> callable) throws RejectedExecutionException {
+		try {
+			permits.acquire();
+		} catch (InterruptedException ie1) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for a free slot.", ie1);
+		}
+		FutureTask<T> futureTask = new FutureTask<T>(callable) {
+
+			@Override
+			@SuppressWarnings("synthetic-access")
+			protected void done() {
+				permits.release();
+				if (isCancelled()) {
+					executorService.remove(this);
+				}
+			}
+		};
+		try {
+			executorService.execute(futureTask);
+		} catch (RejectedExecutionException ree1) {
+			permits.release();
+			throw ree1;
+		}
+		return futureTask;
+	}
+
+}
@@ -0,0 +1,413 @@
+/*
+ * utils - CachedRow.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Date;
+
+import javax.sql.rowset.serial.SerialArray;
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+
+/**
+ * Copy of the values of a single row of a {@link ResultSet}. A cached row is
+ * immutable; {@link #createResultSet()} returns a result set positioned on the
+ * copied row that an {@link ObjectCreator} can create a new object from.
+ * <p>
+ * The result set of a cached row supports the column accessors (by index and
+ * by label), {@link ResultSet#wasNull()}, {@link ResultSet#findColumn(String)}
+ * and {@link ResultSet#getMetaData()}; the meta data only knows the labels and
+ * SQL types of the columns. Values are converted between numeric types,
+ * booleans, strings, and date types as necessary; mutable values such as
+ * arrays and dates are copied every time they are returned.
+ * <p>
+ * {@link Blob}s, {@link Clob}s and {@link Array}s are only valid as long as
+ * the connection they were read from is open, so they are materialized into
+ * {@link SerialBlob}s, {@link SerialClob}s and {@link SerialArray}s when the
+ * row is captured. Rows containing other values that depend on the connection
+ * (such as streams) can not be cached at all.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+class CachedRow {
+
+	/** The column plan of the row. */
+	private final ColumnPlan columnPlan;
+
+	/** The values of the row. */
+	private final Object[] values;
+
+	/**
+	 * Creates a new cached row.
+	 *
+	 * @param columnPlan
+	 *            The column plan of the row
+	 * @param values
+	 *            The values of the row
+	 */
+	private CachedRow(ColumnPlan columnPlan, Object[] values) {
+		this.columnPlan = columnPlan;
+		this.values = values;
+	}
+
+	/**
+	 * Copies the current row of the given result set.
+	 *
+	 * @param columnPlan
+	 *            The column plan of the result set
+	 * @param resultSet
+	 *            The result set to copy the current row of
+	 * @return The copied row, or {@code null} if the row contains a value that
+	 *         can not be cached
+	 * @throws SQLException
+	 *             if an SQL error occurs
+	 */
+	public static CachedRow capture(ColumnPlan columnPlan, ResultSet resultSet) throws SQLException {
+		Object[] values = new Object[columnPlan.getColumnCount()];
+		for (int column = 0; column < values.length; column++) {
+			Object value = resultSet.getObject(column + 1);
+			if (value instanceof Blob) {
+				values[column] = new SerialBlob(getBytes((Blob) value));
+			} else if (value instanceof Clob) {
+				values[column] = new SerialClob(getString((Clob) value).toCharArray());
+			} else if (value instanceof Array) {
+				values[column] = new SerialArray((Array) value);
+			} else if (isCacheable(value)) {
+				values[column] = copy(value);
+			} else {
+				return null;
+			}
+		}
+		return new CachedRow(columnPlan, values);
+	}
+
+	//
+	// ACTIONS
+	//
+
+	/**
+	 * Creates a new result set that is positioned on this row.
+	 *
+	 * @return A result set for this row
+	 */
+	public ResultSet createResultSet() {
+		return (ResultSet) Proxy.newProxyInstance(CachedRow.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new RowResultSet());
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Returns the index of the column with the given label.
+	 *
+	 * @param label
+	 *            The label of the column
+	 * @return The index of the column (starting at {@code 1})
+	 * @throws SQLException
+	 *             if there is no column with the given label
+	 */
+	private int findColumn(String label) throws SQLException {
+		int column = columnPlan.getColumnIndex(label);
+		if (column == -1) {
+			throw new SQLException("Column " + label + " does not exist.");
+		}
+		return column + 1;
+	}
+
+	/**
+	 * Returns whether the given value can be stored in a cached row as it is,
+	 * i.e. whether it does not depend on the connection it was read from.
+	 *
+	 * @param value
+	 *            The value to check
+	 * @return {@code true} if the value can be cached, {@code false} otherwise
+	 */
+	private static boolean isCacheable(Object value) {
+		return (value == null) || (value instanceof Number) || (value instanceof Boolean) || (value instanceof String) || (value instanceof Date) || (value instanceof byte[]) || (value instanceof Character);
+	}
+
+	/**
+	 * Returns a copy of the given value if it is mutable.
+	 *
+	 * @param value
+	 *            The value to copy
+	 * @return The copied value, or the value itself if it is immutable
+	 * @throws SQLException
+	 *             if a materialized {@link Blob} or {@link Clob} can not be
+	 *             copied
+	 */
+	private static Object copy(Object value) throws SQLException {
+		if (value instanceof byte[]) {
+			return ((byte[]) value).clone();
+		}
+		if (value instanceof Date) {
+			return ((Date) value).clone();
+		}
+		if (value instanceof SerialBlob) {
+			return new SerialBlob(getBytes((Blob) value));
+		}
+		if (value instanceof SerialClob) {
+			return new SerialClob(getString((Clob) value).toCharArray());
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the complete content of the given blob.
+	 *
+	 * @param blob
+	 *            The blob to read
+	 * @return The content of the blob
+	 * @throws SQLException
+	 *             if the blob can not be read
+	 */
+	private static byte[] getBytes(Blob blob) throws SQLException {
+		return blob.getBytes(1, (int) blob.length());
+	}
+
+	/**
+	 * Returns the complete content of the given clob.
+	 *
+	 * @param clob
+	 *            The clob to read
+	 * @return The content of the clob
+	 * @throws SQLException
+	 *             if the clob can not be read
+	 */
+	private static String getString(Clob clob) throws SQLException {
+		return clob.getSubString(1, (int) clob.length());
+	}
+
+	/**
+	 * Converts the given non-{@code null} value to the given type.
+	 *
+	 * @param value
+	 *            The value to convert
+	 * @param type
+	 *            The type to convert the value to
+	 * @return The converted value
+	 * @throws SQLException
+	 *             if the value can not be converted
+	 */
+	private static Object convert(Object value, Class<?> type) throws SQLException {
+		if (type.isInstance(value)) {
+			return copy(value);
+		}
+		if (value instanceof Blob) {
+			if (type == byte[].class) {
+				return getBytes((Blob) value);
+			} else if (type == InputStream.class) {
+				return new ByteArrayInputStream(getBytes((Blob) value));
+			}
+		}
+		if (value instanceof Clob) {
+			if (type == String.class) {
+				return getString((Clob) value);
+			} else if (type == Reader.class) {
+				return new StringReader(getString((Clob) value));
+			}
+		}
+		if ((value instanceof byte[]) && (type == InputStream.class)) {
+			return new ByteArrayInputStream(((byte[]) value).clone());
+		}
+		if ((value instanceof String) && (type == Reader.class)) {
+			return new StringReader((String) value);
+		}
+		if (type == String.class) {
+			return value.toString();
+		}
+		if (value instanceof Boolean) {
+			return convert(((Boolean) value) ? 1 : 0, type);
+		}
+		if ((value instanceof String) && ((type == boolean.class) || (type == Boolean.class))) {
+			return Boolean.parseBoolean((String) value) || value.equals("1");
+		}
+		if (value instanceof String) {
+			try {
+				return convert(new BigDecimal(((String) value).trim()), type);
+			} catch (NumberFormatException nfe1) {
+				throw new SQLException("Can not convert “" + value + "” to " + type.getName() + ".", nfe1);
+			}
+		}
+		if (value instanceof Number) {
+			Number number = (Number) value;
+			if ((type == int.class) || (type == Integer.class)) {
+				return number.intValue();
+			} else if ((type == long.class) || (type == Long.class)) {
+				return number.longValue();
+			} else if ((type == short.class) || (type == Short.class)) {
+				return number.shortValue();
+			} else if ((type == byte.class) || (type == Byte.class)) {
+				return number.byteValue();
+			} else if ((type == double.class) || (type == Double.class)) {
+				return number.doubleValue();
+			} else if ((type == float.class) || (type == Float.class)) {
+				return number.floatValue();
+			} else if ((type == boolean.class) || (type == Boolean.class)) {
+				return number.doubleValue() != 0;
+			} else if (type == BigDecimal.class) {
+				return new BigDecimal(number.toString());
+			}
+		}
+		if (value instanceof Date) {
+			long time = ((Date) value).getTime();
+			if (type == Timestamp.class) {
+				return new Timestamp(time);
+			} else if (type == java.sql.Date.class) {
+				return new java.sql.Date(time);
+			} else if (type == Time.class) {
+				return new Time(time);
+			}
+		}
+		throw new SQLException("Can not convert " + value.getClass().getName() + " to " + type.getName() + ".");
+	}
+
+	/**
+	 * Returns the value of an SQL NULL value for the given type.
+	 *
+	 * @param type
+	 *            The requested type
+	 * @return The value for SQL NULL
+	 */
+	private static Object nullValue(Class<?> type) {
+		if (type == boolean.class) {
+			return false;
+		} else if (type == long.class) {
+			return 0L;
+		} else if (type == double.class) {
+			return 0.0;
+		} else if (type == float.class) {
+			return 0.0f;
+		} else if (type == short.class) {
+			return (short) 0;
+		} else if (type == byte.class) {
+			return (byte) 0;
+		} else if (type == int.class) {
+			return 0;
+		}
+		return null;
+	}
+
+	/**
+	 * {@link InvocationHandler} for the result sets of a cached row.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private class RowResultSet implements InvocationHandler {
+
+		/** Whether the last read value was SQL NULL. */
+		private boolean wasNull;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("synthetic-access")
+		public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+			String name = method.getName();
+			int argumentCount = (arguments == null) ? 0 : arguments.length;
+			if (name.equals("wasNull")) {
+				return wasNull;
+			} else if (name.equals("findColumn")) {
+				return findColumn((String) arguments[0]);
+			} else if (name.equals("getRow")) {
+				return 1;
+			} else if (name.equals("getMetaData")) {
+				return Proxy.newProxyInstance(CachedRow.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, new RowMetaData());
+			} else if (name.equals("close")) {
+				return null;
+			} else if (name.equals("equals")) {
+				return proxy == arguments[0];
+			} else if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			} else if (name.equals("toString")) {
+				return "CachedRow" + Arrays.toString(values);
+			} else if (name.startsWith("get") && (argumentCount == 1) && ((arguments[0] instanceof Integer) || (arguments[0] instanceof String))) {
+				int column = (arguments[0] instanceof Integer) ? (Integer) arguments[0] : findColumn((String) arguments[0]);
+				if ((column < 1) || (column > values.length)) {
+					throw new SQLException("Column " + column + " does not exist.");
+				}
+				Object value = values[column - 1];
+				wasNull = value == null;
+				return (value == null) ? nullValue(method.getReturnType()) : convert(value, method.getReturnType());
+			}
+			throw new SQLFeatureNotSupportedException(name + " is not supported by cached rows.");
+		}
+
+	}
+
+	/**
+	 * {@link InvocationHandler} for the {@link ResultSetMetaData} of a cached
+	 * row. It only knows the labels and SQL types of the columns.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private class RowMetaData implements InvocationHandler {
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("synthetic-access")
+		public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+			String name = method.getName();
+			if (name.equals("getColumnCount")) {
+				return columnPlan.getColumnCount();
+			} else if (name.equals("equals")) {
+				return proxy == arguments[0];
+			} else if (name.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			} else if (name.equals("toString")) {
+				return "CachedRowMetaData[" + columnPlan.getColumnCount() + " columns]";
+			} else if ((arguments != null) && (arguments.length == 1) && (arguments[0] instanceof Integer)) {
+				int column = (Integer) arguments[0];
+				if ((column < 1) || (column > values.length)) {
+					throw new SQLException("Column " + column + " does not exist.");
+				}
+				if (name.equals("getColumnLabel") || name.equals("getColumnName")) {
+					return columnPlan.getLabel(column - 1);
+				} else if (name.equals("getColumnType")) {
+					return columnPlan.getSqlType(column - 1);
+				} else if (name.equals("isNullable")) {
+					return ResultSetMetaData.columnNullableUnknown;
+				}
+			}
+			throw new SQLFeatureNotSupportedException(name + " is not supported by cached rows.");
+		}
+
+	}
+
+}
@@ -0,0 +1,293 @@
+/*
+ * utils - ColumnPlan.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The labels and value kinds of the columns of a {@link ResultSet}. A column
+ * plan is resolved once from the {@link ResultSetMetaData meta data} of a
+ * result set and can then be used to read the values of all rows without
+ * having to look at the meta data again.
+ * <p>
+ * The SQL types of the columns are mapped to the following kinds:
+ * <ul>
+ * <li>{@link Types#TINYINT} is mapped to {@link Kind#BYTE}.</li>
+ * <li>{@link Types#SMALLINT} is mapped to {@link Kind#SHORT}.</li>
+ * <li>{@link Types#INTEGER} is mapped to {@link Kind#INTEGER}.</li>
+ * <li>{@link Types#BIGINT} is mapped to {@link Kind#LONG}.</li>
+ * <li>{@link Types#REAL} is mapped to {@link Kind#FLOAT}.</li>
+ * <li>{@link Types#FLOAT}, {@link Types#DOUBLE} and {@link Types#DECIMAL} are
+ * mapped to {@link Kind#DOUBLE}.</li>
+ * <li>{@link Types#BOOLEAN} is mapped to {@link Kind#BOOLEAN}.</li>
+ * <li>{@link Types#VARCHAR} and {@link Types#LONGVARCHAR} are mapped to
+ * {@link Kind#STRING}.</li>
+ * <li>{@link Types#DATE} is mapped to {@link Kind#DATE}.</li>
+ * <li>{@link Types#TIMESTAMP} is mapped to {@link Kind#TIMESTAMP}.</li>
+ * <li>All other types are mapped to {@link Kind#OBJECT}.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class ColumnPlan {
+
+	/**
+	 * The kind of values stored in a column.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	public enum Kind {
+
+		/** The column is read using {@link ResultSet#getByte(int)}. */
+		BYTE,
+
+		/** The column is read using {@link ResultSet#getShort(int)}. */
+		SHORT,
+
+		/** The column is read using {@link ResultSet#getInt(int)}. */
+		INTEGER,
+
+		/** The column is read using {@link ResultSet#getLong(int)}. */
+		LONG,
+
+		/** The column is read using {@link ResultSet#getFloat(int)}. */
+		FLOAT,
+
+		/** The column is read using {@link ResultSet#getDouble(int)}. */
+		DOUBLE,
+
+		/** The column is read using {@link ResultSet#getBoolean(int)}. */
+		BOOLEAN,
+
+		/** The column is read using {@link ResultSet#getString(int)}. */
+		STRING,
+
+		/** The column is read using {@link ResultSet#getDate(int)}. */
+		DATE,
+
+		/** The column is read using {@link ResultSet#getTimestamp(int)}. */
+		TIMESTAMP,
+
+		/** The column is read using {@link ResultSet#getObject(int)}. */
+		OBJECT;
+
+		/**
+		 * Returns the kind for the given SQL type.
+		 *
+		 * @param sqlType
+		 *            The SQL type (one of the constants from {@link Types})
+		 * @return The kind of the SQL type
+		 */
+		public static Kind forSqlType(int sqlType) {
+			switch (sqlType) {
+				case Types.TINYINT:
+					return BYTE;
+				case Types.SMALLINT:
+					return SHORT;
+				case Types.INTEGER:
+					return INTEGER;
+				case Types.BIGINT:
+					return LONG;
+				case Types.REAL:
+					return FLOAT;
+				case Types.FLOAT:
+				case Types.DOUBLE:
+				case Types.DECIMAL:
+					return DOUBLE;
+				case Types.BOOLEAN:
+					return BOOLEAN;
+				case Types.VARCHAR:
+				case Types.LONGVARCHAR:
+					return STRING;
+				case Types.DATE:
+					return DATE;
+				case Types.TIMESTAMP:
+					return TIMESTAMP;
+				default:
+					return OBJECT;
+			}
+		}
+
+	}
+
+	/** The labels of the columns. */
+	private final String[] labels;
+
+	/** The SQL types of the columns. */
+	private final int[] sqlTypes;
+
+	/** The kinds of the columns. */
+	private final Kind[] kinds;
+
+	/** The indexes of the columns, by their lower-cased label. */
+	private final Map<String, Integer> columnIndexes = new HashMap<String, Integer>();
+
+	/**
+	 * Creates a new column plan.
+	 *
+	 * @param labels
+	 *            The labels of the columns
+	 * @param sqlTypes
+	 *            The SQL types of the columns
+	 * @param kinds
+	 *            The kinds of the columns
+	 */
+	private ColumnPlan(String[] labels, int[] sqlTypes, Kind[] kinds) {
+		this.labels = labels;
+		this.sqlTypes = sqlTypes;
+		this.kinds = kinds;
+		for (int column = labels.length - 1; column >= 0; column--) {
+			columnIndexes.put(labels[column].toLowerCase(Locale.ROOT), column);
+		}
+	}
+
+	/**
+	 * Resolves the column plan of the given result set.
+	 *
+	 * @param resultSet
+	 *            The result set to resolve the column plan for
+	 * @return The column plan of the result set
+	 * @throws SQLException
+	 *             if an SQL error occurs
+	 */
+	public static ColumnPlan resolve(ResultSet resultSet) throws SQLException {
+		ResultSetMetaData metadata = resultSet.getMetaData();
+		int columnCount = metadata.getColumnCount();
+		String[] labels = new String[columnCount];
+		int[] sqlTypes = new int[columnCount];
+		Kind[] kinds = new Kind[columnCount];
+		for (int column = 0; column < columnCount; column++) {
+			labels[column] = metadata.getColumnLabel(column + 1);
+			sqlTypes[column] = metadata.getColumnType(column + 1);
+			kinds[column] = Kind.forSqlType(sqlTypes[column]);
+		}
+		return new ColumnPlan(labels, sqlTypes, kinds);
+	}
+
+	//
+	// ACCESSORS
+	//
+
+	/**
+	 * Returns the number of columns.
+	 *
+	 * @return The number of columns
+	 */
+	public int getColumnCount() {
+		return labels.length;
+	}
+
+	/**
+	 * Returns the label of the given column.
+	 *
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return The label of the column
+	 */
+	public String getLabel(int column) {
+		return labels[column];
+	}
+
+	/**
+	 * Returns the SQL type of the given column.
+	 *
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return The SQL type of the column (one of the constants from
+	 *         {@link Types})
+	 */
+	public int getSqlType(int column) {
+		return sqlTypes[column];
+	}
+
+	/**
+	 * Returns the kind of the given column.
+	 *
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return The kind of the column
+	 */
+	public Kind getKind(int column) {
+		return kinds[column];
+	}
+
+	/**
+	 * Returns the index of the column with the given label.
+	 *
+	 * @param label
+	 *            The label of the column
+	 * @return The index of the column (starting at {@code 0}), or {@code -1}
+	 *         if there is no column with the given label
+	 */
+	public int getColumnIndex(String label) {
+		Integer column = columnIndexes.get(label.toLowerCase(Locale.ROOT));
+		return (column == null) ? -1 : column;
+	}
+
+	//
+	// ACTIONS
+	//
+
+	/**
+	 * Reads the value of the given column from the current row of the given
+	 * result set, using the accessor matching the kind of the column. As with
+	 * the primitive accessors of {@link ResultSet}, SQL NULL values of numeric
+	 * and boolean columns are returned as {@code 0} or {@code false}.
+	 *
+	 * @param resultSet
+	 *            The result set to read the value from
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return The value of the column
+	 * @throws SQLException
+	 *             if an SQL error occurs
+	 */
+	public Object readValue(ResultSet resultSet, int column) throws SQLException {
+		switch (kinds[column]) {
+			case BYTE:
+				return resultSet.getByte(column + 1);
+			case SHORT:
+				return resultSet.getShort(column + 1);
+			case INTEGER:
+				return resultSet.getInt(column + 1);
+			case LONG:
+				return resultSet.getLong(column + 1);
+			case FLOAT:
+				return resultSet.getFloat(column + 1);
+			case DOUBLE:
+				return resultSet.getDouble(column + 1);
+			case BOOLEAN:
+				return resultSet.getBoolean(column + 1);
+			case STRING:
+				return resultSet.getString(column + 1);
+			case DATE:
+				return resultSet.getDate(column + 1);
+			case TIMESTAMP:
+				return resultSet.getTimestamp(column + 1);
+			default:
+				return resultSet.getObject(column + 1);
+		}
+	}
+
+}
@@ -17,11 +17,22 @@
 
 package net.pterodactylus.util.database;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 
+import net.pterodactylus.util.collection.Pair;
 import net.pterodactylus.util.database.Parameter.LongParameter;
 import net.pterodactylus.util.database.Query.Type;
 
@@ -36,6 +47,18 @@ import net.pterodactylus.util.database.Query.Type;
  * database. It is not possible to create a data object in memory first and then
  * save it to the database.</li>
  * </ul>
+ * <p>
+ * Loaded data objects can optionally be cached, keyed by their table and ID. A
+ * shared second-level cache can be set with
+ * {@link #setSharedCache(DataObjectCache)}; it is used by all threads. It
+ * stores copies of the loaded rows, and every load from the shared cache
+ * creates a new object, so data objects are never shared between threads. In
+ * addition, every thread can {@link #openIdentityMap() open an identity map}
+ * which makes sure that an object is only loaded once, and that every load of
+ * the same object returns the same instance, until the identity map is
+ * {@link #closeIdentityMap() closed} again. Saving an object stores it in the
+ * identity map and removes it from the shared cache, deleting an object
+ * removes it from both.
  *
  * @param <D>
  *            The type of the data object
@@ -43,6 +66,15 @@ import net.pterodactylus.util.database.Query.Type;
  */
 public abstract class DataObject<D extends DataObject<D>> {
 
+	/** The maximum number of IDs that are loaded with a single query. */
+	private static final int MAXIMUM_IDS_PER_QUERY = 500;
+
+	/** The shared second-level cache, if any. */
+	private static volatile DataObjectCache sharedCache;
+
+	/** The identity maps of the threads. */
+	private static final ThreadLocal<Map<Pair<String, Long>, DataObject<?>>> identityMaps = new ThreadLocal<Map<Pair<String, Long>, DataObject<?>>>();
+
 	/** The data object factory that created this object. */
 	private final DataObjectFactory<D> dataObjectFactory;
 
@@ -52,8 +84,8 @@ public abstract class DataObject<D extends DataObject<D>> {
 	/** The properties of this data object. */
 	private final Map<String, Object> properties = new HashMap<String, Object>();
 
-	/** Whether the object has been written to. */
-	private boolean dirty;
+	/** The names of the properties that have been changed. */
+	private final Set<String> dirtyProperties = new HashSet<String>();
 
 	/**
 	 * Creates a new data object.
@@ -86,7 +118,9 @@ public abstract class DataObject<D extends DataObject<D>> {
 	//
 
 	/**
-	 * Sets the property with the given name to the given value.
+	 * Sets the property with the given name to the given value. If the value
+	 * differs from the current value of the property, the property is marked
+	 * as dirty.
 	 *
 	 * @param name
 	 *            The name of the property
@@ -94,8 +128,14 @@ public abstract class DataObject<D extends DataObject<D>> {
 	 *            The value of the property
 	 */
 	protected void setProperty(String name, Object value) {
+		if (properties.containsKey(name)) {
+			Object oldValue = properties.get(name);
+			if ((oldValue == null) ? (value == null) : oldValue.equals(value)) {
+				return;
+			}
+		}
 		properties.put(name, value);
-		dirty = true;
+		dirtyProperties.add(name);
 	}
 
 	/**
@@ -110,11 +150,21 @@ public abstract class DataObject<D extends DataObject<D>> {
 		return properties.get(name);
 	}
 
+	/**
+	 * Returns the names of all properties that have been changed since the
+	 * object was last saved.
+	 *
+	 * @return The names of the dirty properties
+	 */
+	protected Set<String> getDirtyProperties() {
+		return Collections.unmodifiableSet(dirtyProperties);
+	}
+
 	/**
 	 * Clears the dirty flag.
 	 */
 	protected void clearDirtyFlag() {
-		dirty = false;
+		dirtyProperties.clear();
 	}
 
 	//
@@ -128,6 +178,30 @@ public abstract class DataObject<D extends DataObject<D>> {
 	 */
 	protected abstract Set<ValueField> getSaveFields();
 
+	/**
+	 * Returns the fields that need to be saved because their properties have
+	 * changed. The default implementation returns all
+	 * {@link #getSaveFields() save fields} whose name equals the name of a
+	 * {@link #getDirtyProperties() dirty property}; if any dirty property
+	 * does not have a save field of the same name, all save fields are
+	 * returned, so that no change is lost. Subclasses whose property names do
+	 * not match their column names should override this method.
+	 *
+	 * @return The fields that need to be saved
+	 */
+	protected Set<ValueField> getDirtySaveFields() {
+		Set<ValueField> saveFields = getSaveFields();
+		Set<ValueField> dirtySaveFields = new HashSet<ValueField>();
+		Set<String> savedProperties = new HashSet<String>();
+		for (ValueField saveField : saveFields) {
+			if (dirtyProperties.contains(saveField.getName())) {
+				dirtySaveFields.add(saveField);
+				savedProperties.add(saveField.getName());
+			}
+		}
+		return savedProperties.containsAll(dirtyProperties) ? dirtySaveFields : saveFields;
+	}
+
 	//
 	// ACTIONS
 	//
@@ -157,25 +231,18 @@ public abstract class DataObject<D extends DataObject<D>> {
 	 *             if a database error occurs
 	 */
 	public void save(Database database, boolean force) throws DatabaseException {
-		if (id != -1 && !dirty && !force) {
+		if (!needsSave(force)) {
 			return;
 		}
 		if (id == -1) {
-			Query query = new Query(Type.INSERT, dataObjectFactory.getTable());
-			for (ValueField saveField : getSaveFields()) {
-				query.addValueField(saveField);
-			}
-			id = database.insert(query);
+			id = database.insert(createInsertQuery());
 			clearDirtyFlag();
+			cacheSaved();
 			return;
 		}
-		Query query = new Query(Type.UPDATE, dataObjectFactory.getTable());
-		for (ValueField saveField : getSaveFields()) {
-			query.addValueField(saveField);
-		}
-		query.addWhereClause(new ValueFieldWhereClause(new ValueField(dataObjectFactory.getIdentityColumn(), new LongParameter(id))));
-		database.update(query);
+		database.update(createUpdateQuery(force));
 		clearDirtyFlag();
+		cacheSaved();
 	}
 
 	/**
@@ -193,10 +260,168 @@ public abstract class DataObject<D extends DataObject<D>> {
 		return DataObject.deleteById(database, dataObjectFactory, getId());
 	}
 
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Stores this object in the identity map of the current thread, if it
+	 * exists, and removes the now outdated row from the shared cache.
+	 */
+	private void cacheSaved() {
+		uncache(dataObjectFactory.getTable(), id);
+		Map<Pair<String, Long>, DataObject<?>> identityMap = identityMaps.get();
+		if (identityMap != null) {
+			identityMap.put(createKey(dataObjectFactory.getTable(), id), this);
+		}
+	}
+
+	/**
+	 * Returns whether this object needs to be saved.
+	 *
+	 * @param force
+	 *            {@code true} if saving is forced, {@code false} otherwise
+	 * @return {@code true} if this object needs to be saved, {@code false}
+	 *         otherwise
+	 */
+	private boolean needsSave(boolean force) {
+		return (id == -1) || !dirtyProperties.isEmpty() || force;
+	}
+
+	/**
+	 * Creates the query that inserts this object into the database.
+	 *
+	 * @return The insert query
+	 */
+	private Query createInsertQuery() {
+		Query query = new Query(Type.INSERT, dataObjectFactory.getTable());
+		for (ValueField saveField : getSaveFields()) {
+			query.addValueField(saveField);
+		}
+		return query;
+	}
+
+	/**
+	 * Creates the query that updates this object in the database. Unless all
+	 * fields are requested, only the {@link #getDirtySaveFields() dirty
+	 * fields} are written.
+	 *
+	 * @param allFields
+	 *            {@code true} to write all save fields, {@code false} to only
+	 *            write the dirty fields
+	 * @return The update query
+	 */
+	private Query createUpdateQuery(boolean allFields) {
+		Query query = new Query(Type.UPDATE, dataObjectFactory.getTable());
+		for (ValueField saveField : (allFields || dirtyProperties.isEmpty()) ? getSaveFields() : getDirtySaveFields()) {
+			query.addValueField(saveField);
+		}
+		query.addWhereClause(new ValueFieldWhereClause(new ValueField(dataObjectFactory.getIdentityColumn(), new LongParameter(id))));
+		return query;
+	}
+
 	//
 	// STATIC METHODS
 	//
 
+	/**
+	 * Saves all given data objects that are dirty to the database. In contrast
+	 * to calling {@link #save(Database)} on every object, all inserts and all
+	 * updates are sent to the database in JDBC batches.
+	 *
+	 * @param <D>
+	 *            The type of the data objects
+	 * @param database
+	 *            The database to store the objects to
+	 * @param dataObjects
+	 *            The data objects to save
+	 * @throws DatabaseException
+	 *             if a database error occurs
+	 * @see Database#insertBatch(List)
+	 * @see Database#updateBatch(List)
+	 */
+	public static <D extends DataObject<D>> void saveAll(Database database, Collection<D> dataObjects) throws DatabaseException {
+		saveAll(database, dataObjects, false);
+	}
+
+	/**
+	 * Saves all given data objects that are dirty to the database, or all
+	 * given data objects if the {@code force} parameter is {@code true}. In
+	 * contrast to calling {@link #save(Database, boolean)} on every object,
+	 * all inserts and all updates are sent to the database in JDBC batches.
+	 * Updates are grouped by the columns they change so that updates of the
+	 * same columns end up in the same batch.
+	 *
+	 * @param <D>
+	 *            The type of the data objects
+	 * @param database
+	 *            The database to store the objects to
+	 * @param dataObjects
+	 *            The data objects to save
+	 * @param force
+	 *            {@code true} to force saving to the database, {@code false} to
+	 *            not save objects that are not dirty
+	 * @throws DatabaseException
+	 *             if a database error occurs, or if the database did not
+	 *             return a generated key for every inserted object (in which
+	 *             case no object is updated)
+	 * @see Database#insertBatch(List)
+	 * @see Database#updateBatch(List)
+	 */
+	public static <D extends DataObject<D>> void saveAll(Database database, Collection<D> dataObjects, boolean force) throws DatabaseException {
+		List<DataObject<D>> insertedObjects = new ArrayList<DataObject<D>>();
+		List<Query> insertQueries = new ArrayList<Query>();
+		Map<String, List<DataObject<D>>> updatedObjectsBySql = new LinkedHashMap<String, List<DataObject<D>>>();
+		Map<String, List<Query>> updateQueriesBySql = new LinkedHashMap<String, List<Query>>();
+		for (DataObject<D> dataObject : dataObjects) {
+			if (!dataObject.needsSave(force)) {
+				continue;
+			}
+			if (dataObject.id == -1) {
+				insertedObjects.add(dataObject);
+				insertQueries.add(dataObject.createInsertQuery());
+			} else {
+				Query updateQuery = dataObject.createUpdateQuery(force);
+				if (!updateQueriesBySql.containsKey(updateQuery.getSql())) {
+					updatedObjectsBySql.put(updateQuery.getSql(), new ArrayList<DataObject<D>>());
+					updateQueriesBySql.put(updateQuery.getSql(), new ArrayList<Query>());
+				}
+				updatedObjectsBySql.get(updateQuery.getSql()).add(dataObject);
+				updateQueriesBySql.get(updateQuery.getSql()).add(updateQuery);
+			}
+		}
+		List<DataObject<D>> updatedObjects = new ArrayList<DataObject<D>>();
+		List<Query> updateQueries = new ArrayList<Query>();
+		for (String sql : updateQueriesBySql.keySet()) {
+			updatedObjects.addAll(updatedObjectsBySql.get(sql));
+			updateQueries.addAll(updateQueriesBySql.get(sql));
+		}
+		if (!insertQueries.isEmpty()) {
+			long[] ids = database.insertBatch(insertQueries);
+			if (ids.length != insertQueries.size()) {
+				throw new DatabaseException("Database returned " + ids.length + " generated keys for " + insertQueries.size() + " inserted objects.");
+			}
+			for (long id : ids) {
+				if (id == -1) {
+					throw new DatabaseException("Database did not return a generated key for every inserted object.");
+				}
+			}
+			for (int index = 0; index < ids.length; ++index) {
+				DataObject<D> insertedObject = insertedObjects.get(index);
+				insertedObject.id = ids[index];
+				insertedObject.clearDirtyFlag();
+				insertedObject.cacheSaved();
+			}
+		}
+		if (!updateQueries.isEmpty()) {
+			database.updateBatch(updateQueries);
+			for (DataObject<D> updatedObject : updatedObjects) {
+				updatedObject.clearDirtyFlag();
+				updatedObject.cacheSaved();
+			}
+		}
+	}
+
 	/**
 	 * Loads a data object from the given database by the given ID.
 	 *
@@ -214,9 +439,64 @@ public abstract class DataObject<D extends DataObject<D>> {
 	 *             if a database error occurs
 	 */
 	public static <D extends DataObject<D>> D loadById(Database database, DataObjectFactory<D> dataObjectFactory, long id) throws DatabaseException {
+		D cachedObject = getCached(dataObjectFactory, id);
+		if (cachedObject != null) {
+			return cachedObject;
+		}
 		return loadByWhereClause(database, dataObjectFactory, new ValueFieldWhereClause(new ValueField(dataObjectFactory.getIdentityColumn(), new LongParameter(id))));
 	}
 
+	/**
+	 * Loads the data objects with the given IDs from the given database.
+	 * Objects that are already cached are not loaded again; all other objects
+	 * are loaded with as few queries as possible, using at most 500 IDs per
+	 * query.
+	 *
+	 * @param database
+	 *            The database to load the objects from
+	 * @param dataObjectFactory
+	 *            The data object factory
+	 * @param ids
+	 *            The IDs to load
+	 * @param <D>
+	 *            The type of the objects to load
+	 * @return The loaded objects, in the order of the given IDs; IDs for which
+	 *         no object exists are skipped
+	 * @throws DatabaseException
+	 *             if a database error occurs
+	 */
+	public static <D extends DataObject<D>> List<D> loadByIds(Database database, DataObjectFactory<D> dataObjectFactory, long... ids) throws DatabaseException {
+		Map<Long, D> dataObjects = new HashMap<Long, D>();
+		Set<Long> missingIds = new LinkedHashSet<Long>();
+		for (long id : ids) {
+			D cachedObject = getCached(dataObjectFactory, id);
+			if (cachedObject != null) {
+				dataObjects.put(id, cachedObject);
+			} else {
+				missingIds.add(id);
+			}
+		}
+		List<LongParameter> idParameters = new ArrayList<LongParameter>(Math.min(missingIds.size(), MAXIMUM_IDS_PER_QUERY));
+		for (Iterator<Long> missingIdIterator = missingIds.iterator(); missingIdIterator.hasNext();) {
+			idParameters.add(new LongParameter(missingIdIterator.next()));
+			if ((idParameters.size() < MAXIMUM_IDS_PER_QUERY) && missingIdIterator.hasNext()) {
+				continue;
+			}
+			for (D loadedObject : loadAllByWhereClause(database, dataObjectFactory, new InWhereClause(new Field(dataObjectFactory.getIdentityColumn()), idParameters))) {
+				dataObjects.put(loadedObject.getId(), loadedObject);
+			}
+			idParameters = new ArrayList<LongParameter>(Math.min(missingIds.size(), MAXIMUM_IDS_PER_QUERY));
+		}
+		List<D> orderedObjects = new ArrayList<D>(ids.length);
+		for (long id : ids) {
+			D dataObject = dataObjects.get(id);
+			if (dataObject != null) {
+				orderedObjects.add(dataObject);
+			}
+		}
+		return orderedObjects;
+	}
+
 	/**
 	 * Loads the first data object that matches the given where clause from the
 	 * given database.
@@ -242,7 +522,7 @@ public abstract class DataObject<D extends DataObject<D>> {
 		for (OrderField orderField : orderFields) {
 			query.addOrderField(orderField);
 		}
-		return database.getSingle(query, dataObjectFactory);
+		return register(dataObjectFactory, database.getSingle(query, createObjectCreator(dataObjectFactory)));
 	}
 
 	/**
@@ -268,7 +548,11 @@ public abstract class DataObject<D extends DataObject<D>> {
 		Query query = new Query(Type.SELECT, dataObjectFactory.getTable());
 		query.addWhereClause(whereClause);
 		query.addOrderField(orderFields);
-		return database.getMultiple(query, dataObjectFactory);
+		List<D> dataObjects = database.getMultiple(query, createObjectCreator(dataObjectFactory));
+		for (ListIterator<D> dataObjectIterator = dataObjects.listIterator(); dataObjectIterator.hasNext();) {
+			dataObjectIterator.set(register(dataObjectFactory, dataObjectIterator.next()));
+		}
+		return dataObjects;
 	}
 
 	/**
@@ -290,6 +574,7 @@ public abstract class DataObject<D extends DataObject<D>> {
 		Query query = new Query(Type.INSERT, dataObjectFactory.getTable());
 		query.addValueField(valueFields);
 		long id = database.insert(query);
+		uncache(dataObjectFactory.getTable(), id);
 		return loadById(database, dataObjectFactory, id);
 	}
 
@@ -309,7 +594,10 @@ public abstract class DataObject<D extends DataObject<D>> {
 	 *             if a database error occurs
 	 */
 	public static <D extends DataObject<D>> boolean deleteById(Database database, DataObjectFactory<D> dataObjectFactory, long id) throws DatabaseException {
-		return deleteByWhereClause(database, dataObjectFactory, new ValueFieldWhereClause(new ValueField(dataObjectFactory.getIdentityColumn(), new LongParameter(id)))) == 1;
+		Query query = new Query(Type.DELETE, dataObjectFactory.getTable());
+		query.addWhereClause(new ValueFieldWhereClause(new ValueField(dataObjectFactory.getIdentityColumn(), new LongParameter(id))));
+		uncache(dataObjectFactory.getTable(), id);
+		return database.update(query) == 1;
 	}
 
 	/**
@@ -330,7 +618,242 @@ public abstract class DataObject<D extends DataObject<D>> {
 	public static <D extends DataObject<D>> int deleteByWhereClause(Database database, DataObjectFactory<D> dataObjectFactory, WhereClause whereClause) throws DatabaseException {
 		Query query = new Query(Type.DELETE, dataObjectFactory.getTable());
 		query.addWhereClause(whereClause);
+		uncacheAll(dataObjectFactory.getTable());
 		return database.update(query);
 	}
 
+	//
+	// CACHE MANAGEMENT
+	//
+
+	/**
+	 * Sets the shared second-level cache that is used by all threads.
+	 *
+	 * @param dataObjectCache
+	 *            The shared cache, or {@code null} to not use a shared cache
+	 */
+	public static void setSharedCache(DataObjectCache dataObjectCache) {
+		sharedCache = dataObjectCache;
+	}
+
+	/**
+	 * Opens an identity map for the current thread. Until
+	 * {@link #closeIdentityMap()} is called, every data object is only loaded
+	 * once by the current thread, and the same instance is returned for every
+	 * load of the same object. If the current thread already has an identity
+	 * map, it is replaced by an empty one.
+	 */
+	public static void openIdentityMap() {
+		identityMaps.set(new HashMap<Pair<String, Long>, DataObject<?>>());
+	}
+
+	/**
+	 * Closes the identity map of the current thread.
+	 */
+	public static void closeIdentityMap() {
+		identityMaps.remove();
+	}
+
+	/**
+	 * Returns the object with the given ID from the identity map of the
+	 * current thread, or creates a new object from the row in the shared
+	 * cache.
+	 *
+	 * @param <D>
+	 *            The type of the data object
+	 * @param dataObjectFactory
+	 *            The data object factory
+	 * @param id
+	 *            The ID of the object
+	 * @return The cached object, or {@code null} if the object is not cached
+	 * @throws DatabaseException
+	 *             if the object can not be created from the cached row
+	 */
+	@SuppressWarnings("unchecked")
+	private static <D extends DataObject<D>> D getCached(DataObjectFactory<D> dataObjectFactory, long id) throws DatabaseException {
+		Map<Pair<String, Long>, DataObject<?>> identityMap = identityMaps.get();
+		if (identityMap != null) {
+			D cachedObject = (D) identityMap.get(createKey(dataObjectFactory.getTable(), id));
+			if (cachedObject != null) {
+				return cachedObject;
+			}
+		}
+		DataObjectCache dataObjectCache = sharedCache;
+		if (dataObjectCache == null) {
+			return null;
+		}
+		CachedRow cachedRow = dataObjectCache.get(dataObjectFactory.getTable(), id);
+		if (cachedRow == null) {
+			return null;
+		}
+		D cachedObject;
+		try {
+			cachedObject = dataObjectFactory.createObject(cachedRow.createResultSet());
+		} catch (SQLException sqle1) {
+			throw new DatabaseException("Could not create object from cached row.", sqle1);
+		}
+		if ((cachedObject != null) && (identityMap != null)) {
+			identityMap.put(createKey(dataObjectFactory.getTable(), id), cachedObject);
+		}
+		return cachedObject;
+	}
+
+	/**
+	 * Registers a freshly loaded object with the identity map of the current
+	 * thread. If the identity map already contains the object, the instance
+	 * from the identity map is returned instead.
+	 *
+	 * @param <D>
+	 *            The type of the data object
+	 * @param dataObjectFactory
+	 *            The data object factory
+	 * @param dataObject
+	 *            The loaded object (may be {@code null})
+	 * @return The object to return to the caller
+	 */
+	@SuppressWarnings("unchecked")
+	private static <D extends DataObject<D>> D register(DataObjectFactory<D> dataObjectFactory, D dataObject) {
+		if (dataObject == null) {
+			return null;
+		}
+		Map<Pair<String, Long>, DataObject<?>> identityMap = identityMaps.get();
+		if (identityMap != null) {
+			Pair<String, Long> key = createKey(dataObjectFactory.getTable(), dataObject.getId());
+			D cachedObject = (D) identityMap.get(key);
+			if (cachedObject != null) {
+				return cachedObject;
+			}
+			identityMap.put(key, dataObject);
+		}
+		return dataObject;
+	}
+
+	/**
+	 * Returns the object creator for loading objects. If a shared cache is
+	 * set, the returned object creator stores a copy of every loaded row in
+	 * the shared cache.
+	 *
+	 * @param <D>
+	 *            The type of the data object
+	 * @param dataObjectFactory
+	 *            The data object factory
+	 * @return The object creator to use for loading
+	 */
+	private static <D extends DataObject<D>> ObjectCreator<D> createObjectCreator(DataObjectFactory<D> dataObjectFactory) {
+		DataObjectCache dataObjectCache = sharedCache;
+		if (dataObjectCache == null) {
+			return dataObjectFactory;
+		}
+		return new CachingObjectCreator<D>(dataObjectFactory, dataObjectCache);
+	}
+
+	/**
+	 * Removes the object with the given ID from the shared cache and the
+	 * identity map of the current thread.
+	 *
+	 * @param table
+	 *            The table of the object
+	 * @param id
+	 *            The ID of the object
+	 */
+	private static void uncache(String table, long id) {
+		Map<Pair<String, Long>, DataObject<?>> identityMap = identityMaps.get();
+		if (identityMap != null) {
+			identityMap.remove(createKey(table, id));
+		}
+		DataObjectCache dataObjectCache = sharedCache;
+		if (dataObjectCache != null) {
+			dataObjectCache.remove(table, id);
+		}
+	}
+
+	/**
+	 * Removes all objects of the given table from the shared cache and the
+	 * identity map of the current thread.
+	 *
+	 * @param table
+	 *            The table whose objects to remove
+	 */
+	private static void uncacheAll(String table) {
+		Map<Pair<String, Long>, DataObject<?>> identityMap = identityMaps.get();
+		if (identityMap != null) {
+			for (Iterator<Pair<String, Long>> keys = identityMap.keySet().iterator(); keys.hasNext();) {
+				if (keys.next().getLeft().equals(table)) {
+					keys.remove();
+				}
+			}
+		}
+		DataObjectCache dataObjectCache = sharedCache;
+		if (dataObjectCache != null) {
+			dataObjectCache.removeAll(table);
+		}
+	}
+
+	/**
+	 * Creates the cache key for the object with the given ID in the given
+	 * table.
+	 *
+	 * @param table
+	 *            The table of the object
+	 * @param id
+	 *            The ID of the object
+	 * @return The key of the object
+	 */
+	private static Pair<String, Long> createKey(String table, long id) {
+		return new Pair<String, Long>(table, id);
+	}
+
+	/**
+	 * {@link ObjectCreator} that copies every row into the shared cache
+	 * before the object is created from the copy.
+	 *
+	 * @param <D>
+	 *            The type of the data object
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class CachingObjectCreator<D extends DataObject<D>> implements ObjectCreator<D> {
+
+		/** The data object factory. */
+		private final DataObjectFactory<D> dataObjectFactory;
+
+		/** The shared cache. */
+		private final DataObjectCache dataObjectCache;
+
+		/** The column plan of the result set, once resolved. */
+		private ColumnPlan columnPlan;
+
+		/**
+		 * Creates a new caching object creator.
+		 *
+		 * @param dataObjectFactory
+		 *            The data object factory
+		 * @param dataObjectCache
+		 *            The shared cache
+		 */
+		public CachingObjectCreator(DataObjectFactory<D> dataObjectFactory, DataObjectCache dataObjectCache) {
+			this.dataObjectFactory = dataObjectFactory;
+			this.dataObjectCache = dataObjectCache;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public D createObject(ResultSet resultSet) throws SQLException {
+			if (columnPlan == null) {
+				columnPlan = ColumnPlan.resolve(resultSet);
+			}
+			CachedRow cachedRow = CachedRow.capture(columnPlan, resultSet);
+			if (cachedRow == null) {
+				return dataObjectFactory.createObject(resultSet);
+			}
+			D dataObject = dataObjectFactory.createObject(cachedRow.createResultSet());
+			if (dataObject != null) {
+				dataObjectCache.put(dataObjectFactory.getTable(), dataObject.getId(), cachedRow);
+			}
+			return dataObject;
+		}
+
+	}
+
 }
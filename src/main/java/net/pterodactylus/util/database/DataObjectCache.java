@@ -0,0 +1,161 @@
+/*
+ * utils - DataObjectCache.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import net.pterodactylus.util.collection.Pair;
+
+/**
+ * Shared second-level cache for {@link DataObject}s, keyed by the
+ * {@link DataObjectFactory#getTable() table} and the ID of the objects. A
+ * cache can be bounded, in which case the least recently used objects are
+ * removed when the cache is full.
+ * <p>
+ * The cache does not store the data objects themselves but a copy of the
+ * database rows they were created from; every lookup creates a new object
+ * from the cached row, so that threads never share a data object through the
+ * cache. A data object cache is used by {@link DataObject} once it has been
+ * set with {@link DataObject#setSharedCache(DataObjectCache)}.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class DataObjectCache {
+
+	/** The cached rows. */
+	private final Map<Pair<String, Long>, CachedRow> cachedRows;
+
+	/**
+	 * Creates a new unbounded data object cache.
+	 */
+	public DataObjectCache() {
+		this(0);
+	}
+
+	/**
+	 * Creates a new data object cache.
+	 *
+	 * @param maximumSize
+	 *            The maximum number of cached objects, or {@code 0} for an
+	 *            unbounded cache
+	 */
+	public DataObjectCache(final int maximumSize) {
+		cachedRows = new LinkedHashMap<Pair<String, Long>, CachedRow>(16, 0.75f, true) {
+
+			@Override
+			protected boolean removeEldestEntry(Entry<Pair<String, Long>, CachedRow> eldest) {
+				return (maximumSize > 0) && (size() > maximumSize);
+			}
+		};
+	}
+
+	//
+	// ACTIONS
+	//
+
+	/**
+	 * Returns the cached row of the object with the given ID.
+	 *
+	 * @param table
+	 *            The table of the object
+	 * @param id
+	 *            The ID of the object
+	 * @return The cached row, or {@code null} if the object is not cached
+	 */
+	synchronized CachedRow get(String table, long id) {
+		return cachedRows.get(createKey(table, id));
+	}
+
+	/**
+	 * Stores the row of the object with the given ID in this cache.
+	 *
+	 * @param table
+	 *            The table of the object
+	 * @param id
+	 *            The ID of the object
+	 * @param cachedRow
+	 *            The row to cache
+	 */
+	synchronized void put(String table, long id, CachedRow cachedRow) {
+		cachedRows.put(createKey(table, id), cachedRow);
+	}
+
+	/**
+	 * Removes the object with the given ID from this cache.
+	 *
+	 * @param table
+	 *            The table of the object
+	 * @param id
+	 *            The ID of the object
+	 */
+	public synchronized void remove(String table, long id) {
+		cachedRows.remove(createKey(table, id));
+	}
+
+	/**
+	 * Removes all objects of the given table from this cache.
+	 *
+	 * @param table
+	 *            The table whose objects to remove
+	 */
+	public synchronized void removeAll(String table) {
+		Iterator<Pair<String, Long>> keys = cachedRows.keySet().iterator();
+		while (keys.hasNext()) {
+			if (keys.next().getLeft().equals(table)) {
+				keys.remove();
+			}
+		}
+	}
+
+	/**
+	 * Removes all objects from this cache.
+	 */
+	public synchronized void clear() {
+		cachedRows.clear();
+	}
+
+	/**
+	 * Returns the number of cached objects.
+	 *
+	 * @return The number of cached objects
+	 */
+	public synchronized int size() {
+		return cachedRows.size();
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Creates the key for the object with the given ID in the given table.
+	 *
+	 * @param table
+	 *            The table of the object
+	 * @param id
+	 *            The ID of the object
+	 * @return The key of the object
+	 */
+	private static Pair<String, Long> createKey(String table, long id) {
+		return new Pair<String, Long>(table, id);
+	}
+
+}
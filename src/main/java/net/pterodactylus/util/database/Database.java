@@ -58,6 +58,34 @@ public interface Database {
 	 */
 	public <T> List<T> getMultiple(Query query, ObjectCreator<T> objectCreator) throws DatabaseException;
 
+	/**
+	 * Returns an iterator over the results of the given query. In contrast to
+	 * {@link #getMultiple(Query, ObjectCreator)} the objects are created while
+	 * iterating, so only the rows fetched by the database driver are held in
+	 * memory. The returned iterator holds a connection until it is exhausted
+	 * or closed.
+	 * <p>
+	 * Whether rows are actually streamed depends on the database driver:
+	 * PostgreSQL only honours the fetch size outside of auto-commit mode, and
+	 * MySQL only streams with a fetch size of {@link Integer#MIN_VALUE} (or
+	 * with {@code useCursorFetch=true} in the connection URL); otherwise the
+	 * driver reads the complete result into memory.
+	 *
+	 * @param <T>
+	 *            The type of the results
+	 * @param query
+	 *            The query to execute
+	 * @param objectCreator
+	 *            The object creator
+	 * @param fetchSize
+	 *            The number of rows the driver should fetch at once, or
+	 *            {@code 0} to use the driver’s default
+	 * @return An iterator over the created objects
+	 * @throws DatabaseException
+	 *             if a database error occurs
+	 */
+	public <T> ResultIterator<T> iterate(Query query, ObjectCreator<T> objectCreator, int fetchSize) throws DatabaseException;
+
 	/**
 	 * Inserts an object into the database and returns the automatically
 	 * generated ID, if any.
@@ -82,6 +110,34 @@ public interface Database {
 	 */
 	public int update(Query query) throws DatabaseException;
 
+	/**
+	 * Inserts objects into the database using JDBC batches. All queries are
+	 * executed on the same connection; consecutive queries with the same SQL
+	 * are added to the same prepared statement.
+	 *
+	 * @param queries
+	 *            The queries to execute
+	 * @return The automatically generated IDs, in the order of the queries;
+	 *         {@code -1} for every query that did not generate an ID
+	 * @throws DatabaseException
+	 *             if a database error occurs
+	 */
+	public long[] insertBatch(List<Query> queries) throws DatabaseException;
+
+	/**
+	 * Updates objects in the database using JDBC batches. All queries are
+	 * executed on the same connection; consecutive queries with the same SQL
+	 * are added to the same prepared statement.
+	 *
+	 * @param queries
+	 *            The queries to execute
+	 * @return The number of changed objects for each query, in the order of
+	 *         the queries
+	 * @throws DatabaseException
+	 *             if a database error occurs
+	 */
+	public int[] updateBatch(List<Query> queries) throws DatabaseException;
+
 	/**
 	 * Processes the results of the given query with the given result processor.
 	 *
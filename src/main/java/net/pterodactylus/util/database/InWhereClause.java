@@ -0,0 +1,79 @@
+/*
+ * utils - InWhereClause.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A WHERE clause that requires a field to match one of several values.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class InWhereClause implements WhereClause {
+
+	/** The field to match. */
+	private final Field field;
+
+	/** The values to match. */
+	private final List<Parameter<?>> parameters = new ArrayList<Parameter<?>>();
+
+	/**
+	 * Creates a new WHERE clause that checks a field for the given values.
+	 *
+	 * @param field
+	 *            The field to check
+	 * @param parameters
+	 *            The values to check for
+	 */
+	public InWhereClause(Field field, Collection<? extends Parameter<?>> parameters) {
+		this.field = field;
+		this.parameters.addAll(parameters);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Parameter<?>> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void render(Writer writer) throws IOException {
+		if (parameters.isEmpty()) {
+			writer.write("(1 = 0)");
+			return;
+		}
+		writer.write("(" + field.getName() + " IN (");
+		for (int index = 0; index < parameters.size(); ++index) {
+			if (index > 0) {
+				writer.write(", ");
+			}
+			writer.write('?');
+		}
+		writer.write("))");
+	}
+
+}
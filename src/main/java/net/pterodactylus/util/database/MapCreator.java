@@ -17,8 +17,8 @@
 
 package net.pterodactylus.util.database;
 
+import java.lang.ref.WeakReference;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.HashMap;
@@ -29,47 +29,82 @@ import java.util.Map;
  * current row of a {@link ResultSet}. The display names of the columns are used
  * as keys, the values are mapped to objects of a fitting type.
  * <p>
- * The following {@link Types} are currently mapped:
- * <ul>
- * <li>{@link Types#INTEGER} is mapped to {@link Integer}.</li>
- * <li>{@link Types#BIGINT} is mapped to {@link Long}.</li>
- * <li>{@link Types#BOOLEAN} is mapped to {@link Boolean}.</li>
- * <li>{@link Types#VARCHAR} is mapped to {@link String}.</li>
- * </ul>
+ * The {@link Types} are mapped as described in {@link ColumnPlan}; columns of
+ * all other types are mapped using {@link ResultSet#getObject(int)}. The
+ * column plan is resolved only once for each result set and reused for all of
+ * its rows; the result set itself is only weakly referenced so that it can be
+ * collected after it has been processed.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
 public class MapCreator implements ObjectCreator<Map<String, Object>> {
 
+	/** The column plan of the last result set. */
+	private volatile ResolvedPlan lastPlan;
+
 	/**
 	 * @see net.pterodactylus.util.database.ObjectCreator#createObject(java.sql.ResultSet)
 	 */
 	@Override
 	public Map<String, Object> createObject(ResultSet resultSet) throws SQLException {
-		Map<String, Object> result = new HashMap<String, Object>();
-		ResultSetMetaData metadata = resultSet.getMetaData();
-		for (int column = 1; column <= metadata.getColumnCount(); column++) {
-			int columnType = metadata.getColumnType(column);
-			String columnLabel = metadata.getColumnLabel(column);
-			if (columnType == Types.INTEGER) {
-				result.put(columnLabel, resultSet.getInt(column));
-			} else if (columnType == Types.BIGINT) {
-				result.put(columnLabel, resultSet.getLong(column));
-			} else if (columnType == Types.DECIMAL) {
-				result.put(columnLabel, resultSet.getDouble(column));
-			} else if (columnType == Types.BOOLEAN) {
-				result.put(columnLabel, resultSet.getBoolean(column));
-			} else if (columnType == Types.VARCHAR) {
-				result.put(columnLabel, resultSet.getString(column));
-			} else if (columnType == Types.LONGVARCHAR) {
-				result.put(columnLabel, resultSet.getString(column));
-			} else if (columnType == Types.DATE) {
-				result.put(columnLabel, resultSet.getDate(column));
-			} else {
-				System.out.println("unknown type (" + columnType + ") for column “" + columnLabel + "”.");
-			}
+		ColumnPlan columnPlan = getColumnPlan(resultSet);
+		int columnCount = columnPlan.getColumnCount();
+		Map<String, Object> result = new HashMap<String, Object>(columnCount * 4 / 3 + 1);
+		for (int column = 0; column < columnCount; column++) {
+			result.put(columnPlan.getLabel(column), columnPlan.readValue(resultSet, column));
 		}
 		return result;
 	}
 
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Returns the column plan for the given result set, resolving it if the
+	 * result set differs from the last result set.
+	 *
+	 * @param resultSet
+	 *            The result set
+	 * @return The column plan of the result set
+	 * @throws SQLException
+	 *             if an SQL error occurs
+	 */
+	private ColumnPlan getColumnPlan(ResultSet resultSet) throws SQLException {
+		ResolvedPlan resolvedPlan = lastPlan;
+		if ((resolvedPlan == null) || (resolvedPlan.resultSet.get() != resultSet)) {
+			resolvedPlan = new ResolvedPlan(resultSet, ColumnPlan.resolve(resultSet));
+			lastPlan = resolvedPlan;
+		}
+		return resolvedPlan.columnPlan;
+	}
+
+	/**
+	 * Container for a result set and its column plan.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class ResolvedPlan {
+
+		/** The result set. */
+		private final WeakReference<ResultSet> resultSet;
+
+		/** The column plan of the result set. */
+		private final ColumnPlan columnPlan;
+
+		/**
+		 * Creates a new resolved plan.
+		 *
+		 * @param resultSet
+		 *            The result set
+		 * @param columnPlan
+		 *            The column plan of the result set
+		 */
+		public ResolvedPlan(ResultSet resultSet, ColumnPlan columnPlan) {
+			this.resultSet = new WeakReference<ResultSet>(resultSet);
+			this.columnPlan = columnPlan;
+		}
+
+	}
+
 }
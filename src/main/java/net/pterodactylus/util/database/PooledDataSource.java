@@ -17,56 +17,184 @@
 
 package net.pterodactylus.util.database;
 
+import java.io.InputStream;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.net.URL;
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.CallableStatement;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.Date;
 import java.sql.NClob;
+import java.sql.ParameterMetaData;
 import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
 import java.sql.SQLClientInfoException;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
 import java.sql.SQLWarning;
 import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
 
 import net.pterodactylus.util.collection.Pair;
+import net.pterodactylus.util.io.Closer;
+import net.pterodactylus.util.logging.Logging;
+import net.pterodactylus.util.number.Histogram;
+import net.pterodactylus.util.thread.DumpingThreadFactory;
 
 /**
  * A data source that uses an internal pool of opened connections. Whenever a
  * connection is requested with {@link #getConnection()} or
- * {@link #getConnection(String, String)} a new connection is created if there
- * is none available. This will allow the pool to grow on demand.
+ * {@link #getConnection(String, String)} an idle connection is taken from the
+ * pool; if there is none available a new connection is created as long as the
+ * {@link #setMaximumSize(int) maximum size} of the pool has not been reached.
+ * Otherwise the requesting thread waits (in the order of arrival) for another
+ * thread to return its connection, up to the
+ * {@link #setAcquireTimeout(long) acquire timeout}.
+ * <p>
+ * Connections are validated using {@link Connection#isValid(int)} before they
+ * are handed out. Connections that have been idle for longer than the
+ * {@link #setIdleTimeout(long) idle timeout} or that have been open for longer
+ * than the {@link #setMaximumLifetime(long) maximum lifetime} are closed; this
+ * happens opportunistically whenever connections are borrowed, and every
+ * {@link #HOUSEKEEPING_PERIOD} milliseconds in a background thread of the
+ * data source, which will also open connections until the
+ * {@link #setMinimumSize(int) minimum size} is reached. If a
+ * {@link #setLeakDetectionThreshold(long) leak detection threshold} is set, a
+ * warning is logged for every connection that has not been returned to the
+ * pool within that time. The background thread is stopped by
+ * {@link #close()}.
+ * <p>
+ * When a connection is returned to the pool, an open transaction is rolled
+ * back, and the auto-commit mode, the read-only flag, the transaction
+ * isolation level, and the catalog are reset to the values the connection had
+ * when it was opened.
+ * <p>
+ * Connections created with a username and a password are kept in separate
+ * pools for each username/password combination; the size limits apply to
+ * each pool separately.
+ * <p>
+ * Every pooled connection keeps a cache of prepared statements, keyed by their
+ * SQL. Closing a prepared statement returns it to that cache so that it can be
+ * reused when the same SQL is prepared again on the same connection. The size
+ * of the cache can be set with {@link #setStatementCacheSize(int)}.
+ * <p>
+ * The pooled data source keeps statistics about its pools which are exposed
+ * via the {@link PooledDataSourceMBean} interface.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
-public class PooledDataSource implements DataSource {
+public class PooledDataSource implements DataSource, PooledDataSourceMBean {
+
+	/** The logger. */
+	private static final Logger logger = Logging.getLogger(PooledDataSource.class.getName());
+
+	/** The minimum interval between opportunistic housekeeping runs. */
+	private static final long HOUSEKEEPING_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+	/** The interval between scheduled housekeeping runs (in milliseconds). */
+	public static final long HOUSEKEEPING_PERIOD = TimeUnit.SECONDS.toMillis(5);
 
 	/** The original data source. */
 	private DataSource originalDataSource;
 
-	/** The pool of currently opened connections. */
-	private Set<Connection> currentConnections = new HashSet<Connection>();
+	/** The pool of connections created without username and password. */
+	private final ConnectionPool defaultConnectionPool = new ConnectionPool(null, null);
 
 	/**
-	 * The pool of currently opened connections with custom username/password
-	 * combinations.
+	 * The pools of connections with custom username/password combinations.
 	 */
-	private Map<Pair<String, String>, Set<Connection>> usernamePasswordConnections = new HashMap<Pair<String, String>, Set<Connection>>();
+	private final Map<Pair<String, String>, ConnectionPool> usernamePasswordConnectionPools = new HashMap<Pair<String, String>, ConnectionPool>();
+
+	/** The minimum number of connections per pool. */
+	private volatile int minimumSize = 0;
+
+	/** The maximum number of connections per pool. */
+	private volatile int maximumSize = 10;
+
+	/** The time to wait for a connection (in milliseconds). */
+	private volatile long acquireTimeout = TimeUnit.SECONDS.toMillis(30);
+
+	/** The time after which idle connections are closed (in milliseconds). */
+	private volatile long idleTimeout = TimeUnit.MINUTES.toMillis(10);
+
+	/** The maximum lifetime of a connection (in milliseconds). */
+	private volatile long maximumLifetime = TimeUnit.MINUTES.toMillis(30);
+
+	/** The leak detection threshold (in milliseconds). */
+	private volatile long leakDetectionThreshold = 0;
+
+	/** The timeout for connection validation (in seconds). */
+	private volatile int validationTimeout = 1;
+
+	/** The maximum number of cached statements per connection. */
+	private volatile int statementCacheSize = 32;
+
+	/** The number of opened connections. */
+	private final AtomicLong createdConnections = new AtomicLong();
+
+	/** The number of closed connections. */
+	private final AtomicLong closedConnections = new AtomicLong();
+
+	/** The number of acquire timeouts. */
+	private final AtomicLong acquireTimeouts = new AtomicLong();
+
+	/** The number of validation failures. */
+	private final AtomicLong validationFailures = new AtomicLong();
+
+	/** The number of detected leaks. */
+	private final AtomicLong detectedLeaks = new AtomicLong();
+
+	/** The number of prepared statements that were taken from a cache. */
+	private final AtomicLong statementCacheHits = new AtomicLong();
+
+	/** The number of prepared statements that were not found in a cache. */
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+
+	/** The times threads waited for a connection (in microseconds). */
+	private final Histogram acquireTimes = new Histogram();
+
+	/** The times connections were borrowed (in microseconds). */
+	private final Histogram usageTimes = new Histogram();
+
+	/** The executor that runs the scheduled housekeeping. */
+	private final ScheduledThreadPoolExecutor housekeepingExecutor = new ScheduledThreadPoolExecutor(1, new DumpingThreadFactory("PooledDataSource Housekeeping ", true));
 
 	/**
 	 * Creates a new pooled data source that wraps the given data source.
@@ -76,22 +204,326 @@ public class PooledDataSource implements DataSource {
 	 */
 	public PooledDataSource(DataSource originalDataSource) {
 		this.originalDataSource = originalDataSource;
+		housekeepingExecutor.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					performHousekeeping();
+				} catch (RuntimeException re1) {
+					logger.log(Level.WARNING, "Could not perform housekeeping.", re1);
+				}
+			}
+		}, HOUSEKEEPING_PERIOD, HOUSEKEEPING_PERIOD, TimeUnit.MILLISECONDS);
+	}
+
+	//
+	// ACCESSORS
+	//
+
+	/**
+	 * Sets the minimum number of connections that are kept open in each pool.
+	 * Idle connections will not be closed due to the idle timeout if that
+	 * would shrink the pool below this size.
+	 *
+	 * @param minimumSize
+	 *            The minimum size of the pool
+	 */
+	public void setMinimumSize(int minimumSize) {
+		this.minimumSize = minimumSize;
+	}
+
+	/**
+	 * Returns the maximum number of connections that are opened in each pool.
+	 *
+	 * @return The maximum size of the pool
+	 */
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	/**
+	 * Sets the maximum number of connections that are opened in each pool.
+	 *
+	 * @param maximumSize
+	 *            The maximum size of the pool
+	 */
+	public void setMaximumSize(int maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Sets the time {@link #getConnection()} waits for a connection to become
+	 * available before it throws an {@link SQLTimeoutException}.
+	 *
+	 * @param acquireTimeout
+	 *            The acquire timeout (in milliseconds)
+	 */
+	public void setAcquireTimeout(long acquireTimeout) {
+		this.acquireTimeout = acquireTimeout;
+	}
+
+	/**
+	 * Sets the time after which idle connections are closed. A value of
+	 * {@code 0} disables closing of idle connections.
+	 *
+	 * @param idleTimeout
+	 *            The idle timeout (in milliseconds)
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Sets the time after which connections are closed once they are returned
+	 * to the pool, regardless of their usage. A value of {@code 0} disables
+	 * the maximum lifetime.
+	 *
+	 * @param maximumLifetime
+	 *            The maximum lifetime of a connection (in milliseconds)
+	 */
+	public void setMaximumLifetime(long maximumLifetime) {
+		this.maximumLifetime = maximumLifetime;
+	}
+
+	/**
+	 * Sets the time after which a borrowed connection that has not been
+	 * returned is reported as a possible leak. A value of {@code 0} disables
+	 * leak detection.
+	 *
+	 * @param leakDetectionThreshold
+	 *            The leak detection threshold (in milliseconds)
+	 */
+	public void setLeakDetectionThreshold(long leakDetectionThreshold) {
+		this.leakDetectionThreshold = leakDetectionThreshold;
+	}
+
+	/**
+	 * Sets the timeout for validating a connection before it is handed out.
+	 *
+	 * @param validationTimeout
+	 *            The validation timeout (in seconds)
+	 */
+	public void setValidationTimeout(int validationTimeout) {
+		this.validationTimeout = validationTimeout;
+	}
+
+	/**
+	 * Sets the maximum number of prepared statements that are cached for each
+	 * connection. A value of {@code 0} disables the statement cache for
+	 * statements that are prepared afterwards.
+	 *
+	 * @param statementCacheSize
+	 *            The maximum number of cached statements per connection
+	 */
+	public void setStatementCacheSize(int statementCacheSize) {
+		this.statementCacheSize = statementCacheSize;
+	}
+
+	/**
+	 * Returns the histogram of times threads waited for a connection, in
+	 * microseconds.
+	 *
+	 * @return The histogram of acquire times
+	 */
+	public Histogram getAcquireTimeHistogram() {
+		return acquireTimes;
+	}
+
+	/**
+	 * Returns the histogram of times connections were borrowed, in
+	 * microseconds.
+	 *
+	 * @return The histogram of usage times
+	 */
+	public Histogram getUsageTimeHistogram() {
+		return usageTimes;
+	}
+
+	//
+	// ACTIONS
+	//
+
+	/**
+	 * Performs housekeeping on all pools: idle and expired connections are
+	 * closed, leaked connections are reported, and new connections are opened
+	 * until every pool contains at least {@link #setMinimumSize(int) minimum
+	 * size} connections. This method is called every
+	 * {@link #HOUSEKEEPING_PERIOD} milliseconds until this data source is
+	 * {@link #close() closed}.
+	 */
+	public void performHousekeeping() {
+		for (ConnectionPool connectionPool : getConnectionPools()) {
+			connectionPool.evictConnections();
+			connectionPool.fillToMinimumSize();
+		}
+	}
+
+	/**
+	 * Stops the scheduled housekeeping and closes all idle connections.
+	 * Borrowed connections are closed when they are returned to the pool.
+	 */
+	public void close() {
+		housekeepingExecutor.shutdownNow();
+		for (ConnectionPool connectionPool : getConnectionPools()) {
+			connectionPool.closeIdleConnections();
+		}
+	}
+
+	//
+	// INTERFACE PooledDataSourceMBean
+	//
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getActiveConnections() {
+		int activeConnections = 0;
+		for (ConnectionPool connectionPool : getConnectionPools()) {
+			activeConnections += connectionPool.getBorrowedCount();
+		}
+		return activeConnections;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getIdleConnections() {
+		int idleConnections = 0;
+		for (ConnectionPool connectionPool : getConnectionPools()) {
+			idleConnections += connectionPool.getIdleCount();
+		}
+		return idleConnections;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPendingThreads() {
+		int pendingThreads = 0;
+		for (ConnectionPool connectionPool : getConnectionPools()) {
+			pendingThreads += connectionPool.getWaitingCount();
+		}
+		return pendingThreads;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getCreatedConnections() {
+		return createdConnections.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getClosedConnections() {
+		return closedConnections.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getAcquireTimeouts() {
+		return acquireTimeouts.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getValidationFailures() {
+		return validationFailures.get();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getDetectedLeaks() {
+		return detectedLeaks.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getStatementCacheHits() {
+		return statementCacheHits.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getStatementCacheMisses() {
+		return statementCacheMisses.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getAverageAcquireTime() {
+		return acquireTimes.getMean();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getAcquireTime99thPercentile() {
+		return acquireTimes.getPercentile(99);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getMaximumAcquireTime() {
+		return acquireTimes.getMaximum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getAverageUsageTime() {
+		return usageTimes.getMean();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getUsageTime99thPercentile() {
+		return usageTimes.getPercentile(99);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getMaximumUsageTime() {
+		return usageTimes.getMaximum();
+	}
+
+	//
+	// INTERFACE DataSource
+	//
+
 	/**
 	 * @see javax.sql.DataSource#getConnection()
 	 */
 	@Override
 	public Connection getConnection() throws SQLException {
-		synchronized (currentConnections) {
-			if (currentConnections.isEmpty()) {
-				Connection newConnection = new PooledConnection(originalDataSource.getConnection());
-				currentConnections.add(newConnection);
-			}
-			Connection connection = currentConnections.iterator().next();
-			currentConnections.remove(connection);
-			return connection;
-		}
+		return defaultConnectionPool.borrowConnection().createHandle();
 	}
 
 	/**
@@ -101,20 +533,15 @@ public class PooledDataSource implements DataSource {
 	@Override
 	public Connection getConnection(String username, String password) throws SQLException {
 		Pair<String, String> usernamePasswordPair = new Pair<String, String>(username, password);
-		synchronized (usernamePasswordConnections) {
-			if (!usernamePasswordConnections.containsKey(usernamePasswordPair)) {
-				Set<Connection> connections = new HashSet<Connection>();
-				usernamePasswordConnections.put(usernamePasswordPair, connections);
-			}
-			Set<Connection> connections = usernamePasswordConnections.get(usernamePasswordPair);
-			if (usernamePasswordConnections.isEmpty()) {
-				Connection newConnection = new PooledUsernamePasswordConnection(originalDataSource.getConnection(username, password), username, password);
-				connections.add(newConnection);
-			}
-			Connection connection = connections.iterator().next();
-			connections.remove(connection);
-			return connection;
+		ConnectionPool connectionPool;
+		synchronized (usernamePasswordConnectionPools) {
+			connectionPool = usernamePasswordConnectionPools.get(usernamePasswordPair);
+			if (connectionPool == null) {
+				connectionPool = new ConnectionPool(username, password);
+				usernamePasswordConnectionPools.put(usernamePasswordPair, connectionPool);
+			}
 		}
+		return connectionPool.borrowConnection().createHandle();
 	}
 
 	/**
@@ -165,528 +592,2258 @@ public class PooledDataSource implements DataSource {
 		return originalDataSource.unwrap(iface);
 	}
 
-	@Override
-	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
-		return originalDataSource.getParentLogger();
-	}
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return originalDataSource.getParentLogger();
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Returns all connection pools of this data source.
+	 *
+	 * @return All connection pools
+	 */
+	private List<ConnectionPool> getConnectionPools() {
+		List<ConnectionPool> connectionPools = new ArrayList<ConnectionPool>();
+		connectionPools.add(defaultConnectionPool);
+		synchronized (usernamePasswordConnectionPools) {
+			connectionPools.addAll(usernamePasswordConnectionPools.values());
+		}
+		return connectionPools;
+	}
+
+	/**
+	 * A pool of connections that were all created with the same username and
+	 * password.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private class ConnectionPool {
+
+		/** The username, or {@code null} for the default credentials. */
+		private final String username;
+
+		/** The password, or {@code null} for the default credentials. */
+		private final String password;
+
+		/** The idle connections, most recently returned first. */
+		private final Deque<PooledConnection> idleConnections = new ArrayDeque<PooledConnection>();
+
+		/** The connections that are currently borrowed. */
+		private final Set<PooledConnection> borrowedConnections = new HashSet<PooledConnection>();
+
+		/** The threads waiting for a connection, in order of arrival. */
+		private final Deque<Object> waitingThreads = new ArrayDeque<Object>();
+
+		/** The number of connections, including connections being opened. */
+		private int size;
+
+		/** The time of the last housekeeping run. */
+		private long lastHousekeeping;
+
+		/**
+		 * Creates a new connection pool.
+		 *
+		 * @param username
+		 *            The username for new connections, or {@code null} to use
+		 *            the default credentials
+		 * @param password
+		 *            The password for new connections, or {@code null} to use
+		 *            the default credentials
+		 */
+		public ConnectionPool(String username, String password) {
+			this.username = username;
+			this.password = password;
+		}
+
+		//
+		// ACTIONS
+		//
+
+		/**
+		 * Borrows a connection from this pool. If no idle connection is
+		 * available and the pool has reached its maximum size, this method
+		 * waits until a connection is returned to the pool, or until the
+		 * acquire timeout has elapsed.
+		 *
+		 * @return A validated connection
+		 * @throws SQLException
+		 *             if a connection can not be opened, or if no connection
+		 *             became available in time
+		 */
+		@SuppressWarnings("synthetic-access")
+		public PooledConnection borrowConnection() throws SQLException {
+			if ((System.currentTimeMillis() - lastHousekeeping) >= HOUSEKEEPING_INTERVAL) {
+				evictConnections();
+			}
+			long acquireStart = System.nanoTime();
+			long deadline = acquireStart + TimeUnit.MILLISECONDS.toNanos(acquireTimeout);
+			while (true) {
+				PooledConnection pooledConnection = takeIdleConnection(deadline);
+				if (pooledConnection == null) {
+					try {
+						pooledConnection = new PooledConnection(this, createConnection());
+					} catch (SQLException sqle1) {
+						releaseSlot();
+						throw sqle1;
+					} catch (RuntimeException re1) {
+						releaseSlot();
+						throw re1;
+					}
+				} else if (!isValid(pooledConnection)) {
+					logger.log(Level.FINE, "Discarding invalid connection " + pooledConnection + ".");
+					validationFailures.incrementAndGet();
+					releaseSlot();
+					closeConnection(pooledConnection);
+					continue;
+				}
+				synchronized (this) {
+					pooledConnection.borrow(leakDetectionThreshold > 0);
+					borrowedConnections.add(pooledConnection);
+				}
+				acquireTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - acquireStart));
+				return pooledConnection;
+			}
+		}
+
+		/**
+		 * Returns the given connection to this pool. If the connection has
+		 * been closed, has exceeded its maximum lifetime, or can not be reset
+		 * to its initial state, it is closed instead. If the connection has
+		 * been returned and borrowed again since the given borrowing, nothing
+		 * happens.
+		 *
+		 * @param pooledConnection
+		 *            The connection to return
+		 * @param borrowGeneration
+		 *            The borrowing that ends
+		 */
+		@SuppressWarnings("synthetic-access")
+		public void returnConnection(PooledConnection pooledConnection, long borrowGeneration) {
+			synchronized (this) {
+				if ((pooledConnection.getBorrowGeneration() != borrowGeneration) || !borrowedConnections.remove(pooledConnection)) {
+					return;
+				}
+				usageTimes.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - pooledConnection.getBorrowedNanos()));
+			}
+			pooledConnection.closeOpenStatements();
+			boolean discard = isExpired(pooledConnection, System.currentTimeMillis()) || housekeepingExecutor.isShutdown();
+			if (!discard) {
+				try {
+					discard = pooledConnection.getOriginalConnection().isClosed();
+					if (!discard) {
+						pooledConnection.resetState();
+					}
+				} catch (SQLException sqle1) {
+					logger.log(Level.FINE, "Could not reset connection " + pooledConnection + ".", sqle1);
+					discard = true;
+				}
+			}
+			if (!discard) {
+				synchronized (this) {
+					pooledConnection.idle();
+					idleConnections.addFirst(pooledConnection);
+					notifyAll();
+				}
+				return;
+			}
+			releaseSlot();
+			closeConnection(pooledConnection);
+		}
+
+		/**
+		 * Closes all idle connections that have been idle for longer than the
+		 * idle timeout or that have exceeded their maximum lifetime, and logs
+		 * a warning for every borrowed connection that has been borrowed for
+		 * longer than the leak detection threshold.
+		 */
+		@SuppressWarnings("synthetic-access")
+		public void evictConnections() {
+			long now = System.currentTimeMillis();
+			List<PooledConnection> evictedConnections = new ArrayList<PooledConnection>();
+			synchronized (this) {
+				lastHousekeeping = now;
+				Iterator<PooledConnection> idleConnectionIterator = idleConnections.descendingIterator();
+				while (idleConnectionIterator.hasNext()) {
+					PooledConnection idleConnection = idleConnectionIterator.next();
+					boolean idleTooLong = (idleTimeout > 0) && ((now - idleConnection.getLastUsed()) >= idleTimeout) && (size > minimumSize);
+					if (idleTooLong || isExpired(idleConnection, now)) {
+						idleConnectionIterator.remove();
+						evictedConnections.add(idleConnection);
+						size--;
+					}
+				}
+				if (!evictedConnections.isEmpty()) {
+					notifyAll();
+				}
+				if (leakDetectionThreshold > 0) {
+					for (PooledConnection borrowedConnection : borrowedConnections) {
+						if (((now - borrowedConnection.getLastBorrowed()) >= leakDetectionThreshold) && borrowedConnection.reportLeak()) {
+							detectedLeaks.incrementAndGet();
+							logger.log(Level.WARNING, "Connection " + borrowedConnection + " has been borrowed for " + (now - borrowedConnection.getLastBorrowed()) + " ms, possible leak.", borrowedConnection.getBorrowLocation());
+						}
+					}
+				}
+			}
+			for (PooledConnection evictedConnection : evictedConnections) {
+				logger.log(Level.FINE, "Closing idle connection " + evictedConnection + ".");
+				closeConnection(evictedConnection);
+			}
+		}
+
+		/**
+		 * Closes all idle connections of this pool.
+		 */
+		@SuppressWarnings("synthetic-access")
+		public void closeIdleConnections() {
+			List<PooledConnection> closedConnections;
+			synchronized (this) {
+				closedConnections = new ArrayList<PooledConnection>(idleConnections);
+				idleConnections.clear();
+				size -= closedConnections.size();
+				notifyAll();
+			}
+			for (PooledConnection closedConnection : closedConnections) {
+				closeConnection(closedConnection);
+			}
+		}
+
+		/**
+		 * Opens new connections until this pool contains at least the minimum
+		 * number of connections.
+		 */
+		@SuppressWarnings("synthetic-access")
+		public void fillToMinimumSize() {
+			while (true) {
+				synchronized (this) {
+					if (size >= Math.min(minimumSize, maximumSize)) {
+						return;
+					}
+					size++;
+				}
+				PooledConnection pooledConnection;
+				try {
+					pooledConnection = new PooledConnection(this, createConnection());
+				} catch (SQLException sqle1) {
+					logger.log(Level.WARNING, "Could not open connection.", sqle1);
+					releaseSlot();
+					return;
+				}
+				synchronized (this) {
+					idleConnections.addLast(pooledConnection);
+					notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Returns the number of borrowed connections of this pool.
+		 *
+		 * @return The number of borrowed connections
+		 */
+		public synchronized int getBorrowedCount() {
+			return borrowedConnections.size();
+		}
+
+		/**
+		 * Returns the number of idle connections of this pool.
+		 *
+		 * @return The number of idle connections
+		 */
+		public synchronized int getIdleCount() {
+			return idleConnections.size();
+		}
+
+		/**
+		 * Returns the number of threads waiting for a connection of this pool.
+		 *
+		 * @return The number of waiting threads
+		 */
+		public synchronized int getWaitingCount() {
+			return waitingThreads.size();
+		}
+
+		//
+		// PRIVATE METHODS
+		//
+
+		/**
+		 * Takes an idle connection from this pool, or reserves a slot for a
+		 * new connection. If neither is possible, this method waits until it
+		 * is, or until the given deadline has passed. Threads are served in
+		 * the order of their arrival.
+		 *
+		 * @param deadline
+		 *            The deadline (as returned by {@link System#nanoTime()})
+		 * @return An idle connection, or {@code null} if a slot for a new
+		 *         connection has been reserved
+		 * @throws SQLException
+		 *             if the deadline passed or the thread was interrupted
+		 */
+		@SuppressWarnings("synthetic-access")
+		private synchronized PooledConnection takeIdleConnection(long deadline) throws SQLException {
+			Object waitingThread = new Object();
+			waitingThreads.addLast(waitingThread);
+			try {
+				while ((waitingThreads.peekFirst() != waitingThread) || (idleConnections.isEmpty() && (size >= maximumSize))) {
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						acquireTimeouts.incrementAndGet();
+						throw new SQLTimeoutException("No connection available within " + acquireTimeout + " ms.");
+					}
+					TimeUnit.NANOSECONDS.timedWait(this, remaining);
+				}
+				if (!idleConnections.isEmpty()) {
+					return idleConnections.removeFirst();
+				}
+				size++;
+				return null;
+			} catch (InterruptedException ie1) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for connection.", ie1);
+			} finally {
+				waitingThreads.remove(waitingThread);
+				notifyAll();
+			}
+		}
+
+		/**
+		 * Releases a slot of this pool after a connection was closed or could
+		 * not be opened.
+		 */
+		private synchronized void releaseSlot() {
+			size--;
+			notifyAll();
+		}
+
+		/**
+		 * Opens a new connection from the original data source.
+		 *
+		 * @return The new connection
+		 * @throws SQLException
+		 *             if the connection can not be opened
+		 */
+		@SuppressWarnings("synthetic-access")
+		private Connection createConnection() throws SQLException {
+			Connection connection;
+			if (username == null) {
+				connection = originalDataSource.getConnection();
+			} else {
+				connection = originalDataSource.getConnection(username, password);
+			}
+			createdConnections.incrementAndGet();
+			return connection;
+		}
+
+		/**
+		 * Closes the original connection of the given pooled connection.
+		 *
+		 * @param pooledConnection
+		 *            The connection to close
+		 */
+		@SuppressWarnings("synthetic-access")
+		private void closeConnection(PooledConnection pooledConnection) {
+			closedConnections.incrementAndGet();
+			pooledConnection.closeStatements();
+			Closer.close(pooledConnection.getOriginalConnection());
+		}
+
+		/**
+		 * Returns whether the given connection is still valid.
+		 *
+		 * @param pooledConnection
+		 *            The connection to validate
+		 * @return {@code true} if the connection is valid, {@code false}
+		 *         otherwise
+		 */
+		@SuppressWarnings("synthetic-access")
+		private boolean isValid(PooledConnection pooledConnection) {
+			try {
+				return pooledConnection.getOriginalConnection().isValid(validationTimeout);
+			} catch (SQLException sqle1) {
+				return false;
+			}
+		}
+
+		/**
+		 * Returns whether the given connection has exceeded its maximum
+		 * lifetime.
+		 *
+		 * @param pooledConnection
+		 *            The connection to check
+		 * @param now
+		 *            The current time
+		 * @return {@code true} if the connection has expired, {@code false}
+		 *         otherwise
+		 */
+		@SuppressWarnings("synthetic-access")
+		private boolean isExpired(PooledConnection pooledConnection, long now) {
+			return (maximumLifetime > 0) && ((now - pooledConnection.getCreationTime()) >= maximumLifetime);
+		}
+
+	}
+
+	/**
+	 * Wrapper around a connection that was created by the
+	 * {@link PooledDataSource#originalDataSource}. This wrapper only overrides
+	 * the {@link Connection#close()} method to not close the connection but to
+	 * return it to its connection pool instead.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private class PooledConnection implements Connection {
+
+		/** The pool this connection belongs to. */
+		private final ConnectionPool connectionPool;
+
+		/** The original connection. */
+		private final Connection originalConnection;
+
+		/** The time this connection was created. */
+		private final long creationTime = System.currentTimeMillis();
+
+		/** The time this connection was last returned to the pool. */
+		private volatile long lastUsed = creationTime;
+
+		/** The time this connection was last borrowed. */
+		private volatile long lastBorrowed;
+
+		/** The time this connection was last borrowed (in nanoseconds). */
+		private volatile long borrowedNanos;
+
+		/** Whether this connection is currently borrowed. */
+		private volatile boolean borrowed;
+
+		/** The number of times this connection has been borrowed. */
+		private volatile long borrowGeneration;
+
+		/** The location this connection was borrowed from, if recorded. */
+		private Throwable borrowLocation;
+
+		/** Whether a leak has been reported for the current borrowing. */
+		private boolean leakReported;
+
+		/** The cached prepared statements, least recently used first. */
+		private final Map<StatementKey, PreparedStatement> statementCache = new LinkedHashMap<StatementKey, PreparedStatement>();
+
+		/** The prepared statements of the current borrowing that are open. */
+		private final Set<PooledPreparedStatement> openStatements = new HashSet<PooledPreparedStatement>();
+
+		/** The auto-commit mode of the original connection when it was opened. */
+		private final boolean defaultAutoCommit;
+
+		/** The read-only flag of the original connection when it was opened. */
+		private final boolean defaultReadOnly;
+
+		/** The transaction isolation level of the original connection when it was opened. */
+		private final int defaultTransactionIsolation;
+
+		/** The catalog of the original connection when it was opened. */
+		private final String defaultCatalog;
+
+		/** The current auto-commit mode of the original connection. */
+		private volatile boolean autoCommit;
+
+		/** Whether the read-only flag, isolation level, or catalog were changed. */
+		private volatile boolean stateModified;
+
+		/**
+		 * Creates a new pooled connection. If the state of the original
+		 * connection can not be determined, the original connection is closed.
+		 *
+		 * @param connectionPool
+		 *            The pool this connection belongs to
+		 * @param originalConnection
+		 *            The original connection to wrap
+		 * @throws SQLException
+		 *             if the state of the original connection can not be
+		 *             determined
+		 */
+		public PooledConnection(ConnectionPool connectionPool, Connection originalConnection) throws SQLException {
+			this.connectionPool = connectionPool;
+			this.originalConnection = originalConnection;
+			try {
+				defaultAutoCommit = originalConnection.getAutoCommit();
+				defaultReadOnly = originalConnection.isReadOnly();
+				defaultTransactionIsolation = originalConnection.getTransactionIsolation();
+				defaultCatalog = originalConnection.getCatalog();
+			} catch (SQLException sqle1) {
+				Closer.close(originalConnection);
+				throw sqle1;
+			}
+			autoCommit = defaultAutoCommit;
+		}
+
+		//
+		// PROTECTED METHODS
+		//
+
+		/**
+		 * Returns the original connection that is wrapped by this pooled
+		 * connection.
+		 *
+		 * @return The original connection
+		 */
+		protected Connection getOriginalConnection() {
+			return originalConnection;
+		}
+
+		/**
+		 * Returns the time this connection was created.
+		 *
+		 * @return The creation time of this connection
+		 */
+		protected long getCreationTime() {
+			return creationTime;
+		}
+
+		/**
+		 * Returns the time this connection was last returned to the pool.
+		 *
+		 * @return The time this connection was last used
+		 */
+		protected long getLastUsed() {
+			return lastUsed;
+		}
+
+		/**
+		 * Returns the time this connection was last borrowed.
+		 *
+		 * @return The time this connection was last borrowed
+		 */
+		protected long getLastBorrowed() {
+			return lastBorrowed;
+		}
+
+		/**
+		 * Returns the time this connection was last borrowed, as returned by
+		 * {@link System#nanoTime()}.
+		 *
+		 * @return The time this connection was last borrowed
+		 */
+		protected long getBorrowedNanos() {
+			return borrowedNanos;
+		}
+
+		/**
+		 * Returns the location this connection was borrowed from.
+		 *
+		 * @return The location this connection was borrowed from, or
+		 *         {@code null} if it was not recorded
+		 */
+		protected Throwable getBorrowLocation() {
+			return borrowLocation;
+		}
+
+		/**
+		 * Returns the number of times this connection has been borrowed,
+		 * identifying the current borrowing.
+		 *
+		 * @return The current borrow generation
+		 */
+		protected long getBorrowGeneration() {
+			return borrowGeneration;
+		}
+
+		/**
+		 * Creates a handle for the current borrowing of this connection.
+		 * Closing the handle returns this connection to the pool; once it has
+		 * been closed, the handle can not be used anymore, even if this
+		 * connection has been borrowed again.
+		 *
+		 * @return A new handle for this connection
+		 */
+		protected Connection createHandle() {
+			return (Connection) Proxy.newProxyInstance(PooledDataSource.class.getClassLoader(), new Class<?>[] { Connection.class }, new ConnectionHandle(this, borrowGeneration));
+		}
+
+		/**
+		 * Marks this connection as borrowed.
+		 *
+		 * @param recordBorrowLocation
+		 *            {@code true} to record the location this connection is
+		 *            borrowed from, {@code false} otherwise
+		 */
+		protected void borrow(boolean recordBorrowLocation) {
+			lastBorrowed = System.currentTimeMillis();
+			borrowedNanos = System.nanoTime();
+			borrowLocation = recordBorrowLocation ? new Throwable("Connection borrowed here") : null;
+			leakReported = false;
+			borrowGeneration++;
+			borrowed = true;
+		}
+
+		/**
+		 * Rolls back an open transaction and restores the auto-commit mode,
+		 * the read-only flag, the transaction isolation level, and the catalog
+		 * the original connection had when it was opened.
+		 *
+		 * @throws SQLException
+		 *             if the state can not be restored
+		 */
+		protected void resetState() throws SQLException {
+			if (!autoCommit) {
+				originalConnection.rollback();
+			}
+			if (autoCommit != defaultAutoCommit) {
+				originalConnection.setAutoCommit(defaultAutoCommit);
+				autoCommit = defaultAutoCommit;
+			}
+			if (stateModified) {
+				originalConnection.setReadOnly(defaultReadOnly);
+				originalConnection.setTransactionIsolation(defaultTransactionIsolation);
+				if (defaultCatalog != null) {
+					originalConnection.setCatalog(defaultCatalog);
+				}
+				stateModified = false;
+			}
+		}
+
+		/**
+		 * Marks this connection as idle.
+		 */
+		protected void idle() {
+			borrowed = false;
+			borrowLocation = null;
+			lastUsed = System.currentTimeMillis();
+		}
+
+		/**
+		 * Marks a leak as reported for the current borrowing.
+		 *
+		 * @return {@code true} if no leak had been reported for the current
+		 *         borrowing yet, {@code false} otherwise
+		 */
+		protected boolean reportLeak() {
+			if (leakReported) {
+				return false;
+			}
+			leakReported = true;
+			return true;
+		}
+
+		/**
+		 * Returns a prepared statement for the given key. If the statement
+		 * cache contains a matching statement it is reused, otherwise a new
+		 * statement is prepared.
+		 *
+		 * @param statementKey
+		 *            The key of the statement
+		 * @return The prepared statement
+		 * @throws SQLException
+		 *             if an SQL error occurs
+		 */
+		@SuppressWarnings("synthetic-access")
+		protected PreparedStatement prepareCachedStatement(StatementKey statementKey) throws SQLException {
+			PreparedStatement originalStatement = null;
+			if (statementCacheSize > 0) {
+				synchronized (statementCache) {
+					originalStatement = statementCache.remove(statementKey);
+				}
+				if (originalStatement != null) {
+					statementCacheHits.incrementAndGet();
+				} else {
+					statementCacheMisses.incrementAndGet();
+				}
+			}
+			if (originalStatement == null) {
+				originalStatement = statementKey.prepare(originalConnection);
+			}
+			PooledPreparedStatement pooledPreparedStatement = new PooledPreparedStatement(this, statementKey, originalStatement);
+			synchronized (openStatements) {
+				openStatements.add(pooledPreparedStatement);
+			}
+			return pooledPreparedStatement;
+		}
+
+		/**
+		 * Removes the given statement from the open statements of the current
+		 * borrowing.
+		 *
+		 * @param pooledPreparedStatement
+		 *            The statement that was closed
+		 */
+		protected void removeOpenStatement(PooledPreparedStatement pooledPreparedStatement) {
+			synchronized (openStatements) {
+				openStatements.remove(pooledPreparedStatement);
+			}
+		}
+
+		/**
+		 * Closes all statements of the current borrowing that are still open,
+		 * returning them to the statement cache.
+		 */
+		protected void closeOpenStatements() {
+			List<PooledPreparedStatement> statements;
+			synchronized (openStatements) {
+				statements = new ArrayList<PooledPreparedStatement>(openStatements);
+				openStatements.clear();
+			}
+			for (PooledPreparedStatement statement : statements) {
+				Closer.close(statement);
+			}
+		}
+
+		/**
+		 * Returns a prepared statement to the statement cache. If the
+		 * statement can not be reused, or the cache already contains a
+		 * statement for the same key, the statement is closed. A result set
+		 * of the statement that is still open is closed before the statement
+		 * is cached. If the cache grows beyond its maximum size, the least
+		 * recently used statement is closed.
+		 *
+		 * @param statementKey
+		 *            The key of the statement
+		 * @param originalStatement
+		 *            The statement to return
+		 * @param reusable
+		 *            {@code true} if the statement can be reused,
+		 *            {@code false} if it has to be closed
+		 * @param batched
+		 *            {@code true} if batches have been added to the
+		 *            statement, {@code false} otherwise
+		 */
+		@SuppressWarnings("synthetic-access")
+		protected void returnStatement(StatementKey statementKey, PreparedStatement originalStatement, boolean reusable, boolean batched) {
+			boolean cached = false;
+			List<PreparedStatement> evictedStatements = new ArrayList<PreparedStatement>();
+			if (reusable && (statementCacheSize > 0)) {
+				try {
+					ResultSet resultSet = originalStatement.getResultSet();
+					if (resultSet != null) {
+						resultSet.close();
+					}
+					originalStatement.clearParameters();
+					if (batched) {
+						originalStatement.clearBatch();
+					}
+					synchronized (statementCache) {
+						if (!statementCache.containsKey(statementKey)) {
+							statementCache.put(statementKey, originalStatement);
+							cached = true;
+						}
+						Iterator<PreparedStatement> cachedStatements = statementCache.values().iterator();
+						while ((statementCache.size() > statementCacheSize) && cachedStatements.hasNext()) {
+							evictedStatements.add(cachedStatements.next());
+							cachedStatements.remove();
+						}
+					}
+				} catch (SQLException sqle1) {
+					/* statement can not be reused, close it. */
+				}
+			}
+			if (!cached) {
+				Closer.close(originalStatement);
+			}
+			for (PreparedStatement evictedStatement : evictedStatements) {
+				Closer.close(evictedStatement);
+			}
+		}
+
+		/**
+		 * Closes all cached prepared statements.
+		 */
+		protected void closeStatements() {
+			List<PreparedStatement> cachedStatements;
+			synchronized (statementCache) {
+				cachedStatements = new ArrayList<PreparedStatement>(statementCache.values());
+				statementCache.clear();
+			}
+			for (PreparedStatement cachedStatement : cachedStatements) {
+				Closer.close(cachedStatement);
+			}
+		}
+
+		//
+		// INTERFACE Connection
+		//
+
+		/**
+		 * @see java.sql.Connection#clearWarnings()
+		 */
+		@Override
+		public void clearWarnings() throws SQLException {
+			originalConnection.clearWarnings();
+		}
+
+		/**
+		 * @see java.sql.Connection#close()
+		 */
+		@Override
+		@SuppressWarnings("synthetic-access")
+		public void close() throws SQLException {
+			connectionPool.returnConnection(this, borrowGeneration);
+		}
+
+		/**
+		 * @see java.sql.Connection#commit()
+		 */
+		@Override
+		public void commit() throws SQLException {
+			originalConnection.commit();
+		}
+
+		/**
+		 * @see java.sql.Connection#createArrayOf(java.lang.String,
+		 *      java.lang.Object[])
+		 */
+		@Override
+		public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+			return originalConnection.createArrayOf(typeName, elements);
+		}
+
+		/**
+		 * @see java.sql.Connection#createBlob()
+		 */
+		@Override
+		public Blob createBlob() throws SQLException {
+			return originalConnection.createBlob();
+		}
+
+		/**
+		 * @see java.sql.Connection#createClob()
+		 */
+		@Override
+		public Clob createClob() throws SQLException {
+			return originalConnection.createClob();
+		}
+
+		/**
+		 * @see java.sql.Connection#createNClob()
+		 */
+		@Override
+		public NClob createNClob() throws SQLException {
+			return originalConnection.createNClob();
+		}
+
+		/**
+		 * @see java.sql.Connection#createSQLXML()
+		 */
+		@Override
+		public SQLXML createSQLXML() throws SQLException {
+			return originalConnection.createSQLXML();
+		}
+
+		/**
+		 * @see java.sql.Connection#createStatement()
+		 */
+		@Override
+		public Statement createStatement() throws SQLException {
+			return originalConnection.createStatement();
+		}
+
+		/**
+		 * @see java.sql.Connection#createStatement(int, int, int)
+		 */
+		@Override
+		public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+			return originalConnection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+		}
+
+		/**
+		 * @see java.sql.Connection#createStatement(int, int)
+		 */
+		@Override
+		public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+			return originalConnection.createStatement(resultSetType, resultSetConcurrency);
+		}
+
+		/**
+		 * @see java.sql.Connection#createStruct(java.lang.String,
+		 *      java.lang.Object[])
+		 */
+		@Override
+		public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+			return originalConnection.createStruct(typeName, attributes);
+		}
+
+		/**
+		 * @see java.sql.Connection#getAutoCommit()
+		 */
+		@Override
+		public boolean getAutoCommit() throws SQLException {
+			return originalConnection.getAutoCommit();
+		}
+
+		/**
+		 * @see java.sql.Connection#getCatalog()
+		 */
+		@Override
+		public String getCatalog() throws SQLException {
+			return originalConnection.getCatalog();
+		}
+
+		/**
+		 * @see java.sql.Connection#getClientInfo()
+		 */
+		@Override
+		public Properties getClientInfo() throws SQLException {
+			return originalConnection.getClientInfo();
+		}
+
+		/**
+		 * @see java.sql.Connection#getClientInfo(java.lang.String)
+		 */
+		@Override
+		public String getClientInfo(String name) throws SQLException {
+			return originalConnection.getClientInfo(name);
+		}
+
+		/**
+		 * @see java.sql.Connection#getHoldability()
+		 */
+		@Override
+		public int getHoldability() throws SQLException {
+			return originalConnection.getHoldability();
+		}
+
+		/**
+		 * @see java.sql.Connection#getMetaData()
+		 */
+		@Override
+		public DatabaseMetaData getMetaData() throws SQLException {
+			return originalConnection.getMetaData();
+		}
+
+		/**
+		 * @see java.sql.Connection#getTransactionIsolation()
+		 */
+		@Override
+		public int getTransactionIsolation() throws SQLException {
+			return originalConnection.getTransactionIsolation();
+		}
+
+		/**
+		 * @see java.sql.Connection#getTypeMap()
+		 */
+		@Override
+		public Map<String, Class<?>> getTypeMap() throws SQLException {
+			return originalConnection.getTypeMap();
+		}
+
+		/**
+		 * @see java.sql.Connection#getWarnings()
+		 */
+		@Override
+		public SQLWarning getWarnings() throws SQLException {
+			return originalConnection.getWarnings();
+		}
+
+		/**
+		 * @see java.sql.Connection#isClosed()
+		 */
+		@Override
+		public boolean isClosed() throws SQLException {
+			return !borrowed || originalConnection.isClosed();
+		}
+
+		/**
+		 * @see java.sql.Connection#isReadOnly()
+		 */
+		@Override
+		public boolean isReadOnly() throws SQLException {
+			return originalConnection.isReadOnly();
+		}
+
+		/**
+		 * @see java.sql.Connection#isValid(int)
+		 */
+		@Override
+		public boolean isValid(int timeout) throws SQLException {
+			return originalConnection.isValid(timeout);
+		}
+
+		/**
+		 * @see java.sql.Wrapper#isWrapperFor(java.lang.Class)
+		 */
+		@Override
+		public boolean isWrapperFor(Class<?> iface) throws SQLException {
+			return originalConnection.isWrapperFor(iface);
+		}
+
+		/**
+		 * @see java.sql.Connection#nativeSQL(java.lang.String)
+		 */
+		@Override
+		public String nativeSQL(String sql) throws SQLException {
+			return originalConnection.nativeSQL(sql);
+		}
+
+		/**
+		 * @see java.sql.Connection#prepareCall(java.lang.String, int, int, int)
+		 */
+		@Override
+		public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+			return originalConnection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+		}
+
+		/**
+		 * @see java.sql.Connection#prepareCall(java.lang.String, int, int)
+		 */
+		@Override
+		public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+			return originalConnection.prepareCall(sql, resultSetType, resultSetConcurrency);
+		}
+
+		/**
+		 * @see java.sql.Connection#prepareCall(java.lang.String)
+		 */
+		@Override
+		public CallableStatement prepareCall(String sql) throws SQLException {
+			return originalConnection.prepareCall(sql);
+		}
+
+		/**
+		 * @see java.sql.Connection#prepareStatement(java.lang.String, int, int,
+		 *      int)
+		 */
+		@Override
+		public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+			return originalConnection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+		}
+
+		/**
+		 * @see java.sql.Connection#prepareStatement(java.lang.String, int, int)
+		 */
+		@Override
+		public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+			return prepareCachedStatement(new StatementKey(sql, Statement.NO_GENERATED_KEYS, resultSetType, resultSetConcurrency));
+		}
+
+		/**
+		 * @see java.sql.Connection#prepareStatement(java.lang.String, int)
+		 */
+		@Override
+		public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+			return prepareCachedStatement(new StatementKey(sql, autoGeneratedKeys, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
+		}
+
+		/**
+		 * @see java.sql.Connection#prepareStatement(java.lang.String, int[])
+		 */
+		@Override
+		public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+			return originalConnection.prepareStatement(sql, columnIndexes);
+		}
+
+		/**
+		 * @see java.sql.Connection#prepareStatement(java.lang.String,
+		 *      java.lang.String[])
+		 */
+		@Override
+		public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+			return originalConnection.prepareStatement(sql, columnNames);
+		}
+
+		/**
+		 * @see java.sql.Connection#prepareStatement(java.lang.String)
+		 */
+		@Override
+		public PreparedStatement prepareStatement(String sql) throws SQLException {
+			return prepareCachedStatement(new StatementKey(sql, Statement.NO_GENERATED_KEYS, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY));
+		}
+
+		/**
+		 * @see java.sql.Connection#releaseSavepoint(java.sql.Savepoint)
+		 */
+		@Override
+		public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+			originalConnection.releaseSavepoint(savepoint);
+		}
+
+		/**
+		 * @see java.sql.Connection#rollback()
+		 */
+		@Override
+		public void rollback() throws SQLException {
+			originalConnection.rollback();
+		}
+
+		/**
+		 * @see java.sql.Connection#rollback(java.sql.Savepoint)
+		 */
+		@Override
+		public void rollback(Savepoint savepoint) throws SQLException {
+			originalConnection.rollback(savepoint);
+		}
+
+		/**
+		 * @see java.sql.Connection#setAutoCommit(boolean)
+		 */
+		@Override
+		public void setAutoCommit(boolean autoCommit) throws SQLException {
+			originalConnection.setAutoCommit(autoCommit);
+			this.autoCommit = autoCommit;
+		}
+
+		/**
+		 * @see java.sql.Connection#setCatalog(java.lang.String)
+		 */
+		@Override
+		public void setCatalog(String catalog) throws SQLException {
+			stateModified = true;
+			originalConnection.setCatalog(catalog);
+		}
+
+		/**
+		 * @see java.sql.Connection#setClientInfo(java.util.Properties)
+		 */
+		@Override
+		public void setClientInfo(Properties properties) throws SQLClientInfoException {
+			originalConnection.setClientInfo(properties);
+		}
+
+		/**
+		 * @see java.sql.Connection#setClientInfo(java.lang.String,
+		 *      java.lang.String)
+		 */
+		@Override
+		public void setClientInfo(String name, String value) throws SQLClientInfoException {
+			originalConnection.setClientInfo(name, value);
+		}
+
+		/**
+		 * @see java.sql.Connection#setHoldability(int)
+		 */
+		@Override
+		public void setHoldability(int holdability) throws SQLException {
+			originalConnection.setHoldability(holdability);
+		}
+
+		/**
+		 * @see java.sql.Connection#setReadOnly(boolean)
+		 */
+		@Override
+		public void setReadOnly(boolean readOnly) throws SQLException {
+			stateModified = true;
+			originalConnection.setReadOnly(readOnly);
+		}
+
+		/**
+		 * @see java.sql.Connection#setSavepoint()
+		 */
+		@Override
+		public Savepoint setSavepoint() throws SQLException {
+			return originalConnection.setSavepoint();
+		}
+
+		/**
+		 * @see java.sql.Connection#setSavepoint(java.lang.String)
+		 */
+		@Override
+		public Savepoint setSavepoint(String name) throws SQLException {
+			return originalConnection.setSavepoint(name);
+		}
+
+		/**
+		 * @see java.sql.Connection#setTransactionIsolation(int)
+		 */
+		@Override
+		public void setTransactionIsolation(int level) throws SQLException {
+			stateModified = true;
+			originalConnection.setTransactionIsolation(level);
+		}
+
+		/**
+		 * @see java.sql.Connection#setTypeMap(java.util.Map)
+		 */
+		@Override
+		public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+			originalConnection.setTypeMap(map);
+		}
+
+		/**
+		 * @see java.sql.Wrapper#unwrap(java.lang.Class)
+		 */
+		@Override
+		public <T> T unwrap(Class<T> iface) throws SQLException {
+			return originalConnection.unwrap(iface);
+		}
+
+		@Override
+		public void setSchema(String schema) throws SQLException {
+			originalConnection.setSchema(schema);
+		}
+
+		@Override
+		public String getSchema() throws SQLException {
+			return originalConnection.getSchema();
+		}
+
+		@Override
+		public void abort(Executor executor) throws SQLException {
+			originalConnection.abort(executor);
+		}
+
+		@Override
+		public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+			originalConnection.setNetworkTimeout(executor, milliseconds);
+		}
+
+		@Override
+		public int getNetworkTimeout() throws SQLException {
+			return originalConnection.getNetworkTimeout();
+		}
+	}
+
+	/**
+	 * Handle for a single borrowing of a {@link PooledConnection}. Every call
+	 * to {@link #getConnection()} returns a new handle, so that closing a
+	 * handle of an earlier borrowing can not return the connection while
+	 * somebody else is using it.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class ConnectionHandle implements InvocationHandler {
+
+		/** The pooled connection. */
+		private final PooledConnection pooledConnection;
+
+		/** The borrowing of the pooled connection this handle belongs to. */
+		private final long borrowGeneration;
+
+		/** Whether this handle has been closed. */
+		private volatile boolean closed;
+
+		/**
+		 * Creates a new connection handle.
+		 *
+		 * @param pooledConnection
+		 *            The pooled connection
+		 * @param borrowGeneration
+		 *            The borrowing of the pooled connection
+		 */
+		public ConnectionHandle(PooledConnection pooledConnection, long borrowGeneration) {
+			this.pooledConnection = pooledConnection;
+			this.borrowGeneration = borrowGeneration;
+		}
+
+		//
+		// INTERFACE InvocationHandler
+		//
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("synthetic-access")
+		public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+			String methodName = method.getName();
+			if (methodName.equals("equals")) {
+				return proxy == arguments[0];
+			} else if (methodName.equals("hashCode")) {
+				return System.identityHashCode(proxy);
+			} else if (methodName.equals("toString")) {
+				return "Handle[" + pooledConnection + "," + borrowGeneration + "]";
+			} else if (methodName.equals("isClosed")) {
+				return closed || pooledConnection.isClosed();
+			} else if (methodName.equals("close")) {
+				if (!closed) {
+					closed = true;
+					pooledConnection.connectionPool.returnConnection(pooledConnection, borrowGeneration);
+				}
+				return null;
+			}
+			if (closed) {
+				throw new SQLException("Connection has already been closed.");
+			}
+			Object result;
+			try {
+				result = method.invoke(pooledConnection, arguments);
+			} catch (InvocationTargetException ite1) {
+				throw ite1.getCause();
+			}
+			if (result instanceof PooledPreparedStatement) {
+				((PooledPreparedStatement) result).setConnectionHandle((Connection) proxy);
+			}
+			return result;
+		}
+
+	}
+
+	/**
+	 * Key for cached prepared statements. A prepared statement can only be
+	 * reused for another prepared statement with the same SQL and the same
+	 * options.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class StatementKey {
+
+		/** The SQL of the statement. */
+		private final String sql;
+
+		/** Whether automatically generated keys should be returned. */
+		private final int autoGeneratedKeys;
+
+		/** The result set type. */
+		private final int resultSetType;
+
+		/** The result set concurrency. */
+		private final int resultSetConcurrency;
+
+		/**
+		 * Creates a new statement key.
+		 *
+		 * @param sql
+		 *            The SQL of the statement
+		 * @param autoGeneratedKeys
+		 *            {@link Statement#RETURN_GENERATED_KEYS} if automatically
+		 *            generated keys should be returned,
+		 *            {@link Statement#NO_GENERATED_KEYS} otherwise
+		 * @param resultSetType
+		 *            The result set type
+		 * @param resultSetConcurrency
+		 *            The result set concurrency
+		 */
+		public StatementKey(String sql, int autoGeneratedKeys, int resultSetType, int resultSetConcurrency) {
+			this.sql = sql;
+			this.autoGeneratedKeys = autoGeneratedKeys;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+		}
+
+		/**
+		 * Prepares a new statement for this key on the given connection.
+		 *
+		 * @param connection
+		 *            The connection to prepare the statement on
+		 * @return The prepared statement
+		 * @throws SQLException
+		 *             if an SQL error occurs
+		 */
+		public PreparedStatement prepare(Connection connection) throws SQLException {
+			if (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS) {
+				return connection.prepareStatement(sql, autoGeneratedKeys);
+			}
+			return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof StatementKey)) {
+				return false;
+			}
+			StatementKey statementKey = (StatementKey) object;
+			return sql.equals(statementKey.sql) && (autoGeneratedKeys == statementKey.autoGeneratedKeys) && (resultSetType == statementKey.resultSetType) && (resultSetConcurrency == statementKey.resultSetConcurrency);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int hashCode() {
+			return sql.hashCode() ^ (autoGeneratedKeys << 24) ^ (resultSetType << 8) ^ resultSetConcurrency;
+		}
+
+	}
+
+	/**
+	 * Wrapper around a prepared statement that was prepared by a
+	 * {@link PooledConnection}. This wrapper overrides the
+	 * {@link Statement#close()} method to return the statement to the
+	 * statement cache of its connection instead of closing it. Statements
+	 * whose options have been changed are not returned to the cache.
+	 * <p>
+	 * A statement belongs to the borrowing of the connection it was prepared
+	 * in; it is closed when the connection is returned to the pool, and it can
+	 * not be used once the connection has been borrowed again.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private class PooledPreparedStatement implements PreparedStatement {
+
+		/** The connection that prepared this statement. */
+		private final PooledConnection pooledConnection;
+
+		/** The handle the statement was prepared from, if any. */
+		private volatile Connection connectionHandle;
+
+		/** The key of the statement. */
+		private final StatementKey statementKey;
+
+		/** The original prepared statement. */
+		private final PreparedStatement originalStatement;
+
+		/** The borrowing of the connection this statement was prepared in. */
+		private final long borrowGeneration;
+
+		/** Whether this statement has been closed. */
+		private volatile boolean closed;
+
+		/** Whether options of this statement have been changed. */
+		private boolean modified;
+
+		/** Whether batches have been added to this statement. */
+		private boolean batched;
+
+		/**
+		 * Creates a new pooled prepared statement.
+		 *
+		 * @param pooledConnection
+		 *            The connection that prepared the statement
+		 * @param statementKey
+		 *            The key of the statement
+		 * @param originalStatement
+		 *            The original prepared statement
+		 */
+		public PooledPreparedStatement(PooledConnection pooledConnection, StatementKey statementKey, PreparedStatement originalStatement) {
+			this.pooledConnection = pooledConnection;
+			this.statementKey = statementKey;
+			this.originalStatement = originalStatement;
+			this.borrowGeneration = pooledConnection.getBorrowGeneration();
+		}
+
+		//
+		// PROTECTED METHODS
+		//
+
+		/**
+		 * Sets the handle this statement was prepared from.
+		 *
+		 * @param connectionHandle
+		 *            The handle of the connection
+		 */
+		protected void setConnectionHandle(Connection connectionHandle) {
+			this.connectionHandle = connectionHandle;
+		}
+
+		//
+		// PRIVATE METHODS
+		//
+
+		/**
+		 * Returns the original statement if this statement can still be used.
+		 *
+		 * @return The original statement
+		 * @throws SQLException
+		 *             if this statement has been closed, or if the connection
+		 *             it was prepared in has been returned to the pool
+		 */
+		private PreparedStatement getOpenStatement() throws SQLException {
+			if (closed || (pooledConnection.getBorrowGeneration() != borrowGeneration)) {
+				throw new SQLException("Statement has already been closed.");
+			}
+			return originalStatement;
+		}
+
+		//
+		// INTERFACE PreparedStatement
+		//
+
+		/**
+		 * @see java.sql.Statement#close()
+		 */
+		@Override
+		public void close() throws SQLException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			pooledConnection.removeOpenStatement(this);
+			pooledConnection.returnStatement(statementKey, originalStatement, !modified, batched);
+		}
+
+		/**
+		 * @see java.sql.Statement#isClosed()
+		 */
+		@Override
+		public boolean isClosed() throws SQLException {
+			return closed || originalStatement.isClosed();
+		}
+
+		/**
+		 * @see java.sql.Statement#getConnection()
+		 */
+		@Override
+		public Connection getConnection() throws SQLException {
+			return (connectionHandle != null) ? connectionHandle : pooledConnection;
+		}
+
+		/**
+		 * @see java.sql.Statement#setMaxFieldSize(int)
+		 */
+		@Override
+		public void setMaxFieldSize(int max) throws SQLException {
+			modified = true;
+			getOpenStatement().setMaxFieldSize(max);
+		}
+
+		/**
+		 * @see java.sql.Statement#setMaxRows(int)
+		 */
+		@Override
+		public void setMaxRows(int max) throws SQLException {
+			modified = true;
+			getOpenStatement().setMaxRows(max);
+		}
+
+		/**
+		 * @see java.sql.Statement#setEscapeProcessing(boolean)
+		 */
+		@Override
+		public void setEscapeProcessing(boolean enable) throws SQLException {
+			modified = true;
+			getOpenStatement().setEscapeProcessing(enable);
+		}
+
+		/**
+		 * @see java.sql.Statement#setQueryTimeout(int)
+		 */
+		@Override
+		public void setQueryTimeout(int seconds) throws SQLException {
+			modified = true;
+			getOpenStatement().setQueryTimeout(seconds);
+		}
+
+		/**
+		 * @see java.sql.Statement#setCursorName(java.lang.String)
+		 */
+		@Override
+		public void setCursorName(String name) throws SQLException {
+			modified = true;
+			getOpenStatement().setCursorName(name);
+		}
+
+		/**
+		 * @see java.sql.Statement#setFetchDirection(int)
+		 */
+		@Override
+		public void setFetchDirection(int direction) throws SQLException {
+			modified = true;
+			getOpenStatement().setFetchDirection(direction);
+		}
+
+		/**
+		 * @see java.sql.Statement#setFetchSize(int)
+		 */
+		@Override
+		public void setFetchSize(int rows) throws SQLException {
+			modified = true;
+			getOpenStatement().setFetchSize(rows);
+		}
+
+		/**
+		 * @see java.sql.Statement#setPoolable(boolean)
+		 */
+		@Override
+		public void setPoolable(boolean poolable) throws SQLException {
+			modified = true;
+			getOpenStatement().setPoolable(poolable);
+		}
+
+		/**
+		 * @see java.sql.Statement#closeOnCompletion()
+		 */
+		@Override
+		public void closeOnCompletion() throws SQLException {
+			modified = true;
+			getOpenStatement().closeOnCompletion();
+		}
+
+		/**
+		 * @see java.sql.Statement#addBatch(java.lang.String)
+		 */
+		@Override
+		public void addBatch(String sql) throws SQLException {
+			batched = true;
+			getOpenStatement().addBatch(sql);
+		}
+
+		/**
+		 * @see java.sql.PreparedStatement#addBatch()
+		 */
+		@Override
+		public void addBatch() throws SQLException {
+			batched = true;
+			getOpenStatement().addBatch();
+		}
+
+		/**
+		 * @see java.sql.Wrapper#isWrapperFor(java.lang.Class)
+		 */
+		@Override
+		public boolean isWrapperFor(Class<?> iface) throws SQLException {
+			return getOpenStatement().isWrapperFor(iface);
+		}
+
+		/**
+		 * @see java.sql.Wrapper#unwrap(java.lang.Class)
+		 */
+		@Override
+		public <T> T unwrap(Class<T> iface) throws SQLException {
+			return getOpenStatement().unwrap(iface);
+		}
+
+		/**
+		 * @see java.sql.Statement#executeQuery(java.lang.String)
+		 */
+		@Override
+		public ResultSet executeQuery(String sql) throws SQLException {
+			return getOpenStatement().executeQuery(sql);
+		}
+
+		/**
+		 * @see java.sql.Statement#executeUpdate(java.lang.String)
+		 */
+		@Override
+		public int executeUpdate(String sql) throws SQLException {
+			return getOpenStatement().executeUpdate(sql);
+		}
+
+		/**
+		 * @see java.sql.Statement#getMaxFieldSize()
+		 */
+		@Override
+		public int getMaxFieldSize() throws SQLException {
+			return getOpenStatement().getMaxFieldSize();
+		}
+
+		/**
+		 * @see java.sql.Statement#getMaxRows()
+		 */
+		@Override
+		public int getMaxRows() throws SQLException {
+			return getOpenStatement().getMaxRows();
+		}
+
+		/**
+		 * @see java.sql.Statement#getQueryTimeout()
+		 */
+		@Override
+		public int getQueryTimeout() throws SQLException {
+			return getOpenStatement().getQueryTimeout();
+		}
+
+		/**
+		 * @see java.sql.Statement#cancel()
+		 */
+		@Override
+		public void cancel() throws SQLException {
+			getOpenStatement().cancel();
+		}
+
+		/**
+		 * @see java.sql.Statement#getWarnings()
+		 */
+		@Override
+		public SQLWarning getWarnings() throws SQLException {
+			return getOpenStatement().getWarnings();
+		}
+
+		/**
+		 * @see java.sql.Statement#clearWarnings()
+		 */
+		@Override
+		public void clearWarnings() throws SQLException {
+			getOpenStatement().clearWarnings();
+		}
+
+		/**
+		 * @see java.sql.Statement#execute(java.lang.String)
+		 */
+		@Override
+		public boolean execute(String sql) throws SQLException {
+			return getOpenStatement().execute(sql);
+		}
+
+		/**
+		 * @see java.sql.Statement#getResultSet()
+		 */
+		@Override
+		public ResultSet getResultSet() throws SQLException {
+			return getOpenStatement().getResultSet();
+		}
+
+		/**
+		 * @see java.sql.Statement#getUpdateCount()
+		 */
+		@Override
+		public int getUpdateCount() throws SQLException {
+			return getOpenStatement().getUpdateCount();
+		}
+
+		/**
+		 * @see java.sql.Statement#getMoreResults()
+		 */
+		@Override
+		public boolean getMoreResults() throws SQLException {
+			return getOpenStatement().getMoreResults();
+		}
+
+		/**
+		 * @see java.sql.Statement#getFetchDirection()
+		 */
+		@Override
+		public int getFetchDirection() throws SQLException {
+			return getOpenStatement().getFetchDirection();
+		}
+
+		/**
+		 * @see java.sql.Statement#getFetchSize()
+		 */
+		@Override
+		public int getFetchSize() throws SQLException {
+			return getOpenStatement().getFetchSize();
+		}
+
+		/**
+		 * @see java.sql.Statement#getResultSetConcurrency()
+		 */
+		@Override
+		public int getResultSetConcurrency() throws SQLException {
+			return getOpenStatement().getResultSetConcurrency();
+		}
+
+		/**
+		 * @see java.sql.Statement#getResultSetType()
+		 */
+		@Override
+		public int getResultSetType() throws SQLException {
+			return getOpenStatement().getResultSetType();
+		}
+
+		/**
+		 * @see java.sql.Statement#clearBatch()
+		 */
+		@Override
+		public void clearBatch() throws SQLException {
+			getOpenStatement().clearBatch();
+		}
+
+		/**
+		 * @see java.sql.Statement#executeBatch()
+		 */
+		@Override
+		public int[] executeBatch() throws SQLException {
+			return getOpenStatement().executeBatch();
+		}
 
-	/**
-	 * Wrapper around a connection that was created by the
-	 * {@link PooledDataSource#originalDataSource}. This wrapper only overrides
-	 * the {@link Connection#close()} method to not close the connection but to
-	 * return it to the connection pool instead.
-	 *
-	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
-	 */
-	private class PooledConnection implements Connection {
+		/**
+		 * @see java.sql.Statement#getMoreResults(int)
+		 */
+		@Override
+		public boolean getMoreResults(int current) throws SQLException {
+			return getOpenStatement().getMoreResults(current);
+		}
 
-		/** The original connection. */
-		private final Connection originalConnection;
+		/**
+		 * @see java.sql.Statement#getGeneratedKeys()
+		 */
+		@Override
+		public ResultSet getGeneratedKeys() throws SQLException {
+			return getOpenStatement().getGeneratedKeys();
+		}
 
 		/**
-		 * Creates a new pooled connection.
-		 *
-		 * @param originalConnection
-		 *            The original connection to wrap
+		 * @see java.sql.Statement#executeUpdate(java.lang.String, int)
 		 */
-		public PooledConnection(Connection originalConnection) {
-			this.originalConnection = originalConnection;
+		@Override
+		public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+			return getOpenStatement().executeUpdate(sql, autoGeneratedKeys);
 		}
 
-		//
-		// PROTECTED METHODS
-		//
+		/**
+		 * @see java.sql.Statement#executeUpdate(java.lang.String, int[])
+		 */
+		@Override
+		public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+			return getOpenStatement().executeUpdate(sql, columnIndexes);
+		}
 
 		/**
-		 * Returns the original connection that is wrapped by this pooled
-		 * connection.
-		 *
-		 * @return The original connection
+		 * @see java.sql.Statement#executeUpdate(java.lang.String, java.lang.String[])
 		 */
-		protected Connection getOriginalConnection() {
-			return originalConnection;
+		@Override
+		public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+			return getOpenStatement().executeUpdate(sql, columnNames);
 		}
 
-		//
-		// INTERFACE Connection
-		//
+		/**
+		 * @see java.sql.Statement#execute(java.lang.String, int)
+		 */
+		@Override
+		public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+			return getOpenStatement().execute(sql, autoGeneratedKeys);
+		}
 
 		/**
-		 * @see java.sql.Connection#clearWarnings()
+		 * @see java.sql.Statement#execute(java.lang.String, int[])
 		 */
 		@Override
-		public void clearWarnings() throws SQLException {
-			originalConnection.clearWarnings();
+		public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+			return getOpenStatement().execute(sql, columnIndexes);
 		}
 
 		/**
-		 * @see java.sql.Connection#close()
+		 * @see java.sql.Statement#execute(java.lang.String, java.lang.String[])
 		 */
 		@Override
-		@SuppressWarnings("synthetic-access")
-		public void close() throws SQLException {
-			if (!isValid(1)) {
-				originalConnection.close();
-				return;
-			}
-			synchronized (currentConnections) {
-				currentConnections.add(this);
-			}
+		public boolean execute(String sql, String[] columnNames) throws SQLException {
+			return getOpenStatement().execute(sql, columnNames);
 		}
 
 		/**
-		 * @see java.sql.Connection#commit()
+		 * @see java.sql.Statement#getResultSetHoldability()
 		 */
 		@Override
-		public void commit() throws SQLException {
-			originalConnection.commit();
+		public int getResultSetHoldability() throws SQLException {
+			return getOpenStatement().getResultSetHoldability();
 		}
 
 		/**
-		 * @see java.sql.Connection#createArrayOf(java.lang.String,
-		 *      java.lang.Object[])
+		 * @see java.sql.Statement#isPoolable()
 		 */
 		@Override
-		public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
-			return originalConnection.createArrayOf(typeName, elements);
+		public boolean isPoolable() throws SQLException {
+			return getOpenStatement().isPoolable();
 		}
 
 		/**
-		 * @see java.sql.Connection#createBlob()
+		 * @see java.sql.Statement#isCloseOnCompletion()
 		 */
 		@Override
-		public Blob createBlob() throws SQLException {
-			return originalConnection.createBlob();
+		public boolean isCloseOnCompletion() throws SQLException {
+			return getOpenStatement().isCloseOnCompletion();
 		}
 
 		/**
-		 * @see java.sql.Connection#createClob()
+		 * @see java.sql.PreparedStatement#executeQuery()
 		 */
 		@Override
-		public Clob createClob() throws SQLException {
-			return originalConnection.createClob();
+		public ResultSet executeQuery() throws SQLException {
+			return getOpenStatement().executeQuery();
 		}
 
 		/**
-		 * @see java.sql.Connection#createNClob()
+		 * @see java.sql.PreparedStatement#executeUpdate()
 		 */
 		@Override
-		public NClob createNClob() throws SQLException {
-			return originalConnection.createNClob();
+		public int executeUpdate() throws SQLException {
+			return getOpenStatement().executeUpdate();
 		}
 
 		/**
-		 * @see java.sql.Connection#createSQLXML()
+		 * @see java.sql.PreparedStatement#setNull(int, int)
 		 */
 		@Override
-		public SQLXML createSQLXML() throws SQLException {
-			return originalConnection.createSQLXML();
+		public void setNull(int parameterIndex, int sqlType) throws SQLException {
+			getOpenStatement().setNull(parameterIndex, sqlType);
 		}
 
 		/**
-		 * @see java.sql.Connection#createStatement()
+		 * @see java.sql.PreparedStatement#setBoolean(int, boolean)
 		 */
 		@Override
-		public Statement createStatement() throws SQLException {
-			return originalConnection.createStatement();
+		public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+			getOpenStatement().setBoolean(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#createStatement(int, int, int)
+		 * @see java.sql.PreparedStatement#setByte(int, byte)
 		 */
 		@Override
-		public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-			return originalConnection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+		public void setByte(int parameterIndex, byte x) throws SQLException {
+			getOpenStatement().setByte(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#createStatement(int, int)
+		 * @see java.sql.PreparedStatement#setShort(int, short)
 		 */
 		@Override
-		public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
-			return originalConnection.createStatement(resultSetType, resultSetConcurrency);
+		public void setShort(int parameterIndex, short x) throws SQLException {
+			getOpenStatement().setShort(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#createStruct(java.lang.String,
-		 *      java.lang.Object[])
+		 * @see java.sql.PreparedStatement#setInt(int, int)
 		 */
 		@Override
-		public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
-			return originalConnection.createStruct(typeName, attributes);
+		public void setInt(int parameterIndex, int x) throws SQLException {
+			getOpenStatement().setInt(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#getAutoCommit()
+		 * @see java.sql.PreparedStatement#setLong(int, long)
 		 */
 		@Override
-		public boolean getAutoCommit() throws SQLException {
-			return originalConnection.getAutoCommit();
+		public void setLong(int parameterIndex, long x) throws SQLException {
+			getOpenStatement().setLong(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#getCatalog()
+		 * @see java.sql.PreparedStatement#setFloat(int, float)
 		 */
 		@Override
-		public String getCatalog() throws SQLException {
-			return originalConnection.getCatalog();
+		public void setFloat(int parameterIndex, float x) throws SQLException {
+			getOpenStatement().setFloat(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#getClientInfo()
+		 * @see java.sql.PreparedStatement#setDouble(int, double)
 		 */
 		@Override
-		public Properties getClientInfo() throws SQLException {
-			return originalConnection.getClientInfo();
+		public void setDouble(int parameterIndex, double x) throws SQLException {
+			getOpenStatement().setDouble(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#getClientInfo(java.lang.String)
+		 * @see java.sql.PreparedStatement#setBigDecimal(int, java.math.BigDecimal)
 		 */
 		@Override
-		public String getClientInfo(String name) throws SQLException {
-			return originalConnection.getClientInfo(name);
+		public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
+			getOpenStatement().setBigDecimal(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#getHoldability()
+		 * @see java.sql.PreparedStatement#setString(int, java.lang.String)
 		 */
 		@Override
-		public int getHoldability() throws SQLException {
-			return originalConnection.getHoldability();
+		public void setString(int parameterIndex, String x) throws SQLException {
+			getOpenStatement().setString(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#getMetaData()
+		 * @see java.sql.PreparedStatement#setBytes(int, byte[])
 		 */
 		@Override
-		public DatabaseMetaData getMetaData() throws SQLException {
-			return originalConnection.getMetaData();
+		public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+			getOpenStatement().setBytes(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#getTransactionIsolation()
+		 * @see java.sql.PreparedStatement#setDate(int, java.sql.Date)
 		 */
 		@Override
-		public int getTransactionIsolation() throws SQLException {
-			return originalConnection.getTransactionIsolation();
+		public void setDate(int parameterIndex, Date x) throws SQLException {
+			getOpenStatement().setDate(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#getTypeMap()
+		 * @see java.sql.PreparedStatement#setTime(int, java.sql.Time)
 		 */
 		@Override
-		public Map<String, Class<?>> getTypeMap() throws SQLException {
-			return originalConnection.getTypeMap();
+		public void setTime(int parameterIndex, Time x) throws SQLException {
+			getOpenStatement().setTime(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#getWarnings()
+		 * @see java.sql.PreparedStatement#setTimestamp(int, java.sql.Timestamp)
 		 */
 		@Override
-		public SQLWarning getWarnings() throws SQLException {
-			return originalConnection.getWarnings();
+		public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+			getOpenStatement().setTimestamp(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#isClosed()
+		 * @see java.sql.PreparedStatement#setAsciiStream(int, java.io.InputStream, int)
 		 */
 		@Override
-		public boolean isClosed() throws SQLException {
-			return originalConnection.isClosed();
+		public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
+			getOpenStatement().setAsciiStream(parameterIndex, x, length);
 		}
 
 		/**
-		 * @see java.sql.Connection#isReadOnly()
+		 * @see java.sql.PreparedStatement#setUnicodeStream(int, java.io.InputStream, int)
 		 */
 		@Override
-		public boolean isReadOnly() throws SQLException {
-			return originalConnection.isReadOnly();
+		@Deprecated
+		public void setUnicodeStream(int parameterIndex, InputStream x, int length) throws SQLException {
+			getOpenStatement().setUnicodeStream(parameterIndex, x, length);
 		}
 
 		/**
-		 * @see java.sql.Connection#isValid(int)
+		 * @see java.sql.PreparedStatement#setBinaryStream(int, java.io.InputStream, int)
 		 */
 		@Override
-		public boolean isValid(int timeout) throws SQLException {
-			return originalConnection.isValid(timeout);
+		public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
+			getOpenStatement().setBinaryStream(parameterIndex, x, length);
 		}
 
 		/**
-		 * @see java.sql.Wrapper#isWrapperFor(java.lang.Class)
+		 * @see java.sql.PreparedStatement#clearParameters()
 		 */
 		@Override
-		public boolean isWrapperFor(Class<?> iface) throws SQLException {
-			return originalConnection.isWrapperFor(iface);
+		public void clearParameters() throws SQLException {
+			getOpenStatement().clearParameters();
 		}
 
 		/**
-		 * @see java.sql.Connection#nativeSQL(java.lang.String)
+		 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object, int)
 		 */
 		@Override
-		public String nativeSQL(String sql) throws SQLException {
-			return originalConnection.nativeSQL(sql);
+		public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+			getOpenStatement().setObject(parameterIndex, x, targetSqlType);
 		}
 
 		/**
-		 * @see java.sql.Connection#prepareCall(java.lang.String, int, int, int)
+		 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object)
 		 */
 		@Override
-		public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-			return originalConnection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+		public void setObject(int parameterIndex, Object x) throws SQLException {
+			getOpenStatement().setObject(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#prepareCall(java.lang.String, int, int)
+		 * @see java.sql.PreparedStatement#execute()
 		 */
 		@Override
-		public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
-			return originalConnection.prepareCall(sql, resultSetType, resultSetConcurrency);
+		public boolean execute() throws SQLException {
+			return getOpenStatement().execute();
 		}
 
 		/**
-		 * @see java.sql.Connection#prepareCall(java.lang.String)
+		 * @see java.sql.PreparedStatement#setCharacterStream(int, java.io.Reader, int)
 		 */
 		@Override
-		public CallableStatement prepareCall(String sql) throws SQLException {
-			return originalConnection.prepareCall(sql);
+		public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
+			getOpenStatement().setCharacterStream(parameterIndex, reader, length);
 		}
 
 		/**
-		 * @see java.sql.Connection#prepareStatement(java.lang.String, int, int,
-		 *      int)
+		 * @see java.sql.PreparedStatement#setRef(int, java.sql.Ref)
 		 */
 		@Override
-		public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-			return originalConnection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+		public void setRef(int parameterIndex, Ref x) throws SQLException {
+			getOpenStatement().setRef(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#prepareStatement(java.lang.String, int, int)
+		 * @see java.sql.PreparedStatement#setBlob(int, java.sql.Blob)
 		 */
 		@Override
-		public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
-			return originalConnection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+		public void setBlob(int parameterIndex, Blob x) throws SQLException {
+			getOpenStatement().setBlob(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#prepareStatement(java.lang.String, int)
+		 * @see java.sql.PreparedStatement#setClob(int, java.sql.Clob)
 		 */
 		@Override
-		public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
-			return originalConnection.prepareStatement(sql, autoGeneratedKeys);
+		public void setClob(int parameterIndex, Clob x) throws SQLException {
+			getOpenStatement().setClob(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#prepareStatement(java.lang.String, int[])
+		 * @see java.sql.PreparedStatement#setArray(int, java.sql.Array)
 		 */
 		@Override
-		public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
-			return originalConnection.prepareStatement(sql, columnIndexes);
+		public void setArray(int parameterIndex, Array x) throws SQLException {
+			getOpenStatement().setArray(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#prepareStatement(java.lang.String,
-		 *      java.lang.String[])
+		 * @see java.sql.PreparedStatement#getMetaData()
 		 */
 		@Override
-		public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
-			return originalConnection.prepareStatement(sql, columnNames);
+		public ResultSetMetaData getMetaData() throws SQLException {
+			return getOpenStatement().getMetaData();
 		}
 
 		/**
-		 * @see java.sql.Connection#prepareStatement(java.lang.String)
+		 * @see java.sql.PreparedStatement#setDate(int, java.sql.Date, java.util.Calendar)
 		 */
 		@Override
-		public PreparedStatement prepareStatement(String sql) throws SQLException {
-			return originalConnection.prepareStatement(sql);
+		public void setDate(int parameterIndex, Date x, Calendar cal) throws SQLException {
+			getOpenStatement().setDate(parameterIndex, x, cal);
 		}
 
 		/**
-		 * @see java.sql.Connection#releaseSavepoint(java.sql.Savepoint)
+		 * @see java.sql.PreparedStatement#setTime(int, java.sql.Time, java.util.Calendar)
 		 */
 		@Override
-		public void releaseSavepoint(Savepoint savepoint) throws SQLException {
-			originalConnection.releaseSavepoint(savepoint);
+		public void setTime(int parameterIndex, Time x, Calendar cal) throws SQLException {
+			getOpenStatement().setTime(parameterIndex, x, cal);
 		}
 
 		/**
-		 * @see java.sql.Connection#rollback()
+		 * @see java.sql.PreparedStatement#setTimestamp(int, java.sql.Timestamp, java.util.Calendar)
 		 */
 		@Override
-		public void rollback() throws SQLException {
-			originalConnection.rollback();
+		public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+			getOpenStatement().setTimestamp(parameterIndex, x, cal);
 		}
 
 		/**
-		 * @see java.sql.Connection#rollback(java.sql.Savepoint)
+		 * @see java.sql.PreparedStatement#setNull(int, int, java.lang.String)
 		 */
 		@Override
-		public void rollback(Savepoint savepoint) throws SQLException {
-			originalConnection.rollback(savepoint);
+		public void setNull(int parameterIndex, int sqlType, String typeName) throws SQLException {
+			getOpenStatement().setNull(parameterIndex, sqlType, typeName);
 		}
 
 		/**
-		 * @see java.sql.Connection#setAutoCommit(boolean)
+		 * @see java.sql.PreparedStatement#setURL(int, java.net.URL)
 		 */
 		@Override
-		public void setAutoCommit(boolean autoCommit) throws SQLException {
-			originalConnection.setAutoCommit(autoCommit);
+		public void setURL(int parameterIndex, URL x) throws SQLException {
+			getOpenStatement().setURL(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#setCatalog(java.lang.String)
+		 * @see java.sql.PreparedStatement#getParameterMetaData()
 		 */
 		@Override
-		public void setCatalog(String catalog) throws SQLException {
-			originalConnection.setCatalog(catalog);
+		public ParameterMetaData getParameterMetaData() throws SQLException {
+			return getOpenStatement().getParameterMetaData();
 		}
 
 		/**
-		 * @see java.sql.Connection#setClientInfo(java.util.Properties)
+		 * @see java.sql.PreparedStatement#setRowId(int, java.sql.RowId)
 		 */
 		@Override
-		public void setClientInfo(Properties properties) throws SQLClientInfoException {
-			originalConnection.setClientInfo(properties);
+		public void setRowId(int parameterIndex, RowId x) throws SQLException {
+			getOpenStatement().setRowId(parameterIndex, x);
 		}
 
 		/**
-		 * @see java.sql.Connection#setClientInfo(java.lang.String,
-		 *      java.lang.String)
+		 * @see java.sql.PreparedStatement#setNString(int, java.lang.String)
 		 */
 		@Override
-		public void setClientInfo(String name, String value) throws SQLClientInfoException {
-			originalConnection.setClientInfo(name, value);
+		public void setNString(int parameterIndex, String value) throws SQLException {
+			getOpenStatement().setNString(parameterIndex, value);
 		}
 
 		/**
-		 * @see java.sql.Connection#setHoldability(int)
+		 * @see java.sql.PreparedStatement#setNCharacterStream(int, java.io.Reader, long)
 		 */
 		@Override
-		public void setHoldability(int holdability) throws SQLException {
-			originalConnection.setHoldability(holdability);
+		public void setNCharacterStream(int parameterIndex, Reader value, long length) throws SQLException {
+			getOpenStatement().setNCharacterStream(parameterIndex, value, length);
 		}
 
 		/**
-		 * @see java.sql.Connection#setReadOnly(boolean)
+		 * @see java.sql.PreparedStatement#setNClob(int, java.sql.NClob)
 		 */
 		@Override
-		public void setReadOnly(boolean readOnly) throws SQLException {
-			originalConnection.setReadOnly(readOnly);
+		public void setNClob(int parameterIndex, NClob value) throws SQLException {
+			getOpenStatement().setNClob(parameterIndex, value);
 		}
 
 		/**
-		 * @see java.sql.Connection#setSavepoint()
+		 * @see java.sql.PreparedStatement#setClob(int, java.io.Reader, long)
 		 */
 		@Override
-		public Savepoint setSavepoint() throws SQLException {
-			return originalConnection.setSavepoint();
+		public void setClob(int parameterIndex, Reader reader, long length) throws SQLException {
+			getOpenStatement().setClob(parameterIndex, reader, length);
 		}
 
 		/**
-		 * @see java.sql.Connection#setSavepoint(java.lang.String)
+		 * @see java.sql.PreparedStatement#setBlob(int, java.io.InputStream, long)
 		 */
 		@Override
-		public Savepoint setSavepoint(String name) throws SQLException {
-			return originalConnection.setSavepoint(name);
+		public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+			getOpenStatement().setBlob(parameterIndex, inputStream, length);
 		}
 
 		/**
-		 * @see java.sql.Connection#setTransactionIsolation(int)
+		 * @see java.sql.PreparedStatement#setNClob(int, java.io.Reader, long)
 		 */
 		@Override
-		public void setTransactionIsolation(int level) throws SQLException {
-			originalConnection.setTransactionIsolation(level);
+		public void setNClob(int parameterIndex, Reader reader, long length) throws SQLException {
+			getOpenStatement().setNClob(parameterIndex, reader, length);
 		}
 
 		/**
-		 * @see java.sql.Connection#setTypeMap(java.util.Map)
+		 * @see java.sql.PreparedStatement#setSQLXML(int, java.sql.SQLXML)
 		 */
 		@Override
-		public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
-			originalConnection.setTypeMap(map);
+		public void setSQLXML(int parameterIndex, SQLXML xmlObject) throws SQLException {
+			getOpenStatement().setSQLXML(parameterIndex, xmlObject);
 		}
 
 		/**
-		 * @see java.sql.Wrapper#unwrap(java.lang.Class)
+		 * @see java.sql.PreparedStatement#setObject(int, java.lang.Object, int, int)
 		 */
 		@Override
-		public <T> T unwrap(Class<T> iface) throws SQLException {
-			return originalConnection.unwrap(iface);
+		public void setObject(int parameterIndex, Object x, int targetSqlType, int scaleOrLength) throws SQLException {
+			getOpenStatement().setObject(parameterIndex, x, targetSqlType, scaleOrLength);
 		}
 
+		/**
+		 * @see java.sql.PreparedStatement#setAsciiStream(int, java.io.InputStream, long)
+		 */
 		@Override
-		public void setSchema(String schema) throws SQLException {
-			originalConnection.setSchema(schema);
+		public void setAsciiStream(int parameterIndex, InputStream x, long length) throws SQLException {
+			getOpenStatement().setAsciiStream(parameterIndex, x, length);
 		}
 
+		/**
+		 * @see java.sql.PreparedStatement#setBinaryStream(int, java.io.InputStream, long)
+		 */
 		@Override
-		public String getSchema() throws SQLException {
-			return originalConnection.getSchema();
+		public void setBinaryStream(int parameterIndex, InputStream x, long length) throws SQLException {
+			getOpenStatement().setBinaryStream(parameterIndex, x, length);
 		}
 
+		/**
+		 * @see java.sql.PreparedStatement#setCharacterStream(int, java.io.Reader, long)
+		 */
 		@Override
-		public void abort(Executor executor) throws SQLException {
-			originalConnection.abort(executor);
+		public void setCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
+			getOpenStatement().setCharacterStream(parameterIndex, reader, length);
 		}
 
+		/**
+		 * @see java.sql.PreparedStatement#setAsciiStream(int, java.io.InputStream)
+		 */
 		@Override
-		public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
-			originalConnection.setNetworkTimeout(executor, milliseconds);
+		public void setAsciiStream(int parameterIndex, InputStream x) throws SQLException {
+			getOpenStatement().setAsciiStream(parameterIndex, x);
 		}
 
+		/**
+		 * @see java.sql.PreparedStatement#setBinaryStream(int, java.io.InputStream)
+		 */
 		@Override
-		public int getNetworkTimeout() throws SQLException {
-			return originalConnection.getNetworkTimeout();
+		public void setBinaryStream(int parameterIndex, InputStream x) throws SQLException {
+			getOpenStatement().setBinaryStream(parameterIndex, x);
 		}
-	}
 
-	/**
-	 * Wrapper around a connection that was created with a username and a
-	 * password. This wrapper also only overrides the {@link Connection#close}
-	 * method but returns the connection to the appropriate connection pool in
-	 * {@link PooledDataSource#usernamePasswordConnections}.
-	 *
-	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
-	 */
-	private class PooledUsernamePasswordConnection extends PooledConnection {
+		/**
+		 * @see java.sql.PreparedStatement#setCharacterStream(int, java.io.Reader)
+		 */
+		@Override
+		public void setCharacterStream(int parameterIndex, Reader reader) throws SQLException {
+			getOpenStatement().setCharacterStream(parameterIndex, reader);
+		}
 
-		/** The username of the connection. */
-		private final String username;
+		/**
+		 * @see java.sql.PreparedStatement#setNCharacterStream(int, java.io.Reader)
+		 */
+		@Override
+		public void setNCharacterStream(int parameterIndex, Reader value) throws SQLException {
+			getOpenStatement().setNCharacterStream(parameterIndex, value);
+		}
 
-		/** The password of the connection. */
-		private final String password;
+		/**
+		 * @see java.sql.PreparedStatement#setClob(int, java.io.Reader)
+		 */
+		@Override
+		public void setClob(int parameterIndex, Reader reader) throws SQLException {
+			getOpenStatement().setClob(parameterIndex, reader);
+		}
 
 		/**
-		 * Creates a new pooled connection that was created with a username and
-		 * a password.
-		 *
-		 * @param originalConnection
-		 *            The original connection to wrap
-		 * @param username
-		 *            The username the connection was created with
-		 * @param password
-		 *            The password the connection was created with
+		 * @see java.sql.PreparedStatement#setBlob(int, java.io.InputStream)
 		 */
-		public PooledUsernamePasswordConnection(Connection originalConnection, String username, String password) {
-			super(originalConnection);
-			this.username = username;
-			this.password = password;
+		@Override
+		public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+			getOpenStatement().setBlob(parameterIndex, inputStream);
 		}
 
 		/**
-		 * @see net.pterodactylus.util.database.PooledDataSource.PooledConnection#close()
+		 * @see java.sql.PreparedStatement#setNClob(int, java.io.Reader)
 		 */
 		@Override
-		@SuppressWarnings("synthetic-access")
-		public void close() throws SQLException {
-			if (!isValid(1)) {
-				getOriginalConnection().close();
-				return;
-			}
-			synchronized (usernamePasswordConnections) {
-				usernamePasswordConnections.get(new Pair<String, String>(username, password)).add(this);
-			}
+		public void setNClob(int parameterIndex, Reader reader) throws SQLException {
+			getOpenStatement().setNClob(parameterIndex, reader);
 		}
 
 	}
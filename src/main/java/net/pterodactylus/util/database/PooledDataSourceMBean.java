@@ -0,0 +1,147 @@
+/*
+ * utils - PooledDataSourceMBean.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+/**
+ * MBean interface for {@link PooledDataSource}. All values are aggregated over
+ * the pools of all username/password combinations; all times are given in
+ * microseconds.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public interface PooledDataSourceMBean {
+
+	/**
+	 * Returns the number of connections that are currently borrowed.
+	 *
+	 * @return The number of active connections
+	 */
+	public int getActiveConnections();
+
+	/**
+	 * Returns the number of connections that are currently idle in the pool.
+	 *
+	 * @return The number of idle connections
+	 */
+	public int getIdleConnections();
+
+	/**
+	 * Returns the number of threads that are currently waiting for a
+	 * connection.
+	 *
+	 * @return The number of pending threads
+	 */
+	public int getPendingThreads();
+
+	/**
+	 * Returns the number of connections that have been opened.
+	 *
+	 * @return The number of created connections
+	 */
+	public long getCreatedConnections();
+
+	/**
+	 * Returns the number of connections that have been closed.
+	 *
+	 * @return The number of closed connections
+	 */
+	public long getClosedConnections();
+
+	/**
+	 * Returns the number of times a thread could not get a connection within
+	 * the acquire timeout.
+	 *
+	 * @return The number of acquire timeouts
+	 */
+	public long getAcquireTimeouts();
+
+	/**
+	 * Returns the number of connections that failed validation before being
+	 * handed out.
+	 *
+	 * @return The number of validation failures
+	 */
+	public long getValidationFailures();
+
+	/**
+	 * Returns the number of connections that have been reported as possibly
+	 * leaked.
+	 *
+	 * @return The number of detected leaks
+	 */
+	public long getDetectedLeaks();
+
+	/**
+	 * Returns the number of prepared statements that were reused from the
+	 * statement cache of a connection.
+	 *
+	 * @return The number of statement cache hits
+	 */
+	public long getStatementCacheHits();
+
+	/**
+	 * Returns the number of prepared statements that were not found in the
+	 * statement cache of a connection.
+	 *
+	 * @return The number of statement cache misses
+	 */
+	public long getStatementCacheMisses();
+
+	/**
+	 * Returns the average time threads waited for a connection.
+	 *
+	 * @return The average acquire time
+	 */
+	public double getAverageAcquireTime();
+
+	/**
+	 * Returns the 99th percentile of the time threads waited for a connection.
+	 *
+	 * @return The 99th percentile of the acquire time
+	 */
+	public long getAcquireTime99thPercentile();
+
+	/**
+	 * Returns the longest time a thread waited for a connection.
+	 *
+	 * @return The maximum acquire time
+	 */
+	public long getMaximumAcquireTime();
+
+	/**
+	 * Returns the average time connections were borrowed.
+	 *
+	 * @return The average usage time
+	 */
+	public double getAverageUsageTime();
+
+	/**
+	 * Returns the 99th percentile of the time connections were borrowed.
+	 *
+	 * @return The 99th percentile of the usage time
+	 */
+	public long getUsageTime99thPercentile();
+
+	/**
+	 * Returns the longest time a connection was borrowed.
+	 *
+	 * @return The maximum usage time
+	 */
+	public long getMaximumUsageTime();
+
+}
@@ -81,6 +81,9 @@ public class Query {
 	/** The limit, if any. */
 	private Limit limit;
 
+	/** The rendered SQL of this query, if it has already been rendered. */
+	private String sql;
+
 	/**
 	 * Creates a new query.
 	 *
@@ -104,6 +107,7 @@ public class Query {
 		for (Field field : fields) {
 			this.fields.add(field);
 		}
+		sql = null;
 	}
 
 	/**
@@ -116,6 +120,7 @@ public class Query {
 		for (ValueField valueField : valueFields) {
 			this.valueFields.add(valueField);
 		}
+		sql = null;
 	}
 
 	/**
@@ -128,6 +133,7 @@ public class Query {
 		for (Join join : joins) {
 			this.joins.add(join);
 		}
+		sql = null;
 	}
 
 	/**
@@ -140,6 +146,7 @@ public class Query {
 		for (WhereClause whereClause : whereClauses) {
 			this.whereClauses.add(whereClause);
 		}
+		sql = null;
 	}
 
 	/**
@@ -155,6 +162,7 @@ public class Query {
 		for (OrderField orderField : orderFields) {
 			this.orderFields.add(orderField);
 		}
+		sql = null;
 	}
 
 	/**
@@ -165,11 +173,34 @@ public class Query {
 	 */
 	public void setLimit(Limit limit) {
 		this.limit = limit;
+		sql = null;
+	}
+
+	/**
+	 * Returns the SQL of this query. The SQL is only rendered once and
+	 * rendered again only after this query has been changed; changes to
+	 * {@link WhereClause}s that have already been added to this query are not
+	 * detected.
+	 *
+	 * @return The SQL of this query
+	 */
+	public String getSql() {
+		if (sql == null) {
+			StringWriter queryWriter = new StringWriter();
+			try {
+				render(queryWriter);
+			} catch (IOException ioe1) {
+				/* ignore. */
+			}
+			sql = queryWriter.toString();
+		}
+		return sql;
 	}
 
 	/**
 	 * Creates an SQL statement from the given connection and prepares it for
-	 * execution.
+	 * execution. Only {@link Type#INSERT INSERT} statements are prepared to
+	 * return automatically generated keys.
 	 *
 	 * @param connection
 	 *            The connection to create a statement from
@@ -178,14 +209,27 @@ public class Query {
 	 *             if an SQL error occurs
 	 */
 	public PreparedStatement createStatement(Connection connection) throws SQLException {
-		StringWriter queryWriter = new StringWriter();
-		try {
-			render(queryWriter);
-		} catch (IOException ioe1) {
-			/* ignore. */
+		PreparedStatement preparedStatement;
+		if (type == Type.INSERT) {
+			preparedStatement = connection.prepareStatement(getSql(), Statement.RETURN_GENERATED_KEYS);
+		} else {
+			preparedStatement = connection.prepareStatement(getSql());
 		}
-		String query = queryWriter.toString();
-		PreparedStatement preparedStatement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+		setParameters(preparedStatement);
+		return preparedStatement;
+	}
+
+	/**
+	 * Sets the parameters of this query on the given prepared statement. The
+	 * prepared statement has to have been prepared with the SQL of this query,
+	 * or of a query that only differs in its parameters.
+	 *
+	 * @param preparedStatement
+	 *            The prepared statement to set the parameters on
+	 * @throws SQLException
+	 *             if an SQL error occurs
+	 */
+	public void setParameters(PreparedStatement preparedStatement) throws SQLException {
 		int index = 0;
 		if ((type == Type.UPDATE) || (type == Type.INSERT)) {
 			for (ValueField valueField : valueFields) {
@@ -199,7 +243,6 @@ public class Query {
 				}
 			}
 		}
-		return preparedStatement;
 	}
 
 	/**
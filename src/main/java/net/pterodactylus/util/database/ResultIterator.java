@@ -0,0 +1,51 @@
+/*
+ * utils - ResultIterator.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * Iterator over the results of a query that creates its objects while the
+ * rows are read from the database. A result iterator holds a database
+ * connection until it is either exhausted or {@link #close() closed}, so it
+ * should always be used in a try-with-resources block or be closed in a
+ * {@code finally} block.
+ * <p>
+ * A result iterator is also an {@link Iterable} that returns itself so that
+ * it can be used in a for-each loop; consequently it can only be iterated
+ * once.
+ * <p>
+ * Because {@link Iterator} methods can not throw checked exceptions, errors
+ * that occur while reading rows are thrown as {@link RuntimeException}s with
+ * the {@link java.sql.SQLException} as their cause.
+ *
+ * @param <T>
+ *            The type of the results
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public interface ResultIterator<T> extends Iterator<T>, Iterable<T>, Closeable {
+
+	/**
+	 * Closes the result set and the statement of this iterator and returns
+	 * the connection. Closing an iterator more than once has no effect.
+	 */
+	@Override
+	public void close();
+
+}
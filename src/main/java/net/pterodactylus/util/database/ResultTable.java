@@ -0,0 +1,330 @@
+/*
+ * utils - ResultTable.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import net.pterodactylus.util.database.ColumnPlan.Kind;
+
+/**
+ * {@link ResultProcessor} that stores all rows of a result set in a compact,
+ * column-oriented form. Integral and boolean columns are stored in
+ * {@code long} arrays, floating-point and decimal columns in {@code double}
+ * arrays, and only the
+ * remaining columns in {@code Object} arrays, so that reading large result
+ * sets does not create a map and boxed values for every row.
+ * <p>
+ * A result table can be filled using
+ * {@link Database#process(Query, ResultProcessor)}; the
+ * {@link ColumnPlan column plan} is resolved when the first row is processed.
+ * A result table is not thread-safe.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class ResultTable implements ResultProcessor {
+
+	/** The initial capacity of the column arrays. */
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** The column plan. */
+	private ColumnPlan columnPlan;
+
+	/** The values of the primitive integral columns. */
+	private long[][] longValues;
+
+	/** The values of the decimal columns. */
+	private double[][] doubleValues;
+
+	/** The values of all other columns. */
+	private Object[][] objectValues;
+
+	/** The SQL NULL values, one bit set per column. */
+	private BitSet[] nullValues;
+
+	/** The number of rows. */
+	private int rowCount;
+
+	//
+	// ACCESSORS
+	//
+
+	/**
+	 * Returns the column plan of the processed result set.
+	 *
+	 * @return The column plan, or {@code null} if no row has been processed
+	 */
+	public ColumnPlan getColumnPlan() {
+		return columnPlan;
+	}
+
+	/**
+	 * Returns the number of rows in this table.
+	 *
+	 * @return The number of rows
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * Returns whether the given column of the given row contained the SQL NULL
+	 * value.
+	 *
+	 * @param row
+	 *            The index of the row (starting at {@code 0})
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return {@code true} if the value was SQL NULL, {@code false} otherwise
+	 */
+	public boolean isNull(int row, int column) {
+		checkRow(row);
+		return nullValues[column].get(row);
+	}
+
+	/**
+	 * Returns the value of the given column of the given row as a long.
+	 *
+	 * @param row
+	 *            The index of the row (starting at {@code 0})
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return The value of the column
+	 * @throws IllegalArgumentException
+	 *             if the column is not an integer, long, or boolean column
+	 */
+	public long getLong(int row, int column) throws IllegalArgumentException {
+		checkRow(row);
+		if (longValues[column] == null) {
+			throw new IllegalArgumentException("Column " + column + " is not an integral column.");
+		}
+		return longValues[column][row];
+	}
+
+	/**
+	 * Returns the value of the given column of the given row as an int.
+	 *
+	 * @param row
+	 *            The index of the row (starting at {@code 0})
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return The value of the column
+	 * @throws IllegalArgumentException
+	 *             if the column is not an integer, long, or boolean column
+	 */
+	public int getInt(int row, int column) throws IllegalArgumentException {
+		return (int) getLong(row, column);
+	}
+
+	/**
+	 * Returns the value of the given column of the given row as a boolean.
+	 *
+	 * @param row
+	 *            The index of the row (starting at {@code 0})
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return The value of the column
+	 * @throws IllegalArgumentException
+	 *             if the column is not an integer, long, or boolean column
+	 */
+	public boolean getBoolean(int row, int column) throws IllegalArgumentException {
+		return getLong(row, column) != 0;
+	}
+
+	/**
+	 * Returns the value of the given column of the given row as a double.
+	 *
+	 * @param row
+	 *            The index of the row (starting at {@code 0})
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return The value of the column
+	 * @throws IllegalArgumentException
+	 *             if the column is not a numeric column
+	 */
+	public double getDouble(int row, int column) throws IllegalArgumentException {
+		checkRow(row);
+		if (doubleValues[column] != null) {
+			return doubleValues[column][row];
+		}
+		return getLong(row, column);
+	}
+
+	/**
+	 * Returns the value of the given column of the given row as an object.
+	 * Values of primitive columns are boxed; SQL NULL values are returned as
+	 * {@code null}.
+	 *
+	 * @param row
+	 *            The index of the row (starting at {@code 0})
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return The value of the column
+	 */
+	public Object getObject(int row, int column) {
+		if (isNull(row, column)) {
+			return null;
+		}
+		switch (columnPlan.getKind(column)) {
+			case BYTE:
+				return (byte) longValues[column][row];
+			case SHORT:
+				return (short) longValues[column][row];
+			case INTEGER:
+				return (int) longValues[column][row];
+			case LONG:
+				return longValues[column][row];
+			case BOOLEAN:
+				return longValues[column][row] != 0;
+			case FLOAT:
+				return (float) doubleValues[column][row];
+			case DOUBLE:
+				return doubleValues[column][row];
+			default:
+				return objectValues[column][row];
+		}
+	}
+
+	/**
+	 * Returns the value of the given column of the given row as a string.
+	 *
+	 * @param row
+	 *            The index of the row (starting at {@code 0})
+	 * @param column
+	 *            The index of the column (starting at {@code 0})
+	 * @return The value of the column, or {@code null} if the value was SQL
+	 *         NULL
+	 */
+	public String getString(int row, int column) {
+		Object value = getObject(row, column);
+		return (value == null) ? null : String.valueOf(value);
+	}
+
+	//
+	// RESULTPROCESSOR METHODS
+	//
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void processResult(ResultSet resultSet) throws SQLException {
+		if (columnPlan == null) {
+			initialize(ColumnPlan.resolve(resultSet));
+		}
+		ensureCapacity(rowCount + 1);
+		for (int column = 0; column < columnPlan.getColumnCount(); column++) {
+			switch (columnPlan.getKind(column)) {
+				case BYTE:
+					longValues[column][rowCount] = resultSet.getByte(column + 1);
+					break;
+				case SHORT:
+					longValues[column][rowCount] = resultSet.getShort(column + 1);
+					break;
+				case INTEGER:
+					longValues[column][rowCount] = resultSet.getInt(column + 1);
+					break;
+				case LONG:
+					longValues[column][rowCount] = resultSet.getLong(column + 1);
+					break;
+				case BOOLEAN:
+					longValues[column][rowCount] = resultSet.getBoolean(column + 1) ? 1 : 0;
+					break;
+				case FLOAT:
+					doubleValues[column][rowCount] = resultSet.getFloat(column + 1);
+					break;
+				case DOUBLE:
+					doubleValues[column][rowCount] = resultSet.getDouble(column + 1);
+					break;
+				default:
+					objectValues[column][rowCount] = columnPlan.readValue(resultSet, column);
+					break;
+			}
+			if (resultSet.wasNull()) {
+				nullValues[column].set(rowCount);
+			}
+		}
+		rowCount++;
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Creates the column arrays for the given column plan.
+	 *
+	 * @param columnPlan
+	 *            The column plan
+	 */
+	private void initialize(ColumnPlan columnPlan) {
+		this.columnPlan = columnPlan;
+		int columnCount = columnPlan.getColumnCount();
+		longValues = new long[columnCount][];
+		doubleValues = new double[columnCount][];
+		objectValues = new Object[columnCount][];
+		nullValues = new BitSet[columnCount];
+		for (int column = 0; column < columnCount; column++) {
+			Kind kind = columnPlan.getKind(column);
+			if ((kind == Kind.BYTE) || (kind == Kind.SHORT) || (kind == Kind.INTEGER) || (kind == Kind.LONG) || (kind == Kind.BOOLEAN)) {
+				longValues[column] = new long[INITIAL_CAPACITY];
+			} else if ((kind == Kind.FLOAT) || (kind == Kind.DOUBLE)) {
+				doubleValues[column] = new double[INITIAL_CAPACITY];
+			} else {
+				objectValues[column] = new Object[INITIAL_CAPACITY];
+			}
+			nullValues[column] = new BitSet();
+		}
+	}
+
+	/**
+	 * Grows the column arrays so that they can store the given number of
+	 * rows.
+	 *
+	 * @param capacity
+	 *            The number of rows to store
+	 */
+	private void ensureCapacity(int capacity) {
+		for (int column = 0; column < columnPlan.getColumnCount(); column++) {
+			if ((longValues[column] != null) && (longValues[column].length < capacity)) {
+				longValues[column] = Arrays.copyOf(longValues[column], longValues[column].length * 2);
+			} else if ((doubleValues[column] != null) && (doubleValues[column].length < capacity)) {
+				doubleValues[column] = Arrays.copyOf(doubleValues[column], doubleValues[column].length * 2);
+			} else if ((objectValues[column] != null) && (objectValues[column].length < capacity)) {
+				objectValues[column] = Arrays.copyOf(objectValues[column], objectValues[column].length * 2);
+			}
+		}
+	}
+
+	/**
+	 * Checks that the given row exists.
+	 *
+	 * @param row
+	 *            The index of the row
+	 * @throws IndexOutOfBoundsException
+	 *             if the row does not exist
+	 */
+	private void checkRow(int row) throws IndexOutOfBoundsException {
+		if ((row < 0) || (row >= rowCount)) {
+			throw new IndexOutOfBoundsException("Row " + row + " does not exist.");
+		}
+	}
+
+}
@@ -21,23 +21,45 @@ import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
-import net.pterodactylus.util.number.Bits;
-
 /**
  * An InputStream that can read values with a bit size of other than 8.
+ * <p>
+ * Bits are read from the lowest to the highest bit of each byte, and values
+ * are assembled from their lowest to their highest bit. The bytes of the
+ * underlying input stream are read in blocks and collected in a 64-bit word,
+ * from which values are extracted with shifts and masks. Because of this the
+ * underlying input stream is read ahead of the values that have been
+ * returned. Once the underlying input stream is exhausted, {@link #read()}
+ * and {@link #read(int)} return values with all bits set;
+ * {@link #read(int[], int, int)} can be used to detect the end of the stream.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
 public class BitShiftedInputStream extends FilterInputStream {
 
+	/** The size of the read buffer. */
+	private static final int BUFFER_SIZE = 8192;
+
 	/** The number of bits per value. */
 	protected int valueSize;
 
-	/** The current bit position in the underlying input stream. */
-	protected int currentBitPosition;
+	/** The bytes read from the underlying input stream. */
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	/** The position of the next byte in {@link #buffer}. */
+	private int bufferPosition;
+
+	/** The number of valid bytes in {@link #buffer}. */
+	private int bufferLimit;
 
-	/** The current value from the underlying input stream. */
-	protected int currentValue;
+	/** Whether the underlying input stream is exhausted. */
+	private boolean endOfStream;
+
+	/** The bits that have not yet been returned, lowest bit first. */
+	private long bits;
+
+	/** The number of valid bits in {@link #bits}. */
+	private int bitCount;
 
 	/**
 	 * Creates a new bit-shifted input stream wrapped around the specified input
@@ -54,7 +76,6 @@ public class BitShiftedInputStream extends FilterInputStream {
 			throw new IllegalArgumentException("valueSize out of range 1-32");
 		}
 		this.valueSize = valueSize;
-		currentBitPosition = 8;
 	}
 
 	/**
@@ -80,21 +101,121 @@ public class BitShiftedInputStream extends FilterInputStream {
 	 *             if an I/O error occurs
 	 */
 	public int read(int valueSize) throws IOException {
-		int bitsLeft = valueSize;
-		int value = 0;
-		while (bitsLeft > 0) {
-			if (currentBitPosition > 7) {
-				currentValue = super.read();
-				currentBitPosition = 0;
+		if (bitCount < valueSize) {
+			fillBits();
+			if (bitCount < valueSize) {
+				/* the stream is exhausted, fill the missing bits with ones. */
+				int value = (int) ((bits | (-1L << bitCount)) & mask(valueSize));
+				bits = 0;
+				bitCount = 0;
+				return value;
 			}
-			value = Bits.encodeBits(value, valueSize - bitsLeft, 1, currentValue);
-			currentValue >>>= 1;
-			currentBitPosition++;
-			bitsLeft--;
 		}
+		int value = (int) (bits & mask(valueSize));
+		bits >>>= valueSize;
+		bitCount -= valueSize;
 		return value;
 	}
 
+	/**
+	 * Reads up to {@code count} values with the given number of bits each from
+	 * the underlying input stream. In contrast to {@link #read(int)} this
+	 * method stops at the end of the stream.
+	 *
+	 * @param values
+	 *            The array to store the values in, starting at index {@code 0}
+	 * @param count
+	 *            The number of values to read
+	 * @param bitsEach
+	 *            The number of bits per value (1 to 32)
+	 * @return The number of values that have been read, or {@code -1} if the
+	 *         end of the stream was reached before a complete value could be
+	 *         read
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public int read(int[] values, int count, int bitsEach) throws IOException {
+		if ((bitsEach < 1) || (bitsEach > 32)) {
+			throw new IllegalArgumentException("bitsEach out of range 1-32");
+		}
+		long mask = mask(bitsEach);
+		for (int index = 0; index < count; index++) {
+			if (bitCount < bitsEach) {
+				fillBits();
+				if (bitCount < bitsEach) {
+					return (index == 0) ? -1 : index;
+				}
+			}
+			values[index] = (int) (bits & mask);
+			bits >>>= bitsEach;
+			bitCount -= bitsEach;
+		}
+		return count;
+	}
+
+	/**
+	 * Reads values from the underlying input stream and stores their lowest
+	 * eight bits in the given array.
+	 *
+	 * @see java.io.FilterInputStream#read(byte[], int, int)
+	 */
+	@Override
+	public int read(byte[] bytes, int offset, int length) throws IOException {
+		for (int index = 0; index < length; index++) {
+			if (bitCount < valueSize) {
+				fillBits();
+				if (bitCount < valueSize) {
+					return (index == 0) ? -1 : index;
+				}
+			}
+			bytes[offset + index] = (byte) read(valueSize);
+		}
+		return length;
+	}
+
+	/**
+	 * Skips the given number of values.
+	 *
+	 * @see java.io.FilterInputStream#skip(long)
+	 */
+	@Override
+	public long skip(long count) throws IOException {
+		long skipped = 0;
+		while (skipped < count) {
+			if (bitCount < valueSize) {
+				fillBits();
+				if (bitCount < valueSize) {
+					break;
+				}
+			}
+			bits >>>= valueSize;
+			bitCount -= valueSize;
+			skipped++;
+		}
+		return skipped;
+	}
+
+	/**
+	 * Returns the number of values that can be read without blocking.
+	 *
+	 * @see java.io.FilterInputStream#available()
+	 */
+	@Override
+	public int available() throws IOException {
+		long availableBits = bitCount + (bufferLimit - bufferPosition) * 8L + in.available() * 8L;
+		return (int) Math.min(Integer.MAX_VALUE, availableBits / valueSize);
+	}
+
+	/**
+	 * Marking is not supported by this stream.
+	 *
+	 * @return {@code false}
+	 */
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
 	/**
 	 * Skips the specified number of bits. This can be used to re-align the bit
 	 * stream.
@@ -107,14 +228,52 @@ public class BitShiftedInputStream extends FilterInputStream {
 	public void skipBits(int numberOfBits) throws IOException {
 		int bitsLeft = numberOfBits;
 		while (bitsLeft > 0) {
-			if (currentBitPosition > 7) {
-				currentValue = super.read();
-				currentBitPosition = 0;
+			int bitsToSkip = Math.min(bitsLeft, 32);
+			read(bitsToSkip);
+			bitsLeft -= bitsToSkip;
+		}
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Fills {@link #bits} with bytes from the buffer, refilling the buffer from
+	 * the underlying input stream if necessary, until it holds more than 56
+	 * bits or the underlying input stream is exhausted.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	private void fillBits() throws IOException {
+		while (bitCount <= 56) {
+			if (bufferPosition == bufferLimit) {
+				if (endOfStream) {
+					return;
+				}
+				int read = in.read(buffer, 0, buffer.length);
+				if (read == -1) {
+					endOfStream = true;
+					return;
+				}
+				bufferPosition = 0;
+				bufferLimit = read;
 			}
-			currentValue >>>= 1;
-			currentBitPosition++;
-			bitsLeft--;
+			bits |= (buffer[bufferPosition++] & 0xffL) << bitCount;
+			bitCount += 8;
 		}
 	}
 
+	/**
+	 * Returns a mask for the given number of lowest bits.
+	 *
+	 * @param numberOfBits
+	 *            The number of bits (0 to 32)
+	 * @return The mask
+	 */
+	private static long mask(int numberOfBits) {
+		return (1L << numberOfBits) - 1;
+	}
+
 }
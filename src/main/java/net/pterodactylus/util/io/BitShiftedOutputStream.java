@@ -21,8 +21,6 @@ import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
-import net.pterodactylus.util.number.Bits;
-
 /**
  * A bit-shifted output stream can write an (almost) arbitrary amount of bits
  * for a value given to {@link #write(int)}. Due to implementation reasons the
@@ -31,19 +29,33 @@ import net.pterodactylus.util.number.Bits;
  * {@link OutputStream#write(byte[], int, int)} methods because they will
  * truncate your value to the lowest eight bits which is of course only a
  * problem if you intend to write values larger than eight bits.
+ * <p>
+ * Values are collected in a 64-bit word and written to the underlying output
+ * stream in blocks; they are only guaranteed to have been written to the
+ * underlying output stream after {@link #flush()} or {@link #close()} has
+ * been called.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
 public class BitShiftedOutputStream extends FilterOutputStream {
 
+	/** The size of the write buffer. */
+	private static final int BUFFER_SIZE = 8192;
+
 	/** The number of bits to write for a value. */
 	private final int valueSize;
 
-	/** The current bit position. */
-	private int currentBitPosition;
+	/** The bytes that have not yet been written to the underlying stream. */
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	/** The number of valid bytes in {@link #buffer}. */
+	private int bufferPosition;
 
-	/** The current value. */
-	private int currentValue;
+	/** The bits that have not yet been stored in the buffer. */
+	private long bits;
+
+	/** The number of valid bits in {@link #bits}. */
+	private int bitCount;
 
 	/**
 	 * Creates a new bit-shifted output stream that writes
@@ -64,8 +76,6 @@ public class BitShiftedOutputStream extends FilterOutputStream {
 			throw new IllegalArgumentException("valueSize out of range [1-32]");
 		}
 		this.valueSize = valueSize;
-		this.currentBitPosition = 0;
-		this.currentValue = 0;
 	}
 
 	/**
@@ -75,19 +85,27 @@ public class BitShiftedOutputStream extends FilterOutputStream {
 	 */
 	@Override
 	public void write(int value) throws IOException {
-		int valueLeft = value;
-		int bitsLeft = valueSize;
-		while (bitsLeft > 0) {
-			int bitsToEncode = Math.min(8, Math.min(bitsLeft, 8 - currentBitPosition));
-			currentValue = Bits.encodeBits(currentValue, currentBitPosition, bitsToEncode, valueLeft);
-			valueLeft >>>= bitsToEncode;
-			currentBitPosition += bitsToEncode;
-			bitsLeft -= bitsToEncode;
-			if (currentBitPosition == 8) {
-				super.write(currentValue & 0xff);
-				currentBitPosition = 0;
-				currentValue = -1;
-			}
+		writeBits(value, valueSize);
+	}
+
+	/**
+	 * Writes the given number of values with the given number of bits each.
+	 *
+	 * @param values
+	 *            The values to write, starting at index {@code 0}
+	 * @param count
+	 *            The number of values to write
+	 * @param bitsEach
+	 *            The number of bits per value (1 to 32)
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public void write(int[] values, int count, int bitsEach) throws IOException {
+		if ((bitsEach < 1) || (bitsEach > 32)) {
+			throw new IllegalArgumentException("bitsEach out of range [1-32]");
+		}
+		for (int index = 0; index < count; index++) {
+			writeBits(values[index], bitsEach);
 		}
 	}
 
@@ -115,16 +133,12 @@ public class BitShiftedOutputStream extends FilterOutputStream {
 	 *             if an I/O error occurs
 	 */
 	public void writePadding(int numberOfBits, int fillBit) throws IOException {
+		int fill = ((fillBit & 0x01) != 0) ? -1 : 0;
 		int bitsLeft = numberOfBits;
 		while (bitsLeft > 0) {
-			currentValue = Bits.encodeBits(currentValue, currentBitPosition, 1, fillBit);
-			currentBitPosition++;
-			bitsLeft--;
-			if (currentBitPosition == 8) {
-				super.write(currentValue & 0xff);
-				currentBitPosition = 0;
-				currentValue = -1;
-			}
+			int bitsToWrite = Math.min(bitsLeft, 32);
+			writeBits(fill, bitsToWrite);
+			bitsLeft -= bitsToWrite;
 		}
 	}
 
@@ -152,15 +166,11 @@ public class BitShiftedOutputStream extends FilterOutputStream {
 	 *             if an I/O error occurs
 	 */
 	public void flush(int fillBit) throws IOException {
-		if (currentBitPosition != 0) {
-			currentValue &= (0xff >> (8 - currentBitPosition));
-			for (int bit = currentBitPosition; bit < 8; bit++) {
-				currentValue = Bits.encodeBits(currentValue, bit, 1, fillBit & 0x01);
-			}
-			currentBitPosition = 0;
-			super.write(currentValue);
-			currentValue = -1;
+		if ((bitCount % 8) != 0) {
+			writePadding(8 - (bitCount % 8), fillBit);
 		}
+		storeBytes();
+		writeBuffer();
 		super.flush();
 	}
 
@@ -175,4 +185,57 @@ public class BitShiftedOutputStream extends FilterOutputStream {
 		super.close();
 	}
 
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Appends the lowest bits of the given value to the pending bits.
+	 *
+	 * @param value
+	 *            The value to write
+	 * @param numberOfBits
+	 *            The number of bits to write (1 to 32)
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	private void writeBits(int value, int numberOfBits) throws IOException {
+		bits |= (value & ((1L << numberOfBits) - 1)) << bitCount;
+		bitCount += numberOfBits;
+		if (bitCount >= 32) {
+			storeBytes();
+		}
+	}
+
+	/**
+	 * Moves all complete bytes from the pending bits to the buffer, writing
+	 * the buffer to the underlying output stream when it is full.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	private void storeBytes() throws IOException {
+		while (bitCount >= 8) {
+			if (bufferPosition == buffer.length) {
+				writeBuffer();
+			}
+			buffer[bufferPosition++] = (byte) bits;
+			bits >>>= 8;
+			bitCount -= 8;
+		}
+	}
+
+	/**
+	 * Writes the buffer to the underlying output stream.
+	 *
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	private void writeBuffer() throws IOException {
+		if (bufferPosition > 0) {
+			out.write(buffer, 0, bufferPosition);
+			bufferPosition = 0;
+		}
+	}
+
 }
@@ -18,14 +18,35 @@
 package net.pterodactylus.util.io;
 
 import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.EventListener;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Helper class that copies bytes from an {@link InputStream} to an
- * {@link OutputStream}.
+ * {@link OutputStream}, or from a {@link ReadableByteChannel} to a
+ * {@link WritableByteChannel}.
+ * <p>
+ * If one side of a copy operation is a file, the bytes are transferred using
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} or
+ * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)} which
+ * allows the operating system to copy the bytes without moving them through
+ * the Java heap. Otherwise buffers of the default size are taken from a small
+ * pool instead of being allocated for every copy operation.
+ * <p>
+ * {@link ProgressListener}s are notified at most every
+ * {@link #PROGRESS_INTERVAL} milliseconds, and once more when the copy
+ * operation has finished.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
@@ -34,11 +55,27 @@ public class StreamCopier {
 	/** Default buffer size is 64k. */
 	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
 
+	/** The maximum number of bytes per channel transfer is 8m. */
+	private static final long TRANSFER_SIZE = 1 << 23;
+
+	/** The minimum time between two progress notifications (in milliseconds). */
+	public static final long PROGRESS_INTERVAL = 100;
+
+	/** The maximum number of pooled buffers of each kind. */
+	private static final int MAXIMUM_POOLED_BUFFERS = 16;
+
+	/** The pooled heap buffers. */
+	private static final Queue<byte[]> heapBuffers = new ConcurrentLinkedQueue<byte[]>();
+
+	/** The pooled direct buffers. */
+	private static final Queue<ByteBuffer> directBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
 	/** The current buffer size. */
-	private static int bufferSize = DEFAULT_BUFFER_SIZE;
+	private static volatile int bufferSize = DEFAULT_BUFFER_SIZE;
 
 	/**
-	 * Sets the buffer size for following transfers.
+	 * Sets the buffer size for following transfers that do not specify a
+	 * buffer size.
 	 *
 	 * @param bufferSize
 	 *            The new buffer size
@@ -52,7 +89,9 @@ public class StreamCopier {
 	 * destination output stream. If <code>length</code> is <code>-1</code> as
 	 * much bytes as possible will be copied (i.e. until
 	 * {@link InputStream#read()} returns <code>-1</code> to signal the end of
-	 * the stream).
+	 * the stream). If the source is a {@link FileInputStream} or the
+	 * destination is a {@link FileOutputStream}, their {@link FileChannel}s
+	 * are used for the transfer.
 	 *
 	 * @param source
 	 *            The input stream to read from
@@ -63,34 +102,70 @@ public class StreamCopier {
 	 *            {@code null})
 	 * @param length
 	 *            The number of bytes to copy
+	 * @param bufferSize
+	 *            The size of the buffer to use
 	 * @return The number of bytes that have been read from the input stream and
 	 *         written to the output stream
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
-	public static long copy(InputStream source, OutputStream destination, ProgressListener progressListener, long length) throws IOException {
-		long remaining = length;
-		byte[] buffer = new byte[bufferSize];
-		long total = 0;
-		int read = 0;
-		while ((remaining == -1) || (remaining > 0)) {
-			read = source.read(buffer, 0, ((remaining > bufferSize) || (remaining == -1)) ? bufferSize : (int) remaining);
-			if (read == -1) {
-				if (length == -1) {
-					return total;
+	public static long copy(InputStream source, OutputStream destination, ProgressListener progressListener, long length, int bufferSize) throws IOException {
+		if ((source instanceof FileInputStream) || (destination instanceof FileOutputStream)) {
+			ReadableByteChannel sourceChannel = (source instanceof FileInputStream) ? ((FileInputStream) source).getChannel() : Channels.newChannel(source);
+			WritableByteChannel destinationChannel = (destination instanceof FileOutputStream) ? ((FileOutputStream) destination).getChannel() : Channels.newChannel(destination);
+			return copy(sourceChannel, destinationChannel, progressListener, length, bufferSize);
+		}
+		Progress progress = new Progress(progressListener, length);
+		byte[] buffer = acquireHeapBuffer(bufferSize);
+		try {
+			long remaining = length;
+			long total = 0;
+			int read = 0;
+			while ((remaining == -1) || (remaining > 0)) {
+				read = source.read(buffer, 0, ((remaining > buffer.length) || (remaining == -1)) ? buffer.length : (int) remaining);
+				if (read == -1) {
+					if (length == -1) {
+						break;
+					}
+					throw new EOFException("stream reached eof");
 				}
-				throw new EOFException("stream reached eof");
-			}
-			destination.write(buffer, 0, read);
-			if (remaining > -1) {
-				remaining -= read;
-			}
-			total += read;
-			if (progressListener != null) {
-				progressListener.onProgress(length - remaining, length);
+				destination.write(buffer, 0, read);
+				if (remaining > -1) {
+					remaining -= read;
+				}
+				total += read;
+				progress.update(total);
 			}
+			progress.finish(total);
+			return total;
+		} finally {
+			releaseHeapBuffer(buffer);
 		}
-		return total;
+	}
+
+	/**
+	 * Copies <code>length</code> bytes from the source input stream to the
+	 * destination output stream. If <code>length</code> is <code>-1</code> as
+	 * much bytes as possible will be copied (i.e. until
+	 * {@link InputStream#read()} returns <code>-1</code> to signal the end of
+	 * the stream).
+	 *
+	 * @param source
+	 *            The input stream to read from
+	 * @param destination
+	 *            The output stream to write to
+	 * @param progressListener
+	 *            A progress listener that is notified during copying (may be
+	 *            {@code null})
+	 * @param length
+	 *            The number of bytes to copy
+	 * @return The number of bytes that have been read from the input stream and
+	 *         written to the output stream
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static long copy(InputStream source, OutputStream destination, ProgressListener progressListener, long length) throws IOException {
+		return copy(source, destination, progressListener, length, bufferSize);
 	}
 
 	/**
@@ -154,6 +229,64 @@ public class StreamCopier {
 		return copy(source, destination, -1);
 	}
 
+	/**
+	 * Copies <code>length</code> bytes from the source channel to the
+	 * destination channel. If <code>length</code> is <code>-1</code> as much
+	 * bytes as possible will be copied. If either channel is a
+	 * {@link FileChannel}, the bytes are transferred directly between the
+	 * channels, starting at (and advancing) the current position of the file
+	 * channel; otherwise, and for bytes the file channel can not transfer
+	 * (e.g. because it is not a regular file), a pooled direct buffer is
+	 * used.
+	 *
+	 * @param source
+	 *            The channel to read from
+	 * @param destination
+	 *            The channel to write to
+	 * @param progressListener
+	 *            A progress listener that is notified during copying (may be
+	 *            {@code null})
+	 * @param length
+	 *            The number of bytes to copy
+	 * @param bufferSize
+	 *            The size of the buffer to use for bytes that are not
+	 *            transferred directly between the channels
+	 * @return The number of bytes that have been copied
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static long copy(ReadableByteChannel source, WritableByteChannel destination, ProgressListener progressListener, long length, int bufferSize) throws IOException {
+		Progress progress = new Progress(progressListener, length);
+		long total;
+		if (source instanceof FileChannel) {
+			total = transferTo((FileChannel) source, destination, progress, length, bufferSize);
+		} else if (destination instanceof FileChannel) {
+			total = transferFrom(source, (FileChannel) destination, progress, length, bufferSize);
+		} else {
+			total = copyBuffered(source, destination, progress, 0, length, bufferSize);
+		}
+		progress.finish(total);
+		return total;
+	}
+
+	/**
+	 * Copies as many bytes as possible from the source channel to the
+	 * destination channel.
+	 *
+	 * @see #copy(ReadableByteChannel, WritableByteChannel, ProgressListener,
+	 *      long, int)
+	 * @param source
+	 *            The channel to read from
+	 * @param destination
+	 *            The channel to write to
+	 * @return The number of bytes that have been copied
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	public static long copy(ReadableByteChannel source, WritableByteChannel destination) throws IOException {
+		return copy(source, destination, null, -1, bufferSize);
+	}
+
 	/**
 	 * Finds the length of the input stream by reading until
 	 * {@link InputStream#read(byte[])} returns <code>-1</code>.
@@ -166,15 +299,292 @@ public class StreamCopier {
 	 */
 	public static long findLength(InputStream source) throws IOException {
 		long length = 0;
-		byte[] buffer = new byte[bufferSize];
-		int read = 0;
-		while (read != -1) {
-			read = source.read(buffer);
-			if (read != -1) {
-				length += read;
+		byte[] buffer = acquireHeapBuffer(bufferSize);
+		try {
+			int read = 0;
+			while (read != -1) {
+				read = source.read(buffer);
+				if (read != -1) {
+					length += read;
+				}
+			}
+			return length;
+		} finally {
+			releaseHeapBuffer(buffer);
+		}
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Transfers bytes from the given file channel to the given channel. Only
+	 * the bytes the file reports to have are transferred directly; anything
+	 * beyond that (e.g. the contents of a FIFO, a character device, or a file
+	 * in {@code /proc}, all of which report a size of {@code 0}) is copied
+	 * using a buffer.
+	 *
+	 * @param source
+	 *            The file channel to read from
+	 * @param destination
+	 *            The channel to write to
+	 * @param progress
+	 *            The progress of the copy operation
+	 * @param length
+	 *            The number of bytes to copy, or {@code -1} to copy until the
+	 *            end of the file
+	 * @param bufferSize
+	 *            The size of the buffer to use for the bytes that can not be
+	 *            transferred directly
+	 * @return The number of bytes that have been copied
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	private static long transferTo(FileChannel source, WritableByteChannel destination, Progress progress, long length, int bufferSize) throws IOException {
+		long position = source.position();
+		long transferable = Math.max(0, source.size() - position);
+		if (length != -1) {
+			transferable = Math.min(transferable, length);
+		}
+		long total = 0;
+		try {
+			while (total < transferable) {
+				long transferred = source.transferTo(position + total, Math.min(transferable - total, TRANSFER_SIZE), destination);
+				if (transferred <= 0) {
+					break;
+				}
+				total += transferred;
+				progress.update(total);
+			}
+		} finally {
+			source.position(position + total);
+		}
+		if ((length == -1) || (total < length)) {
+			total += copyBuffered(source, destination, progress, total, (length == -1) ? -1 : (length - total), bufferSize);
+		}
+		return total;
+	}
+
+	/**
+	 * Transfers bytes from the given channel to the given file channel. Once
+	 * the file channel stops accepting bytes before the copy is complete
+	 * (e.g. because it is not a regular file), the remaining bytes are copied
+	 * using a buffer.
+	 *
+	 * @param source
+	 *            The channel to read from
+	 * @param destination
+	 *            The file channel to write to
+	 * @param progress
+	 *            The progress of the copy operation
+	 * @param length
+	 *            The number of bytes to copy, or {@code -1} to copy until the
+	 *            end of the source channel
+	 * @param bufferSize
+	 *            The size of the buffer to use for the bytes that can not be
+	 *            transferred directly
+	 * @return The number of bytes that have been copied
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	private static long transferFrom(ReadableByteChannel source, FileChannel destination, Progress progress, long length, int bufferSize) throws IOException {
+		long position = destination.position();
+		long total = 0;
+		try {
+			while ((length == -1) || (total < length)) {
+				long transferred = destination.transferFrom(source, position + total, (length == -1) ? TRANSFER_SIZE : Math.min(length - total, TRANSFER_SIZE));
+				if (transferred <= 0) {
+					break;
+				}
+				total += transferred;
+				progress.update(total);
+			}
+		} finally {
+			destination.position(position + total);
+		}
+		if ((length == -1) || (total < length)) {
+			total += copyBuffered(source, destination, progress, total, (length == -1) ? -1 : (length - total), bufferSize);
+		}
+		return total;
+	}
+
+	/**
+	 * Copies bytes from the given channel to the given channel using a
+	 * buffer.
+	 *
+	 * @param source
+	 *            The channel to read from
+	 * @param destination
+	 *            The channel to write to
+	 * @param progress
+	 *            The progress of the copy operation
+	 * @param copied
+	 *            The number of bytes that have already been copied in this
+	 *            copy operation
+	 * @param length
+	 *            The number of bytes to copy, or {@code -1} to copy until the
+	 *            end of the source channel
+	 * @param bufferSize
+	 *            The size of the buffer
+	 * @return The number of bytes that have been copied by this method
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	private static long copyBuffered(ReadableByteChannel source, WritableByteChannel destination, Progress progress, long copied, long length, int bufferSize) throws IOException {
+		ByteBuffer buffer = acquireDirectBuffer(bufferSize);
+		try {
+			long total = 0;
+			while ((length == -1) || (total < length)) {
+				buffer.clear();
+				if ((length != -1) && ((length - total) < buffer.capacity())) {
+					buffer.limit((int) (length - total));
+				}
+				int read = source.read(buffer);
+				if (read == -1) {
+					if (length == -1) {
+						break;
+					}
+					throw new EOFException("stream reached eof");
+				}
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					destination.write(buffer);
+				}
+				total += read;
+				progress.update(copied + total);
+			}
+			return total;
+		} finally {
+			releaseDirectBuffer(buffer);
+		}
+	}
+
+	/**
+	 * Returns a heap buffer of the given size, taking it from the pool if
+	 * possible.
+	 *
+	 * @param size
+	 *            The size of the buffer
+	 * @return The buffer
+	 */
+	private static byte[] acquireHeapBuffer(int size) {
+		if (size == DEFAULT_BUFFER_SIZE) {
+			byte[] buffer = heapBuffers.poll();
+			if (buffer != null) {
+				return buffer;
 			}
 		}
-		return length;
+		return new byte[size];
+	}
+
+	/**
+	 * Returns the given heap buffer to the pool.
+	 *
+	 * @param buffer
+	 *            The buffer to return
+	 */
+	private static void releaseHeapBuffer(byte[] buffer) {
+		if ((buffer.length == DEFAULT_BUFFER_SIZE) && (heapBuffers.size() < MAXIMUM_POOLED_BUFFERS)) {
+			heapBuffers.offer(buffer);
+		}
+	}
+
+	/**
+	 * Returns a buffer of the given size. Buffers of the default size are
+	 * direct buffers taken from the pool; buffers of other sizes are
+	 * allocated on the heap.
+	 *
+	 * @param size
+	 *            The size of the buffer
+	 * @return The buffer
+	 */
+	private static ByteBuffer acquireDirectBuffer(int size) {
+		if (size == DEFAULT_BUFFER_SIZE) {
+			ByteBuffer buffer = directBuffers.poll();
+			return (buffer != null) ? buffer : ByteBuffer.allocateDirect(size);
+		}
+		return ByteBuffer.allocate(size);
+	}
+
+	/**
+	 * Returns the given buffer to the pool if it is a direct buffer.
+	 *
+	 * @param buffer
+	 *            The buffer to return
+	 */
+	private static void releaseDirectBuffer(ByteBuffer buffer) {
+		if (buffer.isDirect() && (directBuffers.size() < MAXIMUM_POOLED_BUFFERS)) {
+			directBuffers.offer(buffer);
+		}
+	}
+
+	/**
+	 * Notifies a {@link ProgressListener} about the progress of a copy
+	 * operation, at most every {@link StreamCopier#PROGRESS_INTERVAL}
+	 * milliseconds.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class Progress {
+
+		/** The progress listener, may be {@code null}. */
+		private final ProgressListener progressListener;
+
+		/** The number of bytes to copy. */
+		private final long length;
+
+		/** The time of the last notification. */
+		private long lastNotification;
+
+		/** The number of copied bytes at the last notification. */
+		private long lastCopied = -1;
+
+		/**
+		 * Creates a new progress.
+		 *
+		 * @param progressListener
+		 *            The progress listener to notify (may be {@code null})
+		 * @param length
+		 *            The number of bytes to copy
+		 */
+		public Progress(ProgressListener progressListener, long length) {
+			this.progressListener = progressListener;
+			this.length = length;
+		}
+
+		/**
+		 * Notifies the listener if the last notification is long enough ago.
+		 *
+		 * @param copied
+		 *            The number of bytes that have been copied
+		 */
+		public void update(long copied) {
+			if (progressListener == null) {
+				return;
+			}
+			long now = System.currentTimeMillis();
+			if ((now - lastNotification) >= PROGRESS_INTERVAL) {
+				lastNotification = now;
+				lastCopied = copied;
+				progressListener.onProgress(copied, length);
+			}
+		}
+
+		/**
+		 * Notifies the listener about the final progress, unless it has
+		 * already been notified about it.
+		 *
+		 * @param copied
+		 *            The number of bytes that have been copied
+		 */
+		public void finish(long copied) {
+			if ((progressListener != null) && (copied != lastCopied)) {
+				lastCopied = copied;
+				progressListener.onProgress(copied, length);
+			}
+		}
+
 	}
 
 	/**
@@ -17,6 +17,7 @@
 
 package net.pterodactylus.util.io;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -24,125 +25,390 @@ import java.io.FileOutputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
 
 /**
- * An input stream implementation that copies a given input stream to a
- * temporary file and delivers the content of the temporary file at a later
- * time.
+ * An input stream implementation that copies a given input stream and
+ * delivers the copied content at a later time.
+ * <p>
+ * Content up to a configurable threshold is kept in memory; only larger
+ * content is written to a temporary file, which is then mapped into memory.
+ * Additional streams for the same content can be created with
+ * {@link #reopen()}; all of them share the same copy of the content, and the
+ * temporary file (if any) is deleted once the last of them has been closed.
+ * <p>
+ * The temporary file is only deleted when all streams are closed; if a stream
+ * is not closed, the file stays on disk even after the JVM exits. The mapping
+ * of the temporary file is never unmapped explicitly; it is released when the
+ * mapped buffer is garbage collected, so the disk space of a deleted file
+ * may only be freed at that time (and on some platforms the file can not be
+ * deleted at all while it is mapped).
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
 public class TemporaryInputStream extends FilterInputStream {
 
+	/** The default threshold is 1 MiB. */
+	public static final int DEFAULT_THRESHOLD = 1 << 20;
+
+	/** The largest array that can safely be allocated. */
+	private static final int MAXIMUM_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	/** The shared content. */
+	private final Content content;
+
+	/** Whether this stream has been closed. */
+	private boolean closed;
+
 	/**
-	 * Maps input streams to temporary files, for deletion on {@link #close()}.
+	 * Creates a new temporary input stream that keeps up to
+	 * {@link #DEFAULT_THRESHOLD} bytes in memory.
+	 *
+	 * @param sourceInputStream
+	 *            The input stream to copy
+	 * @throws IOException
+	 *             if an I/O error occurs
 	 */
-	private static final Map<InputStream, File> streamFiles = new HashMap<InputStream, File>();
-
-	/** Counter for streams per file. */
-	private static final Map<File, Integer> fileCounts = new HashMap<File, Integer>();
+	public TemporaryInputStream(InputStream sourceInputStream) throws IOException {
+		this(sourceInputStream, DEFAULT_THRESHOLD);
+	}
 
 	/**
 	 * Creates a new temporary input stream.
 	 *
 	 * @param sourceInputStream
-	 *            The input stream to copy to a temporary file
+	 *            The input stream to copy
+	 * @param threshold
+	 *            The maximum number of bytes to keep in memory; if the input
+	 *            stream contains more bytes, it is copied to a temporary file.
+	 *            Thresholds larger than the largest possible array are
+	 *            treated as the size of that array.
+	 * @throws IllegalArgumentException
+	 *             if {@code threshold} is negative
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
-	public TemporaryInputStream(InputStream sourceInputStream) throws IOException {
-		super(createFileInputStream(sourceInputStream));
+	public TemporaryInputStream(InputStream sourceInputStream, int threshold) throws IOException {
+		this(createContent(sourceInputStream, validateThreshold(threshold)));
+	}
+
+	/**
+	 * Creates a new temporary input stream for the given content. The content
+	 * has to be {@link Content#acquire() acquired} for the new stream already.
+	 *
+	 * @param content
+	 *            The content to deliver
+	 * @throws IOException
+	 *             if an I/O error occurs
+	 */
+	private TemporaryInputStream(Content content) throws IOException {
+		super(content.openStream());
+		this.content = content;
 	}
 
+	//
+	// ACCESSORS
+	//
+
 	/**
-	 * Creates a new temporary input stream from the given temporary file.
+	 * Returns whether the content of this stream is kept in memory.
 	 *
-	 * @param tempFile
-	 *            The temporary file
-	 * @throws FileNotFoundException
-	 *             if the file can not be found
+	 * @return {@code true} if the content is kept in memory, {@code false} if
+	 *         it has been written to a temporary file
 	 */
-	private TemporaryInputStream(File tempFile) throws FileNotFoundException {
-		super(new FileInputStream(tempFile));
+	public boolean isInMemory() {
+		return content.isInMemory();
 	}
 
+	//
+	// ACTIONS
+	//
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public void close() throws IOException {
 		super.close();
-		synchronized (fileCounts) {
-			File tempFile = streamFiles.remove(in);
-			if (tempFile != null) {
-				if (fileCounts.get(tempFile) > 0) {
-					fileCounts.put(tempFile, fileCounts.get(tempFile) - 1);
-				} else {
-					fileCounts.remove(tempFile);
-					tempFile.delete();
-				}
+		synchronized (this) {
+			if (closed) {
+				return;
 			}
+			closed = true;
 		}
+		content.release();
 	}
 
 	/**
-	 * Creates a new input stream from the temporary file that is backing this
-	 * input stream. If the file has already been removed, this method will
-	 * throw an exception.
+	 * Creates a new input stream that delivers the same content as this input
+	 * stream, from the start. This method can be called from several threads
+	 * at the same time. If all streams for the content have been closed, this
+	 * method will throw an exception.
 	 *
 	 * @return A new input stream
 	 * @throws IOException
 	 *             if an I/O error occurs
 	 */
 	public InputStream reopen() throws IOException {
-		synchronized (fileCounts) {
-			File tempFile = streamFiles.get(in);
-			if (tempFile != null) {
-				fileCounts.put(tempFile, fileCounts.get(tempFile) + 1);
-				return new TemporaryInputStream(tempFile);
-			}
-			throw new FileNotFoundException("Temporary file has already disappeared.");
+		if (!content.acquire()) {
+			throw new FileNotFoundException("Temporary content has already disappeared.");
 		}
+		try {
+			return new TemporaryInputStream(content);
+		} catch (IOException ioe1) {
+			content.release();
+			throw ioe1;
+		}
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Verifies that the given threshold is not negative.
+	 *
+	 * @param threshold
+	 *            The threshold to verify
+	 * @return The threshold
+	 * @throws IllegalArgumentException
+	 *             if {@code threshold} is negative
+	 */
+	private static int validateThreshold(int threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("threshold must not be negative");
+		}
+		return threshold;
 	}
 
 	/**
-	 * Creates a temporary file, copies the given input stream to the temporary
-	 * file, and creates an input stream reading from the temporary file. The
-	 * returned input stream will delete the temporary file when its
-	 * {@link #close()} method is called.
+	 * Copies the given input stream into memory, or into a temporary file if
+	 * it contains more than the given number of bytes.
 	 *
 	 * @param sourceInputStream
 	 *            The input stream to copy
-	 * @return The copied input stream, ready for consumption
+	 * @param threshold
+	 *            The maximum number of bytes to keep in memory
+	 * @return The copied content
 	 * @throws IOException
+	 *             if an I/O error occurs
 	 */
-	private static InputStream createFileInputStream(InputStream sourceInputStream) throws IOException {
+	private static Content createContent(InputStream sourceInputStream, int threshold) throws IOException {
+		int bufferLimit = (int) Math.min(threshold + 1L, MAXIMUM_ARRAY_SIZE);
+		byte[] buffer = new byte[Math.min(bufferLimit, 8192)];
+		int length = 0;
+		while (length < bufferLimit) {
+			if (length == buffer.length) {
+				buffer = Arrays.copyOf(buffer, (int) Math.min(bufferLimit, buffer.length * 2L));
+			}
+			int read = sourceInputStream.read(buffer, length, buffer.length - length);
+			if (read == -1) {
+				return new Content((length == buffer.length) ? buffer : Arrays.copyOf(buffer, length));
+			}
+			length += read;
+		}
 		File tempFile = File.createTempFile("utils-temp-", ".tmp");
-		tempFile.deleteOnExit();
 		FileOutputStream fileOutputStream = null;
 		try {
 			fileOutputStream = new FileOutputStream(tempFile);
+			fileOutputStream.write(buffer, 0, length);
 			StreamCopier.copy(sourceInputStream, fileOutputStream);
+			fileOutputStream.close();
+			return new Content(tempFile);
 		} catch (IOException ioe1) {
-			throw ioe1;
-		} finally {
 			Closer.close(fileOutputStream);
-		}
-		FileInputStream fileInputStream = null;
-		try {
-			fileInputStream = new FileInputStream(tempFile);
-			streamFiles.put(fileInputStream, tempFile);
-			synchronized (fileCounts) {
-				fileCounts.put(tempFile, 0);
-			}
-			return fileInputStream;
-		} catch (IOException ioe1) {
-			Closer.close(fileInputStream);
 			tempFile.delete();
 			throw ioe1;
 		}
 	}
 
+	/**
+	 * The content that is shared by all streams created from the same source
+	 * input stream. The content counts the streams that use it and deletes
+	 * the temporary file once the last stream has released it.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class Content {
+
+		/** The content, if it is kept in memory. */
+		private final byte[] data;
+
+		/** The temporary file, if the content is not kept in memory. */
+		private final File file;
+
+		/** The mapped temporary file, if it could be mapped. */
+		private final ByteBuffer mappedFile;
+
+		/** The number of streams using this content. */
+		private int references = 1;
+
+		/**
+		 * Creates new content that is kept in memory.
+		 *
+		 * @param data
+		 *            The content
+		 */
+		public Content(byte[] data) {
+			this.data = data;
+			this.file = null;
+			this.mappedFile = null;
+		}
+
+		/**
+		 * Creates new content that is stored in the given temporary file.
+		 *
+		 * @param file
+		 *            The temporary file
+		 * @throws IOException
+		 *             if the file can not be mapped
+		 */
+		public Content(File file) throws IOException {
+			this.data = null;
+			this.file = file;
+			this.mappedFile = map(file);
+		}
+
+		/**
+		 * Returns whether the content is kept in memory.
+		 *
+		 * @return {@code true} if the content is kept in memory, {@code false}
+		 *         otherwise
+		 */
+		public boolean isInMemory() {
+			return data != null;
+		}
+
+		/**
+		 * Opens a new stream that delivers the content.
+		 *
+		 * @return A new stream for the content
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		public InputStream openStream() throws IOException {
+			if (data != null) {
+				return new ByteArrayInputStream(data);
+			}
+			if (mappedFile != null) {
+				return new ByteBufferInputStream(mappedFile.duplicate());
+			}
+			return new FileInputStream(file);
+		}
+
+		/**
+		 * Adds a stream to the streams using this content.
+		 *
+		 * @return {@code true} if the content is still available,
+		 *         {@code false} if it has already been released by all streams
+		 */
+		public synchronized boolean acquire() {
+			if (references == 0) {
+				return false;
+			}
+			references++;
+			return true;
+		}
+
+		/**
+		 * Removes a stream from the streams using this content, deleting the
+		 * temporary file if it was the last stream.
+		 */
+		public synchronized void release() {
+			if ((--references == 0) && (file != null)) {
+				file.delete();
+			}
+		}
+
+		/**
+		 * Maps the given file into memory.
+		 *
+		 * @param file
+		 *            The file to map
+		 * @return The mapped file, or {@code null} if the file is too large to
+		 *         be mapped
+		 * @throws IOException
+		 *             if an I/O error occurs
+		 */
+		private static ByteBuffer map(File file) throws IOException {
+			if (file.length() > Integer.MAX_VALUE) {
+				return null;
+			}
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+			try {
+				return randomAccessFile.getChannel().map(MapMode.READ_ONLY, 0, file.length());
+			} finally {
+				Closer.close(randomAccessFile);
+			}
+		}
+
+	}
+
+	/**
+	 * Input stream that reads from a {@link ByteBuffer}.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class ByteBufferInputStream extends InputStream {
+
+		/** The buffer to read from. */
+		private final ByteBuffer buffer;
+
+		/**
+		 * Creates a new input stream reading from the given buffer.
+		 *
+		 * @param buffer
+		 *            The buffer to read from
+		 */
+		public ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? (buffer.get() & 0xff) : -1;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (length == 0) {
+				return 0;
+			}
+			if (!buffer.hasRemaining()) {
+				return -1;
+			}
+			int read = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, read);
+			return read;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public long skip(long count) {
+			int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+			buffer.position(buffer.position() + skipped);
+			return skipped;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+
+	}
+
 }
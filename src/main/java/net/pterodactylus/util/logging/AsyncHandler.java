@@ -0,0 +1,559 @@
+/*
+ * utils - AsyncHandler.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.logging;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * {@link Handler} that forwards log records to other handlers on a background
+ * thread. Records are put into a bounded ring buffer that can be written by
+ * any number of threads without locking; the background thread takes them
+ * out in batches, publishes them to all target handlers, and flushes the
+ * target handlers once per batch. Logging threads are therefore never blocked
+ * by slow handlers or {@link LoggingListener}s, unless the buffer is full.
+ * <p>
+ * What happens when the buffer is full is determined by the
+ * {@link OverflowPolicy}. Records at or above the drop level are never
+ * dropped; the logging thread waits until there is room for them. Dropped
+ * records are counted, and the number of dropped records is reported to the
+ * target handlers in a warning record. Records that are logged by the target
+ * handlers themselves, i.e. on the background thread, and records that are
+ * logged after the background thread has died are dropped instead of waiting
+ * for room in a full buffer.
+ * <p>
+ * The source class and method of a record are determined before it is put
+ * into the buffer; the parameters of a record are only formatted by the
+ * target handlers, so they should not be modified after they have been
+ * logged. A {@link LogFormatter} used by a target handler reports the name of
+ * the thread that logged a record, not the name of the background thread.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class AsyncHandler extends Handler {
+
+	/**
+	 * What to do with a record when the buffer is full.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	public enum OverflowPolicy {
+
+		/** Wait until there is room in the buffer. */
+		BLOCK,
+
+		/** Drop records below the drop level. */
+		DROP,
+
+		/**
+		 * Drop records below the drop level, except for one out of every
+		 * sample rate records.
+		 */
+		SAMPLE
+
+	}
+
+	/** The default capacity of the buffer. */
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	/** The maximum number of records that are published in one batch. */
+	private static final int BATCH_SIZE = 256;
+
+	/** The maximum time the background thread waits for records (in ns). */
+	private static final long MAXIMUM_WAIT_TIME = TimeUnit.MILLISECONDS.toNanos(100);
+
+	/** The time a logging thread waits for room in the buffer (in ns). */
+	private static final long OVERFLOW_WAIT_TIME = TimeUnit.MICROSECONDS.toNanos(100);
+
+	/** The maximum number of remembered thread names. */
+	private static final int MAXIMUM_THREAD_NAMES = 4096;
+
+	/** The names of the threads that logged records, by log record thread ID. */
+	private static final ConcurrentMap<Integer, String> threadNames = new ConcurrentHashMap<Integer, String>();
+
+	/** The ring buffer. */
+	private final RingBuffer ringBuffer;
+
+	/** The target handlers. */
+	private final Handler[] targetHandlers;
+
+	/** The overflow policy. */
+	private final OverflowPolicy overflowPolicy;
+
+	/** The level below which records may be dropped. */
+	private volatile Level dropLevel = Level.WARNING;
+
+	/** Keep one out of this many records with {@link OverflowPolicy#SAMPLE}. */
+	private volatile int sampleRate = 100;
+
+	/** The number of overflowing records, for sampling. */
+	private final AtomicLong overflowCounter = new AtomicLong();
+
+	/** The number of dropped records. */
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	/** The number of dropped records, by level. */
+	private final ConcurrentMap<Level, AtomicLong> droppedCounts = new ConcurrentHashMap<Level, AtomicLong>();
+
+	/** The number of dropped records that have already been reported. */
+	private long reportedDroppedCount;
+
+	/**
+	 * The number of records that have been taken from the ring buffer and
+	 * published to the target handlers. Only written by the background
+	 * thread.
+	 */
+	private final AtomicLong publishedCount = new AtomicLong();
+
+	/** The background thread. */
+	private final DrainThread drainThread;
+
+	/** Whether the background thread is waiting for records. */
+	private volatile boolean drainThreadWaiting;
+
+	/** Whether this handler has been closed. */
+	private volatile boolean closed;
+
+	/**
+	 * Creates a new asynchronous handler with the default capacity that
+	 * blocks when the buffer is full.
+	 *
+	 * @param targetHandlers
+	 *            The handlers to publish records to
+	 */
+	public AsyncHandler(Handler... targetHandlers) {
+		this(DEFAULT_CAPACITY, OverflowPolicy.BLOCK, targetHandlers);
+	}
+
+	/**
+	 * Creates a new asynchronous handler.
+	 *
+	 * @param capacity
+	 *            The capacity of the buffer (will be rounded up to the next
+	 *            power of two)
+	 * @param overflowPolicy
+	 *            The policy for records that do not fit into the buffer
+	 * @param targetHandlers
+	 *            The handlers to publish records to
+	 */
+	public AsyncHandler(int capacity, OverflowPolicy overflowPolicy, Handler... targetHandlers) {
+		this.ringBuffer = new RingBuffer(capacity);
+		this.overflowPolicy = overflowPolicy;
+		this.targetHandlers = targetHandlers.clone();
+		setLevel(Level.ALL);
+		drainThread = new DrainThread();
+		drainThread.start();
+	}
+
+	//
+	// ACCESSORS
+	//
+
+	/**
+	 * Returns the level below which records may be dropped.
+	 *
+	 * @return The drop level
+	 */
+	public Level getDropLevel() {
+		return dropLevel;
+	}
+
+	/**
+	 * Sets the level below which records may be dropped if the buffer is full.
+	 * The default level is {@link Level#WARNING}.
+	 *
+	 * @param dropLevel
+	 *            The drop level
+	 */
+	public void setDropLevel(Level dropLevel) {
+		this.dropLevel = dropLevel;
+	}
+
+	/**
+	 * Sets the sample rate for {@link OverflowPolicy#SAMPLE}. The default
+	 * sample rate is {@code 100}.
+	 *
+	 * @param sampleRate
+	 *            Keep one out of this many records when the buffer is full
+	 */
+	public void setSampleRate(int sampleRate) {
+		this.sampleRate = Math.max(1, sampleRate);
+	}
+
+	/**
+	 * Returns the number of records that are waiting to be published.
+	 *
+	 * @return The number of waiting records
+	 */
+	public int getQueuedCount() {
+		return ringBuffer.size();
+	}
+
+	/**
+	 * Returns the number of dropped records.
+	 *
+	 * @return The number of dropped records
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+
+	/**
+	 * Returns the number of dropped records of the given level.
+	 *
+	 * @param level
+	 *            The level of the records
+	 * @return The number of dropped records of the given level
+	 */
+	public long getDroppedCount(Level level) {
+		AtomicLong levelDroppedCount = droppedCounts.get(level);
+		return (levelDroppedCount == null) ? 0 : levelDroppedCount.get();
+	}
+
+	//
+	// HANDLER METHODS
+	//
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void publish(LogRecord record) {
+		if (closed || !isLoggable(record)) {
+			return;
+		}
+		/* infer the caller while we are still on the logging thread. */
+		record.getSourceClassName();
+		String threadName = Thread.currentThread().getName();
+		if (!threadName.equals(threadNames.get(record.getThreadID()))) {
+			if (threadNames.size() >= MAXIMUM_THREAD_NAMES) {
+				threadNames.clear();
+			}
+			threadNames.put(record.getThreadID(), threadName);
+		}
+		boolean mayDrop = (overflowPolicy != OverflowPolicy.BLOCK) && (record.getLevel().intValue() < dropLevel.intValue());
+		boolean sampled = false;
+		while (!ringBuffer.offer(record)) {
+			if ((Thread.currentThread() == drainThread) || !drainThread.isAlive()) {
+				/* nobody is going to make room in the buffer. */
+				drop(record);
+				return;
+			}
+			if (mayDrop && !sampled) {
+				if ((overflowPolicy == OverflowPolicy.DROP) || ((overflowCounter.incrementAndGet() % sampleRate) != 0)) {
+					drop(record);
+					return;
+				}
+				sampled = true;
+			}
+			if (closed) {
+				drop(record);
+				return;
+			}
+			wakeDrainThread();
+			LockSupport.parkNanos(this, OVERFLOW_WAIT_TIME);
+		}
+		wakeDrainThread();
+	}
+
+	/**
+	 * Waits until all records that have been published before this method was
+	 * called have been published to the target handlers, and flushes the
+	 * target handlers.
+	 */
+	@Override
+	public void flush() {
+		long position = ringBuffer.getTail();
+		while (!closed && (Thread.currentThread() != drainThread) && drainThread.isAlive() && (publishedCount.get() < position)) {
+			wakeDrainThread();
+			LockSupport.parkNanos(this, OVERFLOW_WAIT_TIME);
+		}
+		flushTargets();
+	}
+
+	/**
+	 * Publishes all remaining records, stops the background thread, and closes
+	 * all target handlers.
+	 */
+	@Override
+	public void close() throws SecurityException {
+		closed = true;
+		LockSupport.unpark(drainThread);
+		boolean interrupted = false;
+		while (drainThread.isAlive()) {
+			try {
+				drainThread.join();
+			} catch (InterruptedException ie1) {
+				interrupted = true;
+			}
+		}
+		for (Handler targetHandler : targetHandlers) {
+			targetHandler.close();
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	//
+	// PACKAGE-PRIVATE METHODS
+	//
+
+	/**
+	 * Returns the name of the thread that logged the given record, if the
+	 * current thread is publishing records for an asynchronous handler.
+	 *
+	 * @param record
+	 *            The log record
+	 * @return The name of the thread that logged the record, or {@code null}
+	 *         if the current thread is not the background thread of an
+	 *         asynchronous handler or the name is not known
+	 */
+	static String getThreadName(LogRecord record) {
+		if (!(Thread.currentThread() instanceof DrainThread)) {
+			return null;
+		}
+		return threadNames.get(record.getThreadID());
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Counts the given record as dropped.
+	 *
+	 * @param record
+	 *            The dropped record
+	 */
+	private void drop(LogRecord record) {
+		droppedCount.incrementAndGet();
+		AtomicLong levelDroppedCount = droppedCounts.get(record.getLevel());
+		if (levelDroppedCount == null) {
+			droppedCounts.putIfAbsent(record.getLevel(), new AtomicLong());
+			levelDroppedCount = droppedCounts.get(record.getLevel());
+		}
+		levelDroppedCount.incrementAndGet();
+	}
+
+	/**
+	 * Wakes up the background thread if it is waiting for records.
+	 */
+	private void wakeDrainThread() {
+		if (drainThreadWaiting) {
+			LockSupport.unpark(drainThread);
+		}
+	}
+
+	/**
+	 * Publishes the given record to all target handlers.
+	 *
+	 * @param record
+	 *            The record to publish
+	 */
+	private void publishToTargets(LogRecord record) {
+		for (Handler targetHandler : targetHandlers) {
+			try {
+				targetHandler.publish(record);
+			} catch (RuntimeException re1) {
+				reportError("Could not publish log record.", re1, ErrorManager.WRITE_FAILURE);
+			}
+		}
+	}
+
+	/**
+	 * Flushes all target handlers.
+	 */
+	private void flushTargets() {
+		for (Handler targetHandler : targetHandlers) {
+			try {
+				targetHandler.flush();
+			} catch (RuntimeException re1) {
+				reportError("Could not flush handler.", re1, ErrorManager.FLUSH_FAILURE);
+			}
+		}
+	}
+
+	/**
+	 * Publishes a warning to all target handlers if records have been dropped
+	 * since the last warning.
+	 */
+	private void reportDroppedRecords() {
+		long droppedCount = this.droppedCount.get();
+		if (droppedCount == reportedDroppedCount) {
+			return;
+		}
+		LogRecord droppedRecord = new LogRecord(Level.WARNING, "%d log records have been dropped.");
+		droppedRecord.setParameters(new Object[] { droppedCount - reportedDroppedCount });
+		droppedRecord.setSourceClassName(AsyncHandler.class.getName());
+		droppedRecord.setSourceMethodName("publish");
+		reportedDroppedCount = droppedCount;
+		publishToTargets(droppedRecord);
+	}
+
+	/**
+	 * The background thread that publishes the records to the target
+	 * handlers.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private class DrainThread extends Thread {
+
+		/**
+		 * Creates a new background thread.
+		 */
+		DrainThread() {
+			super("AsyncHandler Drain Thread");
+			setDaemon(true);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		@SuppressWarnings("synthetic-access")
+		public void run() {
+			while (true) {
+				int published = 0;
+				LogRecord record;
+				while ((published < BATCH_SIZE) && ((record = ringBuffer.poll()) != null)) {
+					publishToTargets(record);
+					published++;
+				}
+				if (published > 0) {
+					publishedCount.lazySet(publishedCount.get() + published);
+					reportDroppedRecords();
+					flushTargets();
+					continue;
+				}
+				if (closed && (ringBuffer.size() == 0)) {
+					reportDroppedRecords();
+					break;
+				}
+				drainThreadWaiting = true;
+				if (ringBuffer.size() == 0) {
+					LockSupport.parkNanos(this, MAXIMUM_WAIT_TIME);
+				}
+				drainThreadWaiting = false;
+			}
+		}
+
+	}
+
+	/**
+	 * Bounded buffer for log records that can be written by multiple threads
+	 * without locking and is read by a single thread.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class RingBuffer {
+
+		/** The slots of the buffer. */
+		private final AtomicReferenceArray<LogRecord> slots;
+
+		/** The mask for converting positions to slot indices. */
+		private final int mask;
+
+		/** The position of the next record to read. */
+		private final AtomicLong head = new AtomicLong();
+
+		/** The position of the next record to write. */
+		private final AtomicLong tail = new AtomicLong();
+
+		/**
+		 * Creates a new ring buffer.
+		 *
+		 * @param capacity
+		 *            The capacity of the buffer (will be rounded up to the
+		 *            next power of two)
+		 */
+		RingBuffer(int capacity) {
+			int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+			slots = new AtomicReferenceArray<LogRecord>(size);
+			mask = size - 1;
+		}
+
+		/**
+		 * Returns the position of the next record to write.
+		 *
+		 * @return The tail position
+		 */
+		long getTail() {
+			return tail.get();
+		}
+
+		/**
+		 * Returns the number of records in the buffer.
+		 *
+		 * @return The number of records in the buffer
+		 */
+		int size() {
+			return (int) Math.max(0, tail.get() - head.get());
+		}
+
+		/**
+		 * Adds the given record to the buffer.
+		 *
+		 * @param record
+		 *            The record to add
+		 * @return {@code true} if the record was added, {@code false} if the
+		 *         buffer is full
+		 */
+		boolean offer(LogRecord record) {
+			while (true) {
+				long position = tail.get();
+				if ((position - head.get()) >= slots.length()) {
+					return false;
+				}
+				if (tail.compareAndSet(position, position + 1)) {
+					slots.lazySet((int) (position & mask), record);
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * Removes the next record from the buffer. This method must only be
+		 * called by a single thread.
+		 *
+		 * @return The next record, or {@code null} if there is no record that
+		 *         has been completely added
+		 */
+		LogRecord poll() {
+			long position = head.get();
+			int index = (int) (position & mask);
+			LogRecord record = slots.get(index);
+			if (record == null) {
+				return null;
+			}
+			slots.lazySet(index, null);
+			head.lazySet(position + 1);
+			return record;
+		}
+
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * utils - LogFormatter.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.logging;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.logging.Formatter;
+import java.util.logging.LogRecord;
+
+/**
+ * {@link Formatter} that formats a {@link LogRecord} on a single line,
+ * prefixed with the time, the level, the name of the current thread, and the
+ * source of the record. Stack traces of logged exceptions are appended, with
+ * each line carrying the same prefix.
+ * <p>
+ * A log formatter can be used by multiple threads at the same time without
+ * blocking: every thread uses its own buffer and date formatter, the
+ * formatted time is reused for records logged within the same millisecond,
+ * and messages are formatted using the {@link MessageFormatter}.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class LogFormatter extends Formatter {
+
+	/** The maximum size of a buffer that is kept for the next record. */
+	private static final int MAXIMUM_BUFFER_SIZE = 64 * 1024;
+
+	/** The per-thread state. */
+	private final ThreadLocal<ThreadState> threadStates = new ThreadLocal<ThreadState>() {
+
+		@Override
+		protected ThreadState initialValue() {
+			return new ThreadState();
+		}
+	};
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String format(LogRecord record) {
+		ThreadState threadState = threadStates.get();
+		StringBuilder recordBuffer = threadState.recordBuffer;
+		recordBuffer.setLength(0);
+		recordBuffer.append(threadState.formatTime(record.getMillis())).append(" [").append(record.getLevel()).append("] [").append(getThreadName(record)).append("] [").append(record.getSourceClassName()).append('.').append(record.getSourceMethodName()).append("] ");
+		int prefixLength = recordBuffer.length();
+		MessageFormatter.format(recordBuffer, record.getMessage(), record.getParameters());
+		recordBuffer.append('\n');
+		if (record.getThrown() != null) {
+			String linePrefix = recordBuffer.substring(0, prefixLength);
+			Throwable throwable = record.getThrown();
+			boolean causedBy = false;
+			while (throwable != null) {
+				recordBuffer.append(linePrefix);
+				if (causedBy) {
+					recordBuffer.append("caused by: ");
+				}
+				recordBuffer.append(throwable.getClass().getName());
+				if (throwable.getMessage() != null) {
+					recordBuffer.append(": ").append(throwable.getMessage());
+				}
+				recordBuffer.append('\n');
+				StackTraceElement[] stackTraceElements = throwable.getStackTrace();
+				for (StackTraceElement stackTraceElement : stackTraceElements) {
+					recordBuffer.append(linePrefix).append("  at ").append(stackTraceElement.getClassName()).append('.').append(stackTraceElement.getMethodName()).append('(').append(stackTraceElement.getFileName()).append(':').append(stackTraceElement.getLineNumber()).append(')').append('\n');
+				}
+				throwable = throwable.getCause();
+				causedBy = true;
+			}
+		}
+		String formattedRecord = recordBuffer.toString();
+		if (recordBuffer.capacity() > MAXIMUM_BUFFER_SIZE) {
+			threadState.recordBuffer = new StringBuilder();
+		}
+		return formattedRecord;
+	}
+
+	//
+	// PROTECTED METHODS
+	//
+
+	/**
+	 * Returns the name of the thread that logged the given record. This
+	 * implementation returns the name of the current thread, or the name of
+	 * the logging thread if the record is published by an
+	 * {@link AsyncHandler}.
+	 *
+	 * @param record
+	 *            The log record
+	 * @return The name of the thread that logged the record
+	 */
+	protected String getThreadName(LogRecord record) {
+		String threadName = AsyncHandler.getThreadName(record);
+		return (threadName != null) ? threadName : Thread.currentThread().getName();
+	}
+
+	/**
+	 * The state of a single thread.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class ThreadState {
+
+		/** The date formatter. */
+		private final DateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS Z");
+
+		/** The buffer for the formatted record. */
+		StringBuilder recordBuffer = new StringBuilder();
+
+		/** The time of the last formatted time. */
+		private long lastTime = Long.MIN_VALUE;
+
+		/** The last formatted time. */
+		private String lastFormattedTime;
+
+		/**
+		 * Formats the given time.
+		 *
+		 * @param time
+		 *            The time to format (in milliseconds since the epoch)
+		 * @return The formatted time
+		 */
+		String formatTime(long time) {
+			if (time != lastTime) {
+				lastFormattedTime = dateFormatter.format(new Date(time));
+				lastTime = time;
+			}
+			return lastFormattedTime;
+		}
+
+	}
+
+}
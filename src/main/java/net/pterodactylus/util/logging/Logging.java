@@ -17,16 +17,12 @@
 
 package net.pterodactylus.util.logging;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.ConsoleHandler;
-import java.util.logging.Formatter;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -34,6 +30,12 @@ import java.util.logging.Logger;
 
 /**
  * Sets up logging.
+ * <p>
+ * The {@code log} methods with explicit parameters only create the parameter
+ * array if the level is loggable, so they can be called without checking
+ * {@link Logger#isLoggable(Level)} first. Primitive parameters are still boxed
+ * before these methods are called. The source class and method of records
+ * logged by these methods are only determined when a handler asks for them.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
@@ -45,6 +47,9 @@ public class Logging {
 	/** The console handler. */
 	private static ConsoleHandler consoleHandler = new ConsoleHandler();
 
+	/** The asynchronous handler, if any. */
+	private static AsyncHandler asyncHandler;
+
 	/** Cache for logger’s classes. */
 	private static final Map<String, Class<?>> classCache = new HashMap<String, Class<?>>();
 
@@ -97,53 +102,48 @@ public class Logging {
 	public static void setupConsoleLogging() {
 		Logger rootLogger = getRootLogger();
 		consoleHandler.setLevel(Level.ALL);
-		consoleHandler.setFormatter(new Formatter() {
-
-			private StringBuffer recordBuffer = new StringBuffer();
-			private DateFormat dateFormatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS Z");
-
-			/**
-			 * {@inheritDoc}
-			 */
-			@Override
-			public synchronized String format(LogRecord record) {
-				recordBuffer.setLength(0);
-				String linePrefix = dateFormatter.format(new Date(record.getMillis())) + " [" + record.getLevel() + "] [" + Thread.currentThread().getName() + "] [" + record.getSourceClassName() + "." + record.getSourceMethodName() + "] ";
-				recordBuffer.append(linePrefix).append(String.format(record.getMessage(), record.getParameters())).append('\n');
-				if (record.getThrown() != null) {
-					Throwable throwable = record.getThrown();
-					boolean causedBy = false;
-					while (throwable != null) {
-						recordBuffer.append(linePrefix);
-						if (causedBy) {
-							recordBuffer.append("caused by: ");
-						}
-						recordBuffer.append(throwable.getClass().getName());
-						if (throwable.getMessage() != null) {
-							recordBuffer.append(": ").append(throwable.getMessage());
-						}
-						recordBuffer.append("\n");
-						StackTraceElement[] stackTraceElements = throwable.getStackTrace();
-						for (StackTraceElement stackTraceElement : stackTraceElements) {
-							recordBuffer.append(linePrefix).append("  at ").append(stackTraceElement.getClassName()).append('.').append(stackTraceElement.getMethodName()).append("(").append(stackTraceElement.getFileName()).append(':').append(stackTraceElement.getLineNumber()).append(')').append("\n");
-						}
-						throwable = throwable.getCause();
-						causedBy = true;
-					}
-				}
-				return recordBuffer.toString();
-			}
-		});
+		consoleHandler.setFormatter(new LogFormatter());
 		rootLogger.addHandler(consoleHandler);
 	}
 
+	/**
+	 * Moves all handlers that are currently installed on the root logger
+	 * (i.e. the log handler and the console handler, if {@link #setup(String)}
+	 * and {@link #setupConsoleLogging()} have been called before) behind an
+	 * {@link AsyncHandler}, so that {@link LoggingListener}s and the console
+	 * are no longer served on the logging threads.
+	 *
+	 * @param capacity
+	 *            The capacity of the buffer of the asynchronous handler
+	 * @param overflowPolicy
+	 *            The policy for records that do not fit into the buffer
+	 * @return The asynchronous handler
+	 */
+	public static synchronized AsyncHandler setupAsynchronousLogging(int capacity, AsyncHandler.OverflowPolicy overflowPolicy) {
+		Logger rootLogger = getRootLogger();
+		List<Handler> targetHandlers = new ArrayList<Handler>();
+		for (Handler handler : rootLogger.getHandlers()) {
+			rootLogger.removeHandler(handler);
+			targetHandlers.add(handler);
+		}
+		asyncHandler = new AsyncHandler(capacity, overflowPolicy, targetHandlers.toArray(new Handler[targetHandlers.size()]));
+		rootLogger.addHandler(asyncHandler);
+		return asyncHandler;
+	}
+
 	/**
 	 * Shuts this logging hierarchy down by removing all {@link Handler}s from
-	 * the root logger.
+	 * the root logger. An asynchronous handler publishes all remaining records
+	 * before it is removed.
 	 */
-	public static void shutdown() {
+	public static synchronized void shutdown() {
 		getRootLogger().removeHandler(logHandler);
 		getRootLogger().removeHandler(consoleHandler);
+		if (asyncHandler != null) {
+			getRootLogger().removeHandler(asyncHandler);
+			asyncHandler.close();
+			asyncHandler = null;
+		}
 	}
 
 	/**
@@ -170,6 +170,69 @@ public class Logging {
 		return getLogger(loggerClass.getName());
 	}
 
+	/**
+	 * Logs a message with one parameter. The parameter array is only created
+	 * if the given level is loggable by the given logger.
+	 *
+	 * @param logger
+	 *            The logger to log the message with
+	 * @param level
+	 *            The level of the message
+	 * @param message
+	 *            The message
+	 * @param parameter
+	 *            The parameter of the message
+	 */
+	public static void log(Logger logger, Level level, String message, Object parameter) {
+		if (logger.isLoggable(level)) {
+			log(logger, level, message, new Object[] { parameter });
+		}
+	}
+
+	/**
+	 * Logs a message with two parameters. The parameter array is only created
+	 * if the given level is loggable by the given logger.
+	 *
+	 * @param logger
+	 *            The logger to log the message with
+	 * @param level
+	 *            The level of the message
+	 * @param message
+	 *            The message
+	 * @param parameter1
+	 *            The first parameter of the message
+	 * @param parameter2
+	 *            The second parameter of the message
+	 */
+	public static void log(Logger logger, Level level, String message, Object parameter1, Object parameter2) {
+		if (logger.isLoggable(level)) {
+			log(logger, level, message, new Object[] { parameter1, parameter2 });
+		}
+	}
+
+	/**
+	 * Logs a message with three parameters. The parameter array is only
+	 * created if the given level is loggable by the given logger.
+	 *
+	 * @param logger
+	 *            The logger to log the message with
+	 * @param level
+	 *            The level of the message
+	 * @param message
+	 *            The message
+	 * @param parameter1
+	 *            The first parameter of the message
+	 * @param parameter2
+	 *            The second parameter of the message
+	 * @param parameter3
+	 *            The third parameter of the message
+	 */
+	public static void log(Logger logger, Level level, String message, Object parameter1, Object parameter2, Object parameter3) {
+		if (logger.isLoggable(level)) {
+			log(logger, level, message, new Object[] { parameter1, parameter2, parameter3 });
+		}
+	}
+
 	/**
 	 * Sets the log level of the hierarchy’s root logger.
 	 *
@@ -180,6 +243,27 @@ public class Logging {
 		getRootLogger().setLevel(rootLevel);
 	}
 
+	/**
+	 * Logs a message with the given parameters. The source of the log record
+	 * is the method that called the public logging method of this class; it is
+	 * only determined when it is requested from the log record.
+	 *
+	 * @param logger
+	 *            The logger to log the message with
+	 * @param level
+	 *            The level of the message
+	 * @param message
+	 *            The message
+	 * @param parameters
+	 *            The parameters of the message
+	 */
+	private static void log(Logger logger, Level level, String message, Object[] parameters) {
+		LogRecord logRecord = new CallerLogRecord(level, message);
+		logRecord.setLoggerName(logger.getName());
+		logRecord.setParameters(parameters);
+		logger.log(logRecord);
+	}
+
 	/**
 	 * Returns the root logger of this logging hierarchy.
 	 *
@@ -285,4 +369,93 @@ public class Logging {
 
 	}
 
+	/**
+	 * Log record that determines its source from the stack of the current
+	 * thread only when the source is requested. The source is the first method
+	 * on the stack that called a method of {@link Logging}; handlers that hand
+	 * records to other threads have to request the source before doing so, as
+	 * required by {@link LogRecord}.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class CallerLogRecord extends LogRecord {
+
+		/** Whether the source has been determined or set. */
+		private transient boolean sourceKnown;
+
+		/**
+		 * Creates a new log record.
+		 *
+		 * @param level
+		 *            The level of the record
+		 * @param message
+		 *            The message of the record
+		 */
+		public CallerLogRecord(Level level, String message) {
+			super(level, message);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getSourceClassName() {
+			inferSource();
+			return super.getSourceClassName();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setSourceClassName(String sourceClassName) {
+			sourceKnown = true;
+			super.setSourceClassName(sourceClassName);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public String getSourceMethodName() {
+			inferSource();
+			return super.getSourceMethodName();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setSourceMethodName(String sourceMethodName) {
+			sourceKnown = true;
+			super.setSourceMethodName(sourceMethodName);
+		}
+
+		/**
+		 * Determines the source of this record from the stack of the current
+		 * thread, unless it is already known.
+		 */
+		private void inferSource() {
+			if (sourceKnown) {
+				return;
+			}
+			sourceKnown = true;
+			String sourceClassName = null;
+			String sourceMethodName = null;
+			boolean loggingFound = false;
+			for (StackTraceElement stackTraceElement : new Throwable().getStackTrace()) {
+				if (stackTraceElement.getClassName().equals(Logging.class.getName())) {
+					loggingFound = true;
+				} else if (loggingFound) {
+					sourceClassName = stackTraceElement.getClassName();
+					sourceMethodName = stackTraceElement.getMethodName();
+					break;
+				}
+			}
+			super.setSourceClassName(sourceClassName);
+			super.setSourceMethodName(sourceMethodName);
+		}
+
+	}
+
 }
@@ -0,0 +1,264 @@
+/*
+ * utils - MessageFormatter.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.logging;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Formats log messages that use the syntax of {@link String#format(String,
+ * Object...)}. Messages that only contain {@code %s}, {@code %d}, {@code %%},
+ * and {@code %n} specifiers (optionally with an argument index, such as
+ * {@code %1$s}) are parsed once and then formatted without going through
+ * {@link java.util.Formatter}; all other messages are formatted using
+ * {@link String#format(String, Object...)}. The results are the same in both
+ * cases.
+ * <p>
+ * This class can be used from multiple threads at the same time.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class MessageFormatter {
+
+	/** The maximum number of cached patterns. */
+	private static final int MAXIMUM_CACHE_SIZE = 1024;
+
+	/** Marker for patterns that can not be formatted by this formatter. */
+	private static final Pattern UNSUPPORTED = new Pattern(new String[0], new int[0], new char[0]);
+
+	/** The line separator. */
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	/** The cache for parsed patterns. */
+	private static final ConcurrentMap<String, Pattern> patternCache = new ConcurrentHashMap<String, Pattern>();
+
+	/**
+	 * Formats the given message with the given parameters. If the message can
+	 * not be formatted using the given parameters, the message is returned
+	 * unchanged.
+	 *
+	 * @param message
+	 *            The message to format
+	 * @param parameters
+	 *            The parameters of the message (may be {@code null})
+	 * @return The formatted message
+	 */
+	public static String format(String message, Object[] parameters) {
+		StringBuilder messageBuilder = new StringBuilder();
+		format(messageBuilder, message, parameters);
+		return messageBuilder.toString();
+	}
+
+	/**
+	 * Formats the given message with the given parameters and appends it to
+	 * the given string builder. If the message can not be formatted using the
+	 * given parameters, the message is appended unchanged.
+	 *
+	 * @param messageBuilder
+	 *            The string builder to append the formatted message to
+	 * @param message
+	 *            The message to format
+	 * @param parameters
+	 *            The parameters of the message (may be {@code null})
+	 */
+	public static void format(StringBuilder messageBuilder, String message, Object[] parameters) {
+		if (message == null) {
+			messageBuilder.append((String) null);
+			return;
+		}
+		if (message.indexOf('%') == -1) {
+			messageBuilder.append(message);
+			return;
+		}
+		Pattern pattern = getPattern(message);
+		int length = messageBuilder.length();
+		if ((pattern != UNSUPPORTED) && pattern.format(messageBuilder, parameters)) {
+			return;
+		}
+		messageBuilder.setLength(length);
+		try {
+			messageBuilder.append(String.format(message, parameters));
+		} catch (IllegalFormatException ife1) {
+			messageBuilder.append(message);
+		}
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Returns the parsed pattern for the given message.
+	 *
+	 * @param message
+	 *            The message
+	 * @return The parsed pattern, or {@link #UNSUPPORTED} if the message can
+	 *         not be formatted by this formatter
+	 */
+	private static Pattern getPattern(String message) {
+		Pattern pattern = patternCache.get(message);
+		if (pattern == null) {
+			pattern = parse(message);
+			if (patternCache.size() < MAXIMUM_CACHE_SIZE) {
+				patternCache.putIfAbsent(message, pattern);
+			}
+		}
+		return pattern;
+	}
+
+	/**
+	 * Parses the given message.
+	 *
+	 * @param message
+	 *            The message to parse
+	 * @return The parsed pattern, or {@link #UNSUPPORTED} if the message
+	 *         contains unsupported format specifiers
+	 */
+	private static Pattern parse(String message) {
+		List<String> texts = new ArrayList<String>();
+		List<Integer> indices = new ArrayList<Integer>();
+		List<Character> conversions = new ArrayList<Character>();
+		StringBuilder text = new StringBuilder();
+		int ordinaryIndex = 0;
+		for (int position = 0, length = message.length(); position < length; position++) {
+			char character = message.charAt(position);
+			if (character != '%') {
+				text.append(character);
+				continue;
+			}
+			int index = -1;
+			int specifierEnd = position + 1;
+			while ((specifierEnd < length) && Character.isDigit(message.charAt(specifierEnd))) {
+				specifierEnd++;
+			}
+			if ((specifierEnd > (position + 1)) && (specifierEnd < length) && (message.charAt(specifierEnd) == '$')) {
+				try {
+					index = Integer.parseInt(message.substring(position + 1, specifierEnd)) - 1;
+				} catch (NumberFormatException nfe1) {
+					return UNSUPPORTED;
+				}
+				if (index < 0) {
+					return UNSUPPORTED;
+				}
+				specifierEnd++;
+			} else {
+				specifierEnd = position + 1;
+			}
+			if (specifierEnd >= length) {
+				return UNSUPPORTED;
+			}
+			char conversion = message.charAt(specifierEnd);
+			if ((conversion == '%') && (index == -1)) {
+				text.append('%');
+			} else if ((conversion == 'n') && (index == -1)) {
+				text.append(LINE_SEPARATOR);
+			} else if ((conversion == 's') || (conversion == 'd')) {
+				texts.add(text.toString());
+				text.setLength(0);
+				indices.add((index == -1) ? ordinaryIndex++ : index);
+				conversions.add(conversion);
+			} else {
+				return UNSUPPORTED;
+			}
+			position = specifierEnd;
+		}
+		texts.add(text.toString());
+		int[] indexArray = new int[indices.size()];
+		char[] conversionArray = new char[conversions.size()];
+		for (int specifier = 0; specifier < indexArray.length; specifier++) {
+			indexArray[specifier] = indices.get(specifier);
+			conversionArray[specifier] = conversions.get(specifier);
+		}
+		return new Pattern(texts.toArray(new String[texts.size()]), indexArray, conversionArray);
+	}
+
+	/**
+	 * A parsed message: literal texts alternating with format specifiers.
+	 *
+	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+	 */
+	private static class Pattern {
+
+		/** The literal texts, one more than there are specifiers. */
+		private final String[] texts;
+
+		/** The parameter indices of the specifiers. */
+		private final int[] indices;
+
+		/** The conversions of the specifiers ({@code s} or {@code d}). */
+		private final char[] conversions;
+
+		/**
+		 * Creates a new pattern.
+		 *
+		 * @param texts
+		 *            The literal texts
+		 * @param indices
+		 *            The parameter indices of the specifiers
+		 * @param conversions
+		 *            The conversions of the specifiers
+		 */
+		Pattern(String[] texts, int[] indices, char[] conversions) {
+			this.texts = texts;
+			this.indices = indices;
+			this.conversions = conversions;
+		}
+
+		/**
+		 * Formats this pattern with the given parameters.
+		 *
+		 * @param messageBuilder
+		 *            The string builder to append the formatted message to
+		 * @param parameters
+		 *            The parameters
+		 * @return {@code true} if the message was formatted, {@code false} if
+		 *         the parameters require {@link String#format(String,
+		 *         Object...)} (in which case the string builder may contain
+		 *         a partially formatted message)
+		 */
+		boolean format(StringBuilder messageBuilder, Object[] parameters) {
+			for (int specifier = 0; specifier < indices.length; specifier++) {
+				messageBuilder.append(texts[specifier]);
+				if ((parameters == null) || (indices[specifier] >= parameters.length)) {
+					return false;
+				}
+				Object parameter = parameters[indices[specifier]];
+				if (conversions[specifier] == 's') {
+					if (parameter instanceof Formattable) {
+						return false;
+					}
+					messageBuilder.append(parameter);
+				} else {
+					if ((parameter != null) && !(parameter instanceof Integer) && !(parameter instanceof Long) && !(parameter instanceof Short) && !(parameter instanceof Byte) && !(parameter instanceof BigInteger)) {
+						return false;
+					}
+					messageBuilder.append(parameter);
+				}
+			}
+			messageBuilder.append(texts[indices.length]);
+			return true;
+		}
+
+	}
+
+}
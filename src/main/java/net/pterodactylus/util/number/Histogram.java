@@ -0,0 +1,177 @@
+/*
+ * utils - Histogram.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.number;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values. Values are sorted into buckets
+ * whose upper bounds are powers of two, so recording a value is a handful of
+ * atomic increments and percentiles are accurate to a factor of two. This
+ * makes a histogram cheap enough to be updated on hot paths.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class Histogram {
+
+	/** The number of buckets. */
+	private static final int BUCKETS = 64;
+
+	/** The buckets. Bucket n contains values from 2^(n-1) to 2^n-1. */
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	/** The number of recorded values. */
+	private final AtomicLong count = new AtomicLong();
+
+	/** The sum of all recorded values. */
+	private final AtomicLong sum = new AtomicLong();
+
+	/** The largest recorded value. */
+	private final AtomicLong maximum = new AtomicLong();
+
+	/**
+	 * Records the given value. Negative values are recorded as {@code 0}.
+	 *
+	 * @param value
+	 *            The value to record
+	 */
+	public void record(long value) {
+		long recordedValue = Math.max(0, value);
+		buckets.incrementAndGet(getBucket(recordedValue));
+		count.incrementAndGet();
+		sum.addAndGet(recordedValue);
+		long currentMaximum;
+		while (recordedValue > (currentMaximum = maximum.get())) {
+			if (maximum.compareAndSet(currentMaximum, recordedValue)) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 *
+	 * @return The number of recorded values
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Returns the sum of all recorded values.
+	 *
+	 * @return The sum of all recorded values
+	 */
+	public long getSum() {
+		return sum.get();
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 *
+	 * @return The largest recorded value, or {@code 0} if no values have been
+	 *         recorded
+	 */
+	public long getMaximum() {
+		return maximum.get();
+	}
+
+	/**
+	 * Returns the mean of all recorded values.
+	 *
+	 * @return The mean of all recorded values, or {@code 0} if no values have
+	 *         been recorded
+	 */
+	public double getMean() {
+		long currentCount = count.get();
+		return (currentCount == 0) ? 0 : ((double) sum.get() / currentCount);
+	}
+
+	/**
+	 * Returns an estimate for the given percentile. The returned value is the
+	 * upper bound of the bucket containing the percentile, but never larger
+	 * than the largest recorded value.
+	 *
+	 * @param percentile
+	 *            The percentile to return (from {@code 0} to {@code 100})
+	 * @return The estimated percentile, or {@code 0} if no values have been
+	 *         recorded
+	 */
+	public long getPercentile(double percentile) {
+		long[] bucketCounts = getBuckets();
+		long totalCount = 0;
+		for (long bucketCount : bucketCounts) {
+			totalCount += bucketCount;
+		}
+		if (totalCount == 0) {
+			return 0;
+		}
+		long threshold = (long) Math.ceil(totalCount * Math.min(100, Math.max(0, percentile)) / 100);
+		long cumulativeCount = 0;
+		for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+			cumulativeCount += bucketCounts[bucket];
+			if ((cumulativeCount >= threshold) && (cumulativeCount > 0)) {
+				return Math.min(getUpperBound(bucket), maximum.get());
+			}
+		}
+		return maximum.get();
+	}
+
+	/**
+	 * Returns a snapshot of the bucket counts. The bucket at index {@code n}
+	 * contains the number of recorded values from {@code 2^(n-1)} to
+	 * {@code 2^n-1}; bucket {@code 0} contains the number of recorded zeroes.
+	 *
+	 * @return The bucket counts
+	 */
+	public long[] getBuckets() {
+		long[] bucketCounts = new long[BUCKETS];
+		for (int bucket = 0; bucket < BUCKETS; ++bucket) {
+			bucketCounts[bucket] = buckets.get(bucket);
+		}
+		return bucketCounts;
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Returns the bucket for the given value.
+	 *
+	 * @param value
+	 *            The value
+	 * @return The index of the bucket for the value
+	 */
+	private static int getBucket(long value) {
+		return Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(value));
+	}
+
+	/**
+	 * Returns the largest value that is sorted into the given bucket.
+	 *
+	 * @param bucket
+	 *            The index of the bucket
+	 * @return The upper bound of the bucket
+	 */
+	private static long getUpperBound(int bucket) {
+		return (bucket >= (BUCKETS - 1)) ? Long.MAX_VALUE : ((1L << bucket) - 1);
+	}
+
+}
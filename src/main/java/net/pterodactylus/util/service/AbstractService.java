@@ -20,6 +20,8 @@ package net.pterodactylus.util.service;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -68,6 +70,30 @@ public abstract class AbstractService implements Service, Runnable {
 	/** Whether to register the shutdown hook. */
 	private final boolean registerShutdownHook;
 
+	/** The number of iterations of the main loop. */
+	private final AtomicLong iterations = new AtomicLong();
+
+	/** The time spent working (in nanoseconds). */
+	private final AtomicLong runTime = new AtomicLong();
+
+	/** The time spent sleeping (in nanoseconds). */
+	private final AtomicLong sleepTime = new AtomicLong();
+
+	/** The time the service thread last woke up (in nanoseconds). */
+	private long lastWakeUp;
+
+	/** The time spent in each basic state (in nanoseconds). */
+	private final Map<State, Long> stateTimes = new HashMap<State, Long>();
+
+	/** The time the state was last changed (in nanoseconds). */
+	private long lastStateChange = System.nanoTime();
+
+	/** The number of times the service has been started. */
+	private int starts;
+
+	/** The exception that stopped the service last. */
+	private volatile Throwable lastFailure;
+
 	/**
 	 * Constructs a new abstract service with an anonymous name.
 	 */
@@ -222,6 +248,110 @@ public abstract class AbstractService implements Service, Runnable {
 		return name;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getIterations() {
+		return iterations.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRunTime() {
+		return TimeUnit.NANOSECONDS.toMillis(runTime.get());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getSleepTime() {
+		return TimeUnit.NANOSECONDS.toMillis(sleepTime.get());
+	}
+
+	/**
+	 * Returns the time this service spent in the given basic state, including
+	 * the time spent in the current state so far.
+	 *
+	 * @param basicState
+	 *            The basic state
+	 * @return The time spent in the state (in milliseconds)
+	 */
+	public long getTimeInState(State basicState) {
+		synchronized (syncObject) {
+			Long stateTime = stateTimes.get(basicState.getBasicState());
+			long time = (stateTime == null) ? 0 : stateTime;
+			if (state.getBasicState() == basicState.getBasicState()) {
+				time += System.nanoTime() - lastStateChange;
+			}
+			return TimeUnit.NANOSECONDS.toMillis(time);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTimeOffline() {
+		return getTimeInState(State.offline);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTimeStarting() {
+		return getTimeInState(State.starting);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTimeOnline() {
+		return getTimeInState(State.online);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getTimeStopping() {
+		return getTimeInState(State.stopping);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getRestarts() {
+		synchronized (syncObject) {
+			return Math.max(0, starts - 1);
+		}
+	}
+
+	/**
+	 * Returns the exception that stopped the service last.
+	 *
+	 * @return The last exception that stopped the service, or {@code null} if
+	 *         the service has never failed
+	 */
+	public Throwable getLastFailureCause() {
+		return lastFailure;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getLastFailure() {
+		Throwable failure = lastFailure;
+		return (failure == null) ? null : failure.toString();
+	}
+
 	/**
 	 * @see net.pterodactylus.util.service.Service#getServiceAttribute(java.lang.String)
 	 */
@@ -315,6 +445,12 @@ public abstract class AbstractService implements Service, Runnable {
 		State oldState = null;
 		synchronized (syncObject) {
 			oldState = state;
+			if (oldState.getBasicState() != newState.getBasicState()) {
+				long now = System.nanoTime();
+				Long stateTime = stateTimes.get(oldState.getBasicState());
+				stateTimes.put(oldState.getBasicState(), ((stateTime == null) ? 0 : stateTime) + (now - lastStateChange));
+				lastStateChange = now;
+			}
 			state = newState;
 			if (action != null) {
 				this.action = action;
@@ -400,11 +536,10 @@ public abstract class AbstractService implements Service, Runnable {
 		serviceStart();
 		synchronized (syncObject) {
 			shouldStop = false;
+			starts++;
 		}
 		setState(State.starting, "");
-		Thread serviceThread = threadFactory.newThread(this);
-		serviceThread.setName(name);
-		serviceThread.start();
+		launch();
 	}
 
 	/**
@@ -436,14 +571,18 @@ public abstract class AbstractService implements Service, Runnable {
 	public final void run() {
 		Throwable cause = null;
 		try {
-			setState(State.online);
-			serviceListenerSupport.fireServiceStarted();
+			goOnline();
+			synchronized (syncObject) {
+				lastWakeUp = System.nanoTime();
+			}
 			serviceRun();
 		} catch (Throwable t) {
 			cause = t;
 		} finally {
-			setState(State.offline, (cause != null) ? cause.getMessage() : null);
-			serviceListenerSupport.fireServiceStopped(cause);
+			synchronized (syncObject) {
+				runTime.addAndGet(System.nanoTime() - lastWakeUp);
+			}
+			goOffline(cause);
 		}
 	}
 
@@ -472,6 +611,7 @@ public abstract class AbstractService implements Service, Runnable {
 			shouldStop = true;
 			syncObject.notify();
 		}
+		wakeUp();
 		if (registerShutdownHook) {
 			try {
 				Runtime.getRuntime().removeShutdownHook(shutdownHook);
@@ -526,6 +666,8 @@ public abstract class AbstractService implements Service, Runnable {
 	 */
 	protected void sleep(long timeout) {
 		synchronized (syncObject) {
+			long sleepStart = System.nanoTime();
+			recordIteration(sleepStart - lastWakeUp);
 			if (!shouldStop) {
 				try {
 					syncObject.wait(timeout);
@@ -533,6 +675,8 @@ public abstract class AbstractService implements Service, Runnable {
 					/* FIXME - ignore. */
 				}
 			}
+			lastWakeUp = System.nanoTime();
+			recordSleep(lastWakeUp - sleepStart);
 		}
 	}
 
@@ -544,6 +688,80 @@ public abstract class AbstractService implements Service, Runnable {
 		synchronized (syncObject) {
 			syncObject.notify();
 		}
+		wakeUp();
+	}
+
+	//
+	// PACKAGE-PRIVATE METHODS
+	//
+
+	/**
+	 * Starts running the service after {@link #start()} has set the state to
+	 * {@link State#starting}. This implementation creates a new thread using
+	 * the {@link #setThreadFactory(ThreadFactory) thread factory} that
+	 * executes {@link #run()}.
+	 */
+	void launch() {
+		Thread serviceThread = threadFactory.newThread(this);
+		serviceThread.setName(name);
+		serviceThread.start();
+	}
+
+	/**
+	 * Wakes up the service after {@link #stop()} or
+	 * {@link #notifySyncObject()} has been called. This implementation does
+	 * nothing as the service thread is woken up by notifying
+	 * {@link #syncObject}.
+	 */
+	void wakeUp() {
+		/* do nothing. */
+	}
+
+	/**
+	 * Records an iteration of the main loop of the service.
+	 *
+	 * @param duration
+	 *            The time the iteration took (in nanoseconds)
+	 */
+	final void recordIteration(long duration) {
+		iterations.incrementAndGet();
+		runTime.addAndGet(duration);
+	}
+
+	/**
+	 * Records the time the service slept.
+	 *
+	 * @param duration
+	 *            The time the service slept (in nanoseconds)
+	 */
+	final void recordSleep(long duration) {
+		sleepTime.addAndGet(duration);
+	}
+
+	/**
+	 * Sets the {@link #state} to {@link State#online} and fires a
+	 * {@link ServiceListener#serviceStarted(Service) Service-Started} event.
+	 */
+	final void goOnline() {
+		setState(State.online);
+		serviceListenerSupport.fireServiceStarted();
+	}
+
+	/**
+	 * Sets the {@link #state} to {@link State#offline} and fires a
+	 * {@link ServiceListener#serviceStopped(Service, Throwable)
+	 * Service-Stopped} event.
+	 *
+	 * @param cause
+	 *            The cause of the stop, or {@code null} if the service stopped
+	 *            normally
+	 */
+	final void goOffline(Throwable cause) {
+		if (cause != null) {
+			lastFailure = cause;
+		}
+		setState(State.offline, (cause != null) ? cause.getMessage() : null);
+		serviceListenerSupport.fireServiceStopped(cause);
 	}
 
 	/**
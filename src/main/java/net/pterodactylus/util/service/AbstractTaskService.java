@@ -0,0 +1,255 @@
+/*
+ * utils - AbstractTaskService.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import net.pterodactylus.util.thread.DumpingThreadFactory;
+
+/**
+ * {@link AbstractService} variant that does not use a thread of its own but
+ * runs its work as tasks on a shared {@link ForkJoinPool}. Instead of a
+ * {@link #serviceRun()} method that loops until the service is stopped, a
+ * task service implements {@link #serviceStep()} which performs a single
+ * iteration of work and returns the time to wait before the next iteration.
+ * While a task service waits, it does not occupy a thread.
+ * <p>
+ * State transitions, {@link ServiceListener} events, and the shutdown hook
+ * behave exactly as for {@link AbstractService}: the state changes to
+ * {@link State#starting} on {@link #start()}, to {@link State#online} before
+ * the first step, and to {@link State#offline} once the service has stopped.
+ * A waiting task service is woken up by {@link #stop()} and
+ * {@link #notifySyncObject()}; calling {@link Object#notify()} on
+ * {@link #syncObject} directly does not wake it up.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public abstract class AbstractTaskService extends AbstractService {
+
+	/**
+	 * Return value for {@link #serviceStep()} that lets the service wait until
+	 * it is woken up by {@link #notifySyncObject()} or {@link #stop()}.
+	 */
+	protected static final long WAIT_FOR_NOTIFICATION = Long.MAX_VALUE;
+
+	/** The default pool for all task services. */
+	private static final ForkJoinPool defaultPool = new ForkJoinPool();
+
+	/** The timer that wakes up waiting task services. */
+	private static final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new DumpingThreadFactory("AbstractTaskService Timer ", true));
+
+	static {
+		timer.setRemoveOnCancelPolicy(true);
+	}
+
+	/** The pool that executes the steps. */
+	private final ForkJoinPool pool;
+
+	/** The task that performs a single step. */
+	private final Runnable stepTask = new Runnable() {
+
+		@Override
+		@SuppressWarnings("synthetic-access")
+		public void run() {
+			step();
+		}
+	};
+
+	/** The task that wakes up this service after its delay has elapsed. */
+	private final Runnable wakeUpTask = new Runnable() {
+
+		@Override
+		public void run() {
+			wakeUp();
+		}
+	};
+
+	/** Whether the service is waiting for its next step. */
+	private boolean waiting;
+
+	/** The pending wake-up of the service, if any. */
+	private ScheduledFuture<?> pendingWakeUp;
+
+	/** The time the service started waiting (in nanoseconds). */
+	private long waitStart;
+
+	/**
+	 * Constructs a new task service with the given name that runs on the
+	 * default pool.
+	 *
+	 * @param name
+	 *            The name of the service
+	 */
+	protected AbstractTaskService(String name) {
+		this(name, true);
+	}
+
+	/**
+	 * Constructs a new task service with the given name that runs on the
+	 * default pool.
+	 *
+	 * @param name
+	 *            The name of the service
+	 * @param registerShutdownHook
+	 *            <code>true</code> to register shutdown hook for this service,
+	 *            <code>false</code> to not register a shutdown hook
+	 */
+	protected AbstractTaskService(String name, boolean registerShutdownHook) {
+		this(name, registerShutdownHook, defaultPool);
+	}
+
+	/**
+	 * Constructs a new task service with the given name that runs on the given
+	 * pool.
+	 *
+	 * @param name
+	 *            The name of the service
+	 * @param registerShutdownHook
+	 *            <code>true</code> to register shutdown hook for this service,
+	 *            <code>false</code> to not register a shutdown hook
+	 * @param pool
+	 *            The pool to run the steps of the service on
+	 */
+	protected AbstractTaskService(String name, boolean registerShutdownHook, ForkJoinPool pool) {
+		super(name, registerShutdownHook);
+		this.pool = pool;
+	}
+
+	//
+	// SERVICE METHODS
+	//
+
+	/**
+	 * Performs a single iteration of the work of this service. This method
+	 * must not block for longer periods of time, as it occupies a thread of
+	 * the shared pool while it runs.
+	 *
+	 * @return The time to wait before the next step (in milliseconds),
+	 *         {@code 0} to perform the next step immediately,
+	 *         {@link #WAIT_FOR_NOTIFICATION} to wait until the service is woken
+	 *         up, or a negative value to stop the service
+	 */
+	protected abstract long serviceStep();
+
+	/**
+	 * Performs the steps of this service in the current thread until the
+	 * service is stopped. This method is only used if {@link #run()} is called
+	 * directly.
+	 */
+	@Override
+	protected final void serviceRun() {
+		while (!shouldStop()) {
+			long delay = serviceStep();
+			if (delay < 0) {
+				break;
+			}
+			if (delay > 0) {
+				sleep((delay == WAIT_FOR_NOTIFICATION) ? 0 : delay);
+			}
+		}
+	}
+
+	//
+	// PACKAGE-PRIVATE METHODS
+	//
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void launch() {
+		pool.execute(new Runnable() {
+
+			@Override
+			@SuppressWarnings("synthetic-access")
+			public void run() {
+				goOnline();
+				step();
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	void wakeUp() {
+		synchronized (syncObject) {
+			if (!waiting) {
+				return;
+			}
+			waiting = false;
+			recordSleep(System.nanoTime() - waitStart);
+			if (pendingWakeUp != null) {
+				pendingWakeUp.cancel(false);
+				pendingWakeUp = null;
+			}
+		}
+		pool.execute(stepTask);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Performs a single step and schedules the next one, or stops the service
+	 * if it should stop, the step requested it, or the step failed. If the
+	 * service is stopped while the step is running, the next step is executed
+	 * immediately and stops the service.
+	 */
+	private void step() {
+		long delay;
+		try {
+			if (shouldStop()) {
+				goOffline(null);
+				return;
+			}
+			long stepStart = System.nanoTime();
+			try {
+				delay = serviceStep();
+			} finally {
+				recordIteration(System.nanoTime() - stepStart);
+			}
+		} catch (Throwable t) {
+			goOffline(t);
+			return;
+		}
+		if (delay < 0) {
+			goOffline(null);
+			return;
+		}
+		if (delay > 0) {
+			synchronized (syncObject) {
+				if (!shouldStop()) {
+					waiting = true;
+					waitStart = System.nanoTime();
+					if (delay != WAIT_FOR_NOTIFICATION) {
+						pendingWakeUp = timer.schedule(wakeUpTask, delay, TimeUnit.MILLISECONDS);
+					}
+					return;
+				}
+			}
+		}
+		pool.execute(stepTask);
+	}
+
+}
@@ -48,4 +48,74 @@ public interface ServiceMBean {
 	 */
 	public String getAction();
 
+	/**
+	 * Returns the number of iterations of the main loop of the service.
+	 *
+	 * @return The number of iterations
+	 */
+	public long getIterations();
+
+	/**
+	 * Returns the time the service spent working, i.e. running but not
+	 * sleeping.
+	 *
+	 * @return The run time (in milliseconds)
+	 */
+	public long getRunTime();
+
+	/**
+	 * Returns the time the service spent sleeping.
+	 *
+	 * @return The sleep time (in milliseconds)
+	 */
+	public long getSleepTime();
+
+	/**
+	 * Returns the time the service spent in the basic state
+	 * {@link State#offline}.
+	 *
+	 * @return The time offline (in milliseconds)
+	 */
+	public long getTimeOffline();
+
+	/**
+	 * Returns the time the service spent in the basic state
+	 * {@link State#starting}.
+	 *
+	 * @return The time starting (in milliseconds)
+	 */
+	public long getTimeStarting();
+
+	/**
+	 * Returns the time the service spent in the basic state
+	 * {@link State#online}.
+	 *
+	 * @return The time online (in milliseconds)
+	 */
+	public long getTimeOnline();
+
+	/**
+	 * Returns the time the service spent in the basic state
+	 * {@link State#stopping}.
+	 *
+	 * @return The time stopping (in milliseconds)
+	 */
+	public long getTimeStopping();
+
+	/**
+	 * Returns the number of times the service has been started after it was
+	 * started for the first time.
+	 *
+	 * @return The number of restarts
+	 */
+	public int getRestarts();
+
+	/**
+	 * Returns a description of the last exception that stopped the service.
+	 *
+	 * @return The last failure, or {@code null} if the service has never
+	 *         failed
+	 */
+	public String getLastFailure();
+
 }
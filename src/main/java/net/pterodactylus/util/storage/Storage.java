@@ -152,12 +152,12 @@ public class Storage<T extends Storable> implements Closeable {
 			directoryEntries.clear();
 			idDirectoryIndexes.clear();
 			allocations.clear();
-			logger.log(Level.FINE, "[%s] Reading " + (indexLength / 16) + " existing Directory Entries…", name);
+			Logging.log(logger, Level.FINE, "[%s] Reading %d existing Directory Entries…", name, indexLength / 16);
 			for (int directoryIndex = 0; directoryIndex < (indexLength / 16); ++directoryIndex) {
 				byte[] allocationBuffer = new byte[16];
 				indexFile.readFully(allocationBuffer);
 				Allocation allocation = Allocation.FACTORY.restore(allocationBuffer);
-				logger.log(Level.FINEST, "[%s] Read Allocation: %s", new Object[] { name, allocation });
+				Logging.log(logger, Level.FINEST, "[%s] Read Allocation: %s", name, allocation);
 				if ((allocation.getId() == 0) && (allocation.getPosition() == 0) && (allocation.getSize() == 0)) {
 					emptyDirectoryEntries.set(directoryIndex);
 					directoryEntries.add(null);
@@ -186,7 +186,7 @@ public class Storage<T extends Storable> implements Closeable {
 	 */
 	public void add(T storable) throws StorageException {
 		Validation.begin().isNotNull("Storable", storable).check();
-		logger.log(Level.INFO, "[%s] Adding Storable %s…", new Object[] { name, storable });
+		Logging.log(logger, Level.INFO, "[%s] Adding Storable %s…", name, storable);
 		lock.writeLock().lock();
 		try {
 			if (!opened) {
@@ -196,7 +196,7 @@ public class Storage<T extends Storable> implements Closeable {
 			int storableLength = storableBytes.length;
 			int blocks = getBlocks(storableLength);
 			int position = findFreeRegion(blocks);
-			logger.log(Level.FINEST, "[%s] Will add Storable at %d, for %d blocks.", new Object[] { name, position, blocks });
+			Logging.log(logger, Level.FINEST, "[%s] Will add Storable at %d, for %d blocks.", name, position, blocks);
 
 			/* first, write data. */
 			logger.log(Level.FINE, "[%s] Writing Storable Data…", name);
@@ -216,17 +216,17 @@ public class Storage<T extends Storable> implements Closeable {
 				/* append. */
 				directoryIndex = directoryEntries.size();
 				directoryEntries.add(allocation);
-				logger.log(Level.FINEST, "[%s] Appending to Directory, Entry %d…", new Object[] { name, directoryIndex });
+				Logging.log(logger, Level.FINEST, "[%s] Appending to Directory, Entry %d…", name, directoryIndex);
 			} else {
 				directoryEntries.set(directoryIndex, allocation);
 				emptyDirectoryEntries.clear(directoryIndex);
-				logger.log(Level.FINEST, "[%s] Replacing Directory Entry %d…", new Object[] { name, directoryIndex });
+				Logging.log(logger, Level.FINEST, "[%s] Replacing Directory Entry %d…", name, directoryIndex);
 			}
 			if (idDirectoryIndexes.containsKey(storable.getId())) {
 				oldIndex = idDirectoryIndexes.get(storable.getId());
 				Allocation oldAllocation = directoryEntries.set(oldIndex, null);
 				emptyDirectoryEntries.set(oldIndex);
-				logger.log(Level.FINE, "[%s] Freeing Directory Index %d…", new Object[] { name, oldIndex });
+				Logging.log(logger, Level.FINE, "[%s] Freeing Directory Index %d…", name, oldIndex);
 				allocations.clear(oldAllocation.getPosition(), oldAllocation.getPosition() + getBlocks(oldAllocation.getSize()));
 			}
 			emptyDirectoryEntries.clear(directoryIndex);
@@ -274,7 +274,7 @@ public class Storage<T extends Storable> implements Closeable {
 	 *             if the Storable could not be loaded
 	 */
 	public T load(long id) throws StorageException {
-		logger.log(Level.INFO, "[%s] Loading Storable %d…", new Object[] { name, id });
+		Logging.log(logger, Level.INFO, "[%s] Loading Storable %d…", name, id);
 		lock.readLock().lock();
 		Allocation allocation;
 		try {
@@ -282,19 +282,19 @@ public class Storage<T extends Storable> implements Closeable {
 				throw new IllegalStateException("Storage not opened!");
 			}
 			Integer directoryIndex = idDirectoryIndexes.get(id);
-			logger.log(Level.FINEST, "[%s] Directory Index: %d", new Object[] { name, directoryIndex });
+			Logging.log(logger, Level.FINEST, "[%s] Directory Index: %d", name, directoryIndex);
 			if (directoryIndex == null) {
 				return null;
 			}
 			allocation = directoryEntries.get(directoryIndex);
-			logger.log(Level.FINEST, "[%s] Allocation: %s", new Object[] { name, allocation });
+			Logging.log(logger, Level.FINEST, "[%s] Allocation: %s", name, allocation);
 		} finally {
 			lock.readLock().unlock();
 		}
 		byte[] buffer = new byte[allocation.getSize()];
 		lock.writeLock().lock();
 		try {
-			logger.log(Level.FINEST, "[%s] Reading %d Bytes…", new Object[] { name, allocation.getSize() });
+			Logging.log(logger, Level.FINEST, "[%s] Reading %d Bytes…", name, allocation.getSize());
 			dataFile.seek(allocation.getPosition() * blockSize);
 			dataFile.readFully(buffer);
 		} catch (IOException ioe1) {
@@ -367,21 +367,21 @@ public class Storage<T extends Storable> implements Closeable {
 	 *             if the index file can not be written to
 	 */
 	public void remove(long id) throws StorageException {
-		logger.log(Level.INFO, "[%s] Removing Storable %d…", new Object[] { name, id });
+		Logging.log(logger, Level.INFO, "[%s] Removing Storable %d…", name, id);
 		lock.writeLock().lock();
 		try {
 			if (!opened) {
 				throw new IllegalStateException("Storage not opened!");
 			}
 			Integer directoryIndex = idDirectoryIndexes.remove(id);
-			logger.log(Level.FINEST, "[%s] Directory Index: %s", new Object[] { name, directoryIndex });
+			Logging.log(logger, Level.FINEST, "[%s] Directory Index: %s", name, directoryIndex);
 			if (directoryIndex == null) {
 				return;
 			}
 			Allocation allocation = directoryEntries.set(directoryIndex, null);
 			emptyDirectoryEntries.set(directoryIndex);
 			allocations.clear(allocation.getPosition(), allocation.getPosition() + getBlocks(allocation.getSize()));
-			logger.log(Level.FINE, "[%s] Clearing Directory Index %d…", new Object[] { name, directoryIndex });
+			Logging.log(logger, Level.FINE, "[%s] Clearing Directory Index %d…", name, directoryIndex);
 			indexFile.seek(directoryIndex * 16);
 			indexFile.write(new byte[16]);
 		} catch (IOException ioe1) {
@@ -451,7 +451,7 @@ public class Storage<T extends Storable> implements Closeable {
 					directoryEntries.add(allocation);
 				}
 			}
-			logger.log(Level.FINE, "[%s] Read %d Directory Entries.", new Object[] { name, directoryEntries.size() });
+			Logging.log(logger, Level.FINE, "[%s] Read %d Directory Entries.", name, directoryEntries.size());
 
 			/* now write an index file without the null values. */
 			int directoryIndex = 0;
@@ -462,7 +462,7 @@ public class Storage<T extends Storable> implements Closeable {
 				}
 				writeAllocation(directoryIndex++, allocation);
 			}
-			logger.log(Level.FINE, "[%s] Wrote %d Directory Entries.", new Object[] { name, directoryIndex });
+			Logging.log(logger, Level.FINE, "[%s] Wrote %d Directory Entries.", name, directoryIndex);
 
 			/* truncate the index file. */
 			logger.log(Level.FINE, "[%s] Truncating Directory File…", name);
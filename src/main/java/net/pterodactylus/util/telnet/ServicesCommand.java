@@ -0,0 +1,88 @@
+/*
+ * utils - ServicesCommand.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.telnet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import net.pterodactylus.util.service.ServiceMBean;
+import net.pterodactylus.util.time.Duration;
+
+/**
+ * Command that shows the state and statistics of a number of services. If a
+ * name is given as parameter, only the services whose name starts with the
+ * parameter are shown.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class ServicesCommand extends AbstractCommand {
+
+	/** The services to show. */
+	private final List<ServiceMBean> services = new CopyOnWriteArrayList<ServiceMBean>();
+
+	/**
+	 * Creates a new services command.
+	 */
+	public ServicesCommand() {
+		super("SERVICES", "Shows service statistics.");
+	}
+
+	/**
+	 * Adds a service to show.
+	 *
+	 * @param service
+	 *            The service to add
+	 */
+	public void addService(ServiceMBean service) {
+		services.add(service);
+	}
+
+	/**
+	 * Removes a service.
+	 *
+	 * @param service
+	 *            The service to remove
+	 */
+	public void removeService(ServiceMBean service) {
+		services.remove(service);
+	}
+
+	/**
+	 * @see net.pterodactylus.util.telnet.Command#execute(java.util.List)
+	 */
+	@Override
+	public Reply execute(List<String> parameters) {
+		List<String> lines = new ArrayList<String>();
+		for (ServiceMBean service : services) {
+			String name = String.valueOf(service);
+			if (!parameters.isEmpty() && !name.startsWith(parameters.get(0))) {
+				continue;
+			}
+			lines.add(name + ": " + service.getState() + ", " + service.getAction());
+			lines.add("  Iterations: " + service.getIterations() + ", running " + new Duration(service.getRunTime()).toString(true) + ", sleeping " + new Duration(service.getSleepTime()).toString(true));
+			lines.add("  Time: " + new Duration(service.getTimeOnline()).toString(false) + " online, " + new Duration(service.getTimeOffline()).toString(false) + " offline, " + new Duration(service.getTimeStarting()).toString(true) + " starting, " + new Duration(service.getTimeStopping()).toString(true) + " stopping");
+			lines.add("  Restarts: " + service.getRestarts() + ((service.getLastFailure() != null) ? (", last failure: " + service.getLastFailure()) : ""));
+		}
+		if (lines.isEmpty()) {
+			return new Reply(Reply.NOT_FOUND, "No services found.");
+		}
+		return new Reply(Reply.OK, lines);
+	}
+
+}
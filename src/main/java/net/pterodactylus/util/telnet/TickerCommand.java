@@ -0,0 +1,79 @@
+/*
+ * utils - TickerCommand.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.telnet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import net.pterodactylus.util.number.Digits;
+import net.pterodactylus.util.number.Histogram;
+import net.pterodactylus.util.thread.Ticker;
+
+/**
+ * Command that outputs statistics about a {@link Ticker}: the number of
+ * pending, executed, and rejected events, the lateness of events, and the
+ * execution times of events, grouped by event name prefix.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class TickerCommand extends AbstractCommand {
+
+	/** The ticker to show statistics for. */
+	private final Ticker ticker;
+
+	/**
+	 * Creates a new ticker command for the {@link Ticker#getInstance() global
+	 * ticker}.
+	 */
+	public TickerCommand() {
+		this(Ticker.getInstance());
+	}
+
+	/**
+	 * Creates a new ticker command.
+	 *
+	 * @param ticker
+	 *            The ticker to show statistics for
+	 */
+	public TickerCommand(Ticker ticker) {
+		super("TICKER", "Shows ticker statistics.");
+		this.ticker = ticker;
+	}
+
+	/**
+	 * @see net.pterodactylus.util.telnet.Command#execute(java.util.List)
+	 */
+	@Override
+	public Reply execute(List<String> parameters) {
+		List<String> lines = new ArrayList<String>();
+		lines.add("Pending Events: " + ticker.getPendingEvents());
+		lines.add("Executed Events: " + ticker.getExecutedEvents());
+		lines.add("Rejected Events: " + ticker.getRejectedEvents());
+		lines.add("Lateness: " + Digits.formatFractions(ticker.getAverageLateness(), 1, false) + " ms average, " + ticker.getLateness99thPercentile() + " ms 99th percentile, " + ticker.getMaximumLateness() + " ms maximum");
+		SortedMap<String, Histogram> executionTimes = new TreeMap<String, Histogram>(ticker.getExecutionTimeHistograms());
+		for (Entry<String, Histogram> executionTime : executionTimes.entrySet()) {
+			Histogram histogram = executionTime.getValue();
+			lines.add("Execution Time of " + executionTime.getKey() + ": " + histogram.getCount() + " events, " + Digits.formatFractions(histogram.getMean(), 1, false) + " µs average, " + histogram.getPercentile(99) + " µs 99th percentile, " + histogram.getMaximum() + " µs maximum");
+		}
+		return new Reply(200, lines);
+	}
+
+}
@@ -17,30 +17,93 @@
 
 package net.pterodactylus.util.thread;
 
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
 import net.pterodactylus.util.logging.Logging;
+import net.pterodactylus.util.number.Histogram;
 
 /**
  * Executes threads at specified times in the future.
+ * <p>
+ * Events are kept in a hashed timing wheel: the time is divided into ticks of
+ * {@link #TICK_DURATION} milliseconds, and every event is stored in a
+ * doubly-linked list in the slot of the wheel its tick maps to, together with
+ * the number of rounds the wheel has to make before the event is due. This
+ * makes registering, changing, and removing an event an O(1) operation,
+ * regardless of the number of registered events. Events are executed with a
+ * precision of one tick.
+ * <p>
+ * Due events are handed to an {@link Executor}; by default a thread pool with
+ * a bounded number of threads and a bounded queue is used so that a large
+ * number of simultaneously due events does not create a large number of
+ * threads or an unlimited backlog. An event that is rejected by the executor
+ * is not discarded but handed to the executor again on the next tick.
+ * <p>
+ * The ticker keeps statistics about the lateness of executed events and the
+ * time it takes to run them; the execution times are kept separately for
+ * every {@link #getEventPrefix(String) prefix} of the event names.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
-public class Ticker implements Runnable {
+public class Ticker implements Runnable, TickerMBean {
 
 	/** Logger. */
 	private static final Logger logger = Logging.getLogger(Ticker.class.getName());
 
+	/** The duration of a tick (in milliseconds). */
+	public static final long TICK_DURATION = 10;
+
+	/** The number of slots in the wheel, a power of two. */
+	private static final int WHEEL_SIZE = 512;
+
+	/** The capacity of the queue of the default executor. */
+	private static final int EXECUTOR_QUEUE_CAPACITY = 1024;
+
+	/** The maximum number of event name prefixes to keep statistics for. */
+	private static final int MAXIMUM_EVENT_PREFIXES = 100;
+
+	/** The prefix used once {@link #MAXIMUM_EVENT_PREFIXES} is reached. */
+	private static final String OTHER_EVENT_PREFIX = "(other)";
+
+	/** The names of the items of a row of {@link #getExecutionTimes()}. */
+	private static final String[] EXECUTION_TIME_ITEMS = { "prefix", "count", "mean", "median", "percentile99", "maximum" };
+
+	/** The type of a row of {@link #getExecutionTimes()}. */
+	private static final CompositeType EXECUTION_TIME_TYPE;
+
+	/** The type of {@link #getExecutionTimes()}. */
+	private static final TabularType EXECUTION_TIMES_TYPE;
+
+	static {
+		try {
+			EXECUTION_TIME_TYPE = new CompositeType("ExecutionTime", "Execution time of events with the same prefix (in microseconds)", EXECUTION_TIME_ITEMS, new String[] { "Event Name Prefix", "Number of Events", "Average Execution Time", "Median Execution Time", "99th Percentile of Execution Time", "Maximum Execution Time" }, new OpenType<?>[] { SimpleType.STRING, SimpleType.LONG, SimpleType.DOUBLE, SimpleType.LONG, SimpleType.LONG, SimpleType.LONG });
+			EXECUTION_TIMES_TYPE = new TabularType("ExecutionTimes", "Execution times of events by event name prefix", EXECUTION_TIME_TYPE, new String[] { "prefix" });
+		} catch (OpenDataException ode1) {
+			throw new ExceptionInInitializerError(ode1);
+		}
+	}
+
 	/** A global instance. */
 	private static final Ticker globalInstance = new Ticker();
 
@@ -50,18 +113,36 @@ public class Ticker implements Runnable {
 	/** Thread factory for new threads. */
 	private ThreadFactory threadFactory;
 
+	/** The executor for the events. */
+	private final Executor executor;
+
 	/** Synchronization object. */
 	private final Object syncObject = new Object();
 
-	/** Sorted list of execution times. */
-	private final Queue<EventIdentifier> executionTimes = new PriorityBlockingQueue<EventIdentifier>();
+	/** The slots of the wheel, each pointing to the first event of a list. */
+	private final EventIdentifier[] wheel = new EventIdentifier[WHEEL_SIZE];
+
+	/** The number of the next tick to process. */
+	private long currentTick;
 
-	/** Mappings from execution time to runnables. */
-	private final Map<EventIdentifier, Runnable> runnables = Collections.synchronizedMap(new HashMap<EventIdentifier, Runnable>());
+	/** The number of registered events. */
+	private int pendingEvents;
 
 	/** Whether the ticker thread is running. */
 	private boolean running = false;
 
+	/** The number of executed events. */
+	private final AtomicLong executedEvents = new AtomicLong();
+
+	/** The number of rejected events. */
+	private final AtomicLong rejectedEvents = new AtomicLong();
+
+	/** The lateness of executed events (in milliseconds). */
+	private final Histogram latenesses = new Histogram();
+
+	/** The execution times of events (in microseconds), by event prefix. */
+	private final ConcurrentMap<String, Histogram> executionTimes = new ConcurrentHashMap<String, Histogram>();
+
 	/**
 	 * Creates a new ticker with a default thread factory (which uses
 	 * {@link DumpingThread}s).
@@ -72,13 +153,28 @@ public class Ticker implements Runnable {
 
 	/**
 	 * Creates a new ticker that uses the given thread factory to create new
-	 * threads.
+	 * threads. Events are executed on a thread pool whose size depends on the
+	 * number of available processors.
 	 *
 	 * @param threadFactory
 	 *            The thread factory to use for new threads
 	 */
 	public Ticker(ThreadFactory threadFactory) {
+		this(threadFactory, createDefaultExecutor(threadFactory));
+	}
+
+	/**
+	 * Creates a new ticker that uses the given thread factory to create the
+	 * ticker thread and executes events with the given executor.
+	 *
+	 * @param threadFactory
+	 *            The thread factory to use for the ticker thread
+	 * @param executor
+	 *            The executor for the events
+	 */
+	public Ticker(ThreadFactory threadFactory, Executor executor) {
 		this.threadFactory = threadFactory;
+		this.executor = executor;
 	}
 
 	/**
@@ -90,6 +186,124 @@ public class Ticker implements Runnable {
 		return globalInstance;
 	}
 
+	//
+	// ACCESSORS
+	//
+
+	/**
+	 * Returns the histogram of the lateness of executed events, in
+	 * milliseconds.
+	 *
+	 * @return The histogram of latenesses
+	 */
+	public Histogram getLatenessHistogram() {
+		return latenesses;
+	}
+
+	/**
+	 * Returns the histograms of the time it took to run events, in
+	 * microseconds, keyed by the {@link #getEventPrefix(String) prefix} of the
+	 * event names.
+	 *
+	 * @return The histograms of execution times
+	 */
+	public Map<String, Histogram> getExecutionTimeHistograms() {
+		return Collections.unmodifiableMap(executionTimes);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getPendingEvents() {
+		synchronized (syncObject) {
+			return pendingEvents;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getExecutedEvents() {
+		return executedEvents.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getRejectedEvents() {
+		return rejectedEvents.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double getAverageLateness() {
+		return latenesses.getMean();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLateness99thPercentile() {
+		return latenesses.getPercentile(99);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getMaximumLateness() {
+		return latenesses.getMaximum();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public TabularData getExecutionTimes() {
+		TabularData executionTimeRows = new TabularDataSupport(EXECUTION_TIMES_TYPE);
+		for (Map.Entry<String, Histogram> executionTime : executionTimes.entrySet()) {
+			Histogram histogram = executionTime.getValue();
+			try {
+				executionTimeRows.put(new CompositeDataSupport(EXECUTION_TIME_TYPE, EXECUTION_TIME_ITEMS, new Object[] { executionTime.getKey(), histogram.getCount(), histogram.getMean(), histogram.getPercentile(50), histogram.getPercentile(99), histogram.getMaximum() }));
+			} catch (OpenDataException ode1) {
+				/* the values always match the type. */
+				throw new IllegalStateException(ode1);
+			}
+		}
+		return executionTimeRows;
+	}
+
+	/**
+	 * Returns the prefix of the given event name that is used to group the
+	 * execution times of events. The prefix is the part of the name before
+	 * the first digit, without trailing separators, so that e.g.
+	 * “Event-12” and “Event-13” share the prefix “Event”.
+	 *
+	 * @param eventName
+	 *            The name of the event
+	 * @return The prefix of the event name
+	 */
+	public static String getEventPrefix(String eventName) {
+		int end = 0;
+		while ((end < eventName.length()) && !Character.isDigit(eventName.charAt(end))) {
+			end++;
+		}
+		while ((end > 0) && ("-_#@ ".indexOf(eventName.charAt(end - 1)) != -1)) {
+			end--;
+		}
+		return (end == 0) ? eventName : eventName.substring(0, end);
+	}
+
+	//
+	// ACTIONS
+	//
+
 	/**
 	 * Registers an unnamed thread that is executed at the specified time.
 	 *
@@ -120,16 +334,17 @@ public class Ticker implements Runnable {
 	 */
 	public Object registerEvent(long executionTime, Runnable thread, String eventName) {
 		synchronized (syncObject) {
-			logger.log(Level.INFO, "Ticker registered %s at %d.", new Object[] { eventName, executionTime });
-			EventIdentifier identifierObject = new EventIdentifier(executionTime, eventName);
-			runnables.put(identifierObject, thread);
-			executionTimes.add(identifierObject);
+			if (logger.isLoggable(Level.FINEST)) {
+				logger.log(Level.FINEST, "Ticker registered %s at %d.", new Object[] { eventName, executionTime });
+			}
+			EventIdentifier identifierObject = new EventIdentifier(executionTime, eventName, thread);
+			schedule(identifierObject);
 			if (!running) {
 				running = true;
 				Thread tickerThread = threadFactory.newThread(this);
 				tickerThread.setName("Ticker Thread");
 				tickerThread.start();
-			} else {
+			} else if (pendingEvents == 1) {
 				syncObject.notify();
 			}
 			return identifierObject;
@@ -138,6 +353,7 @@ public class Ticker implements Runnable {
 
 	/**
 	 * Changes the execution time of the thread identified by the given object.
+	 * If the event has already been executed or removed, nothing happens.
 	 *
 	 * @param identifierObject
 	 *            The object that identifies the ticker object to change
@@ -150,10 +366,11 @@ public class Ticker implements Runnable {
 		}
 		EventIdentifier eventIdentifier = (EventIdentifier) identifierObject;
 		synchronized (syncObject) {
-			executionTimes.remove(eventIdentifier);
+			if (!unschedule(eventIdentifier)) {
+				return;
+			}
 			eventIdentifier.setExecutionTime(newExecutionTime);
-			executionTimes.add(eventIdentifier);
-			syncObject.notify();
+			schedule(eventIdentifier);
 		}
 	}
 
@@ -170,34 +387,11 @@ public class Ticker implements Runnable {
 			return;
 		}
 		synchronized (syncObject) {
-			logger.log(Level.INFO, "Ticker removes event %s at %d.", new Object[] { ((EventIdentifier) eventIdentifier).getEventName(), ((EventIdentifier) eventIdentifier).getExecutionTime() });
-			runnables.remove(eventIdentifier);
-			removeEventIdentifier((EventIdentifier) eventIdentifier);
-			syncObject.notify();
-		}
-	}
-
-	/**
-	 * Removes the given event identifier from the {@link #executionTimes}
-	 * queue. This method had to be created because the {@link PriorityQueue}
-	 * reimplements {@link Collection#remove(Object)} to search for objects that
-	 * have the same natural order which might simply delete the wrong object if
-	 * two event identifiers have the same execution time.
-	 *
-	 * @param eventIdentifier
-	 *            The event identifier to remove
-	 * @return <code>true</code> if the event identifier was removed,
-	 *         <code>false</code> otherwise
-	 */
-	private boolean removeEventIdentifier(EventIdentifier eventIdentifier) {
-		Iterator<EventIdentifier> iterator = executionTimes.iterator();
-		while (iterator.hasNext()) {
-			if (iterator.next().equals(eventIdentifier)) {
-				iterator.remove();
-				return true;
+			if (logger.isLoggable(Level.FINEST)) {
+				logger.log(Level.FINEST, "Ticker removes event %s at %d.", new Object[] { ((EventIdentifier) eventIdentifier).getEventName(), ((EventIdentifier) eventIdentifier).getExecutionTime() });
 			}
+			unschedule((EventIdentifier) eventIdentifier);
 		}
-		return false;
 	}
 
 	/**
@@ -218,8 +412,8 @@ public class Ticker implements Runnable {
 		logger.log(Level.INFO, "Ticker started.");
 		synchronized (syncObject) {
 			while (running) {
-				if (executionTimes.isEmpty()) {
-					logger.log(Level.INFO, "Ticker is waiting for events.");
+				if (pendingEvents == 0) {
+					logger.log(Level.FINEST, "Ticker is waiting for events.");
 					try {
 						syncObject.wait();
 					} catch (InterruptedException ie1) {
@@ -228,47 +422,229 @@ public class Ticker implements Runnable {
 						 * nothing to do.
 						 */
 					}
-				} else {
-					EventIdentifier eventIdentifier = executionTimes.peek();
-					if (eventIdentifier == null) {
-						continue;
-					}
-					long now = System.currentTimeMillis();
-					long executionTime = eventIdentifier.getExecutionTime();
-					if (executionTime > now) {
-						logger.log(Level.INFO, "Ticker is waiting up to %d for %s to execute at %d.", new Object[] { executionTime - now, eventIdentifier.getEventName(), executionTime });
-						try {
-							syncObject.wait(executionTime - now);
-						} catch (InterruptedException ie1) {
-							/*
-							 * ignore, ticker will land here again if there's
-							 * nothing to do.
-							 */
-						}
-					} else {
-						removeEventIdentifier(eventIdentifier);
-						Runnable runnable = runnables.remove(eventIdentifier);
-						if (runnable != null) {
-							logger.log(Level.INFO, "Ticker executes %s, %d ms late", new Object[] { eventIdentifier.getEventName(), now - executionTime });
-							Thread eventThread = threadFactory.newThread(runnable);
-							eventThread.setName("Event Thread for " + eventIdentifier.getEventName() + " @ " + executionTime);
-							eventThread.start();
-						}
+					continue;
+				}
+				long now = System.currentTimeMillis();
+				long tickStart = currentTick * TICK_DURATION;
+				if (tickStart > now) {
+					try {
+						syncObject.wait(tickStart - now);
+					} catch (InterruptedException ie1) {
+						/*
+						 * ignore, ticker will land here again if there's
+						 * nothing to do.
+						 */
 					}
+					continue;
 				}
+				processTick(now);
 			}
 		}
 	}
 
+	//
+	// PRIVATE METHODS
+	//
+
 	/**
-	 * Identifier objects for events to circumvent the
-	 * <em>consistent with equals</em> logic used by the Java Collections
-	 * architecture that gives problem when using normals Long objects as
-	 * identifiers.
+	 * Creates the default executor for events.
+	 *
+	 * @param threadFactory
+	 *            The thread factory for the threads of the executor
+	 * @return The default executor
+	 */
+	private static Executor createDefaultExecutor(ThreadFactory threadFactory) {
+		int threadCount = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+		ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(EXECUTOR_QUEUE_CAPACITY), threadFactory);
+		threadPoolExecutor.allowCoreThreadTimeOut(true);
+		return threadPoolExecutor;
+	}
+
+	/**
+	 * Inserts the given event into the wheel. The caller has to hold the lock
+	 * on {@link #syncObject}.
+	 *
+	 * @param eventIdentifier
+	 *            The event to insert
+	 */
+	private void schedule(EventIdentifier eventIdentifier) {
+		if (pendingEvents == 0) {
+			/* nothing is in the wheel, so it can skip idle ticks. */
+			currentTick = Math.max(currentTick, System.currentTimeMillis() / TICK_DURATION);
+		}
+		insert(eventIdentifier, Math.max(currentTick, (eventIdentifier.getExecutionTime() + TICK_DURATION - 1) / TICK_DURATION));
+	}
+
+	/**
+	 * Inserts the given event into the slot of the given tick. The caller has
+	 * to hold the lock on {@link #syncObject}.
+	 *
+	 * @param eventIdentifier
+	 *            The event to insert
+	 * @param tick
+	 *            The tick to execute the event at
+	 */
+	private void insert(EventIdentifier eventIdentifier, long tick) {
+		int slot = (int) (tick & (WHEEL_SIZE - 1));
+		eventIdentifier.slot = slot;
+		eventIdentifier.remainingRounds = (tick - currentTick) / WHEEL_SIZE;
+		eventIdentifier.previous = null;
+		eventIdentifier.next = wheel[slot];
+		if (wheel[slot] != null) {
+			wheel[slot].previous = eventIdentifier;
+		}
+		wheel[slot] = eventIdentifier;
+		pendingEvents++;
+	}
+
+	/**
+	 * Removes the given event from the wheel. The caller has to hold the lock
+	 * on {@link #syncObject}.
+	 *
+	 * @param eventIdentifier
+	 *            The event to remove
+	 * @return {@code true} if the event was removed, {@code false} if it was
+	 *         not in the wheel
+	 */
+	private boolean unschedule(EventIdentifier eventIdentifier) {
+		if (eventIdentifier.slot == -1) {
+			return false;
+		}
+		if (eventIdentifier.previous != null) {
+			eventIdentifier.previous.next = eventIdentifier.next;
+		} else {
+			wheel[eventIdentifier.slot] = eventIdentifier.next;
+		}
+		if (eventIdentifier.next != null) {
+			eventIdentifier.next.previous = eventIdentifier.previous;
+		}
+		eventIdentifier.slot = -1;
+		eventIdentifier.previous = null;
+		eventIdentifier.next = null;
+		pendingEvents--;
+		return true;
+	}
+
+	/**
+	 * Executes all events of the current tick and advances the wheel to the
+	 * next tick. The caller has to hold the lock on {@link #syncObject}.
+	 * <p>
+	 * The due events are detached from the slot and the wheel is advanced
+	 * before any event is executed, so that an executor that runs events
+	 * synchronously can register, change, or remove events without modifying
+	 * the list that is being processed; events that are registered for the
+	 * current time while the tick is processed are executed on the next tick.
+	 *
+	 * @param now
+	 *            The current time (in milliseconds since the epoch)
+	 */
+	private void processTick(long now) {
+		int slot = (int) (currentTick & (WHEEL_SIZE - 1));
+		EventIdentifier eventIdentifier = wheel[slot];
+		wheel[slot] = null;
+		EventIdentifier dueEvents = null;
+		while (eventIdentifier != null) {
+			EventIdentifier nextEventIdentifier = eventIdentifier.next;
+			if (eventIdentifier.remainingRounds > 0) {
+				eventIdentifier.remainingRounds--;
+				eventIdentifier.previous = null;
+				eventIdentifier.next = wheel[slot];
+				if (wheel[slot] != null) {
+					wheel[slot].previous = eventIdentifier;
+				}
+				wheel[slot] = eventIdentifier;
+			} else {
+				eventIdentifier.slot = -1;
+				eventIdentifier.previous = null;
+				eventIdentifier.next = dueEvents;
+				dueEvents = eventIdentifier;
+				pendingEvents--;
+			}
+			eventIdentifier = nextEventIdentifier;
+		}
+		currentTick++;
+		while (dueEvents != null) {
+			EventIdentifier nextDueEvent = dueEvents.next;
+			dueEvents.next = null;
+			if (!execute(dueEvents, now)) {
+				insert(dueEvents, currentTick);
+			}
+			dueEvents = nextDueEvent;
+		}
+	}
+
+	/**
+	 * Returns the histogram for the execution times of the given event,
+	 * creating it if necessary.
+	 *
+	 * @param eventName
+	 *            The name of the event
+	 * @return The histogram for the execution times of the event
+	 */
+	private Histogram getExecutionTimeHistogram(String eventName) {
+		String eventPrefix = getEventPrefix(eventName);
+		Histogram histogram = executionTimes.get(eventPrefix);
+		if (histogram == null) {
+			if (executionTimes.size() >= MAXIMUM_EVENT_PREFIXES) {
+				eventPrefix = OTHER_EVENT_PREFIX;
+			}
+			Histogram newHistogram = new Histogram();
+			histogram = executionTimes.putIfAbsent(eventPrefix, newHistogram);
+			if (histogram == null) {
+				histogram = newHistogram;
+			}
+		}
+		return histogram;
+	}
+
+	/**
+	 * Hands the given event to the executor.
+	 *
+	 * @param eventIdentifier
+	 *            The event to execute
+	 * @param now
+	 *            The current time (in milliseconds since the epoch)
+	 * @return {@code true} if the executor accepted the event, {@code false}
+	 *         if it rejected the event
+	 */
+	private boolean execute(final EventIdentifier eventIdentifier, long now) {
+		if (logger.isLoggable(Level.FINEST)) {
+			logger.log(Level.FINEST, "Ticker executes %s, %d ms late", new Object[] { eventIdentifier.getEventName(), now - eventIdentifier.getExecutionTime() });
+		}
+		try {
+			executor.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					Thread currentThread = Thread.currentThread();
+					String oldName = currentThread.getName();
+					currentThread.setName("Event Thread for " + eventIdentifier.getEventName() + " @ " + eventIdentifier.getExecutionTime());
+					latenesses.record(System.currentTimeMillis() - eventIdentifier.getExecutionTime());
+					long startTime = System.nanoTime();
+					try {
+						eventIdentifier.getRunnable().run();
+					} finally {
+						getExecutionTimeHistogram(eventIdentifier.getEventName()).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+						executedEvents.incrementAndGet();
+						currentThread.setName(oldName);
+					}
+				}
+			});
+		} catch (RejectedExecutionException ree1) {
+			Level level = (rejectedEvents.incrementAndGet() == 1) ? Level.WARNING : Level.FINE;
+			logger.log(level, "Executor rejected " + eventIdentifier.getEventName() + ", retrying on next tick.", ree1);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Identifier objects for events. An event identifier is also the node of
+	 * the list of events in a slot of the wheel.
 	 *
 	 * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
 	 */
-	private static class EventIdentifier implements Comparable<EventIdentifier> {
+	private static class EventIdentifier {
 
 		/** The execution time. */
 		private long executionTime;
@@ -276,6 +652,21 @@ public class Ticker implements Runnable {
 		/** The name of the event. */
 		private final String eventName;
 
+		/** The runnable to execute. */
+		private final Runnable runnable;
+
+		/** The slot of the wheel, or {@code -1} if the event is not scheduled. */
+		private int slot = -1;
+
+		/** The number of rounds of the wheel until the event is due. */
+		private long remainingRounds;
+
+		/** The previous event in the same slot. */
+		private EventIdentifier previous;
+
+		/** The next event in the same slot. */
+		private EventIdentifier next;
+
 		/**
 		 * Constructs a new event identifier for an event at the given execution
 		 * time.
@@ -284,10 +675,13 @@ public class Ticker implements Runnable {
 		 *            The execution time of the event
 		 * @param eventName
 		 *            The name of the event
+		 * @param runnable
+		 *            The runnable to execute
 		 */
-		public EventIdentifier(long executionTime, String eventName) {
+		public EventIdentifier(long executionTime, String eventName, Runnable runnable) {
 			this.executionTime = executionTime;
 			this.eventName = eventName;
+			this.runnable = runnable;
 		}
 
 		/**
@@ -319,13 +713,12 @@ public class Ticker implements Runnable {
 		}
 
 		/**
-		 * {@inheritDoc}
+		 * Returns the runnable to execute.
 		 *
-		 * @see java.lang.Comparable#compareTo(java.lang.Object)
+		 * @return The runnable of the event
 		 */
-		@Override
-		public int compareTo(EventIdentifier o) {
-			return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, executionTime - o.executionTime));
+		public Runnable getRunnable() {
+			return runnable;
 		}
 
 	}
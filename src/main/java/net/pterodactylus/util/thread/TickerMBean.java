@@ -0,0 +1,85 @@
+/*
+ * utils - TickerMBean.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.thread;
+
+import javax.management.openmbean.TabularData;
+
+/**
+ * MBean interface for {@link Ticker}. The lateness of an event is the time
+ * between its execution time and the time it actually started running, in
+ * milliseconds.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public interface TickerMBean {
+
+	/**
+	 * Returns the number of events that are registered but not yet due.
+	 *
+	 * @return The number of pending events
+	 */
+	public int getPendingEvents();
+
+	/**
+	 * Returns the number of events that have been executed.
+	 *
+	 * @return The number of executed events
+	 */
+	public long getExecutedEvents();
+
+	/**
+	 * Returns the number of times a due event was rejected by the executor.
+	 * Rejected events are retried on the next tick.
+	 *
+	 * @return The number of rejections
+	 */
+	public long getRejectedEvents();
+
+	/**
+	 * Returns the average lateness of the executed events.
+	 *
+	 * @return The average lateness (in milliseconds)
+	 */
+	public double getAverageLateness();
+
+	/**
+	 * Returns the 99th percentile of the lateness of the executed events.
+	 *
+	 * @return The 99th percentile of the lateness (in milliseconds)
+	 */
+	public long getLateness99thPercentile();
+
+	/**
+	 * Returns the largest lateness of an executed event.
+	 *
+	 * @return The maximum lateness (in milliseconds)
+	 */
+	public long getMaximumLateness();
+
+	/**
+	 * Returns the execution times of the executed events, with one row per
+	 * event name prefix (see {@link Ticker#getEventPrefix(String)}). Every
+	 * row contains the prefix, the number of events, and the average,
+	 * median, 99th percentile, and maximum execution time (in
+	 * microseconds).
+	 *
+	 * @return The execution times by event name prefix
+	 */
+	public TabularData getExecutionTimes();
+
+}
@@ -42,6 +42,9 @@ import org.w3c.dom.Text;
  * SimpleXML is a helper class to construct XML trees in a fast and simple way.
  * Construct a new XML tree by calling {@link #SimpleXML(String)} and append new
  * nodes by calling {@link #append(String)}.
+ * <p>
+ * A tree may be searched by several threads at the same time as long as no
+ * thread modifies it; modifications have to be synchronized externally.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
@@ -50,11 +53,22 @@ public class SimpleXML {
 	/** Logger. */
 	private static final Logger logger = Logging.getLogger(SimpleXML.class.getName());
 
+	/** The number of child nodes above which child nodes are indexed. */
+	private static final int INDEX_THRESHOLD = 8;
+
 	/**
 	 * A {@link List} containing all child nodes of this node.
 	 */
 	private List<SimpleXML> children = new ArrayList<SimpleXML>();
 
+	/**
+	 * The child nodes of this node, indexed by their names. The index is only
+	 * created when a node with many child nodes is searched, and it is
+	 * completely built before it is published so that threads that only
+	 * search this node never see a partially filled index.
+	 */
+	private volatile Map<String, List<SimpleXML>> childIndex = null;
+
 	/**
 	 * The name of this node.
 	 */
@@ -224,6 +238,11 @@ public class SimpleXML {
 	 *         with the specified name
 	 */
 	public SimpleXML getNode(String nodeName) {
+		Map<String, List<SimpleXML>> childIndex = getChildIndex();
+		if (childIndex != null) {
+			List<SimpleXML> indexedChildren = childIndex.get(nodeName);
+			return (indexedChildren == null) ? null : indexedChildren.get(0);
+		}
 		for (int index = 0, count = children.size(); index < count; index++) {
 			if (children.get(index).name.equals(nodeName)) {
 				return children.get(index);
@@ -251,9 +270,34 @@ public class SimpleXML {
 	 *         the specified node does not eixst
 	 */
 	public SimpleXML getNode(String[] nodeNames) {
+		return getNode(nodeNames, false);
+	}
+
+	/**
+	 * Returns the child node that is specified by the names, optionally
+	 * creating all nodes that do not exist yet.
+	 *
+	 * @see #getNode(String[])
+	 * @param nodeNames
+	 *            The names of the nodes
+	 * @param create
+	 *            {@code true} to append missing nodes, {@code false} to return
+	 *            {@code null} if a node does not exist
+	 * @return A node that is a deep child of this node, or <code>null</code> if
+	 *         the specified node does not exist and {@code create} is
+	 *         {@code false}
+	 */
+	public SimpleXML getNode(String[] nodeNames, boolean create) {
 		SimpleXML node = this;
 		for (String nodeName : nodeNames) {
-			node = node.getNode(nodeName);
+			SimpleXML childNode = node.getNode(nodeName);
+			if (childNode == null) {
+				if (!create) {
+					return null;
+				}
+				childNode = node.append(nodeName);
+			}
+			node = childNode;
 		}
 		return node;
 	}
@@ -277,9 +321,17 @@ public class SimpleXML {
 	 * @return All child nodes with the specified name
 	 */
 	public SimpleXML[] getNodes(String nodeName) {
+		if (nodeName == null) {
+			return children.toArray(new SimpleXML[children.size()]);
+		}
+		Map<String, List<SimpleXML>> childIndex = getChildIndex();
+		if (childIndex != null) {
+			List<SimpleXML> indexedChildren = childIndex.get(nodeName);
+			return (indexedChildren == null) ? new SimpleXML[0] : indexedChildren.toArray(new SimpleXML[indexedChildren.size()]);
+		}
 		List<SimpleXML> resultList = new ArrayList<SimpleXML>();
 		for (SimpleXML child : children) {
-			if ((nodeName == null) || child.name.equals(nodeName)) {
+			if (child.name.equals(nodeName)) {
 				resultList.add(child);
 			}
 		}
@@ -328,6 +380,10 @@ public class SimpleXML {
 	 */
 	public SimpleXML append(SimpleXML newChild) {
 		children.add(newChild);
+		Map<String, List<SimpleXML>> childIndex = this.childIndex;
+		if (childIndex != null) {
+			addToChildIndex(childIndex, newChild);
+		}
 		return newChild;
 	}
 
@@ -338,7 +394,14 @@ public class SimpleXML {
 	 *            The child to remove
 	 */
 	public void remove(SimpleXML child) {
-		children.remove(child);
+		Map<String, List<SimpleXML>> childIndex = this.childIndex;
+		if (children.remove(child) && (childIndex != null)) {
+			List<SimpleXML> indexedChildren = childIndex.get(child.name);
+			indexedChildren.remove(child);
+			if (indexedChildren.isEmpty()) {
+				childIndex.remove(child.name);
+			}
+		}
 	}
 
 	/**
@@ -386,6 +449,7 @@ public class SimpleXML {
 	 */
 	public void removeAll() {
 		children.clear();
+		childIndex = null;
 	}
 
 	/**
@@ -452,6 +516,31 @@ public class SimpleXML {
 		return (childNode.getValue() == null) ? defaultValue : childNode.getValue();
 	}
 
+	/**
+	 * Splits the given path into the names of the nodes it consists of. The
+	 * names in the path can be separated by a pipe character (“|”) or a slash
+	 * (“/”); empty names are ignored. The result can be used with
+	 * {@link #getNode(String[])} and {@link #getNode(String[], boolean)}, so
+	 * that paths that are looked up often only have to be split once.
+	 *
+	 * @param path
+	 *            The path to split
+	 * @return The names of the nodes in the path
+	 */
+	public static String[] splitPath(String path) {
+		List<String> nodeNames = new ArrayList<String>();
+		int start = 0;
+		for (int index = 0, length = path.length(); index <= length; index++) {
+			if ((index == length) || (path.charAt(index) == '|') || (path.charAt(index) == '/')) {
+				if (index > start) {
+					nodeNames.add(path.substring(start, index));
+				}
+				start = index + 1;
+			}
+		}
+		return nodeNames.toArray(new String[nodeNames.size()]);
+	}
+
 	/**
 	 * Creates a {@link Document} from this node and all its child nodes.
 	 *
@@ -475,6 +564,42 @@ public class SimpleXML {
 		return null;
 	}
 
+	/**
+	 * Returns the index of the child nodes, creating it if this node has
+	 * enough child nodes.
+	 *
+	 * @return The index of the child nodes, or {@code null} if this node has
+	 *         too few child nodes to be indexed
+	 */
+	private Map<String, List<SimpleXML>> getChildIndex() {
+		Map<String, List<SimpleXML>> childIndex = this.childIndex;
+		if ((childIndex == null) && (children.size() > INDEX_THRESHOLD)) {
+			childIndex = new HashMap<String, List<SimpleXML>>();
+			for (SimpleXML child : children) {
+				addToChildIndex(childIndex, child);
+			}
+			this.childIndex = childIndex;
+		}
+		return childIndex;
+	}
+
+	/**
+	 * Adds the given child node to the given index of the child nodes.
+	 *
+	 * @param childIndex
+	 *            The index to add the child node to
+	 * @param child
+	 *            The child node to add
+	 */
+	private static void addToChildIndex(Map<String, List<SimpleXML>> childIndex, SimpleXML child) {
+		List<SimpleXML> indexedChildren = childIndex.get(child.name);
+		if (indexedChildren == null) {
+			indexedChildren = new ArrayList<SimpleXML>(1);
+			childIndex.put(child.name, indexedChildren);
+		}
+		indexedChildren.add(child);
+	}
+
 	/**
 	 * Appends all children of this node to the specified {@link Element}. If a
 	 * node has a value that is not <code>null</code> the value is appended as a
@@ -0,0 +1,45 @@
+/*
+ * utils - SimpleXMLListener.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.xml;
+
+import java.util.EventListener;
+
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * Listener for nodes that are read by
+ * {@link SimpleXMLReader#stream(java.io.Reader, int, SimpleXMLListener)}.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public interface SimpleXMLListener extends EventListener {
+
+	/**
+	 * Notifies a listener that a node has been read completely.
+	 *
+	 * @param path
+	 *            The names of the ancestors of the node, starting with the
+	 *            name of the root node
+	 * @param node
+	 *            The node that was read, including all its child nodes
+	 * @throws XMLStreamException
+	 *             if the listener wants to abort reading the document
+	 */
+	public void nodeRead(String[] path, SimpleXML node) throws XMLStreamException;
+
+}
@@ -0,0 +1,291 @@
+/*
+ * utils - SimpleXMLReader.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.xml;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads {@link SimpleXML} trees directly from a stream using StAX, without
+ * creating a DOM {@link org.w3c.dom.Document} first. Nodes are created the
+ * same way as by {@link SimpleXML#fromDocument(org.w3c.dom.Document)}: an
+ * element that only contains text becomes a node with a value, all other
+ * elements become nodes with child nodes, and comments, processing
+ * instructions, and whitespace between elements are ignored. Unlike the DOM
+ * path, CDATA sections are treated as text.
+ * <p>
+ * Documents that are too large to keep in memory can be processed node by
+ * node using {@link #stream(Reader, int, SimpleXMLListener)}.
+ * <p>
+ * All methods of this class can be called from multiple threads at the same
+ * time.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class SimpleXMLReader {
+
+	/** The input factory. */
+	private static final XMLInputFactory inputFactory = createInputFactory();
+
+	/**
+	 * Reads a complete document from the given input stream.
+	 *
+	 * @param inputStream
+	 *            The input stream to read the document from
+	 * @return The root node of the document
+	 * @throws XMLStreamException
+	 *             if the document can not be read or parsed
+	 */
+	public static SimpleXML read(InputStream inputStream) throws XMLStreamException {
+		return read(createStreamReader(inputStream));
+	}
+
+	/**
+	 * Reads a complete document from the given reader.
+	 *
+	 * @param reader
+	 *            The reader to read the document from
+	 * @return The root node of the document
+	 * @throws XMLStreamException
+	 *             if the document can not be read or parsed
+	 */
+	public static SimpleXML read(Reader reader) throws XMLStreamException {
+		return read(createStreamReader(reader));
+	}
+
+	/**
+	 * Reads a document from the given input stream and notifies the given
+	 * listener about every node at the given depth.
+	 *
+	 * @see #stream(Reader, int, SimpleXMLListener)
+	 * @param inputStream
+	 *            The input stream to read the document from
+	 * @param depth
+	 *            The depth of the nodes to notify the listener about
+	 * @param simpleXMLListener
+	 *            The listener to notify
+	 * @throws XMLStreamException
+	 *             if the document can not be read or parsed, or the listener
+	 *             throws an exception
+	 */
+	public static void stream(InputStream inputStream, int depth, SimpleXMLListener simpleXMLListener) throws XMLStreamException {
+		stream(createStreamReader(inputStream), depth, simpleXMLListener);
+	}
+
+	/**
+	 * Reads a document from the given reader and notifies the given listener
+	 * about every node at the given depth. The root node has a depth of
+	 * {@code 0}, its child nodes have a depth of {@code 1}, and so on. Only
+	 * one node at the given depth (including its child nodes) is kept in
+	 * memory at any time; the nodes above the given depth are not created at
+	 * all.
+	 *
+	 * @param reader
+	 *            The reader to read the document from
+	 * @param depth
+	 *            The depth of the nodes to notify the listener about
+	 * @param simpleXMLListener
+	 *            The listener to notify
+	 * @throws XMLStreamException
+	 *             if the document can not be read or parsed, or the listener
+	 *             throws an exception
+	 */
+	public static void stream(Reader reader, int depth, SimpleXMLListener simpleXMLListener) throws XMLStreamException {
+		stream(createStreamReader(reader), depth, simpleXMLListener);
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Creates the input factory.
+	 *
+	 * @return The input factory
+	 */
+	private static XMLInputFactory createInputFactory() {
+		XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+		inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+		inputFactory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		return inputFactory;
+	}
+
+	/**
+	 * Creates a stream reader for the given input stream.
+	 *
+	 * @param inputStream
+	 *            The input stream to read from
+	 * @return The stream reader
+	 * @throws XMLStreamException
+	 *             if the stream reader can not be created
+	 */
+	private static XMLStreamReader createStreamReader(InputStream inputStream) throws XMLStreamException {
+		synchronized (inputFactory) {
+			return inputFactory.createXMLStreamReader(inputStream);
+		}
+	}
+
+	/**
+	 * Creates a stream reader for the given reader.
+	 *
+	 * @param reader
+	 *            The reader to read from
+	 * @return The stream reader
+	 * @throws XMLStreamException
+	 *             if the stream reader can not be created
+	 */
+	private static XMLStreamReader createStreamReader(Reader reader) throws XMLStreamException {
+		synchronized (inputFactory) {
+			return inputFactory.createXMLStreamReader(reader);
+		}
+	}
+
+	/**
+	 * Reads the complete document from the given stream reader and closes the
+	 * stream reader.
+	 *
+	 * @param streamReader
+	 *            The stream reader to read from
+	 * @return The root node of the document
+	 * @throws XMLStreamException
+	 *             if the document can not be read or parsed
+	 */
+	private static SimpleXML read(XMLStreamReader streamReader) throws XMLStreamException {
+		try {
+			streamReader.nextTag();
+			return readNode(streamReader);
+		} finally {
+			streamReader.close();
+		}
+	}
+
+	/**
+	 * Reads the document from the given stream reader, notifies the listener
+	 * about every node at the given depth, and closes the stream reader.
+	 *
+	 * @param streamReader
+	 *            The stream reader to read from
+	 * @param depth
+	 *            The depth of the nodes to notify the listener about
+	 * @param simpleXMLListener
+	 *            The listener to notify
+	 * @throws XMLStreamException
+	 *             if the document can not be read or parsed, or the listener
+	 *             throws an exception
+	 */
+	private static void stream(XMLStreamReader streamReader, int depth, SimpleXMLListener simpleXMLListener) throws XMLStreamException {
+		try {
+			List<String> path = new ArrayList<String>();
+			while (streamReader.hasNext()) {
+				int event = streamReader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					if (path.size() == depth) {
+						SimpleXML node = readNode(streamReader);
+						simpleXMLListener.nodeRead(path.toArray(new String[path.size()]), node);
+					} else {
+						path.add(streamReader.getLocalName());
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					path.remove(path.size() - 1);
+				}
+			}
+		} finally {
+			streamReader.close();
+		}
+	}
+
+	/**
+	 * Reads the node that starts at the current element of the given stream
+	 * reader. When this method returns, the stream reader is positioned at
+	 * the end of the element.
+	 *
+	 * @param streamReader
+	 *            The stream reader, positioned at the start of an element
+	 * @return The node that was read
+	 * @throws XMLStreamException
+	 *             if the node can not be read or parsed
+	 */
+	private static SimpleXML readNode(XMLStreamReader streamReader) throws XMLStreamException {
+		List<SimpleXML> nodes = new ArrayList<SimpleXML>();
+		List<StringBuilder> texts = new ArrayList<StringBuilder>();
+		SimpleXML rootNode = createNode(streamReader);
+		nodes.add(rootNode);
+		texts.add(null);
+		while (!nodes.isEmpty()) {
+			int event = streamReader.next();
+			int current = nodes.size() - 1;
+			switch (event) {
+				case XMLStreamConstants.START_ELEMENT:
+					nodes.add(nodes.get(current).append(createNode(streamReader)));
+					texts.set(current, null);
+					texts.add(null);
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+				case XMLStreamConstants.SPACE:
+					if (!nodes.get(current).hasNodes()) {
+						if (texts.get(current) == null) {
+							texts.set(current, new StringBuilder());
+						}
+						texts.get(current).append(streamReader.getText());
+					}
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					if (texts.get(current) != null) {
+						nodes.get(current).setValue(texts.get(current).toString());
+					}
+					nodes.remove(current);
+					texts.remove(current);
+					break;
+				default:
+					/* ignore comments and processing instructions. */
+					break;
+			}
+		}
+		return rootNode;
+	}
+
+	/**
+	 * Creates a node with the name and the attributes of the current element
+	 * of the given stream reader.
+	 *
+	 * @param streamReader
+	 *            The stream reader, positioned at the start of an element
+	 * @return The new node
+	 */
+	private static SimpleXML createNode(XMLStreamReader streamReader) {
+		SimpleXML node = new SimpleXML(streamReader.getLocalName());
+		for (int attributeIndex = 0, attributeCount = streamReader.getAttributeCount(); attributeIndex < attributeCount; attributeIndex++) {
+			String prefix = streamReader.getAttributePrefix(attributeIndex);
+			String localName = streamReader.getAttributeLocalName(attributeIndex);
+			String attributeName = ((prefix == null) || (prefix.length() == 0)) ? localName : (prefix + ":" + localName);
+			node.setAttribute(attributeName, streamReader.getAttributeValue(attributeIndex));
+		}
+		return node;
+	}
+
+}
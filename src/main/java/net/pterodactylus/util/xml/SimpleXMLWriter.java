@@ -0,0 +1,139 @@
+/*
+ * utils - SimpleXMLWriter.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.xml;
+
+import java.io.Writer;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Writes {@link SimpleXML} trees directly to a {@link Writer} using StAX,
+ * without creating a DOM {@link org.w3c.dom.Document} first. Nodes are
+ * written the same way as by {@link SimpleXML#getDocument()}: a node that has
+ * a value is written with its value as text, all other nodes are written with
+ * their child nodes.
+ * <p>
+ * All methods of this class can be called from multiple threads at the same
+ * time.
+ *
+ * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
+ */
+public class SimpleXMLWriter {
+
+	/** The output factory. */
+	private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+
+	/**
+	 * Writes the given node and all its child nodes to the given writer,
+	 * including the XML header.
+	 *
+	 * @param node
+	 *            The node to write
+	 * @param writer
+	 *            The writer to write the node to
+	 * @throws XMLStreamException
+	 *             if the node can not be written
+	 */
+	public static void write(SimpleXML node, Writer writer) throws XMLStreamException {
+		write(node, writer, true);
+	}
+
+	/**
+	 * Writes the given node and all its child nodes to the given writer. The
+	 * writer is flushed but not closed.
+	 *
+	 * @param node
+	 *            The node to write
+	 * @param writer
+	 *            The writer to write the node to
+	 * @param preamble
+	 *            <code>true</code> to include the XML header,
+	 *            <code>false</code> to not include it
+	 * @throws XMLStreamException
+	 *             if the node can not be written
+	 */
+	public static void write(SimpleXML node, Writer writer, boolean preamble) throws XMLStreamException {
+		XMLStreamWriter streamWriter;
+		synchronized (outputFactory) {
+			streamWriter = outputFactory.createXMLStreamWriter(writer);
+		}
+		try {
+			if (preamble) {
+				streamWriter.writeStartDocument("UTF-8", "1.0");
+			}
+			writeNode(streamWriter, node);
+			streamWriter.writeEndDocument();
+			streamWriter.flush();
+		} finally {
+			streamWriter.close();
+		}
+	}
+
+	//
+	// PRIVATE METHODS
+	//
+
+	/**
+	 * Writes the given node and all its child nodes to the given stream
+	 * writer.
+	 *
+	 * @param streamWriter
+	 *            The stream writer to write to
+	 * @param node
+	 *            The node to write
+	 * @throws XMLStreamException
+	 *             if the node can not be written
+	 */
+	private static void writeNode(XMLStreamWriter streamWriter, SimpleXML node) throws XMLStreamException {
+		SimpleXML[] childNodes = node.getNodes();
+		if ((node.getValue() == null) && (childNodes.length == 0)) {
+			streamWriter.writeEmptyElement(node.getName());
+			writeAttributes(streamWriter, node);
+			return;
+		}
+		streamWriter.writeStartElement(node.getName());
+		writeAttributes(streamWriter, node);
+		if (node.getValue() != null) {
+			streamWriter.writeCharacters(node.getValue());
+		} else {
+			for (SimpleXML childNode : childNodes) {
+				writeNode(streamWriter, childNode);
+			}
+		}
+		streamWriter.writeEndElement();
+	}
+
+	/**
+	 * Writes the attributes of the given node to the given stream writer.
+	 *
+	 * @param streamWriter
+	 *            The stream writer to write to
+	 * @param node
+	 *            The node whose attributes to write
+	 * @throws XMLStreamException
+	 *             if the attributes can not be written
+	 */
+	private static void writeAttributes(XMLStreamWriter streamWriter, SimpleXML node) throws XMLStreamException {
+		for (String attributeName : node.getAttributeNames()) {
+			streamWriter.writeAttribute(attributeName, node.getAttribute(attributeName));
+		}
+	}
+
+}
@@ -52,6 +52,8 @@ import org.xml.sax.SAXParseException;
 
 /**
  * Contains method to transform DOM XML trees to byte arrays and vice versa.
+ * All methods of this class can be called from multiple threads at the same
+ * time; every thread uses its own document builder and transformer.
  *
  * @author <a href="mailto:bombe@pterodactylus.net">David ‘Bombe’ Roden</a>
  */
@@ -61,25 +63,43 @@ public class XML {
 	private static final Logger logger = Logging.getLogger(XML.class.getName());
 
 	/** Cached document builder factory. */
-	private static DocumentBuilderFactory documentBuilderFactory = null;
-
-	/** Cached document builder. */
-	private static DocumentBuilder documentBuilder = null;
+	private static final DocumentBuilderFactory documentBuilderFactory = createDocumentBuilderFactory();
 
 	/** Cached transformer factory. */
-	private static TransformerFactory transformerFactory = null;
+	private static final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+
+	/** The error handler that ignores all parse errors. */
+	private static final ErrorHandler ignoringErrorHandler = new ErrorHandler() {
+
+		@Override
+		public void warning(SAXParseException exception) {
+			/* ignore. */
+		}
+
+		@Override
+		public void error(SAXParseException exception) {
+			/* ignore. */
+		}
+
+		@Override
+		public void fatalError(SAXParseException exception) {
+			/* ignore. */
+		}
+	};
+
+	/** The document builders, one per thread. */
+	private static final ThreadLocal<DocumentBuilder> documentBuilders = new ThreadLocal<DocumentBuilder>();
+
+	/** The transformers, one per thread. */
+	private static final ThreadLocal<Transformer> transformers = new ThreadLocal<Transformer>();
 
 	/**
-	 * Returns a document builder factory. If possible the cached instance will
-	 * be returned.
+	 * Creates the document builder factory.
 	 *
 	 * @return A document builder factory
 	 */
-	private static DocumentBuilderFactory getDocumentBuilderFactory() {
-		if (documentBuilderFactory != null) {
-			return documentBuilderFactory;
-		}
-		documentBuilderFactory = DocumentBuilderFactory.newInstance();
+	private static DocumentBuilderFactory createDocumentBuilderFactory() {
+		DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
 		documentBuilderFactory.setXIncludeAware(true);
 		documentBuilderFactory.setNamespaceAware(true);
 		try {
@@ -91,35 +111,77 @@ public class XML {
 	}
 
 	/**
-	 * Returns a document builder. If possible the cached instance will be
-	 * returned.
+	 * Creates a new document builder.
 	 *
-	 * @return A document builder
+	 * @return A new document builder, or {@code null} if the document builder
+	 *         can not be created
 	 */
-	private static DocumentBuilder getDocumentBuilder() {
-		if (documentBuilder != null) {
-			return documentBuilder;
-		}
+	private static DocumentBuilder createDocumentBuilder() {
 		try {
-			documentBuilder = getDocumentBuilderFactory().newDocumentBuilder();
+			synchronized (documentBuilderFactory) {
+				return documentBuilderFactory.newDocumentBuilder();
+			}
 		} catch (ParserConfigurationException pce1) {
 			logger.log(Level.WARNING, "Could not create DocumentBuilder.", pce1);
 		}
+		return null;
+	}
+
+	/**
+	 * Creates a new identity transformer.
+	 *
+	 * @return A new transformer, or {@code null} if the transformer can not be
+	 *         created
+	 */
+	private static Transformer createTransformer() {
+		try {
+			synchronized (transformerFactory) {
+				return transformerFactory.newTransformer();
+			}
+		} catch (TransformerConfigurationException tce1) {
+			logger.log(Level.WARNING, "Could not create Transformer.", tce1);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the document builder of the current thread. Document builders
+	 * are not thread-safe, so every thread uses its own document builder. If
+	 * the document builder can not be created, creating it is tried again on
+	 * the next call.
+	 *
+	 * @return A document builder, or {@code null} if the document builder can
+	 *         not be created
+	 */
+	private static DocumentBuilder getDocumentBuilder() {
+		DocumentBuilder documentBuilder = documentBuilders.get();
+		if (documentBuilder == null) {
+			documentBuilder = createDocumentBuilder();
+			if (documentBuilder != null) {
+				documentBuilders.set(documentBuilder);
+			}
+		}
 		return documentBuilder;
 	}
 
 	/**
-	 * Returns a transformer factory. If possible the cached instance will be
-	 * returned.
+	 * Returns the transformer of the current thread. Transformers are not
+	 * thread-safe, so every thread uses its own transformer. If the
+	 * transformer can not be created, creating it is tried again on the next
+	 * call.
 	 *
-	 * @return A transformer factory
+	 * @return A transformer, or {@code null} if the transformer can not be
+	 *         created
 	 */
-	private static TransformerFactory getTransformerFactory() {
-		if (transformerFactory != null) {
-			return transformerFactory;
+	private static Transformer getTransformer() {
+		Transformer transformer = transformers.get();
+		if (transformer == null) {
+			transformer = createTransformer();
+			if (transformer != null) {
+				transformers.set(transformer);
+			}
 		}
-		transformerFactory = TransformerFactory.newInstance();
-		return transformerFactory;
+		return transformer;
 	}
 
 	/**
@@ -181,12 +243,14 @@ public class XML {
 	public static void writeToOutputStream(Document document, Writer writer, boolean preamble) {
 		Result transformResult = new StreamResult(writer);
 		Source documentSource = new DOMSource(document);
+		Transformer transformer = getTransformer();
+		if (transformer == null) {
+			return;
+		}
 		try {
-			Transformer transformer = getTransformerFactory().newTransformer();
+			transformer.reset();
 			transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, preamble ? "no" : "yes");
 			transformer.transform(documentSource, transformResult);
-		} catch (TransformerConfigurationException tce1) {
-			logger.log(Level.WARNING, "Could create Transformer.", tce1);
 		} catch (TransformerException te1) {
 			logger.log(Level.WARNING, "Could not transform Document.", te1);
 		}
@@ -233,24 +297,13 @@ public class XML {
 	 * @return The DOM XML document
 	 */
 	public static Document transformToDocument(InputSource inputSource) {
+		DocumentBuilder documentBuilder = getDocumentBuilder();
+		if (documentBuilder == null) {
+			return null;
+		}
 		try {
-			DocumentBuilder documentBuilder = getDocumentBuilder();
-			documentBuilder.setErrorHandler(new ErrorHandler() {
-				@Override
-				public void warning(SAXParseException exception) {
-					/* ignore. */
-				}
-
-				@Override
-				public void error(SAXParseException exception) {
-					/* ignore. */
-				}
-
-				@Override
-				public void fatalError(SAXParseException exception) {
-					/* ignore. */
-				}
-			});
+			documentBuilder.reset();
+			documentBuilder.setErrorHandler(ignoringErrorHandler);
 			return documentBuilder.parse(inputSource);
 		} catch (SAXException saxe1) {
 			logger.log(Level.WARNING, "Could not parse InputSource.", saxe1);
@@ -0,0 +1,106 @@
+/*
+ * utils - CachingConfigurationBackendTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link CachingConfigurationBackend}.
+ */
+public class CachingConfigurationBackendTest {
+
+	@Test
+	public void valuesAreOnlyReadOnce() throws ConfigurationException {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("a", "1");
+		final AtomicInteger reads = new AtomicInteger();
+		CachingConfigurationBackend cachingBackend = new CachingConfigurationBackend(new MapConfigurationBackend(values) {
+
+			@Override
+			public String getValue(String attribute) throws ConfigurationException {
+				reads.incrementAndGet();
+				return super.getValue(attribute);
+			}
+		});
+		assertThat(cachingBackend.getValue("a"), equalTo("1"));
+		assertThat(cachingBackend.getValue("a"), equalTo("1"));
+		assertThat(reads.get(), equalTo(1));
+	}
+
+	@Test
+	public void valuePutDuringReadIsNotReplacedByReadValue() throws ConfigurationException {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("a", "1");
+		final AtomicReference<CachingConfigurationBackend> cachingBackend = new AtomicReference<CachingConfigurationBackend>();
+		cachingBackend.set(new CachingConfigurationBackend(new MapConfigurationBackend(values) {
+
+			@Override
+			public String getValue(String attribute) throws ConfigurationException {
+				String value = super.getValue(attribute);
+				if ("1".equals(value)) {
+					cachingBackend.get().putValue(attribute, "2");
+				}
+				return value;
+			}
+		}));
+		assertThat(cachingBackend.get().getValue("a"), equalTo("2"));
+		assertThat(cachingBackend.get().getValue("a"), equalTo("2"));
+	}
+
+	@Test
+	public void nullValuesAreCached() throws ConfigurationException {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("a", null);
+		final AtomicInteger reads = new AtomicInteger();
+		CachingConfigurationBackend cachingBackend = new CachingConfigurationBackend(new MapConfigurationBackend(values) {
+
+			@Override
+			public String getValue(String attribute) throws ConfigurationException {
+				reads.incrementAndGet();
+				return super.getValue(attribute);
+			}
+		});
+		assertThat(cachingBackend.getValue("a"), nullValue());
+		assertThat(cachingBackend.getValue("a"), nullValue());
+		assertThat(reads.get(), equalTo(1));
+	}
+
+	@Test
+	public void changesOfObservableBackendAreNotHiddenByCache() throws ConfigurationException {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("a", "1");
+		MapConfigurationBackend realBackend = new MapConfigurationBackend(values);
+		CachingConfigurationBackend cachingBackend = new CachingConfigurationBackend(realBackend);
+		assertThat(cachingBackend.getValue("a"), equalTo("1"));
+		realBackend.putValue("a", "2");
+		assertThat(cachingBackend.getValue("a"), equalTo("2"));
+		cachingBackend.close();
+		realBackend.putValue("a", "3");
+		assertThat(cachingBackend.getValue("a"), equalTo("3"));
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * utils - ConfigurationTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link Configuration}.
+ */
+public class ConfigurationTest {
+
+	@Test
+	public void parsedValuesAreCachedUntilBackendChanges() throws ConfigurationException {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("a", "1");
+		final AtomicInteger reads = new AtomicInteger();
+		MapConfigurationBackend backend = new MapConfigurationBackend(values) {
+
+			@Override
+			public String getValue(String attribute) throws ConfigurationException {
+				reads.incrementAndGet();
+				return super.getValue(attribute);
+			}
+		};
+		Configuration configuration = new Configuration(backend);
+		Value<Integer> value = configuration.getIntValue("a");
+		assertThat(configuration.getIntValue("a"), sameInstance(value));
+		assertThat(value.getValue(), equalTo(1));
+		assertThat(value.getValue(), equalTo(1));
+		assertThat(reads.get(), equalTo(1));
+		backend.putValue("a", "2");
+		assertThat(value.getValue(), equalTo(2));
+		value.setValue(3);
+		assertThat(value.getValue(), equalTo(3));
+		assertThat(reads.get(), equalTo(3));
+	}
+
+	@Test
+	public void valuesOfUnobservableBackendAreNotCached() throws ConfigurationException {
+		final Map<String, String> values = new HashMap<String, String>();
+		values.put("a", "true");
+		Configuration configuration = new Configuration(new ConfigurationBackend() {
+
+			@Override
+			public String getValue(String attribute) {
+				return values.get(attribute);
+			}
+
+			@Override
+			public void putValue(String attribute, String value) {
+				values.put(attribute, value);
+			}
+
+			@Override
+			public void save() {
+				/* do nothing. */
+			}
+		});
+		Value<Boolean> value = configuration.getBooleanValue("a");
+		assertThat(value.getValue(), equalTo(true));
+		values.put("a", "off");
+		assertThat(value.getValue(), equalTo(false));
+		values.put("a", null);
+		assertThat(value.getValue(true), equalTo(true));
+	}
+
+	@Test
+	public void closedConfigurationRemovesListenerAndStopsCaching() throws ConfigurationException {
+		Map<String, String> values = new HashMap<String, String>();
+		values.put("a", "1");
+		final AtomicInteger listeners = new AtomicInteger();
+		MapConfigurationBackend backend = new MapConfigurationBackend(values) {
+
+			@Override
+			public void addConfigurationListener(ConfigurationListener configurationListener) {
+				listeners.incrementAndGet();
+				super.addConfigurationListener(configurationListener);
+			}
+
+			@Override
+			public void removeConfigurationListener(ConfigurationListener configurationListener) {
+				listeners.decrementAndGet();
+				super.removeConfigurationListener(configurationListener);
+			}
+		};
+		Configuration configuration = new Configuration(backend);
+		Value<Integer> value = configuration.getIntValue("a");
+		assertThat(value.getValue(), equalTo(1));
+		assertThat(listeners.get(), equalTo(1));
+		configuration.close();
+		assertThat(listeners.get(), equalTo(0));
+		backend.putValue("a", "2");
+		assertThat(value.getValue(), equalTo(2));
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * utils - WriteBehindSaverTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link WriteBehindSaver}.
+ */
+public class WriteBehindSaverTest {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void replacedFileHasNewContentAndNoTemporaryFileIsLeft() throws IOException {
+		File file = temporaryFolder.newFile("a");
+		WriteBehindSaver.replaceFile(file, new byte[] { 1, 2 });
+		WriteBehindSaver.replaceFile(file, new byte[] { 3 });
+		assertThat(Files.readAllBytes(file.toPath()), equalTo(new byte[] { 3 }));
+		assertThat(temporaryFolder.getRoot().list(), arrayContaining("a"));
+	}
+
+}
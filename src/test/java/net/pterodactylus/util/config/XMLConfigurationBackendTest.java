@@ -0,0 +1,149 @@
+/*
+ * utils - XMLConfigurationBackendTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link XMLConfigurationBackend}.
+ */
+public class XMLConfigurationBackendTest {
+
+	private File configurationFile;
+
+	@Before
+	public void createConfigurationFile() throws IOException {
+		configurationFile = File.createTempFile("config-", ".xml");
+		writeConfigurationFile("<config><a><b>1</b><c>2</c></a></config>");
+	}
+
+	@After
+	public void deleteConfigurationFile() {
+		configurationFile.delete();
+	}
+
+	@Test
+	public void valuesAreReadWithAnySeparator() throws ConfigurationException {
+		XMLConfigurationBackend backend = new XMLConfigurationBackend(configurationFile, false, 0);
+		assertThat(backend.getValue("a/b"), equalTo("1"));
+		assertThat(backend.getValue("a|c"), equalTo("2"));
+		assertThat(backend.getValue("a"), nullValue());
+		try {
+			backend.getValue("a/d");
+			fail();
+		} catch (AttributeNotFoundException anfe1) {
+			/* expected. */
+		}
+	}
+
+	@Test
+	public void putValueNotifiesListenersAndIsWritten() throws ConfigurationException {
+		XMLConfigurationBackend backend = new XMLConfigurationBackend(configurationFile, false, 0);
+		final Set<String> changedAttributes = new HashSet<String>();
+		backend.addConfigurationListener(new ConfigurationListener() {
+
+			@Override
+			public void attributesChanged(ConfigurationBackend configurationBackend, Set<String> attributes) {
+				changedAttributes.addAll(attributes);
+			}
+		});
+		backend.putValue("x|y", "3");
+		backend.putValue("a/b", "1");
+		assertThat(changedAttributes, containsInAnyOrder("x", "x/y"));
+		assertThat(backend.getValue("x/y"), equalTo("3"));
+		backend.save();
+		assertThat(new XMLConfigurationBackend(configurationFile, false, 0).getValue("x/y"), equalTo("3"));
+	}
+
+	@Test
+	public void valuesAreWrittenTogetherAfterWriteDelay() throws ConfigurationException, InterruptedException {
+		XMLConfigurationBackend backend = new XMLConfigurationBackend(configurationFile, false, 0, 2000);
+		for (int index = 0; index < 100; index++) {
+			backend.putValue("values/value" + index, String.valueOf(index));
+		}
+		assertThat(new XMLConfigurationBackend(configurationFile, false, 0).getValue("a/b"), equalTo("1"));
+		try {
+			new XMLConfigurationBackend(configurationFile, false, 0).getValue("values/value99");
+			fail();
+		} catch (AttributeNotFoundException anfe1) {
+			/* expected. */
+		}
+		long timeout = System.currentTimeMillis() + 10000;
+		while (System.currentTimeMillis() < timeout) {
+			try {
+				assertThat(new XMLConfigurationBackend(configurationFile, false, 0).getValue("values/value99"), equalTo("99"));
+				return;
+			} catch (AttributeNotFoundException anfe1) {
+				Thread.sleep(50);
+			}
+		}
+		fail();
+	}
+
+	@Test
+	public void modifiedFileIsReloaded() throws ConfigurationException, IOException {
+		XMLConfigurationBackend backend = new XMLConfigurationBackend(configurationFile, false, 0);
+		final Set<String> changedAttributes = new HashSet<String>();
+		backend.addConfigurationListener(new ConfigurationListener() {
+
+			@Override
+			public void attributesChanged(ConfigurationBackend configurationBackend, Set<String> attributes) {
+				changedAttributes.addAll(attributes);
+			}
+		});
+		long lastModified = configurationFile.lastModified();
+		writeConfigurationFile("<config><a><b>5</b></a><d/></config>");
+		configurationFile.setLastModified(lastModified + 2000);
+		backend.reload();
+		assertThat(backend.getValue("a/b"), equalTo("5"));
+		assertThat(changedAttributes, containsInAnyOrder("a/b", "a/c", "d"));
+		writeConfigurationFile("<config>");
+		configurationFile.setLastModified(lastModified + 4000);
+		try {
+			backend.reload();
+			fail();
+		} catch (ConfigurationException ce1) {
+			/* expected. */
+		}
+		assertThat(backend.getValue("a/b"), equalTo("5"));
+	}
+
+	private void writeConfigurationFile(String content) throws IOException {
+		FileOutputStream fileOutputStream = new FileOutputStream(configurationFile);
+		try {
+			fileOutputStream.write(content.getBytes("UTF-8"));
+		} finally {
+			fileOutputStream.close();
+		}
+	}
+
+}
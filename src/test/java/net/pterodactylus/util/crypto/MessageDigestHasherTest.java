@@ -0,0 +1,161 @@
+/*
+ * utils - MessageDigestHasherTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.crypto;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MessageDigestHasher}.
+ */
+public class MessageDigestHasherTest {
+
+	private MessageDigestHasher hasher;
+	private File file;
+
+	@Before
+	public void setup() throws Exception {
+		hasher = new MessageDigestHasher(MessageDigest.getInstance("SHA-256"));
+		file = File.createTempFile("hasher-", ".dat");
+	}
+
+	@After
+	public void deleteFile() {
+		file.delete();
+	}
+
+	@Test
+	public void allInputsResultInTheSameHash() throws Exception {
+		byte[] data = createData(100000);
+		byte[] expectedHash = MessageDigest.getInstance("SHA-256").digest(data);
+		assertThat(hasher.hash(data), equalTo(expectedHash));
+		assertThat(hasher.hash(new ByteArrayInputStream(data)), equalTo(expectedHash));
+		ByteBuffer buffer = ByteBuffer.wrap(data);
+		assertThat(hasher.hash(buffer), equalTo(expectedHash));
+		assertThat(buffer.position(), equalTo(0));
+		assertThat(hashFile(data), equalTo(expectedHash));
+	}
+
+	@Test
+	public void largeFilesAreHashedCorrectly() throws Exception {
+		byte[] data = createData(5 * 1024 * 1024 + 17);
+		assertThat(hashFile(data), equalTo(MessageDigest.getInstance("SHA-256").digest(data)));
+	}
+
+	@Test
+	public void hasherCanBeUsedByMultipleThreads() throws Exception {
+		final byte[] data = createData(10000);
+		final byte[] expectedHash = hasher.hash(data);
+		final AtomicBoolean failed = new AtomicBoolean();
+		Thread[] threads = new Thread[4];
+		for (int threadIndex = 0; threadIndex < threads.length; threadIndex++) {
+			threads[threadIndex] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					for (int index = 0; index < 500; index++) {
+						if (!Arrays.equals(hasher.hash(data), expectedHash)) {
+							failed.set(true);
+						}
+					}
+				}
+			});
+			threads[threadIndex].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertThat(failed.get(), equalTo(false));
+	}
+
+	@Test
+	public void treeHashCombinesHashesOfChunks() throws Exception {
+		byte[] data = createData(2500);
+		writeFile(data);
+		MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+		messageDigest.update((byte) 1);
+		for (int position = 0; position < data.length; position += 1000) {
+			MessageDigest chunkDigest = MessageDigest.getInstance("SHA-256");
+			chunkDigest.update((byte) 0);
+			chunkDigest.update(data, position, Math.min(1000, data.length - position));
+			messageDigest.update(chunkDigest.digest());
+		}
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			assertThat(hasher.hashTree(randomAccessFile.getChannel(), 1000), equalTo(messageDigest.digest()));
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void treeHashWithTooManyChunksIsRejected() throws Exception {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			randomAccessFile.setLength(1L << 32);
+			hasher.hashTree(randomAccessFile.getChannel(), 1);
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	private byte[] hashFile(byte[] data) throws Exception {
+		writeFile(data);
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel fileChannel = randomAccessFile.getChannel();
+			fileChannel.position(10);
+			byte[] hash = hasher.hash(fileChannel);
+			assertThat(fileChannel.position(), equalTo(10L));
+			return hash;
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	private void writeFile(byte[] data) throws Exception {
+		FileOutputStream fileOutputStream = new FileOutputStream(file);
+		try {
+			fileOutputStream.write(data);
+		} finally {
+			fileOutputStream.close();
+		}
+	}
+
+	private static byte[] createData(int length) {
+		byte[] data = new byte[length];
+		new Random(length).nextBytes(data);
+		return data;
+	}
+
+}
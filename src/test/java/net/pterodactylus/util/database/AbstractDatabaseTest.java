@@ -0,0 +1,230 @@
+/*
+ * utils - AbstractDatabaseTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import net.pterodactylus.util.database.Parameter.LongParameter;
+import net.pterodactylus.util.database.Query.Type;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AbstractDatabase}.
+ */
+public class AbstractDatabaseTest {
+
+	private final List<String> preparedSql = new ArrayList<String>();
+	private final List<Integer> executedBatchSizes = new ArrayList<Integer>();
+	private int openedConnections;
+	private int closedConnections;
+	private int fetchSize;
+	private long nextGeneratedKey = 100;
+	private boolean generateKeys = true;
+	private final List<String> connectionCalls = new ArrayList<String>();
+	private final AbstractDatabase database = (AbstractDatabase) AbstractDatabase.fromDataSource(createDataSource());
+
+	@Test
+	public void updateBatchUsesOneStatementForSameSql() throws DatabaseException {
+		int[] updateCounts = database.updateBatch(Arrays.asList(createUpdate("A", 1), createUpdate("A", 2), createUpdate("A", 3)));
+		assertThat(openedConnections, equalTo(1));
+		assertThat(preparedSql.size(), equalTo(1));
+		assertThat(executedBatchSizes, contains(3));
+		assertThat(updateCounts.length, equalTo(3));
+		assertThat(updateCounts[2], equalTo(1));
+	}
+
+	@Test
+	public void updateBatchStartsNewStatementWhenSqlChanges() throws DatabaseException {
+		database.updateBatch(Arrays.asList(createUpdate("A", 1), createUpdate("B", 2), createUpdate("B", 3)));
+		assertThat(openedConnections, equalTo(1));
+		assertThat(preparedSql.size(), equalTo(2));
+		assertThat(executedBatchSizes, contains(1, 2));
+	}
+
+	@Test
+	public void updateBatchIsSplitAtBatchSize() throws DatabaseException {
+		database.setBatchSize(2);
+		database.updateBatch(Arrays.asList(createUpdate("A", 1), createUpdate("A", 2), createUpdate("A", 3), createUpdate("A", 4), createUpdate("A", 5)));
+		assertThat(preparedSql.size(), equalTo(1));
+		assertThat(executedBatchSizes, contains(2, 2, 1));
+	}
+
+	@Test
+	public void insertBatchReturnsGeneratedKeysOfAllBatches() throws DatabaseException {
+		database.setBatchSize(2);
+		long[] generatedKeys = database.insertBatch(Arrays.asList(createInsert(1), createInsert(2), createInsert(3)));
+		assertThat(executedBatchSizes, contains(2, 1));
+		assertThat(generatedKeys.length, equalTo(3));
+		assertThat(generatedKeys[0], equalTo(100L));
+		assertThat(generatedKeys[1], equalTo(101L));
+		assertThat(generatedKeys[2], equalTo(102L));
+	}
+
+	@Test
+	public void insertBatchReturnsMinusOneForMissingGeneratedKeys() throws DatabaseException {
+		generateKeys = false;
+		long[] generatedKeys = database.insertBatch(Arrays.asList(createInsert(1), createInsert(2)));
+		assertThat(generatedKeys.length, equalTo(2));
+		assertThat(generatedKeys[0], equalTo(-1L));
+		assertThat(generatedKeys[1], equalTo(-1L));
+	}
+
+	@Test
+	public void emptyBatchDoesNotOpenConnection() throws DatabaseException {
+		database.insertBatch(new ArrayList<Query>());
+		assertThat(openedConnections, equalTo(0));
+	}
+
+	@Test
+	public void iteratorCreatesObjectsWhileIterating() throws DatabaseException {
+		ResultIterator<Integer> results = database.iterate(new Query(Type.SELECT, "TEST"), createRowCreator(), 10);
+		assertThat(fetchSize, equalTo(10));
+		assertThat(results.next(), equalTo(1));
+		assertThat(closedConnections, equalTo(0));
+		assertThat(results.next(), equalTo(2));
+		assertThat(results.next(), equalTo(3));
+		assertThat(results.hasNext(), equalTo(false));
+		assertThat(closedConnections, equalTo(1));
+	}
+
+	@Test
+	public void iteratorWithFetchSizeDisablesAutoCommitWhileIterating() throws DatabaseException {
+		ResultIterator<Integer> results = database.iterate(new Query(Type.SELECT, "TEST"), createRowCreator(), 10);
+		assertThat(connectionCalls, contains("setAutoCommitfalse"));
+		results.close();
+		assertThat(connectionCalls, contains("setAutoCommitfalse", "commit", "setAutoCommittrue"));
+	}
+
+	@Test
+	public void iteratorWithoutFetchSizeKeepsAutoCommit() throws DatabaseException {
+		database.iterate(new Query(Type.SELECT, "TEST"), createRowCreator(), 0).close();
+		assertThat(connectionCalls.isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void closingIteratorReturnsConnection() throws DatabaseException {
+		ResultIterator<Integer> results = database.iterate(new Query(Type.SELECT, "TEST"), createRowCreator(), 0);
+		results.next();
+		results.close();
+		results.close();
+		assertThat(closedConnections, equalTo(1));
+		assertThat(results.hasNext(), equalTo(false));
+	}
+
+	private static ObjectCreator<Integer> createRowCreator() {
+		return new ObjectCreator<Integer>() {
+
+			@Override
+			public Integer createObject(ResultSet resultSet) throws SQLException {
+				return resultSet.getRow();
+			}
+		};
+	}
+
+	private static Query createInsert(long value) {
+		Query query = new Query(Type.INSERT, "TEST");
+		query.addValueField(new ValueField("A", new LongParameter(value)));
+		return query;
+	}
+
+	private static Query createUpdate(String column, long value) {
+		Query query = new Query(Type.UPDATE, "TEST");
+		query.addValueField(new ValueField(column, new LongParameter(value)));
+		return query;
+	}
+
+	private DataSource createDataSource() {
+		return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { DataSource.class }, new InvocationHandler() {
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getConnection")) {
+					openedConnections++;
+					return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, new InvocationHandler() {
+
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) {
+							if (method.getName().equals("getAutoCommit")) {
+								return true;
+							} else if (method.getName().matches("setAutoCommit|commit")) {
+								connectionCalls.add(method.getName() + ((args != null) ? args[0] : ""));
+							} else if (method.getName().equals("close")) {
+								closedConnections++;
+							} else if (method.getName().equals("prepareStatement")) {
+								preparedSql.add((String) args[0]);
+								return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class }, new TestStatement());
+							}
+							return null;
+						}
+					});
+				}
+				return null;
+			}
+		});
+	}
+
+	private class TestStatement implements InvocationHandler {
+
+		private int batchSize;
+		private int lastBatchSize;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			if (method.getName().equals("addBatch")) {
+				batchSize++;
+			} else if (method.getName().equals("executeBatch")) {
+				executedBatchSizes.add(batchSize);
+				int[] updateCounts = new int[batchSize];
+				Arrays.fill(updateCounts, 1);
+				lastBatchSize = batchSize;
+				batchSize = 0;
+				return updateCounts;
+			} else if (method.getName().equals("setFetchSize")) {
+				fetchSize = (Integer) args[0];
+			} else if (method.getName().equals("executeQuery")) {
+				return new TestResultSet(new String[] { "ID" }, new int[] { Types.INTEGER }, new Object[] { 1 }, new Object[] { 2 }, new Object[] { 3 }).createResultSet();
+			} else if (method.getName().equals("getGeneratedKeys")) {
+				Object[][] keys = new Object[generateKeys ? lastBatchSize : 0][];
+				for (int index = 0; index < keys.length; index++) {
+					keys[index] = new Object[] { nextGeneratedKey++ };
+				}
+				return new TestResultSet(new String[] { "ID" }, new int[] { Types.BIGINT }, keys).createResultSet();
+			}
+			return null;
+		}
+
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * utils - AsyncDatabaseTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.pterodactylus.util.database.Query.Type;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AsyncDatabase}.
+ */
+public class AsyncDatabaseTest {
+
+	private final Query query = new Query(Type.UPDATE, "TEST");
+
+	@Test
+	public void resultOfOperationIsReturnedByFuture() throws Exception {
+		AsyncDatabase asyncDatabase = new AsyncDatabase(createDatabase(null, 5), 2, 2);
+		assertThat(asyncDatabase.update(query).get(), equalTo(5));
+		asyncDatabase.shutdown();
+	}
+
+	@Test
+	public void databaseExceptionIsCauseOfExecutionException() throws Exception {
+		AsyncDatabase asyncDatabase = new AsyncDatabase(createDatabase(null, new DatabaseException("test")), 1, 1);
+		try {
+			asyncDatabase.update(query).get();
+			fail();
+		} catch (ExecutionException ee1) {
+			assertThat(ee1.getCause(), instanceOf(DatabaseException.class));
+		}
+		asyncDatabase.shutdown();
+	}
+
+	@Test
+	public void submittingBlocksWhileQueueIsFull() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AsyncDatabase asyncDatabase = new AsyncDatabase(createDatabase(latch, 1), 1, 1);
+		asyncDatabase.update(query);
+		asyncDatabase.update(query);
+		final AtomicBoolean submitted = new AtomicBoolean();
+		Thread submitter = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				Future<Integer> future = asyncDatabase.update(query);
+				submitted.set(future != null);
+			}
+		});
+		submitter.start();
+		submitter.join(100);
+		assertThat(submitted.get(), equalTo(false));
+		latch.countDown();
+		submitter.join(TimeUnit.SECONDS.toMillis(5));
+		assertThat(submitted.get(), equalTo(true));
+		asyncDatabase.shutdown();
+	}
+
+	@Test(timeout = 5000)
+	public void cancellingQueuedOperationFreesItsSlot() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		AsyncDatabase asyncDatabase = new AsyncDatabase(createDatabase(latch, 1), 1, 1);
+		asyncDatabase.update(query);
+		for (int index = 0; index < 10; index++) {
+			Future<Integer> queuedFuture = asyncDatabase.update(query);
+			assertThat(queuedFuture.cancel(false), equalTo(true));
+		}
+		latch.countDown();
+		assertThat(asyncDatabase.update(query).get(5, TimeUnit.SECONDS), equalTo(1));
+		asyncDatabase.shutdown();
+	}
+
+	private static Database createDatabase(final CountDownLatch latch, final Object result) {
+		return (Database) Proxy.newProxyInstance(Database.class.getClassLoader(), new Class<?>[] { Database.class }, new InvocationHandler() {
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+				if (latch != null) {
+					latch.await();
+				}
+				if (result instanceof Throwable) {
+					throw (Throwable) result;
+				}
+				return result;
+			}
+		});
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * utils - DataObjectCacheTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayInputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import javax.sql.rowset.serial.SerialBlob;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DataObjectCache}.
+ */
+public class DataObjectCacheTest {
+
+	@Test
+	public void rowsAreCachedByTableAndId() throws SQLException {
+		DataObjectCache dataObjectCache = new DataObjectCache();
+		dataObjectCache.put("FIRST", 1, createRow(1, "one"));
+		assertThat(dataObjectCache.get("FIRST", 1), notNullValue());
+		assertThat(dataObjectCache.get("FIRST", 2), nullValue());
+		assertThat(dataObjectCache.get("SECOND", 1), nullValue());
+	}
+
+	@Test
+	public void leastRecentlyUsedRowIsRemovedFromFullCache() throws SQLException {
+		DataObjectCache dataObjectCache = new DataObjectCache(2);
+		dataObjectCache.put("FIRST", 1, createRow(1, "one"));
+		dataObjectCache.put("FIRST", 2, createRow(2, "two"));
+		dataObjectCache.get("FIRST", 1);
+		dataObjectCache.put("FIRST", 3, createRow(3, "three"));
+		assertThat(dataObjectCache.size(), equalTo(2));
+		assertThat(dataObjectCache.get("FIRST", 2), nullValue());
+	}
+
+	@Test
+	public void removeAllOnlyRemovesRowsOfTable() throws SQLException {
+		DataObjectCache dataObjectCache = new DataObjectCache();
+		dataObjectCache.put("FIRST", 1, createRow(1, "one"));
+		dataObjectCache.put("SECOND", 1, createRow(1, "one"));
+		dataObjectCache.removeAll("FIRST");
+		assertThat(dataObjectCache.get("FIRST", 1), nullValue());
+		assertThat(dataObjectCache.get("SECOND", 1), notNullValue());
+	}
+
+	@Test
+	public void cachedRowConvertsValues() throws SQLException {
+		ResultSet resultSet = createRow(7, null).createResultSet();
+		assertThat(resultSet.getLong("id"), equalTo(7L));
+		assertThat(resultSet.getString(1), equalTo("7"));
+		assertThat(resultSet.getBoolean("ID"), equalTo(true));
+		assertThat(resultSet.getString("NAME"), nullValue());
+		assertThat(resultSet.wasNull(), equalTo(true));
+		assertThat(resultSet.getInt("NAME"), equalTo(0));
+	}
+
+	@Test
+	public void cachedRowProvidesMetaData() throws SQLException {
+		ResultSetMetaData metadata = createRow(7, "seven").createResultSet().getMetaData();
+		assertThat(metadata.getColumnCount(), equalTo(2));
+		assertThat(metadata.getColumnLabel(2), equalTo("NAME"));
+		assertThat(metadata.getColumnType(1), equalTo(Types.BIGINT));
+	}
+
+	@Test
+	public void blobsAreMaterialized() throws SQLException {
+		TestResultSet testResultSet = new TestResultSet(new String[] { "DATA" }, new int[] { Types.BLOB }, new Object[] { new SerialBlob(new byte[] { 1, 2, 3 }) });
+		ResultSet resultSet = testResultSet.createResultSet();
+		resultSet.next();
+		CachedRow cachedRow = CachedRow.capture(ColumnPlan.resolve(resultSet), resultSet);
+		assertThat(cachedRow.createResultSet().getBytes("DATA"), equalTo(new byte[] { 1, 2, 3 }));
+		assertThat(cachedRow.createResultSet().getBlob(1).length(), equalTo(3L));
+	}
+
+	@Test
+	public void rowsWithStreamsAreNotCaptured() throws SQLException {
+		TestResultSet testResultSet = new TestResultSet(new String[] { "DATA" }, new int[] { Types.LONGVARBINARY }, new Object[] { new ByteArrayInputStream(new byte[0]) });
+		ResultSet resultSet = testResultSet.createResultSet();
+		resultSet.next();
+		assertThat(CachedRow.capture(ColumnPlan.resolve(resultSet), resultSet), nullValue());
+	}
+
+	private static CachedRow createRow(long id, String name) throws SQLException {
+		TestResultSet testResultSet = new TestResultSet(new String[] { "ID", "NAME" }, new int[] { Types.BIGINT, Types.VARCHAR }, new Object[] { id, name });
+		ResultSet resultSet = testResultSet.createResultSet();
+		resultSet.next();
+		return CachedRow.capture(ColumnPlan.resolve(resultSet), resultSet);
+	}
+
+}
@@ -0,0 +1,342 @@
+/*
+ * utils - DataObjectTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import net.pterodactylus.util.database.Parameter.StringParameter;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link DataObject}.
+ */
+public class DataObjectTest {
+
+	private final TestDatabase testDatabase = new TestDatabase();
+	private final Database database = testDatabase.createDatabase();
+	private final TestObjectFactory testObjectFactory = new TestObjectFactory();
+
+	@After
+	public void removeCaches() {
+		DataObject.setSharedCache(null);
+		DataObject.closeIdentityMap();
+	}
+
+	@Test
+	public void sharedCacheCreatesNewObjectForEveryLoad() throws DatabaseException {
+		testDatabase.rows.put(1L, "one");
+		DataObject.setSharedCache(new DataObjectCache());
+		TestObject firstObject = DataObject.loadById(database, testObjectFactory, 1);
+		TestObject secondObject = DataObject.loadById(database, testObjectFactory, 1);
+		assertThat(testDatabase.executedSql.size(), equalTo(1));
+		assertThat(secondObject, not(sameInstance(firstObject)));
+		assertThat(secondObject.getName(), equalTo("one"));
+		firstObject.setName("changed");
+		assertThat(DataObject.loadById(database, testObjectFactory, 1).getName(), equalTo("one"));
+	}
+
+	@Test
+	public void identityMapReturnsSameInstance() throws DatabaseException {
+		testDatabase.rows.put(1L, "one");
+		DataObject.openIdentityMap();
+		TestObject firstObject = DataObject.loadById(database, testObjectFactory, 1);
+		TestObject secondObject = DataObject.loadById(database, testObjectFactory, 1);
+		assertThat(secondObject, sameInstance(firstObject));
+		assertThat(testDatabase.executedSql.size(), equalTo(1));
+		DataObject.closeIdentityMap();
+		assertThat(DataObject.loadById(database, testObjectFactory, 1), not(sameInstance(firstObject)));
+		assertThat(testDatabase.executedSql.size(), equalTo(2));
+	}
+
+	@Test
+	public void savingObjectRemovesItFromSharedCache() throws DatabaseException {
+		testDatabase.rows.put(1L, "one");
+		DataObject.setSharedCache(new DataObjectCache());
+		TestObject testObject = DataObject.loadById(database, testObjectFactory, 1);
+		testObject.setName("changed");
+		testObject.save(database);
+		testDatabase.rows.put(1L, "changed");
+		assertThat(DataObject.loadById(database, testObjectFactory, 1).getName(), equalTo("changed"));
+		assertThat(testDatabase.executedSql.size(), equalTo(3));
+	}
+
+	@Test
+	public void deletingObjectRemovesItFromCaches() throws DatabaseException {
+		testDatabase.rows.put(1L, "one");
+		DataObject.setSharedCache(new DataObjectCache());
+		DataObject.openIdentityMap();
+		DataObject.loadById(database, testObjectFactory, 1).delete(database);
+		testDatabase.rows.remove(1L);
+		assertThat(DataObject.loadById(database, testObjectFactory, 1), equalTo(null));
+	}
+
+	@Test
+	public void loadByIdsLoadsMissingObjectsInChunks() throws DatabaseException {
+		long[] ids = new long[1200];
+		for (int index = 0; index < ids.length; index++) {
+			ids[index] = ids.length - index;
+			testDatabase.rows.put(ids[index], "object-" + ids[index]);
+		}
+		DataObject.setSharedCache(new DataObjectCache());
+		DataObject.loadById(database, testObjectFactory, 5);
+		List<TestObject> testObjects = DataObject.loadByIds(database, testObjectFactory, ids);
+		assertThat(testObjects.size(), equalTo(1200));
+		for (int index = 0; index < ids.length; index++) {
+			assertThat(testObjects.get(index).getId(), equalTo(ids[index]));
+		}
+		List<Integer> parameterCounts = new ArrayList<Integer>();
+		for (List<Object> parameters : testDatabase.executedParameters) {
+			parameterCounts.add(parameters.size());
+		}
+		assertThat(parameterCounts, contains(1, 500, 500, 199));
+	}
+
+	@Test
+	public void loadByIdsSkipsMissingObjects() throws DatabaseException {
+		testDatabase.rows.put(2L, "two");
+		List<TestObject> testObjects = DataObject.loadByIds(database, testObjectFactory, 1, 2, 3);
+		assertThat(testObjects.size(), equalTo(1));
+		assertThat(testObjects.get(0).getName(), equalTo("two"));
+	}
+
+	@Test
+	public void updateOnlyWritesChangedColumns() throws DatabaseException {
+		TestObject testObject = createTestObject(1, "one");
+		testObject.setName("changed");
+		testObject.save(database);
+		assertThat(testDatabase.executedSql.get(0), containsString("NAME"));
+		assertThat(testDatabase.executedSql.get(0), not(containsString("DESCRIPTION")));
+		assertThat(testDatabase.executedParameters.get(0), contains((Object) "changed", 1L));
+	}
+
+	@Test
+	public void settingUnchangedValueDoesNotMakeObjectDirty() throws DatabaseException {
+		TestObject testObject = createTestObject(1, "one");
+		testObject.setName("one");
+		assertThat(testObject.getDirtyProperties().isEmpty(), equalTo(true));
+		testObject.save(database);
+		assertThat(testDatabase.executedSql.isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void allColumnsAreWrittenIfADirtyPropertyHasNoColumn() throws DatabaseException {
+		TestObject testObject = createTestObject(1, "one");
+		testObject.setName("changed");
+		testObject.setProperty("Description", "renamed");
+		testObject.save(database);
+		assertThat(testDatabase.executedSql.get(0), containsString("NAME"));
+		assertThat(testDatabase.executedSql.get(0), containsString("DESCRIPTION"));
+		assertThat(testObject.getDirtyProperties().isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void saveAllGroupsUpdatesByChangedColumns() throws Exception {
+		TestObject firstObject = createTestObject(1, "one");
+		firstObject.setName("first");
+		TestObject secondObject = createTestObject(2, "two");
+		secondObject.setDescription("second");
+		TestObject thirdObject = createTestObject(3, "three");
+		thirdObject.setName("third");
+		TestObject unchangedObject = createTestObject(4, "four");
+		DataObject.saveAll(database, Arrays.asList(firstObject, secondObject, thirdObject, unchangedObject));
+		assertThat(testDatabase.updateBatches.size(), equalTo(1));
+		List<Query> updateQueries = testDatabase.updateBatches.get(0);
+		assertThat(updateQueries.size(), equalTo(3));
+		assertThat(updateQueries.get(0).getSql(), equalTo(updateQueries.get(1).getSql()));
+		assertThat(updateQueries.get(2).getSql(), not(equalTo(updateQueries.get(0).getSql())));
+		assertThat(TestDatabase.getParameters(updateQueries.get(1)), contains((Object) "third", 3L));
+		assertThat(firstObject.getDirtyProperties().isEmpty(), equalTo(true));
+		assertThat(secondObject.getDirtyProperties().isEmpty(), equalTo(true));
+	}
+
+	@Test
+	public void saveAllFailsIfDatabaseReturnsNoGeneratedKeys() throws Exception {
+		testDatabase.generateKeys = false;
+		TestObject testObject = new TestObject(testObjectFactory, -1);
+		testObject.setName("new");
+		try {
+			DataObject.saveAll(database, Arrays.asList(testObject));
+			fail();
+		} catch (DatabaseException de1) {
+			/* expected. */
+		}
+		assertThat(testObject.getId(), equalTo(-1L));
+		assertThat(testObject.getDirtyProperties().isEmpty(), equalTo(false));
+	}
+
+	private TestObject createTestObject(long id, String name) {
+		TestObject testObject = new TestObject(testObjectFactory, id);
+		testObject.setName(name);
+		testObject.clearDirtyFlag();
+		return testObject;
+	}
+
+	/**
+	 * Data object with a name and a description.
+	 */
+	static class TestObject extends DataObject<TestObject> {
+
+		public TestObject(DataObjectFactory<TestObject> dataObjectFactory, long id) {
+			super(dataObjectFactory, id);
+		}
+
+		public String getName() {
+			return (String) getProperty("NAME");
+		}
+
+		public void setName(String name) {
+			setProperty("NAME", name);
+		}
+
+		public void setDescription(String description) {
+			setProperty("DESCRIPTION", description);
+		}
+
+		@Override
+		protected Set<ValueField> getSaveFields() {
+			Set<ValueField> saveFields = new HashSet<ValueField>();
+			saveFields.add(new ValueField("NAME", new StringParameter((String) getProperty("NAME"))));
+			Object description = (getProperty("Description") != null) ? getProperty("Description") : getProperty("DESCRIPTION");
+			saveFields.add(new ValueField("DESCRIPTION", new StringParameter((String) description)));
+			return saveFields;
+		}
+
+	}
+
+	/**
+	 * Factory for {@link TestObject}s.
+	 */
+	static class TestObjectFactory implements DataObjectFactory<TestObject> {
+
+		@Override
+		public TestObject createObject(ResultSet resultSet) throws SQLException {
+			TestObject testObject = new TestObject(this, resultSet.getLong(1));
+			testObject.setName(resultSet.getString(2));
+			testObject.clearDirtyFlag();
+			return testObject;
+		}
+
+		@Override
+		public String getTable() {
+			return "TEST";
+		}
+
+		@Override
+		public String getIdentityColumn() {
+			return "ID";
+		}
+
+	}
+
+	/**
+	 * Database that serves rows of the “TEST” table from a map and records
+	 * all executed queries.
+	 */
+	static class TestDatabase implements InvocationHandler {
+
+		final Map<Long, String> rows = new TreeMap<Long, String>();
+		final List<String> executedSql = new ArrayList<String>();
+		final List<List<Object>> executedParameters = new ArrayList<List<Object>>();
+		final List<List<Query>> updateBatches = new ArrayList<List<Query>>();
+		private long nextId = 1000;
+		boolean generateKeys = true;
+
+		Database createDatabase() {
+			return (Database) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Database.class }, this);
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+			String name = method.getName();
+			if (name.equals("updateBatch")) {
+				List<Query> queries = (List<Query>) arguments[0];
+				updateBatches.add(queries);
+				return new int[queries.size()];
+			} else if (name.equals("insertBatch")) {
+				long[] ids = new long[((List<Query>) arguments[0]).size()];
+				for (int index = 0; index < ids.length; index++) {
+					ids[index] = generateKeys ? nextId++ : -1;
+				}
+				return ids;
+			}
+			Query query = (Query) arguments[0];
+			List<Object> parameters = getParameters(query);
+			executedSql.add(query.getSql());
+			executedParameters.add(parameters);
+			if (name.equals("insert")) {
+				return nextId++;
+			} else if (name.equals("update")) {
+				return 1;
+			}
+			ObjectCreator<?> objectCreator = (ObjectCreator<?>) arguments[1];
+			List<Object> objects = new ArrayList<Object>();
+			for (Object parameter : parameters) {
+				if (rows.containsKey(parameter)) {
+					ResultSet resultSet = new TestResultSet(new String[] { "ID", "NAME" }, new int[] { Types.BIGINT, Types.VARCHAR }, new Object[] { parameter, rows.get(parameter) }).createResultSet();
+					resultSet.next();
+					objects.add(objectCreator.createObject(resultSet));
+				}
+			}
+			if (name.equals("getSingle")) {
+				return objects.isEmpty() ? null : objects.get(0);
+			}
+			return objects;
+		}
+
+		private static List<Object> getParameters(Query query) throws SQLException {
+			final List<Object> parameters = new ArrayList<Object>();
+			query.setParameters((PreparedStatement) Proxy.newProxyInstance(TestDatabase.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, new InvocationHandler() {
+
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] arguments) {
+					if (method.getName().startsWith("set")) {
+						parameters.add(arguments[arguments.length - 1]);
+					}
+					return null;
+				}
+			}));
+			return parameters;
+		}
+
+	}
+
+}
@@ -0,0 +1,65 @@
+/*
+ * utils - MapCreatorTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MapCreator}.
+ */
+public class MapCreatorTest {
+
+	@Test
+	public void metadataIsOnlyRequestedOncePerResultSet() throws Exception {
+		TestResultSet testResultSet = new TestResultSet(new String[] { "ID", "NAME", "BLOB" }, new int[] { Types.BIGINT, Types.VARCHAR, Types.BLOB }, new Object[] { 1L, "one", "x" }, new Object[] { 2L, "two", "y" });
+		ResultSet resultSet = testResultSet.createResultSet();
+		MapCreator mapCreator = new MapCreator();
+		resultSet.next();
+		Map<String, Object> first = mapCreator.createObject(resultSet);
+		resultSet.next();
+		Map<String, Object> second = mapCreator.createObject(resultSet);
+		assertThat(testResultSet.metadataRequests, equalTo(1));
+		assertThat(first.get("ID"), equalTo((Object) 1L));
+		assertThat(second.get("NAME"), equalTo((Object) "two"));
+		assertThat(second.get("BLOB"), equalTo((Object) "y"));
+	}
+
+	@Test
+	public void numericAndTimestampColumnsAreMappedToFittingTypes() throws Exception {
+		Timestamp timestamp = new Timestamp(1000);
+		TestResultSet testResultSet = new TestResultSet(new String[] { "TINY", "SMALL", "REAL", "DOUBLE", "TIME" }, new int[] { Types.TINYINT, Types.SMALLINT, Types.REAL, Types.DOUBLE, Types.TIMESTAMP }, new Object[] { (byte) 1, (short) 2, 3.0f, 4.0, timestamp });
+		ResultSet resultSet = testResultSet.createResultSet();
+		resultSet.next();
+		Map<String, Object> row = new MapCreator().createObject(resultSet);
+		assertThat(row.get("TINY"), equalTo((Object) (byte) 1));
+		assertThat(row.get("SMALL"), equalTo((Object) (short) 2));
+		assertThat(row.get("REAL"), equalTo((Object) 3.0f));
+		assertThat(row.get("DOUBLE"), equalTo((Object) 4.0));
+		assertThat(row.get("TIME"), equalTo((Object) timestamp));
+		assertThat(ColumnPlan.resolve(resultSet).getColumnIndex("time"), equalTo(4));
+	}
+
+}
@@ -0,0 +1,388 @@
+/*
+ * utils - PooledDataSourceTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link PooledDataSource}.
+ */
+public class PooledDataSourceTest {
+
+	private final List<TestConnection> createdConnections = new ArrayList<TestConnection>();
+	private final PooledDataSource pooledDataSource = new PooledDataSource(createDataSource());
+
+	@After
+	public void closeDataSource() {
+		pooledDataSource.close();
+	}
+
+	@Test
+	public void returnedConnectionIsReused() throws SQLException {
+		Connection firstConnection = pooledDataSource.getConnection();
+		firstConnection.close();
+		Connection secondConnection = pooledDataSource.getConnection();
+		assertThat(secondConnection, not(sameInstance(firstConnection)));
+		assertThat(createdConnections.size(), equalTo(1));
+	}
+
+	@Test
+	public void closedConnectionReportsBeingClosed() throws SQLException {
+		Connection connection = pooledDataSource.getConnection();
+		assertThat(connection.isClosed(), equalTo(false));
+		connection.close();
+		assertThat(connection.isClosed(), equalTo(true));
+	}
+
+	@Test
+	public void closingConnectionTwiceDoesNotReturnItTwice() throws SQLException {
+		Connection connection = pooledDataSource.getConnection();
+		connection.close();
+		connection.close();
+		pooledDataSource.getConnection();
+		pooledDataSource.getConnection();
+		assertThat(createdConnections.size(), equalTo(2));
+	}
+
+	@Test
+	public void closingHandleOfEarlierBorrowingDoesNotReturnConnection() throws SQLException {
+		Connection firstConnection = pooledDataSource.getConnection();
+		firstConnection.close();
+		Connection secondConnection = pooledDataSource.getConnection();
+		firstConnection.close();
+		assertThat(secondConnection.isClosed(), equalTo(false));
+		pooledDataSource.getConnection();
+		assertThat(createdConnections.size(), equalTo(2));
+	}
+
+	@Test(expected = SQLException.class)
+	public void closedHandleCanNotBeUsed() throws SQLException {
+		Connection firstConnection = pooledDataSource.getConnection();
+		firstConnection.close();
+		pooledDataSource.getConnection();
+		firstConnection.prepareStatement("SELECT 1");
+	}
+
+	@Test(expected = SQLTimeoutException.class)
+	public void poolDoesNotGrowBeyondMaximumSize() throws SQLException {
+		pooledDataSource.setMaximumSize(2);
+		pooledDataSource.setAcquireTimeout(50);
+		pooledDataSource.getConnection();
+		pooledDataSource.getConnection();
+		pooledDataSource.getConnection();
+	}
+
+	@Test
+	public void waitingThreadReceivesReturnedConnection() throws Exception {
+		pooledDataSource.setMaximumSize(1);
+		final Connection connection = pooledDataSource.getConnection();
+		Thread returningThread = new Thread() {
+
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(50);
+					connection.close();
+				} catch (Exception e1) {
+					/* ignore. */
+				}
+			}
+		};
+		returningThread.start();
+		pooledDataSource.getConnection();
+		returningThread.join();
+		assertThat(createdConnections.size(), equalTo(1));
+	}
+
+	@Test
+	public void invalidConnectionIsReplaced() throws SQLException {
+		Connection firstConnection = pooledDataSource.getConnection();
+		firstConnection.close();
+		createdConnections.get(0).valid = false;
+		pooledDataSource.getConnection();
+		assertThat(createdConnections.size(), equalTo(2));
+		assertThat(createdConnections.get(0).closed, equalTo(true));
+	}
+
+	@Test
+	public void connectionsAreReusedPerUser() throws SQLException {
+		Connection firstConnection = pooledDataSource.getConnection("user", "password");
+		firstConnection.close();
+		pooledDataSource.getConnection("user", "password");
+		assertThat(createdConnections.size(), equalTo(1));
+		pooledDataSource.getConnection("other", "password");
+		assertThat(createdConnections.size(), equalTo(2));
+	}
+
+	@Test
+	public void idleConnectionsAreClosedDuringHousekeeping() throws Exception {
+		pooledDataSource.setIdleTimeout(1);
+		pooledDataSource.getConnection().close();
+		Thread.sleep(10);
+		pooledDataSource.performHousekeeping();
+		assertThat(createdConnections.get(0).closed, equalTo(true));
+	}
+
+	@Test
+	public void housekeepingOpensConnectionsUpToMinimumSize() {
+		pooledDataSource.setMinimumSize(3);
+		pooledDataSource.performHousekeeping();
+		assertThat(createdConnections.size(), equalTo(3));
+	}
+
+	@Test
+	public void returnedConnectionIsRolledBackAndReset() throws SQLException {
+		Connection connection = pooledDataSource.getConnection();
+		connection.setAutoCommit(false);
+		connection.setReadOnly(true);
+		connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		connection.close();
+		TestConnection testConnection = createdConnections.get(0);
+		assertThat(testConnection.rollbacks, equalTo(1));
+		assertThat(testConnection.autoCommit, equalTo(true));
+		assertThat(testConnection.readOnly, equalTo(false));
+		assertThat(testConnection.transactionIsolation, equalTo(Connection.TRANSACTION_READ_COMMITTED));
+		assertThat(testConnection.closed, equalTo(false));
+	}
+
+	@Test
+	public void connectionInAutoCommitModeIsNotRolledBack() throws SQLException {
+		pooledDataSource.getConnection().close();
+		assertThat(createdConnections.get(0).rollbacks, equalTo(0));
+	}
+
+	@Test
+	public void closingDataSourceClosesIdleAndReturnedConnections() throws SQLException {
+		Connection connection = pooledDataSource.getConnection();
+		pooledDataSource.getConnection().close();
+		pooledDataSource.close();
+		assertThat(createdConnections.get(1).closed, equalTo(true));
+		assertThat(createdConnections.get(0).closed, equalTo(false));
+		connection.close();
+		assertThat(createdConnections.get(0).closed, equalTo(true));
+	}
+
+	@Test
+	public void statisticsReflectPoolState() throws SQLException {
+		Connection connection = pooledDataSource.getConnection();
+		pooledDataSource.getConnection().close();
+		assertThat(pooledDataSource.getActiveConnections(), equalTo(1));
+		assertThat(pooledDataSource.getIdleConnections(), equalTo(1));
+		assertThat(pooledDataSource.getCreatedConnections(), equalTo(2L));
+		assertThat(pooledDataSource.getAcquireTimeHistogram().getCount(), equalTo(2L));
+		assertThat(pooledDataSource.getUsageTimeHistogram().getCount(), equalTo(1L));
+		connection.close();
+		assertThat(pooledDataSource.getActiveConnections(), equalTo(0));
+		assertThat(pooledDataSource.getIdleConnections(), equalTo(2));
+	}
+
+	@Test
+	public void acquireTimeoutsAreCounted() throws SQLException {
+		pooledDataSource.setMaximumSize(1);
+		pooledDataSource.setAcquireTimeout(10);
+		pooledDataSource.getConnection();
+		try {
+			pooledDataSource.getConnection();
+		} catch (SQLTimeoutException ste1) {
+			/* expected. */
+		}
+		assertThat(pooledDataSource.getAcquireTimeouts(), equalTo(1L));
+	}
+
+	@Test
+	public void closedStatementIsReusedForSameSql() throws SQLException {
+		Connection connection = pooledDataSource.getConnection();
+		connection.prepareStatement("SELECT 1").close();
+		connection.prepareStatement("SELECT 1").close();
+		assertThat(createdConnections.get(0).preparedStatements.size(), equalTo(1));
+		assertThat(createdConnections.get(0).preparedStatements.get(0).closed, equalTo(false));
+		assertThat(pooledDataSource.getStatementCacheHits(), equalTo(1L));
+	}
+
+	@Test
+	public void statementIsNotReusedForDifferentSql() throws SQLException {
+		Connection connection = pooledDataSource.getConnection();
+		connection.prepareStatement("SELECT 1").close();
+		connection.prepareStatement("SELECT 2").close();
+		assertThat(createdConnections.get(0).preparedStatements.size(), equalTo(2));
+	}
+
+	@Test
+	public void modifiedStatementIsClosed() throws SQLException {
+		Connection connection = pooledDataSource.getConnection();
+		PreparedStatement preparedStatement = connection.prepareStatement("SELECT 1");
+		preparedStatement.setFetchSize(100);
+		preparedStatement.close();
+		connection.prepareStatement("SELECT 1").close();
+		assertThat(createdConnections.get(0).preparedStatements.size(), equalTo(2));
+		assertThat(createdConnections.get(0).preparedStatements.get(0).closed, equalTo(true));
+	}
+
+	@Test
+	public void leastRecentlyUsedStatementIsClosedWhenCacheIsFull() throws SQLException {
+		pooledDataSource.setStatementCacheSize(1);
+		Connection connection = pooledDataSource.getConnection();
+		connection.prepareStatement("SELECT 1").close();
+		connection.prepareStatement("SELECT 2").close();
+		assertThat(createdConnections.get(0).preparedStatements.get(0).closed, equalTo(true));
+		assertThat(createdConnections.get(0).preparedStatements.get(1).closed, equalTo(false));
+	}
+
+	@Test(expected = SQLException.class)
+	public void statementOfReturnedConnectionCanNotBeUsed() throws SQLException {
+		Connection firstConnection = pooledDataSource.getConnection();
+		PreparedStatement preparedStatement = firstConnection.prepareStatement("SELECT 1");
+		firstConnection.close();
+		pooledDataSource.getConnection();
+		preparedStatement.executeQuery();
+	}
+
+	@Test
+	public void openStatementsAreReturnedWithTheirConnection() throws SQLException {
+		Connection firstConnection = pooledDataSource.getConnection();
+		PreparedStatement preparedStatement = firstConnection.prepareStatement("SELECT 1");
+		firstConnection.close();
+		assertThat(preparedStatement.isClosed(), equalTo(true));
+		pooledDataSource.getConnection().prepareStatement("SELECT 1");
+		assertThat(createdConnections.get(0).preparedStatements.size(), equalTo(1));
+		assertThat(pooledDataSource.getStatementCacheHits(), equalTo(1L));
+	}
+
+	@Test
+	public void openResultSetIsClosedBeforeStatementIsCached() throws SQLException {
+		Connection connection = pooledDataSource.getConnection();
+		PreparedStatement preparedStatement = connection.prepareStatement("SELECT 1");
+		preparedStatement.executeQuery();
+		preparedStatement.close();
+		assertThat(createdConnections.get(0).preparedStatements.get(0).closed, equalTo(false));
+		assertThat(createdConnections.get(0).preparedStatements.get(0).resultSet.closed, equalTo(true));
+	}
+
+	private DataSource createDataSource() {
+		return (DataSource) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { DataSource.class }, new InvocationHandler() {
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("getConnection")) {
+					TestConnection testConnection = new TestConnection();
+					synchronized (createdConnections) {
+						createdConnections.add(testConnection);
+					}
+					return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, testConnection);
+				}
+				return null;
+			}
+		});
+	}
+
+	private static class TestConnection implements InvocationHandler {
+
+		private final List<TestStatement> preparedStatements = new ArrayList<TestStatement>();
+		private volatile boolean valid = true;
+		private volatile boolean closed;
+		private volatile boolean autoCommit = true;
+		private volatile boolean readOnly;
+		private volatile int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+		private volatile int rollbacks;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			if (method.getName().equals("getAutoCommit")) {
+				return autoCommit;
+			} else if (method.getName().equals("setAutoCommit")) {
+				autoCommit = (Boolean) args[0];
+			} else if (method.getName().equals("isReadOnly")) {
+				return readOnly;
+			} else if (method.getName().equals("setReadOnly")) {
+				readOnly = (Boolean) args[0];
+			} else if (method.getName().equals("getTransactionIsolation")) {
+				return transactionIsolation;
+			} else if (method.getName().equals("setTransactionIsolation")) {
+				transactionIsolation = (Integer) args[0];
+			} else if (method.getName().equals("rollback")) {
+				rollbacks++;
+			} else if (method.getName().equals("isValid")) {
+				return valid && !closed;
+			} else if (method.getName().equals("isClosed")) {
+				return closed;
+			} else if (method.getName().equals("close")) {
+				closed = true;
+			} else if (method.getName().equals("prepareStatement")) {
+				TestStatement testStatement = new TestStatement();
+				preparedStatements.add(testStatement);
+				return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class }, testStatement);
+			}
+			return null;
+		}
+
+	}
+
+	private static class TestStatement implements InvocationHandler {
+
+		private volatile boolean closed;
+		private volatile TestResultSetHandler resultSet;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			if (method.getName().equals("close")) {
+				closed = true;
+			} else if (method.getName().equals("executeQuery")) {
+				resultSet = new TestResultSetHandler();
+				return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class }, resultSet);
+			} else if (method.getName().equals("getResultSet") && (resultSet != null) && !resultSet.closed) {
+				return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class }, resultSet);
+			}
+			return null;
+		}
+
+	}
+
+	private static class TestResultSetHandler implements InvocationHandler {
+
+		private volatile boolean closed;
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			if (method.getName().equals("close")) {
+				closed = true;
+			}
+			return null;
+		}
+
+	}
+
+}
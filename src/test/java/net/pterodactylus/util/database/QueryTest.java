@@ -19,10 +19,13 @@ package net.pterodactylus.util.database;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
 
 import junit.framework.TestCase;
 import net.pterodactylus.util.database.Join.JoinType;
 import net.pterodactylus.util.database.OrderField.Order;
+import net.pterodactylus.util.database.Parameter.LongParameter;
 import net.pterodactylus.util.database.Query.Type;
 import net.pterodactylus.util.io.Closer;
 
@@ -82,6 +85,19 @@ public class QueryTest extends TestCase {
 		assertEquals("SELECT * FROM TEST LEFT JOIN TEST2 ON (TEST.ID = TEST2.TEST) RIGHT JOIN TEST3 ON (TEST2.ID = TEST3.TEST2)", query);
 	}
 
+	/**
+	 * Tests SELECT queries with IN clauses.
+	 */
+	public void testSelectWithIn() {
+		Query query = new Query(Type.SELECT, "TEST");
+		query.addWhereClause(new InWhereClause(new Field("ID"), Arrays.asList(new LongParameter(1L), new LongParameter(2L), new LongParameter(3L))));
+		assertEquals("SELECT * FROM TEST WHERE (ID IN (?, ?, ?))", query);
+
+		query = new Query(Type.SELECT, "TEST");
+		query.addWhereClause(new InWhereClause(new Field("ID"), Collections.<LongParameter> emptyList()));
+		assertEquals("SELECT * FROM TEST WHERE (1 = 0)", query);
+	}
+
 	//
 	// PRIVATE METHODS
 	//
@@ -0,0 +1,58 @@
+/*
+ * utils - ResultTableTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.sql.ResultSet;
+import java.sql.Types;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ResultTable}.
+ */
+public class ResultTableTest {
+
+	@Test
+	public void rowsAreStoredInColumns() throws Exception {
+		Object[][] rows = new Object[40][];
+		for (int row = 0; row < rows.length; row++) {
+			rows[row] = new Object[] { row, row * 1.5, (row % 2) == 0, (row == 3) ? null : ("row " + row) };
+		}
+		TestResultSet testResultSet = new TestResultSet(new String[] { "ID", "VALUE", "EVEN", "NAME" }, new int[] { Types.INTEGER, Types.DECIMAL, Types.BOOLEAN, Types.VARCHAR }, rows);
+		ResultSet resultSet = testResultSet.createResultSet();
+		ResultTable resultTable = new ResultTable();
+		while (resultSet.next()) {
+			resultTable.processResult(resultSet);
+		}
+		assertThat(testResultSet.metadataRequests, equalTo(1));
+		assertThat(resultTable.getRowCount(), equalTo(40));
+		assertThat(resultTable.getColumnPlan().getColumnIndex("value"), equalTo(1));
+		assertThat(resultTable.getInt(39, 0), equalTo(39));
+		assertThat(resultTable.getDouble(10, 1), equalTo(15.0));
+		assertThat(resultTable.getBoolean(10, 2), equalTo(true));
+		assertThat(resultTable.getObject(11, 2), equalTo((Object) false));
+		assertThat(resultTable.getString(20, 3), equalTo("row 20"));
+		assertThat(resultTable.isNull(3, 3), equalTo(true));
+		assertThat(resultTable.getObject(3, 3), nullValue());
+	}
+
+}
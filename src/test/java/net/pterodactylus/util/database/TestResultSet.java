@@ -0,0 +1,86 @@
+/*
+ * utils - TestResultSet.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+
+/**
+ * Creates {@link ResultSet} proxies that return a fixed list of rows.
+ */
+class TestResultSet implements InvocationHandler {
+
+	private final String[] labels;
+	private final int[] types;
+	private final Object[][] rows;
+	private int row = -1;
+	private boolean wasNull;
+	int metadataRequests;
+
+	TestResultSet(String[] labels, int[] types, Object[]... rows) {
+		this.labels = labels;
+		this.types = types;
+		this.rows = rows;
+	}
+
+	ResultSet createResultSet() {
+		return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class }, this);
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+		String name = method.getName();
+		if (name.equals("next")) {
+			return ++row < rows.length;
+		} else if (name.equals("getRow")) {
+			return row + 1;
+		} else if (name.equals("close")) {
+			return null;
+		} else if (name.equals("wasNull")) {
+			return wasNull;
+		} else if (name.equals("getMetaData")) {
+			metadataRequests++;
+			return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, new InvocationHandler() {
+
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] arguments) throws Throwable {
+					if (method.getName().equals("getColumnCount")) {
+						return labels.length;
+					} else if (method.getName().equals("getColumnLabel")) {
+						return labels[(Integer) arguments[0] - 1];
+					} else if (method.getName().equals("getColumnType")) {
+						return types[(Integer) arguments[0] - 1];
+					}
+					throw new UnsupportedOperationException(method.getName());
+				}
+			});
+		} else if (name.startsWith("get") && (arguments.length == 1) && (arguments[0] instanceof Integer)) {
+			Object value = rows[row][(Integer) arguments[0] - 1];
+			wasNull = value == null;
+			if ((value == null) && method.getReturnType().isPrimitive()) {
+				return (method.getReturnType() == boolean.class) ? Boolean.FALSE : method.getReturnType() == double.class ? (Object) 0.0 : method.getReturnType() == long.class ? (Object) 0L : (Object) 0;
+			}
+			return value;
+		}
+		throw new UnsupportedOperationException(name);
+	}
+
+}
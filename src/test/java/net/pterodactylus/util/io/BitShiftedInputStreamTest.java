@@ -18,7 +18,10 @@
 package net.pterodactylus.util.io;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
@@ -48,4 +51,34 @@ public class BitShiftedInputStreamTest extends TestCase {
 		assertEquals("value 5", 0x1e, bitInputStream.read());
 	}
 
+	/**
+	 * Test method for {@link BitShiftedInputStream#read(int[], int, int)}
+	 * that reads values written by
+	 * {@link BitShiftedOutputStream#write(int[], int, int)}.
+	 *
+	 * @throws Exception
+	 *             if an error occurs
+	 */
+	public void testBulkRoundTrip() throws Exception {
+		Random random = new Random(1);
+		for (int bitsEach = 1; bitsEach <= 32; bitsEach++) {
+			/* 5000 values of any size end on a byte boundary. */
+			int[] values = new int[5000];
+			for (int index = 0; index < values.length; index++) {
+				values[index] = (int) (random.nextLong() & ((1L << bitsEach) - 1));
+			}
+			ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+			BitShiftedOutputStream bitOutputStream = new BitShiftedOutputStream(byteArrayOutputStream, bitsEach);
+			bitOutputStream.write(values, values.length, bitsEach);
+			bitOutputStream.close();
+			assertEquals("length for " + bitsEach, (values.length * bitsEach + 7) / 8, byteArrayOutputStream.size());
+			BitShiftedInputStream bitInputStream = new BitShiftedInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()), bitsEach);
+			assertEquals("single value for " + bitsEach, values[0], bitInputStream.read());
+			int[] readValues = new int[values.length];
+			assertEquals("read values for " + bitsEach, values.length - 1, bitInputStream.read(readValues, values.length, bitsEach));
+			assertTrue("values for " + bitsEach, Arrays.equals(Arrays.copyOfRange(values, 1, values.length), Arrays.copyOf(readValues, values.length - 1)));
+			assertEquals("end of stream for " + bitsEach, -1, bitInputStream.read(readValues, 1, bitsEach));
+		}
+	}
+
 }
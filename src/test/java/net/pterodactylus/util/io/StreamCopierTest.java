@@ -0,0 +1,146 @@
+/*
+ * utils - StreamCopierTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.io;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.pterodactylus.util.io.StreamCopier.ProgressListener;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Unit test for {@link StreamCopier}.
+ */
+public class StreamCopierTest {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final byte[] data = createData(200000);
+
+	@Test
+	public void streamsAreCopiedWithOneFinalProgressNotification() throws IOException {
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		final List<Long> progress = new ArrayList<Long>();
+		long copied = StreamCopier.copy(new ByteArrayInputStream(data), destination, new ProgressListener() {
+
+			@Override
+			public void onProgress(long copied, long length) {
+				progress.add(copied);
+			}
+		}, -1, 1024);
+		assertThat(copied, equalTo((long) data.length));
+		assertThat(destination.toByteArray(), equalTo(data));
+		assertThat(progress.size() < 10, equalTo(true));
+		assertThat(progress.get(progress.size() - 1), equalTo((long) data.length));
+	}
+
+	@Test
+	public void fileIsTransferredToFileFromCurrentPosition() throws IOException {
+		File sourceFile = temporaryFolder.newFile();
+		File destinationFile = temporaryFolder.newFile();
+		FileOutputStream sourceOutputStream = new FileOutputStream(sourceFile);
+		sourceOutputStream.write(data);
+		sourceOutputStream.close();
+		FileInputStream source = new FileInputStream(sourceFile);
+		FileOutputStream destination = new FileOutputStream(destinationFile);
+		try {
+			assertThat(source.skip(1000), equalTo(1000L));
+			assertThat(StreamCopier.copy(source, destination, 5000), equalTo(5000L));
+			assertThat(StreamCopier.copy(source, destination), equalTo((long) data.length - 6000));
+			assertThat(source.read(), equalTo(-1));
+		} finally {
+			Closer.close(source);
+			Closer.close(destination);
+		}
+		ByteArrayOutputStream copy = new ByteArrayOutputStream();
+		StreamCopier.copy(new FileInputStream(destinationFile), copy);
+		byte[] expected = new byte[data.length - 1000];
+		System.arraycopy(data, 1000, expected, 0, expected.length);
+		assertThat(copy.toByteArray(), equalTo(expected));
+	}
+
+	@Test
+	public void streamIsTransferredToFile() throws IOException {
+		File destinationFile = temporaryFolder.newFile();
+		FileOutputStream destination = new FileOutputStream(destinationFile);
+		try {
+			assertThat(StreamCopier.copy(new ByteArrayInputStream(data), destination), equalTo((long) data.length));
+		} finally {
+			Closer.close(destination);
+		}
+		assertThat(destinationFile.length(), equalTo((long) data.length));
+	}
+
+	@Test(expected = EOFException.class)
+	public void copyingMoreThanAvailableThrowsException() throws IOException {
+		StreamCopier.copy(new ByteArrayInputStream(data), new ByteArrayOutputStream(), data.length + 1);
+	}
+
+	@Test
+	public void fileWithoutSizeIsCopiedCompletely() throws IOException {
+		File procFile = new File("/proc/self/status");
+		assumeTrue(procFile.exists());
+		ByteArrayOutputStream destination = new ByteArrayOutputStream();
+		FileInputStream source = new FileInputStream(procFile);
+		try {
+			long copied = StreamCopier.copy(source, destination, -1);
+			assertThat(copied, greaterThan(0L));
+			assertThat(copied, equalTo((long) destination.size()));
+		} finally {
+			source.close();
+		}
+	}
+
+	@Test
+	public void streamIsCopiedCompletelyToFileThatDoesNotGrow() throws IOException {
+		File nullFile = new File("/dev/null");
+		assumeTrue(nullFile.exists());
+		byte[] largeData = new byte[10 << 20];
+		FileOutputStream destination = new FileOutputStream(nullFile);
+		try {
+			assertThat(StreamCopier.copy(new ByteArrayInputStream(largeData), destination, largeData.length), equalTo((long) largeData.length));
+		} finally {
+			destination.close();
+		}
+	}
+
+	private static byte[] createData(int length) {
+		byte[] data = new byte[length];
+		for (int index = 0; index < length; index++) {
+			data[index] = (byte) (index * 31);
+		}
+		return data;
+	}
+
+}
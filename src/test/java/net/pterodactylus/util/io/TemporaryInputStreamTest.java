@@ -0,0 +1,90 @@
+/*
+ * utils - TemporaryInputStreamTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.io;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link TemporaryInputStream}.
+ */
+public class TemporaryInputStreamTest {
+
+	private final byte[] data = new byte[10000];
+
+	{
+		for (int index = 0; index < data.length; index++) {
+			data[index] = (byte) index;
+		}
+	}
+
+	@Test
+	public void contentBelowThresholdIsKeptInMemory() throws IOException {
+		TemporaryInputStream temporaryInputStream = new TemporaryInputStream(new ByteArrayInputStream(data), data.length);
+		assertThat(temporaryInputStream.isInMemory(), equalTo(true));
+		assertThat(readFully(temporaryInputStream), equalTo(data));
+	}
+
+	@Test
+	public void contentAboveThresholdIsReadFromFile() throws IOException {
+		TemporaryInputStream temporaryInputStream = new TemporaryInputStream(new ByteArrayInputStream(data), 100);
+		assertThat(temporaryInputStream.isInMemory(), equalTo(false));
+		InputStream reopenedInputStream = temporaryInputStream.reopen();
+		assertThat(readFully(temporaryInputStream), equalTo(data));
+		assertThat(readFully(reopenedInputStream), equalTo(data));
+	}
+
+	@Test
+	public void maximumThresholdKeepsContentInMemory() throws IOException {
+		TemporaryInputStream temporaryInputStream = new TemporaryInputStream(new ByteArrayInputStream(data), Integer.MAX_VALUE);
+		assertThat(temporaryInputStream.isInMemory(), equalTo(true));
+		assertThat(readFully(temporaryInputStream), equalTo(data));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeThresholdIsRejected() throws IOException {
+		new TemporaryInputStream(new ByteArrayInputStream(data), -1);
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void reopeningAfterAllStreamsAreClosedFails() throws IOException {
+		TemporaryInputStream temporaryInputStream = new TemporaryInputStream(new ByteArrayInputStream(data), 100);
+		temporaryInputStream.close();
+		temporaryInputStream.close();
+		temporaryInputStream.reopen();
+	}
+
+	private static byte[] readFully(InputStream inputStream) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try {
+			StreamCopier.copy(inputStream, outputStream);
+		} finally {
+			inputStream.close();
+		}
+		return outputStream.toByteArray();
+	}
+
+}
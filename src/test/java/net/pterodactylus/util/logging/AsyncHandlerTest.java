@@ -0,0 +1,266 @@
+/*
+ * utils - AsyncHandlerTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.logging;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import net.pterodactylus.util.logging.AsyncHandler.OverflowPolicy;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AsyncHandler}.
+ */
+public class AsyncHandlerTest {
+
+	@Test
+	public void recordsArePublishedInOrderOnAnotherThread() throws Exception {
+		RecordingHandler recordingHandler = new RecordingHandler(null);
+		AsyncHandler asyncHandler = new AsyncHandler(recordingHandler);
+		for (int index = 0; index < 1000; index++) {
+			asyncHandler.publish(new LogRecord(Level.INFO, String.valueOf(index)));
+		}
+		asyncHandler.flush();
+		assertThat(recordingHandler.records.size(), equalTo(1000));
+		for (int index = 0; index < 1000; index++) {
+			assertThat(recordingHandler.records.get(index).getMessage(), equalTo(String.valueOf(index)));
+		}
+		assertThat(recordingHandler.threadNames.get(0).equals(Thread.currentThread().getName()), equalTo(false));
+		asyncHandler.close();
+	}
+
+	@Test
+	public void recordsFromMultipleThreadsAreAllPublished() throws Exception {
+		RecordingHandler recordingHandler = new RecordingHandler(null);
+		final AsyncHandler asyncHandler = new AsyncHandler(16, OverflowPolicy.BLOCK, recordingHandler);
+		Thread[] threads = new Thread[4];
+		for (int threadIndex = 0; threadIndex < threads.length; threadIndex++) {
+			threads[threadIndex] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					for (int index = 0; index < 500; index++) {
+						asyncHandler.publish(new LogRecord(Level.FINE, "test"));
+					}
+				}
+			});
+			threads[threadIndex].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		asyncHandler.close();
+		assertThat(recordingHandler.records.size(), equalTo(2000));
+		assertThat(asyncHandler.getDroppedCount(), equalTo(0L));
+	}
+
+	@Test
+	public void lowRecordsAreDroppedAndCountedWhenBufferIsFull() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		RecordingHandler recordingHandler = new RecordingHandler(latch);
+		AsyncHandler asyncHandler = new AsyncHandler(4, OverflowPolicy.DROP, recordingHandler);
+		for (int index = 0; index < 100; index++) {
+			asyncHandler.publish(new LogRecord(Level.FINE, "fine"));
+		}
+		assertThat(asyncHandler.getDroppedCount(), greaterThan(90L));
+		assertThat(asyncHandler.getDroppedCount(Level.FINE), equalTo(asyncHandler.getDroppedCount()));
+		latch.countDown();
+		asyncHandler.publish(new LogRecord(Level.SEVERE, "severe"));
+		asyncHandler.close();
+		String droppedMessage = null;
+		boolean severePublished = false;
+		for (LogRecord record : recordingHandler.records) {
+			if (record.getLevel() == Level.WARNING) {
+				droppedMessage = MessageFormatter.format(record.getMessage(), record.getParameters());
+			}
+			severePublished |= "severe".equals(record.getMessage());
+		}
+		assertThat(severePublished, equalTo(true));
+		assertThat(droppedMessage, containsString(asyncHandler.getDroppedCount() + " log records"));
+	}
+
+	@Test
+	public void sampledRecordsAreKeptWhenBufferIsFull() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		RecordingHandler recordingHandler = new RecordingHandler(latch);
+		final AsyncHandler asyncHandler = new AsyncHandler(4, OverflowPolicy.SAMPLE, recordingHandler);
+		asyncHandler.setSampleRate(10);
+		Thread producer = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				for (int index = 0; index < 100; index++) {
+					asyncHandler.publish(new LogRecord(Level.FINE, "fine"));
+				}
+			}
+		});
+		producer.start();
+		producer.join(100);
+		latch.countDown();
+		producer.join(TimeUnit.SECONDS.toMillis(5));
+		asyncHandler.close();
+		long published = 0;
+		for (LogRecord record : recordingHandler.records) {
+			if (record.getLevel() == Level.FINE) {
+				published++;
+			}
+		}
+		assertThat(published + asyncHandler.getDroppedCount(), equalTo(100L));
+		assertThat(published, greaterThan(5L));
+		assertThat(asyncHandler.getDroppedCount(), greaterThan(0L));
+	}
+
+	@Test
+	public void flushWaitsUntilRecordsHaveBeenPublished() throws Exception {
+		RecordingHandler recordingHandler = new RecordingHandler(null) {
+
+			@Override
+			public void publish(LogRecord record) {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException ie1) {
+					/* ignore. */
+				}
+				super.publish(record);
+			}
+		};
+		AsyncHandler asyncHandler = new AsyncHandler(recordingHandler);
+		asyncHandler.publish(new LogRecord(Level.INFO, "test"));
+		while (asyncHandler.getQueuedCount() > 0) {
+			Thread.yield();
+		}
+		asyncHandler.flush();
+		assertThat(recordingHandler.records.size(), equalTo(1));
+		asyncHandler.close();
+	}
+
+	@Test
+	public void logFormatterUsesNameOfLoggingThread() throws Exception {
+		final LogFormatter logFormatter = new LogFormatter();
+		final List<String> formattedRecords = new CopyOnWriteArrayList<String>();
+		AsyncHandler asyncHandler = new AsyncHandler(new RecordingHandler(null) {
+
+			@Override
+			public void publish(LogRecord record) {
+				formattedRecords.add(logFormatter.format(record));
+			}
+		});
+		asyncHandler.publish(new LogRecord(Level.INFO, "test"));
+		asyncHandler.close();
+		assertThat(formattedRecords.get(0), containsString("[" + Thread.currentThread().getName() + "]"));
+	}
+
+	@Test
+	public void failingFlushDoesNotStopPublishing() throws Exception {
+		RecordingHandler recordingHandler = new RecordingHandler(null) {
+
+			@Override
+			public void flush() {
+				throw new IllegalStateException("flush failed");
+			}
+		};
+		AsyncHandler asyncHandler = new AsyncHandler(recordingHandler);
+		asyncHandler.setErrorManager(new ErrorManager() {
+
+			@Override
+			public synchronized void error(String message, Exception exception, int code) {
+				/* ignore. */
+			}
+		});
+		asyncHandler.publish(new LogRecord(Level.INFO, "first"));
+		asyncHandler.flush();
+		asyncHandler.publish(new LogRecord(Level.INFO, "second"));
+		asyncHandler.flush();
+		assertThat(recordingHandler.records.size(), equalTo(2));
+		asyncHandler.close();
+	}
+
+	@Test
+	public void recordsLoggedByTargetHandlersDoNotBlockWhenBufferIsFull() throws Exception {
+		final AsyncHandler[] asyncHandler = new AsyncHandler[1];
+		RecordingHandler recordingHandler = new RecordingHandler(null) {
+
+			@Override
+			public void publish(LogRecord record) {
+				super.publish(record);
+				if (record.getMessage().equals("outer")) {
+					for (int index = 0; index < 4; index++) {
+						asyncHandler[0].publish(new LogRecord(Level.SEVERE, "inner"));
+					}
+				}
+			}
+		};
+		asyncHandler[0] = new AsyncHandler(2, OverflowPolicy.BLOCK, recordingHandler);
+		asyncHandler[0].publish(new LogRecord(Level.INFO, "outer"));
+		asyncHandler[0].flush();
+		asyncHandler[0].close();
+		assertThat(asyncHandler[0].getDroppedCount(), equalTo(2L));
+		assertThat(recordingHandler.records.size(), greaterThan(2));
+	}
+
+	/**
+	 * Handler that records all published records.
+	 */
+	private static class RecordingHandler extends Handler {
+
+		private final CountDownLatch latch;
+		final List<LogRecord> records = new CopyOnWriteArrayList<LogRecord>();
+		final List<String> threadNames = new CopyOnWriteArrayList<String>();
+
+		RecordingHandler(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void publish(LogRecord record) {
+			if (latch != null) {
+				try {
+					latch.await();
+				} catch (InterruptedException ie1) {
+					/* ignore. */
+				}
+			}
+			records.add(record);
+			threadNames.add(Thread.currentThread().getName());
+		}
+
+		@Override
+		public void flush() {
+			/* do nothing. */
+		}
+
+		@Override
+		public void close() {
+			/* do nothing. */
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * utils - LoggingTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.logging;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link Logging}.
+ */
+public class LoggingTest {
+
+	@Test
+	public void loggedRecordsHaveParametersAndCallerAsSource() {
+		final List<LogRecord> logRecords = new ArrayList<LogRecord>();
+		final List<String> sources = new ArrayList<String>();
+		Logger logger = Logger.getAnonymousLogger();
+		logger.setUseParentHandlers(false);
+		logger.setLevel(Level.FINE);
+		logger.addHandler(new Handler() {
+
+			@Override
+			public void publish(LogRecord record) {
+				logRecords.add(record);
+				sources.add(record.getSourceClassName() + "." + record.getSourceMethodName());
+			}
+
+			@Override
+			public void flush() {
+				/* do nothing. */
+			}
+
+			@Override
+			public void close() {
+				/* do nothing. */
+			}
+		});
+		Logging.log(logger, Level.FINEST, "ignored", "a");
+		Logging.log(logger, Level.FINE, "logged", "a", 2);
+		assertThat(logRecords.size(), equalTo(1));
+		assertThat(logRecords.get(0).getParameters(), equalTo(new Object[] { "a", 2 }));
+		assertThat(sources.get(0), equalTo(LoggingTest.class.getName() + ".loggedRecordsHaveParametersAndCallerAsSource"));
+		assertThat(logRecords.get(0).getSourceClassName(), equalTo(LoggingTest.class.getName()));
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * utils - MessageFormatterTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.logging;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.math.BigInteger;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link MessageFormatter}.
+ */
+public class MessageFormatterTest {
+
+	@Test
+	public void simpleMessagesAreFormattedLikeStringFormat() {
+		verify("no specifiers", (Object[]) null);
+		verify("[%s] Adding Storable %s…", "storage", null);
+		verify("%d%% done%n", 42L);
+		verify("attribute: “%1$s”, value: “%2$s”", "a", "b");
+		verify("%2$s %s %1$s %s", "first", "second");
+		verify("%d %d %d", (byte) 1, BigInteger.TEN, null);
+	}
+
+	@Test
+	public void otherMessagesAreFormattedLikeStringFormat() {
+		verify("%5s|%-3d|%.2f", "a", 7, 1.5);
+		verify("%d", 1.5);
+		verify("%x", 255);
+	}
+
+	@Test
+	public void invalidMessageIsReturnedUnchanged() {
+		assertThat(MessageFormatter.format("%s and %s", new Object[] { "one" }), equalTo("%s and %s"));
+		assertThat(MessageFormatter.format("100%", null), equalTo("100%"));
+	}
+
+	private static void verify(String message, Object... parameters) {
+		String expected;
+		try {
+			expected = String.format(message, parameters);
+		} catch (IllegalArgumentException iae1) {
+			expected = message;
+		}
+		assertThat(MessageFormatter.format(message, parameters), equalTo(expected));
+		assertThat(MessageFormatter.format(message, parameters), equalTo(expected));
+	}
+
+}
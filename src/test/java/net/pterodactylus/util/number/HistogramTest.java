@@ -0,0 +1,77 @@
+/*
+ * utils - HistogramTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.number;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link Histogram}.
+ */
+public class HistogramTest {
+
+	private final Histogram histogram = new Histogram();
+
+	@Test
+	public void emptyHistogramReturnsZeroes() {
+		assertThat(histogram.getCount(), equalTo(0L));
+		assertThat(histogram.getMean(), equalTo(0.0));
+		assertThat(histogram.getPercentile(50), equalTo(0L));
+	}
+
+	@Test
+	public void countSumMeanAndMaximumAreTracked() {
+		histogram.record(2);
+		histogram.record(4);
+		histogram.record(9);
+		assertThat(histogram.getCount(), equalTo(3L));
+		assertThat(histogram.getSum(), equalTo(15L));
+		assertThat(histogram.getMean(), equalTo(5.0));
+		assertThat(histogram.getMaximum(), equalTo(9L));
+	}
+
+	@Test
+	public void percentilesReturnUpperBoundOfBucket() {
+		for (int value = 0; value < 90; ++value) {
+			histogram.record(1);
+		}
+		for (int value = 0; value < 10; ++value) {
+			histogram.record(1000);
+		}
+		assertThat(histogram.getPercentile(50), equalTo(1L));
+		assertThat(histogram.getPercentile(90), equalTo(1L));
+		assertThat(histogram.getPercentile(99), equalTo(1000L));
+	}
+
+	@Test
+	public void valuesAreSortedIntoPowerOfTwoBuckets() {
+		histogram.record(0);
+		histogram.record(1);
+		histogram.record(2);
+		histogram.record(3);
+		histogram.record(4);
+		long[] buckets = histogram.getBuckets();
+		assertThat(buckets[0], equalTo(1L));
+		assertThat(buckets[1], equalTo(1L));
+		assertThat(buckets[2], equalTo(2L));
+		assertThat(buckets[3], equalTo(1L));
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * utils - AbstractServiceTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Unit test for the instrumentation of {@link AbstractService}.
+ */
+public class AbstractServiceTest {
+
+	@Test
+	public void newServiceHasNoStatistics() {
+		ServiceMBean service = new TestService();
+		assertThat(service.getIterations(), equalTo(0L));
+		assertThat(service.getRunTime(), equalTo(0L));
+		assertThat(service.getSleepTime(), equalTo(0L));
+		assertThat(service.getRestarts(), equalTo(0));
+		assertThat(service.getLastFailure(), nullValue());
+		assertThat(service.getTimeOnline(), equalTo(0L));
+	}
+
+	@Test
+	public void iterationsFailureAndRestartAreExposed() throws InterruptedException {
+		TestService testService = new TestService();
+		ServiceMBean service = testService;
+		testService.start();
+		assertThat(testService.stopped.tryAcquire(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(service.getState(), equalTo(State.offline));
+		assertThat(service.getLastFailure(), equalTo("java.lang.IllegalStateException: failed"));
+		assertThat(service.getAction(), equalTo("failed"));
+		assertThat(service.getIterations(), equalTo(3L));
+		assertThat(service.getRunTime(), greaterThanOrEqualTo(25L));
+		assertThat(service.getSleepTime(), greaterThanOrEqualTo(25L));
+		assertThat(service.getTimeOnline(), greaterThanOrEqualTo(50L));
+		assertThat(service.getRestarts(), equalTo(0));
+
+		long onlineAfterFailure = service.getTimeOnline();
+		Thread.sleep(20);
+		testService.start();
+		assertThat(testService.waiting.tryAcquire(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(service.getState(), equalTo(State.online));
+		testService.stop();
+		assertThat(testService.stopped.tryAcquire(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(service.getRestarts(), equalTo(1));
+		assertThat(service.getIterations(), greaterThanOrEqualTo(6L));
+		assertThat(service.getTimeOnline(), greaterThan(onlineAfterFailure));
+		assertThat(service.getTimeOffline(), greaterThanOrEqualTo(20L));
+		assertThat(service.getLastFailure(), equalTo("java.lang.IllegalStateException: failed"));
+	}
+
+	private static class TestService extends AbstractService implements ServiceListener {
+
+		private final AtomicInteger runs = new AtomicInteger();
+		private final Semaphore waiting = new Semaphore(0);
+		private final Semaphore stopped = new Semaphore(0);
+
+		public TestService() {
+			super("Test Service", false);
+			addServiceListener(this);
+		}
+
+		@Override
+		protected void serviceRun() {
+			int run = runs.incrementAndGet();
+			for (int iteration = 0; iteration < 3; iteration++) {
+				try {
+					Thread.sleep(10);
+				} catch (InterruptedException ie1) {
+					/* ignore. */
+				}
+				sleep(10);
+			}
+			if (run == 1) {
+				throw new IllegalStateException("failed");
+			}
+			waiting.release();
+			while (!shouldStop()) {
+				sleep(0);
+			}
+		}
+
+		@Override
+		public void serviceStarted(Service service) {
+			/* ignore. */
+		}
+
+		@Override
+		public void serviceStateChanged(Service service, State oldState, State newState) {
+			/* ignore. */
+		}
+
+		@Override
+		public void serviceStopped(Service service, Throwable cause) {
+			stopped.release();
+		}
+
+	}
+
+}
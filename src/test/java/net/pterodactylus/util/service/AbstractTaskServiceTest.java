@@ -0,0 +1,118 @@
+/*
+ * utils - AbstractTaskServiceTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.service;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link AbstractTaskService}.
+ */
+public class AbstractTaskServiceTest {
+
+	@Test
+	public void serviceRunsStepsUntilStopped() throws InterruptedException {
+		final CountDownLatch stepsDone = new CountDownLatch(3);
+		TestService testService = new TestService(stepsDone, 1);
+		testService.start();
+		assertThat(stepsDone.await(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(testService.getState(), equalTo(State.online));
+		testService.stop();
+		assertThat(testService.stopped.await(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(testService.getState(), equalTo(State.offline));
+		assertThat(testService.started.get(), equalTo(1));
+		assertThat(testService.getIterations(), greaterThanOrEqualTo(3L));
+		assertThat(testService.getRestarts(), equalTo(0));
+	}
+
+	@Test
+	public void waitingServiceIsWokenUpByNotification() throws InterruptedException {
+		final CountDownLatch stepsDone = new CountDownLatch(2);
+		TestService testService = new TestService(stepsDone, AbstractTaskService.WAIT_FOR_NOTIFICATION);
+		testService.start();
+		Thread.sleep(50);
+		assertThat(stepsDone.getCount(), equalTo(1L));
+		testService.notifySyncObject();
+		assertThat(stepsDone.await(5, TimeUnit.SECONDS), equalTo(true));
+		testService.stop();
+		assertThat(testService.stopped.await(5, TimeUnit.SECONDS), equalTo(true));
+	}
+
+	@Test
+	public void exceptionInStepStopsService() throws InterruptedException {
+		TestService testService = new TestService(new CountDownLatch(0), -2);
+		testService.start();
+		assertThat(testService.stopped.await(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(testService.cause.get().getMessage(), equalTo("failed"));
+		assertThat(testService.getLastFailure(), equalTo("java.lang.IllegalStateException: failed"));
+		assertThat(testService.steps.get(), greaterThanOrEqualTo(1));
+	}
+
+	private static class TestService extends AbstractTaskService implements ServiceListener {
+
+		private final CountDownLatch stepsDone;
+		private final long delay;
+		private final AtomicInteger steps = new AtomicInteger();
+		private final AtomicInteger started = new AtomicInteger();
+		private final CountDownLatch stopped = new CountDownLatch(1);
+		private final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+
+		public TestService(CountDownLatch stepsDone, long delay) {
+			super("Test Service", false);
+			this.stepsDone = stepsDone;
+			this.delay = delay;
+			addServiceListener(this);
+		}
+
+		@Override
+		protected long serviceStep() {
+			steps.incrementAndGet();
+			stepsDone.countDown();
+			if (delay == -2) {
+				throw new IllegalStateException("failed");
+			}
+			return delay;
+		}
+
+		@Override
+		public void serviceStarted(Service service) {
+			started.incrementAndGet();
+		}
+
+		@Override
+		public void serviceStateChanged(Service service, State oldState, State newState) {
+			/* ignore. */
+		}
+
+		@Override
+		public void serviceStopped(Service service, Throwable cause) {
+			this.cause.set(cause);
+			stopped.countDown();
+		}
+
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * utils - ServicesCommandTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.telnet;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import net.pterodactylus.util.service.ServiceMBean;
+import net.pterodactylus.util.service.State;
+import net.pterodactylus.util.telnet.Command.Reply;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link ServicesCommand}.
+ */
+public class ServicesCommandTest {
+
+	@Test
+	public void statisticsOfServicesAreShown() {
+		ServicesCommand servicesCommand = new ServicesCommand();
+		servicesCommand.addService(new TestService("Worker", null));
+		Reply reply = servicesCommand.execute(Collections.<String> emptyList());
+		assertThat(reply.getStatus(), equalTo(Reply.OK));
+		assertThat(reply.getLines(), contains("Worker: online, working", "  Iterations: 42, running 1.5s, sleeping 0.25s", "  Time: 3s online, 2s offline, 0.1s starting, 0s stopping", "  Restarts: 0"));
+	}
+
+	@Test
+	public void lastFailureIsShown() {
+		ServicesCommand servicesCommand = new ServicesCommand();
+		servicesCommand.addService(new TestService("Worker", "java.lang.IllegalStateException: failed"));
+		Reply reply = servicesCommand.execute(Collections.<String> emptyList());
+		assertThat(reply.getLines().get(3), equalTo("  Restarts: 2, last failure: java.lang.IllegalStateException: failed"));
+	}
+
+	@Test
+	public void onlyServicesWithGivenPrefixAreShown() {
+		ServicesCommand servicesCommand = new ServicesCommand();
+		servicesCommand.addService(new TestService("Worker", null));
+		servicesCommand.addService(new TestService("Cleaner", null));
+		Reply reply = servicesCommand.execute(Arrays.asList("Clean"));
+		assertThat(reply.getLines().size(), equalTo(4));
+		assertThat(reply.getLines().get(0), equalTo("Cleaner: online, working"));
+	}
+
+	@Test
+	public void missingServicesAreReported() {
+		ServicesCommand servicesCommand = new ServicesCommand();
+		servicesCommand.addService(new TestService("Worker", null));
+		Reply reply = servicesCommand.execute(Arrays.asList("Cleaner"));
+		assertThat(reply.getStatus(), equalTo(Reply.NOT_FOUND));
+	}
+
+	private static class TestService implements ServiceMBean {
+
+		private final String name;
+		private final String lastFailure;
+
+		public TestService(String name, String lastFailure) {
+			this.name = name;
+			this.lastFailure = lastFailure;
+		}
+
+		@Override
+		public void start() {
+			/* do nothing. */
+		}
+
+		@Override
+		public void stop() {
+			/* do nothing. */
+		}
+
+		@Override
+		public State getState() {
+			return State.online;
+		}
+
+		@Override
+		public String getAction() {
+			return "working";
+		}
+
+		@Override
+		public long getIterations() {
+			return 42;
+		}
+
+		@Override
+		public long getRunTime() {
+			return 1500;
+		}
+
+		@Override
+		public long getSleepTime() {
+			return 250;
+		}
+
+		@Override
+		public long getTimeOffline() {
+			return 2000;
+		}
+
+		@Override
+		public long getTimeStarting() {
+			return 100;
+		}
+
+		@Override
+		public long getTimeOnline() {
+			return 3000;
+		}
+
+		@Override
+		public long getTimeStopping() {
+			return 0;
+		}
+
+		@Override
+		public int getRestarts() {
+			return (lastFailure != null) ? 2 : 0;
+		}
+
+		@Override
+		public String getLastFailure() {
+			return lastFailure;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+
+	}
+
+}
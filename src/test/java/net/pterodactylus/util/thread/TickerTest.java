@@ -0,0 +1,203 @@
+/*
+ * utils - TickerTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.thread;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link Ticker}.
+ */
+public class TickerTest {
+
+	private final Ticker ticker = new Ticker();
+
+	@After
+	public void stopTicker() {
+		ticker.stop();
+	}
+
+	@Test
+	public void eventIsExecutedNotBeforeItsExecutionTime() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicLong executed = new AtomicLong();
+		long executionTime = System.currentTimeMillis() + 50;
+		ticker.registerEvent(executionTime, new Runnable() {
+
+			@Override
+			public void run() {
+				executed.set(System.currentTimeMillis());
+				latch.countDown();
+			}
+		}, "test");
+		assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(executed.get(), greaterThanOrEqualTo(executionTime));
+	}
+
+	@Test
+	public void eventsBeyondOneRoundOfTheWheelAreExecuted() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		Object event = ticker.registerEvent(System.currentTimeMillis() + 100000, new CountDownRunnable(latch), "far");
+		ticker.changeExecutionTime(event, System.currentTimeMillis() + 20);
+		assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+	}
+
+	@Test
+	public void deregisteredEventsAreNotExecuted() throws InterruptedException {
+		final AtomicInteger executions = new AtomicInteger();
+		final CountDownLatch executed = new CountDownLatch(500);
+		final CountDownLatch latch = new CountDownLatch(1);
+		long now = System.currentTimeMillis();
+		for (int index = 0; index < 1000; index++) {
+			Object event = ticker.registerEvent(now + 100 + (index % 50), new Runnable() {
+
+				@Override
+				public void run() {
+					executions.incrementAndGet();
+					executed.countDown();
+				}
+			}, "event-" + index);
+			if ((index % 2) == 0) {
+				ticker.deregisterEvent(event);
+			}
+		}
+		ticker.registerEvent(now + 300, new CountDownRunnable(latch), "last");
+		assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(executed.await(5, TimeUnit.SECONDS), equalTo(true));
+		assertThat(executions.get(), equalTo(500));
+	}
+
+	@Test
+	public void executedEventsAreCounted() throws InterruptedException {
+		final CountDownLatch latch = new CountDownLatch(1);
+		ticker.registerEvent(System.currentTimeMillis(), new CountDownRunnable(latch), "Counted-1");
+		assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+		Thread.sleep(50);
+		assertThat(ticker.getExecutedEvents(), equalTo(1L));
+		assertThat(ticker.getPendingEvents(), equalTo(0));
+		assertThat(ticker.getExecutionTimeHistograms().get("Counted").getCount(), equalTo(1L));
+	}
+
+	@Test
+	public void rejectedEventsAreRetriedOnTheNextTick() throws InterruptedException {
+		final AtomicInteger rejections = new AtomicInteger(3);
+		Ticker rejectingTicker = new Ticker(new DumpingThreadFactory(), new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				if (rejections.getAndDecrement() > 0) {
+					throw new RejectedExecutionException();
+				}
+				command.run();
+			}
+		});
+		try {
+			CountDownLatch latch = new CountDownLatch(1);
+			rejectingTicker.registerEvent(System.currentTimeMillis(), new CountDownRunnable(latch), "Rejected");
+			assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+			assertThat(rejectingTicker.getRejectedEvents(), greaterThan(0L));
+		} finally {
+			rejectingTicker.stop();
+		}
+	}
+
+	@Test
+	public void eventsRegisteredBySynchronouslyExecutedEventsRunOnTheNextTick() throws InterruptedException {
+		final Ticker synchronousTicker = new Ticker(new DumpingThreadFactory(), new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				command.run();
+			}
+		});
+		try {
+			final CountDownLatch latch = new CountDownLatch(1);
+			synchronousTicker.registerEvent(System.currentTimeMillis(), new Runnable() {
+
+				@Override
+				public void run() {
+					synchronousTicker.registerEvent(System.currentTimeMillis(), new CountDownRunnable(latch), "Second");
+				}
+			}, "First");
+			assertThat(latch.await(1, TimeUnit.SECONDS), equalTo(true));
+			assertThat(synchronousTicker.getPendingEvents(), equalTo(0));
+		} finally {
+			synchronousTicker.stop();
+		}
+	}
+
+	@Test
+	public void executionTimesAreExposedViaJmx() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		ticker.registerEvent(System.currentTimeMillis(), new CountDownRunnable(latch), "Jmx-1");
+		assertThat(latch.await(5, TimeUnit.SECONDS), equalTo(true));
+		Thread.sleep(50);
+		MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName("net.pterodactylus.util.thread:type=Ticker,name=TickerTest");
+		mBeanServer.registerMBean(ticker, objectName);
+		try {
+			TabularData executionTimes = (TabularData) mBeanServer.getAttribute(objectName, "ExecutionTimes");
+			CompositeData executionTime = executionTimes.get(new Object[] { "Jmx" });
+			assertThat((Long) executionTime.get("count"), equalTo(1L));
+			assertThat((Long) executionTime.get("maximum"), greaterThanOrEqualTo((Long) executionTime.get("percentile99")));
+		} finally {
+			mBeanServer.unregisterMBean(objectName);
+		}
+	}
+
+	@Test
+	public void eventPrefixEndsBeforeFirstDigit() {
+		assertThat(Ticker.getEventPrefix("Event-12"), equalTo("Event"));
+		assertThat(Ticker.getEventPrefix("Memory Item Cache Cleaner"), equalTo("Memory Item Cache Cleaner"));
+		assertThat(Ticker.getEventPrefix("123"), equalTo("123"));
+	}
+
+	private static class CountDownRunnable implements Runnable {
+
+		private final CountDownLatch latch;
+
+		public CountDownRunnable(CountDownLatch latch) {
+			this.latch = latch;
+		}
+
+		@Override
+		public void run() {
+			latch.countDown();
+		}
+
+	}
+
+}
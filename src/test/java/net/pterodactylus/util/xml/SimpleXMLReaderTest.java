@@ -0,0 +1,85 @@
+/*
+ * utils - SimpleXMLReaderTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.xml;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SimpleXMLReader} and {@link SimpleXMLWriter}.
+ */
+public class SimpleXMLReaderTest {
+
+	private static final String DOCUMENT = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<config version=\"2\"><!-- comment -->\n\t<name>Test &amp; more</name>\n\t<empty/>\n\t<ns:posts xmlns:ns=\"urn:test\">\n\t\t<post id=\"1\"><text>&lt;first&gt;</text></post>\n\t\t<post id=\"2\"><text>second</text></post>\n\t</ns:posts>\n</config>";
+
+	@Test
+	public void documentIsReadLikeFromDom() throws XMLStreamException {
+		SimpleXML streamedNode = SimpleXMLReader.read(new StringReader(DOCUMENT));
+		SimpleXML domNode = SimpleXML.fromDocument(XML.transformToDocument(DOCUMENT.getBytes()));
+		assertThat(toString(streamedNode), equalTo(toString(domNode)));
+		assertThat(streamedNode.getAttribute("version"), equalTo("2"));
+		assertThat(streamedNode.getValue("name"), equalTo("Test & more"));
+		assertThat(streamedNode.getNode("empty").getValue(), nullValue());
+		assertThat(streamedNode.getNode("ns:posts").getNodes("post")[1].getAttribute("id"), equalTo("2"));
+	}
+
+	@Test
+	public void writtenDocumentCanBeReadAgain() throws XMLStreamException {
+		SimpleXML node = new SimpleXML("root", "a", "<\"&>");
+		node.append("value", "1 < 2");
+		node.append("parent").append("child");
+		String written = toString(node);
+		assertThat(written, equalTo("<root a=\"&lt;&quot;&amp;&gt;\"><value>1 &lt; 2</value><parent><child/></parent></root>"));
+		assertThat(toString(SimpleXMLReader.read(new StringReader(written))), equalTo(written));
+	}
+
+	@Test
+	public void nodesAtGivenDepthAreStreamed() throws XMLStreamException {
+		final List<String> texts = new ArrayList<String>();
+		SimpleXMLReader.stream(new StringReader(DOCUMENT), 2, new SimpleXMLListener() {
+
+			@Override
+			public void nodeRead(String[] path, SimpleXML node) {
+				if (node.getName().equals("post")) {
+					assertThat(path, arrayContaining("config", "ns:posts"));
+					texts.add(node.getValue("text"));
+				}
+			}
+		});
+		assertThat(texts, equalTo(Arrays.asList("<first>", "second")));
+	}
+
+	private static String toString(SimpleXML node) throws XMLStreamException {
+		StringWriter writer = new StringWriter();
+		SimpleXMLWriter.write(node, writer, false);
+		return writer.toString();
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * utils - SimpleXMLTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.xml;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import org.junit.Test;
+
+/**
+ * Unit test for {@link SimpleXML}.
+ */
+public class SimpleXMLTest {
+
+	@Test
+	public void indexedLookupFollowsChanges() {
+		SimpleXML root = new SimpleXML("root");
+		for (int index = 0; index < 100; index++) {
+			root.append("node" + (index % 10), String.valueOf(index));
+		}
+		assertThat(root.getValue("node3"), equalTo("3"));
+		assertThat(root.getNodes("node3"), arrayWithSize(10));
+		root.remove("node3");
+		assertThat(root.getValue("node3"), equalTo("13"));
+		root.replace("node3", "new");
+		assertThat(root.getNodes("node3"), arrayWithSize(9));
+		assertThat(root.getNodes("node3")[8].getValue(), equalTo("new"));
+		SimpleXML newNode = root.append("other");
+		assertThat(root.getNode("other"), sameInstance(newNode));
+		root.remove(newNode);
+		assertThat(root.hasNode("other"), equalTo(false));
+		root.removeAll();
+		assertThat(root.getNode("node1"), nullValue());
+		assertThat(root.getNodes(), arrayWithSize(0));
+	}
+
+	@Test
+	public void pathIsSplitAndResolved() {
+		String[] path = SimpleXML.splitPath("/a|b//c");
+		assertThat(path, arrayContaining("a", "b", "c"));
+		SimpleXML root = new SimpleXML("root");
+		assertThat(root.getNode(path), nullValue());
+		SimpleXML node = root.getNode(path, true);
+		assertThat(root.getNode("a").getNode("b").getNode("c"), sameInstance(node));
+		assertThat(root.getNode(path), sameInstance(node));
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * utils - XMLTest.java - Copyright © 2019 David Roden
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.pterodactylus.util.xml;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Unit test for {@link XML}.
+ */
+public class XMLTest {
+
+	@Test
+	public void invalidDocumentIsNotParsed() {
+		assertThat(XML.transformToDocument("<root>".getBytes()), nullValue());
+		assertThat(XML.transformToDocument("<root/>".getBytes()), not(nullValue()));
+	}
+
+	@Test
+	public void documentsCanBeParsedAndWrittenConcurrently() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(8);
+		List<Future<String>> results = new ArrayList<Future<String>>();
+		for (int task = 0; task < 64; task++) {
+			final String xml = "<root><value>" + task + "</value></root>";
+			results.add(executorService.submit(new Callable<String>() {
+
+				@Override
+				public String call() {
+					String written = null;
+					for (int iteration = 0; iteration < 50; iteration++) {
+						Document document = XML.transformToDocument(xml.getBytes());
+						StringWriter writer = new StringWriter();
+						XML.writeToOutputStream(document, writer, false);
+						written = writer.toString();
+					}
+					return written;
+				}
+			}));
+		}
+		for (int task = 0; task < results.size(); task++) {
+			assertThat(results.get(task).get(), equalTo("<root><value>" + task + "</value></root>"));
+		}
+		executorService.shutdown();
+	}
+
+}